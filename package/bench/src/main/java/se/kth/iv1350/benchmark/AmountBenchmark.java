@@ -0,0 +1,95 @@
+package se.kth.iv1350.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.util.AmountAccumulator;
+
+/**
+ * Measures the {@link Amount} operations used for each scanned item, and formatting an amount.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AmountBenchmark {
+    private Amount price;
+    private Amount total;
+    private AmountAccumulator accumulator;
+
+    /**
+     * Creates the amounts. They are fields, so that the JIT compiler can not fold the results.
+     */
+    @Setup
+    public void setUp() {
+        price = new Amount(29.90, "SEK");
+        total = new Amount(1234.56, "SEK");
+        accumulator = new AmountAccumulator("SEK");
+    }
+
+    /**
+     * Adds two amounts.
+     * @return The sum.
+     */
+    @Benchmark
+    public Amount add() {
+        return total.add(price);
+    }
+
+    /**
+     * Subtracts an amount from another.
+     * @return The difference.
+     */
+    @Benchmark
+    public Amount subtract() {
+        return total.subtract(price);
+    }
+
+    /**
+     * Multiplies an amount by a quantity.
+     * @return The product.
+     */
+    @Benchmark
+    public Amount multiplyByQuantity() {
+        return price.multiply(3);
+    }
+
+    /**
+     * Calculates the VAT of an amount.
+     * @return The VAT.
+     */
+    @Benchmark
+    public Amount applyVATRate() {
+        return price.applyRate(0.25);
+    }
+
+    /**
+     * Adds an amount to a running total.
+     * @return The running total in minor units.
+     */
+    @Benchmark
+    public long addToAccumulator() {
+        accumulator.add(price);
+        return accumulator.getMinorUnits();
+    }
+
+    /**
+     * Formats an amount the way it is shown to the cashier and on receipts.
+     * @return The formatted amount.
+     */
+    @Benchmark
+    public String format() {
+        return total.toString();
+    }
+}
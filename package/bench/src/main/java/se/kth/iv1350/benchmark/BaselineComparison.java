@@ -0,0 +1,139 @@
+package se.kth.iv1350.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the results of a benchmark run with a stored baseline. Both files are JMH results in
+ * CSV format, written with {@code -rf csv}. The score of each benchmark, and its allocation per
+ * operation if the run used {@code -prof gc}, are printed with the change from the baseline.
+ * <p>
+ * Run with {@code BaselineComparison <baseline.csv> <results.csv> [threshold percent]}. The exit
+ * status is 1 if any result is worse than the baseline by more than the threshold, which is
+ * {@value #DEFAULT_THRESHOLD_PERCENT} percent by default.
+ */
+public class BaselineComparison {
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+    private static final String ALLOCATION_METRIC = ":gc.alloc.rate.norm";
+    private static final double ALLOCATION_TOLERANCE_BYTES = 8;
+
+    /**
+     * Compares the results and prints the comparison.
+     * @param args The baseline file, the results file and optionally the threshold in percent.
+     * @throws IOException If a file could not be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparison <baseline.csv> <results.csv> [threshold percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        Map<String, Result> baseline = readResults(Path.of(args[0]));
+        Map<String, Result> current = readResults(Path.of(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-80s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-80s %14s %14.3f %9s  %s%n", entry.getKey(), "-", now.score, "new", now.unit);
+                continue;
+            }
+            double changePercent = before.score == 0 ? 0 : (now.score - before.score) / before.score * 100;
+            boolean regression = isRegression(before, now, threshold);
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf("%-80s %14.3f %14.3f %+8.1f%%  %s%s%n", entry.getKey(), before.score, now.score,
+                    changePercent, now.unit, regression ? "  REGRESSION" : "");
+        }
+        System.out.println(regressions + " regression(s) beyond " + threshold + "%.");
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    private static boolean isRegression(Result before, Result now, double thresholdPercent) {
+        double allowedChange = Math.abs(before.score) * thresholdPercent / 100;
+        double worsening = now.higherIsBetter ? before.score - now.score : now.score - before.score;
+        if (now.allocation) {
+            allowedChange = Math.max(allowedChange, ALLOCATION_TOLERANCE_BYTES);
+        }
+        return worsening > allowedChange;
+    }
+
+    private static Map<String, Result> readResults(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        List<String> header = parseLine(lines.get(0));
+        int benchmarkColumn = header.indexOf("Benchmark");
+        int modeColumn = header.indexOf("Mode");
+        int scoreColumn = header.indexOf("Score");
+        int unitColumn = header.indexOf("Unit");
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = parseLine(line);
+            String benchmark = fields.get(benchmarkColumn);
+            boolean allocation = benchmark.endsWith(ALLOCATION_METRIC);
+            if (benchmark.contains(":") && !allocation) {
+                continue;
+            }
+            StringBuilder key = new StringBuilder(benchmark.replace("se.kth.iv1350.benchmark.", ""));
+            for (int column = 0; column < header.size(); column++) {
+                String name = header.get(column);
+                if (name.startsWith("Param: ") && column < fields.size() && !fields.get(column).isEmpty()) {
+                    key.append(' ').append(name.substring("Param: ".length())).append('=').append(fields.get(column));
+                }
+            }
+            double score = Double.parseDouble(fields.get(scoreColumn).replace(',', '.'));
+            boolean higherIsBetter = !allocation && fields.get(modeColumn).equals("thrpt");
+            results.put(key.toString(), new Result(score, fields.get(unitColumn), higherIsBetter, allocation));
+        }
+        return results;
+    }
+
+    private static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static final class Result {
+        private final double score;
+        private final String unit;
+        private final boolean higherIsBetter;
+        private final boolean allocation;
+
+        Result(double score, String unit, boolean higherIsBetter, boolean allocation) {
+            this.score = score;
+            this.unit = unit;
+            this.higherIsBetter = higherIsBetter;
+            this.allocation = allocation;
+        }
+    }
+}
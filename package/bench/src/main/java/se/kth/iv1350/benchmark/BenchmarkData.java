@@ -0,0 +1,26 @@
+package se.kth.iv1350.benchmark;
+
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.util.Amount;
+
+/**
+ * Creates the items used by the benchmarks.
+ */
+final class BenchmarkData {
+    private BenchmarkData() {
+    }
+
+    /**
+     * Creates items with distinct IDs, prices between 1:00 and 50:99 SEK and alternating VAT rates.
+     * @param count The number of items to create.
+     * @return The items, with the IDs {@code item0}, {@code item1} and so on.
+     */
+    static ItemDTO[] createItems(int count) {
+        ItemDTO[] items = new ItemDTO[count];
+        for (int i = 0; i < count; i++) {
+            items[i] = new ItemDTO("item" + i, "Item " + i, "Benchmark item " + i,
+                    Amount.ofMinorUnits(100 + i % 5000, "SEK"), i % 2 == 0 ? 0.06 : 0.25);
+        }
+        return items;
+    }
+}
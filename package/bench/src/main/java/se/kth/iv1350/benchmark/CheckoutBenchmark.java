@@ -0,0 +1,91 @@
+package se.kth.iv1350.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import se.kth.iv1350.controller.Controller;
+import se.kth.iv1350.controller.OperationFailedException;
+import se.kth.iv1350.controller.SaleHandle;
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.integration.AccountingSystem;
+import se.kth.iv1350.integration.DiscountDatabase;
+import se.kth.iv1350.integration.InMemoryItemCatalog;
+import se.kth.iv1350.integration.InventorySystem;
+import se.kth.iv1350.integration.ItemNotFoundException;
+import se.kth.iv1350.integration.Printer;
+import se.kth.iv1350.model.Register;
+import se.kth.iv1350.util.Amount;
+
+/**
+ * Measures a whole checkout through the {@link Controller}: starting a sale, scanning items,
+ * and paying, which registers the sale, updates the inventory and prints the receipt. Receipts
+ * are rendered by a printer that discards them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CheckoutBenchmark {
+    private static final int CATALOG_SIZE = 1000;
+
+    @Param({"1", "10", "50"})
+    private int scansPerSale;
+
+    private Controller controller;
+    private String[] itemIDs;
+    private Amount payment;
+    private int nextItem;
+
+    /**
+     * Creates the controller and its integration objects, with a printer that discards the receipts.
+     */
+    @Setup
+    public void setUp() {
+        ItemDTO[] items = BenchmarkData.createItems(CATALOG_SIZE);
+        itemIDs = new String[CATALOG_SIZE];
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            itemIDs[i] = items[i].getItemID();
+        }
+        controller = new Controller(new InventorySystem(new InMemoryItemCatalog(Arrays.asList(items))),
+                new AccountingSystem(), new DiscountDatabase(), Printer.discardingReceipts(), new Register());
+        payment = new Amount(1_000_000, "SEK");
+    }
+
+    /**
+     * Stops the controller.
+     * @throws InterruptedException If interrupted while waiting for the revenue observers.
+     */
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        controller.shutdown();
+    }
+
+    /**
+     * Runs one checkout.
+     * @return The change.
+     * @throws ItemNotFoundException Never, all scanned items exist.
+     * @throws OperationFailedException If an item could not be retrieved.
+     */
+    @Benchmark
+    public Amount checkout() throws ItemNotFoundException, OperationFailedException {
+        SaleHandle sale = controller.startSale();
+        for (int i = 0; i < scansPerSale; i++) {
+            controller.enterItem(sale, itemIDs[nextItem++ % CATALOG_SIZE], 1);
+        }
+        controller.endSale(sale);
+        return controller.enterPayment(sale, payment);
+    }
+}
@@ -0,0 +1,113 @@
+package se.kth.iv1350.benchmark;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import se.kth.iv1350.dto.DiscountDTO;
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.integration.CustomerDiscountIndex;
+import se.kth.iv1350.model.Sale;
+import se.kth.iv1350.util.Amount;
+
+/**
+ * Measures the lookup of customers in a {@link CustomerDiscountIndex} of a million customers with
+ * a discount, both for customers in the index and for the more common customers without a
+ * discount, and the calculation of a discount for a basket of 200 lines.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Thread)
+public class DiscountBenchmark {
+    private static final int CUSTOMERS_WITH_DISCOUNT = 1_000_000;
+    private static final int BASKET_LINES = 200;
+    private static final int LOOKUP_ORDER_LENGTH = 1 << 16;
+
+    private CustomerDiscountIndex index;
+    private String[] customersWithDiscount;
+    private String[] customersWithoutDiscount;
+    private List<DiscountDTO> basketDiscounts;
+    private Sale basket;
+    private int nextLookup;
+
+    /**
+     * Creates an index where every fifth customer is a member and every hundredth has a discount
+     * of their own, and looks up customers in a scattered order.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        DiscountDTO member = DiscountDTO.percentage("Member", 5, Set.of("tobacco"));
+        CustomerDiscountIndex.Builder builder = CustomerDiscountIndex.builder().addSegment("member", member);
+        for (int i = 0; i < CUSTOMERS_WITH_DISCOUNT; i++) {
+            String customerID = customerID(i * 5L);
+            builder.assignSegment(customerID, "member");
+            if (i % 20 == 0) {
+                builder.addCustomerDiscount(customerID,
+                        DiscountDTO.fixedAmount("Voucher", Amount.ofMinorUnits(1000 + i % 10, "SEK"), Set.of()));
+            }
+        }
+        index = builder.build();
+
+        customersWithDiscount = new String[LOOKUP_ORDER_LENGTH];
+        customersWithoutDiscount = new String[LOOKUP_ORDER_LENGTH];
+        for (int i = 0; i < LOOKUP_ORDER_LENGTH; i++) {
+            long scattered = (i * 2654435761L) % CUSTOMERS_WITH_DISCOUNT;
+            customersWithDiscount[i] = customerID(scattered * 5);
+            customersWithoutDiscount[i] = customerID(scattered * 5 + 1 + i % 4);
+        }
+
+        basket = new Sale();
+        ItemDTO[] items = BenchmarkData.createItems(BASKET_LINES);
+        for (int i = 0; i < items.length; i++) {
+            ItemDTO item = items[i];
+            basket.addItemToSale(new ItemDTO(item.getItemID(), item.getName(), item.getDescription(),
+                    item.getPrice(), item.getVatRate(), i % 10 == 0 ? "tobacco" : "groceries"), 1 + i % 3);
+        }
+        basketDiscounts = List.of(member,
+                DiscountDTO.fixedAmount("Voucher", new Amount(100, "SEK"), Set.of("tobacco")));
+    }
+
+    private static String customerID(long number) {
+        return String.format("%010d", number);
+    }
+
+    /**
+     * Looks up a customer who has a discount.
+     * @return The discounts of the customer.
+     */
+    @Benchmark
+    public List<DiscountDTO> findCustomerWithDiscount() {
+        return index.findDiscounts(customersWithDiscount[nextLookup++ & (LOOKUP_ORDER_LENGTH - 1)]);
+    }
+
+    /**
+     * Looks up a customer who has no discount, which is mostly answered by the Bloom filter.
+     * @return The empty list of discounts.
+     */
+    @Benchmark
+    public List<DiscountDTO> findCustomerWithoutDiscount() {
+        return index.findDiscounts(customersWithoutDiscount[nextLookup++ & (LOOKUP_ORDER_LENGTH - 1)]);
+    }
+
+    /**
+     * Chooses and applies the best of two discounts to a basket of {@value #BASKET_LINES} lines.
+     * @return The discounted total.
+     */
+    @Benchmark
+    public Amount applyDiscountsToBasket() {
+        return basket.applyDiscounts(basketDiscounts);
+    }
+}
@@ -0,0 +1,73 @@
+package se.kth.iv1350.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.integration.InMemoryItemCatalog;
+import se.kth.iv1350.integration.InventorySystem;
+import se.kth.iv1350.integration.ItemNotFoundException;
+
+/**
+ * Measures {@link InventorySystem#retrieveItemInfo(String)} for items that are in the catalog,
+ * and for item IDs that are not.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InventoryBenchmark {
+    private static final int CATALOG_SIZE = 100_000;
+    private static final int LOOKUP_ORDER_LENGTH = 1 << 16;
+
+    private InventorySystem inventorySystem;
+    private String[] itemIDs;
+    private int nextLookup;
+
+    /**
+     * Creates an inventory system with a large in-memory catalog.
+     */
+    @Setup
+    public void setUp() {
+        ItemDTO[] items = BenchmarkData.createItems(CATALOG_SIZE);
+        inventorySystem = new InventorySystem(new InMemoryItemCatalog(Arrays.asList(items)));
+        itemIDs = new String[LOOKUP_ORDER_LENGTH];
+        for (int i = 0; i < itemIDs.length; i++) {
+            itemIDs[i] = items[(int) ((i * 2654435761L) % CATALOG_SIZE)].getItemID();
+        }
+    }
+
+    /**
+     * Looks up an item that is in the catalog.
+     * @return The item.
+     * @throws ItemNotFoundException Never, all looked up items exist.
+     */
+    @Benchmark
+    public ItemDTO retrieveExistingItem() throws ItemNotFoundException {
+        return inventorySystem.retrieveItemInfo(itemIDs[nextLookup++ & (LOOKUP_ORDER_LENGTH - 1)]);
+    }
+
+    /**
+     * Looks up an item ID that is not in the catalog, as when a barcode is misread.
+     * @return The exception thrown by the lookup.
+     */
+    @Benchmark
+    public Object retrieveUnknownItem() {
+        try {
+            return inventorySystem.retrieveItemInfo("unknown");
+        } catch (ItemNotFoundException e) {
+            return e;
+        }
+    }
+}
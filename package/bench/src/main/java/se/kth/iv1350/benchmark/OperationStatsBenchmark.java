@@ -0,0 +1,82 @@
+package se.kth.iv1350.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.dto.SaleStateDTO;
+import se.kth.iv1350.model.Sale;
+import se.kth.iv1350.util.MetricsRegistry;
+import se.kth.iv1350.util.OperationStats;
+
+/**
+ * Measures what the {@link OperationStats} of the controller add to each call, by scanning an
+ * item that is already in the basket without statistics, with {@code start()} and
+ * {@code finish()}, and with {@code time()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OperationStatsBenchmark {
+    private OperationStats stats;
+    private Sale sale;
+    private ItemDTO item;
+
+    /**
+     * Creates the statistics and a sale that already holds the scanned item.
+     */
+    @Setup
+    public void setUp() {
+        stats = new MetricsRegistry().operation("controller.enterItem");
+        item = BenchmarkData.createItems(1)[0];
+        sale = new Sale();
+        sale.addItemToSale(item, 1);
+    }
+
+    /**
+     * Scans the item without recording statistics.
+     * @return The state of the sale, consumed by JMH.
+     */
+    @Benchmark
+    public SaleStateDTO scanWithoutStats() {
+        return sale.addItemToSale(item, 1);
+    }
+
+    /**
+     * Scans the item, measured with {@link OperationStats#start()} and
+     * {@link OperationStats#finish(long, boolean)}.
+     * @return The state of the sale, consumed by JMH.
+     */
+    @Benchmark
+    public SaleStateDTO scanWithStartAndFinish() {
+        long started = stats.start();
+        boolean succeeded = false;
+        try {
+            SaleStateDTO state = sale.addItemToSale(item, 1);
+            succeeded = true;
+            return state;
+        } finally {
+            stats.finish(started, succeeded);
+        }
+    }
+
+    /**
+     * Scans the item, measured with {@link OperationStats#time(OperationStats.Call)}.
+     * @return The state of the sale, consumed by JMH.
+     */
+    @Benchmark
+    public SaleStateDTO scanWithTime() {
+        return stats.time(() -> sale.addItemToSale(item, 1));
+    }
+}
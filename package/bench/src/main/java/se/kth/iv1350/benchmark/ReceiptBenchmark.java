@@ -0,0 +1,97 @@
+package se.kth.iv1350.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.integration.ReceiptRenderer;
+import se.kth.iv1350.model.Receipt;
+import se.kth.iv1350.model.Sale;
+import se.kth.iv1350.util.Amount;
+
+/**
+ * Measures creating the text of a receipt with {@link Receipt#toString()}, and writing the same
+ * receipt with the {@link ReceiptRenderer} used by the printer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReceiptBenchmark {
+    @Param({"5", "50", "500"})
+    private int receiptLines;
+
+    private Receipt receipt;
+    private ReceiptRenderer renderer;
+    private CountingChannel channel;
+
+    /**
+     * Creates a paid sale with the specified number of lines, and the renderer.
+     */
+    @Setup
+    public void setUp() {
+        Sale sale = new Sale();
+        for (ItemDTO item : BenchmarkData.createItems(receiptLines)) {
+            sale.addItemToSale(item, 2);
+        }
+        sale.makePayment(sale.getRunningTotalIncludingVAT().add(new Amount(100, "SEK")));
+        receipt = sale.getReceipt();
+        renderer = new ReceiptRenderer();
+        channel = new CountingChannel();
+    }
+
+    /**
+     * Creates the receipt text.
+     * @return The receipt text.
+     */
+    @Benchmark
+    public String createReceiptText() {
+        return receipt.toString();
+    }
+
+    /**
+     * Writes the receipt to a channel that discards it.
+     * @return The number of bytes written.
+     * @throws IOException Never, the channel does not fail.
+     */
+    @Benchmark
+    public long renderReceipt() throws IOException {
+        renderer.render(receipt, channel);
+        return channel.bytesWritten;
+    }
+
+    private static final class CountingChannel implements WritableByteChannel {
+        private long bytesWritten;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int length = src.remaining();
+            src.position(src.limit());
+            bytesWritten += length;
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
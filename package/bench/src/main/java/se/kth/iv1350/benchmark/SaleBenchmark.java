@@ -0,0 +1,137 @@
+package se.kth.iv1350.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import se.kth.iv1350.dto.DiscountDTO;
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.dto.SaleStateDTO;
+import se.kth.iv1350.model.Sale;
+import se.kth.iv1350.model.SalesLineItem;
+import se.kth.iv1350.util.Amount;
+
+/**
+ * Measures {@link Sale#addItemToSale(ItemDTO, int)} for baskets of growing size, both when the
+ * scanned item is already in the basket and when each scan adds a new line. Scanning an item
+ * already in the basket is also measured with the linear search of the line items that
+ * {@link Sale} used before it indexed its lines by item ID, for comparison, and in a basket
+ * with customer discounts, which are kept up to date on each scan.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SaleBenchmark {
+    private static final int SCAN_ORDER_LENGTH = 1 << 16;
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    private int basketLines;
+
+    private ItemDTO[] items;
+    private int[] scanOrder;
+    private int nextScan;
+    private Sale filledSale;
+    private Sale filledDiscountedSale;
+    private LinearScanBasket filledLinearScanBasket;
+
+    /**
+     * Creates the items, a basket that holds all of them, and a random order to scan them in.
+     */
+    @Setup
+    public void setUp() {
+        items = BenchmarkData.createItems(basketLines);
+        filledSale = new Sale();
+        filledDiscountedSale = new Sale();
+        filledLinearScanBasket = new LinearScanBasket();
+        for (ItemDTO item : items) {
+            filledSale.addItemToSale(item, 1);
+            filledDiscountedSale.addItemToSale(item, 1);
+            filledLinearScanBasket.add(item, 1);
+        }
+        filledDiscountedSale.applyDiscounts(List.of(DiscountDTO.percentage("Member", 5, Set.of()),
+                DiscountDTO.fixedAmount("Voucher", new Amount(50, "SEK"), Set.of())));
+        Random random = new Random(42);
+        scanOrder = new int[SCAN_ORDER_LENGTH];
+        for (int i = 0; i < scanOrder.length; i++) {
+            scanOrder[i] = random.nextInt(basketLines);
+        }
+    }
+
+    /**
+     * Scans an item that already has a line in the basket.
+     * @return The state of the sale, consumed by JMH.
+     */
+    @Benchmark
+    public SaleStateDTO scanItemAlreadyInBasket() {
+        int index = scanOrder[nextScan++ & (SCAN_ORDER_LENGTH - 1)];
+        return filledSale.addItemToSale(items[index], 1);
+    }
+
+    /**
+     * Scans an item that already has a line in a basket with two customer discounts.
+     * @return The state of the sale, consumed by JMH.
+     */
+    @Benchmark
+    public SaleStateDTO scanItemAlreadyInDiscountedBasket() {
+        int index = scanOrder[nextScan++ & (SCAN_ORDER_LENGTH - 1)];
+        return filledDiscountedSale.addItemToSale(items[index], 1);
+    }
+
+    /**
+     * Scans an item that already has a line in the basket, finding the line by a linear search.
+     * @return The line of the scanned item, consumed by JMH.
+     */
+    @Benchmark
+    public SalesLineItem scanItemAlreadyInBasketByLinearSearch() {
+        int index = scanOrder[nextScan++ & (SCAN_ORDER_LENGTH - 1)];
+        return filledLinearScanBasket.add(items[index], 1);
+    }
+
+    /**
+     * Fills a new basket with one line per item. The time and allocation are reported for the
+     * whole basket, so the cost per scan is the result divided by {@code basketLines}.
+     * @return The filled sale, consumed by JMH.
+     */
+    @Benchmark
+    public Sale fillNewBasket() {
+        Sale sale = new Sale();
+        for (ItemDTO item : items) {
+            sale.addItemToSale(item, 1);
+        }
+        return sale;
+    }
+
+    /**
+     * The line item lookup that {@link Sale} used before it indexed its lines by item ID.
+     */
+    private static final class LinearScanBasket {
+        private final List<SalesLineItem> items = new ArrayList<>();
+
+        SalesLineItem add(ItemDTO item, int quantity) {
+            for (SalesLineItem lineItem : items) {
+                if (lineItem.getItem().getItemID().equals(item.getItemID())) {
+                    lineItem.increaseQuantity(quantity);
+                    return lineItem;
+                }
+            }
+            SalesLineItem lineItem = new SalesLineItem(item, quantity);
+            items.add(lineItem);
+            return lineItem;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * JMH benchmarks of the hot paths of a sale: scanning items into a {@code Sale}, {@code Amount}
+ * arithmetic, creating receipts, looking up items in the {@code InventorySystem} and the whole
+ * checkout through the {@code Controller}.
+ * <p>
+ * Build and run all benchmarks, with allocation profiling, from the directory {@code package}:
+ * <pre>
+ * mvn -B package -DskipTests
+ * java -jar bench/target/benchmarks.jar -prof gc -rf csv -rff bench/results.csv
+ * </pre>
+ * The {@code gc.alloc.rate.norm} rows give the bytes allocated per operation. Compare a run with
+ * the stored baseline, {@code bench/baseline.csv}, with {@link se.kth.iv1350.benchmark.BaselineComparison}:
+ * <pre>
+ * java -cp bench/target/benchmarks.jar se.kth.iv1350.benchmark.BaselineComparison bench/baseline.csv bench/results.csv
+ * </pre>
+ * The stored baseline was recorded with {@code -wi 2 -i 3 -w 1s -r 1s}. Times differ between
+ * machines, so record a new baseline before comparing on other hardware. The allocation per
+ * operation does not depend on the machine. After a change that is meant to be an improvement,
+ * replace the baseline with the new results.
+ */
+package se.kth.iv1350.benchmark;
@@ -1,27 +1,70 @@
 package se.kth.iv1350.controller;
 
 import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.util.Currency;
+import se.kth.iv1350.util.CurrencyTotals;
+import se.kth.iv1350.util.ItemEnteredEvent;
+import se.kth.iv1350.util.MetricsRegistry;
+import se.kth.iv1350.util.OperationStats;
+import se.kth.iv1350.util.PaymentEvent;
+import se.kth.iv1350.util.ReceiptPrintedEvent;
+import se.kth.iv1350.util.SaleStartedEvent;
 import se.kth.iv1350.dto.*;
 import se.kth.iv1350.integration.*;
 import se.kth.iv1350.model.*;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * The application controller that handles all calls from the view to the model and integration layers.
+ * Each sale is a separate session identified by a {@link SaleHandle}, so one controller can serve
+ * many checkout lanes at the same time. The integration handlers and the {@link Register} are
+ * shared between all sessions. Revenue observers are notified through a {@link RevenueEventBus},
+ * so a payment does not wait for them.
+ * <p>
+ * The number of calls, failures, calls in progress and the latency of each operation, and of
+ * each call to the integration layer, are recorded in a {@link MetricsRegistry}. The lifecycle of
+ * each sale is also recorded as Flight Recorder events, such as {@link ItemEnteredEvent}, when
+ * they are enabled in a recording. The events are disabled by default and then cost next to nothing.
  */
 public class Controller {
+    private static final int DEFAULT_REVENUE_EVENT_CAPACITY = 4096;
+    private static final Duration DEFAULT_EXCHANGE_RATE_MAX_AGE = Duration.ofMinutes(15);
+
     private InventorySystem invSys;
     private AccountingSystem accSys;
     private DiscountDatabase discountDB;
     private Printer printer;
     private Register register;
-    private Sale currentSale;
-    private List<RevenueObserver> revenueObservers = new ArrayList<>();
+    private RevenueEventBus revenueEventBus;
+    private final CurrencyConverter converter;
+    private final MetricsRegistry metrics;
+    private final OperationStats startSaleStats;
+    private final OperationStats enterItemStats;
+    private final OperationStats enterItemsStats;
+    private final OperationStats endSaleStats;
+    private final OperationStats enterPaymentStats;
+    private final OperationStats signalDiscountCustomerStats;
+    private final OperationStats retrieveItemInfoStats;
+    private final OperationStats retrieveItemInfosStats;
+    private final OperationStats updateInventoryStats;
+    private final OperationStats registerSaleStats;
+    private final OperationStats updateRegisterStats;
+    private final OperationStats printReceiptStats;
+    private final OperationStats convertCurrencyStats;
 
     /**
-     * Creates a new Controller instance.
+     * Creates a new Controller instance. Revenue observers are notified through a bus that
+     * holds up to {@value #DEFAULT_REVENUE_EVENT_CAPACITY} waiting sales. If it is full, because
+     * an observer is stuck, the new sales are dropped from the bus instead of making the payment
+     * wait, and are counted by {@link RevenueEventBus#getDroppedCount()}. The sales themselves
+     * are still registered in the accounting system.
      * @param invSys The inventory system handler.
      * @param accSys The accounting system handler.
      * @param discountDB The discount database handler.
@@ -29,11 +72,57 @@ public class Controller {
      * @param register The cash register handler.
      */
     public Controller(InventorySystem invSys, AccountingSystem accSys, DiscountDatabase discountDB, Printer printer, Register register) {
-        this.invSys = invSys;
-        this.accSys = accSys;
-        this.discountDB = discountDB;
-        this.printer = printer;
-        this.register = register;
+        this(builder(invSys, accSys, discountDB, printer, register));
+    }
+
+    /**
+     * Creates a builder of a new Controller, for when the revenue event bus, the metrics registry
+     * or the currency converter is not the default one.
+     * @param invSys The inventory system handler.
+     * @param accSys The accounting system handler.
+     * @param discountDB The discount database handler.
+     * @param printer The printer handler.
+     * @param register The cash register handler.
+     * @return The builder.
+     */
+    public static Builder builder(InventorySystem invSys, AccountingSystem accSys, DiscountDatabase discountDB,
+                                  Printer printer, Register register) {
+        return new Builder(invSys, accSys, discountDB, printer, register);
+    }
+
+    private Controller(Builder builder) {
+        this.invSys = builder.invSys;
+        this.accSys = builder.accSys;
+        this.discountDB = builder.discountDB;
+        this.printer = builder.printer;
+        this.register = builder.register;
+        this.revenueEventBus = builder.revenueEventBus != null ? builder.revenueEventBus
+                : new RevenueEventBus(DEFAULT_REVENUE_EVENT_CAPACITY, BackpressurePolicy.DROP);
+        this.metrics = builder.metrics != null ? builder.metrics : new MetricsRegistry();
+        this.converter = builder.converter != null ? builder.converter
+                : new CurrencyConverter(new ExchangeRateDatabase(), DEFAULT_EXCHANGE_RATE_MAX_AGE);
+        this.startSaleStats = metrics.operation("controller.startSale");
+        this.enterItemStats = metrics.operation("controller.enterItem");
+        this.enterItemsStats = metrics.operation("controller.enterItems");
+        this.endSaleStats = metrics.operation("controller.endSale");
+        this.enterPaymentStats = metrics.operation("controller.enterPayment");
+        this.signalDiscountCustomerStats = metrics.operation("controller.signalDiscountCustomer");
+        this.retrieveItemInfoStats = metrics.operation("inventory.retrieveItemInfo");
+        this.retrieveItemInfosStats = metrics.operation("inventory.retrieveItemInfos");
+        this.updateInventoryStats = metrics.operation("inventory.updateInventory");
+        this.registerSaleStats = metrics.operation("accounting.registerSale");
+        this.updateRegisterStats = metrics.operation("register.updateRegister");
+        this.printReceiptStats = metrics.operation("printer.printReceipt");
+        this.convertCurrencyStats = metrics.operation("currency.convert");
+    }
+
+    /**
+     * Gets the registry with the statistics of the operations of this controller.
+     *
+     * @return The metrics registry.
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
     }
 
     /**
@@ -42,93 +131,429 @@ public class Controller {
      * @param observer The observer to notify.
      */
     public void addRevenueObserver(RevenueObserver observer) {
-        revenueObservers.add(observer);
+        revenueEventBus.addObserver(observer);
     }
 
     /**
-     * Starts a new sale. This must be called before any items can be added.
+     * Rebuilds the register balance and the revenue totals from the sales registered in the
+     * accounting system before the application was started. Should be called once, after all
+     * revenue observers have been added and before the first sale is started. The observers are
+     * notified once for each currency, with the total revenue of all earlier sales in that currency.
+     *
+     * @return The number of earlier sales.
+     * @throws OperationFailedException If the earlier sales could not be read.
      */
-    public void startSale() {
-        this.currentSale = new Sale();
-        currentSale.addRevenueObservers(revenueObservers);
+    public long restoreEarlierSales() throws OperationFailedException {
+        CurrencyTotals earlierRevenue = new CurrencyTotals();
+        long count;
+        try {
+            count = accSys.replayRegisteredSales(
+                    sale -> earlierRevenue.add(sale.getTotalPriceIncludingVAT()));
+        } catch (IOException e) {
+            throw new OperationFailedException("Could not read the earlier sales from the accounting system", e);
+        }
+        for (Amount revenue : earlierRevenue.getTotals()) {
+            register.updateRegister(revenue);
+            revenueEventBus.newSaleCompleted(revenue);
+        }
+        return count;
     }
 
     /**
-     * Enters an item into the current sale.
+     * Starts a new sale. The returned handle must be passed to all following calls
+     * concerning this sale.
      *
+     * @return The handle identifying the new sale.
+     */
+    public SaleHandle startSale() {
+        SaleHandle saleHandle = startSaleStats.time(() -> {
+            CatalogSnapshot catalog = invSys.pinCatalog();
+            Sale sale = new Sale(discountDB.getPromotions(), catalog.getVersion());
+            sale.addRevenueObservers(List.of(revenueEventBus));
+            return new SaleHandle(sale, catalog, () -> invSys.releaseCatalog(catalog));
+        });
+        SaleStartedEvent event = new SaleStartedEvent();
+        if (event.shouldCommit()) {
+            event.saleID = saleHandle.getSaleID();
+            event.commit();
+        }
+        return saleHandle;
+    }
+
+    /**
+     * Enters an item into the specified sale.
+     *
+     * @param saleHandle The sale to add the item to.
      * @param itemID   The ID of the item to enter.
      * @param quantity The quantity of the item.
      * @return A {@link SaleStateDTO} representing the current state of the sale.
+     *         Returns null if no sale handle is given.
      * @throws ItemNotFoundException      If the specified item ID does not exist in the inventory.
      * @throws OperationFailedException   If the item could not be retrieved due to a system error.
+     * @throws IllegalStateException    If the sale has already been paid for or cancelled.
      */
-    public SaleStateDTO enterItem(String itemID, int quantity)
+    public SaleStateDTO enterItem(SaleHandle saleHandle, String itemID, int quantity)
             throws ItemNotFoundException, OperationFailedException {
-        if (currentSale == null) {
+        if (saleHandle == null) {
+            return null;
+        }
+        SaleStateDTO saleState = enterItemIfFound(saleHandle, itemID, quantity);
+        if (saleState == null) {
+            throw new ItemNotFoundException(itemID);
+        }
+        return saleState;
+    }
+
+    /**
+     * Enters an item into the specified sale, if the item exists. Unlike
+     * {@link #enterItem(SaleHandle, String, int)}, an unknown item ID does not throw an exception,
+     * which makes this cheaper for scanners that often misread barcodes.
+     *
+     * @param saleHandle The sale to add the item to.
+     * @param itemID   The ID of the item to enter.
+     * @param quantity The quantity of the item.
+     * @return A {@link SaleStateDTO} representing the current state of the sale.
+     *         Returns null if no sale handle is given or the item ID does not exist in the inventory.
+     * @throws OperationFailedException   If the item could not be retrieved due to a system error.
+     * @throws IllegalStateException    If the sale has already been paid for or cancelled.
+     */
+    public SaleStateDTO tryEnterItem(SaleHandle saleHandle, String itemID, int quantity)
+            throws OperationFailedException {
+        if (saleHandle == null) {
             return null;
         }
+        return enterItemIfFound(saleHandle, itemID, quantity);
+    }
+
+    private SaleStateDTO enterItemIfFound(SaleHandle saleHandle, String itemID, int quantity)
+            throws OperationFailedException {
+        ItemEnteredEvent event = new ItemEnteredEvent();
+        event.begin();
+        if (event.isEnabled()) {
+            event.cacheHit = invSys.isItemCached(itemID);
+        }
+        long started = enterItemStats.start();
+        boolean succeeded = false;
         try {
-            ItemDTO itemInfo = invSys.retrieveItemInfo(itemID);
-            return currentSale.addItemToSale(itemInfo, quantity);
-        } catch (ItemNotFoundException e) {
-            throw e;
+            ItemLookupResultDTO lookup = lookUpItem(itemID, saleHandle.getCatalog(), event);
+            if (!lookup.isFound()) {
+                return null;
+            }
+            SaleStateDTO saleState = saleHandle.getSale().addItemToSale(lookup.getItem(), quantity);
+            succeeded = true;
+            return saleState;
         } catch (DatabaseFailureException e) {
             throw new OperationFailedException(
                     "Could not retrieve item information for item ID: " + itemID, e);
+        } finally {
+            enterItemStats.finish(started, succeeded);
+            if (event.shouldCommit()) {
+                event.saleID = saleHandle.getSaleID();
+                event.itemID = itemID;
+                event.quantity = quantity;
+                event.succeeded = succeeded;
+                event.commit();
+            }
+        }
+    }
+
+    private ItemLookupResultDTO lookUpItem(String itemID, CatalogSnapshot catalog, ItemEnteredEvent event) {
+        long started = retrieveItemInfoStats.start();
+        boolean succeeded = false;
+        try {
+            ItemLookupResultDTO lookup = invSys.lookUpItem(itemID, catalog);
+            succeeded = lookup.isFound();
+            return lookup;
+        } finally {
+            retrieveItemInfoStats.finish(started, succeeded);
+            if (event.isEnabled()) {
+                event.lookupDuration = System.nanoTime() - started;
+            }
+        }
+    }
+
+    /**
+     * Enters a batch of items into the specified sale, for example a whole basket read by an RFID
+     * scanner or an imported online order. All items are retrieved from the inventory with one
+     * request and added to the sale in one pass. Items that do not exist in the inventory are
+     * reported in the result instead of stopping the batch.
+     *
+     * @param saleHandle The sale to add the items to.
+     * @param entries The item IDs and quantities to enter, in the order they were scanned.
+     * @return A {@link BatchEntryResultDTO} with the state of the sale after the batch and the
+     *         entries that were not found. Returns null if no sale handle is given.
+     * @throws OperationFailedException If the items could not be retrieved due to a system error.
+     *                                  No item of the batch is added in that case.
+     * @throws IllegalStateException    If the sale has already been paid for or cancelled.
+     */
+    public BatchEntryResultDTO enterItems(SaleHandle saleHandle, List<ItemEntryDTO> entries)
+            throws OperationFailedException {
+        if (saleHandle == null) {
+            return null;
         }
+        return enterItemsStats.time(() -> {
+            Set<String> itemIDs = new LinkedHashSet<>();
+            for (ItemEntryDTO entry : entries) {
+                itemIDs.add(entry.getItemID());
+            }
+            CatalogSnapshot catalog = saleHandle.getCatalog();
+            Map<String, ItemDTO> itemInfos;
+            try {
+                itemInfos = retrieveItemInfosStats.time(() -> invSys.retrieveItemInfos(itemIDs, catalog));
+            } catch (DatabaseFailureException e) {
+                throw new OperationFailedException(
+                        "Could not retrieve item information for a batch of " + entries.size() + " items", e);
+            }
+
+            List<ItemEntryDTO> itemsNotFound = new ArrayList<>();
+            for (ItemEntryDTO entry : entries) {
+                if (!itemInfos.containsKey(entry.getItemID())) {
+                    itemsNotFound.add(entry);
+                }
+            }
+            SaleStateDTO saleState = saleHandle.getSale().addItemsToSale(entries, itemInfos);
+            return new BatchEntryResultDTO(saleState, itemsNotFound);
+        });
     }
 
     /**
-     * Ends the current sale and returns the total price.
+     * Ends the specified sale and returns the total price.
+     * @param saleHandle The sale to end.
      * @return The total price (including VAT) of the sale as an {@link Amount}.
-     *         Returns null if no sale is active.
+     *         Returns null if no sale handle is given.
      */
-    public Amount endSale() {
-        if (currentSale == null) {
+    public Amount endSale(SaleHandle saleHandle) {
+        if (saleHandle == null) {
             return null;
         }
-        return currentSale.calculateTotal();
+        Sale sale = saleHandle.getSale();
+        return endSaleStats.time(sale::calculateTotal);
     }
 
     /**
-     * Processes the payment for the current sale.
+     * Cancels the specified sale, for example when the customer leaves without paying. Nothing is
+     * registered, and the catalog version of the sale is released at once. Cancelling a sale
+     * that is already finished has no effect.
+     * @param saleHandle The sale to cancel.
+     */
+    public void cancelSale(SaleHandle saleHandle) {
+        if (saleHandle != null) {
+            saleHandle.finish();
+        }
+    }
+
+    /**
+     * Processes the payment for the specified sale.
      * Updates external systems, prints a receipt, and updates the register.
-     * @param amountTendered The amount paid by the customer.
+     * @param saleHandle The sale that is paid for.
+     * @param amountTendered The amount paid by the customer, in the currency of the prices.
      * @return The change to be given to the customer as an {@link Amount}.
-     *         Returns null if no sale is active or payment is insufficient.
+     *         Returns null if no sale handle is given or payment is insufficient.
+     * @throws IllegalArgumentException If the amount is in another currency than the prices. Use
+     *                                  {@link #enterPayment(SaleHandle, List)} for such payments.
+     * @throws IllegalStateException    If the sale has already been paid for or cancelled.
      */
-    public Amount enterPayment(Amount amountTendered) {
-        if (currentSale == null) {
+    public Amount enterPayment(SaleHandle saleHandle, Amount amountTendered) {
+        if (saleHandle == null) {
             return null;
         }
-        Amount change = currentSale.makePayment(amountTendered);
-        if (change == null) {
+        saleHandle.checkNotFinished();
+        return pay(saleHandle, amountTendered, null);
+    }
+
+    /**
+     * Processes the payment for the specified sale, paid with one or more tenders that may be in
+     * other currencies than the prices, for example partly in EUR and partly in SEK. All tenders
+     * are converted to the currency of the prices with the same exchange rates, and the change
+     * is given in the currency of the prices. Each tender is added to the register balance of
+     * its own currency.
+     * @param saleHandle The sale that is paid for.
+     * @param tenders The amounts paid by the customer.
+     * @return The change to be given to the customer, in the currency of the prices.
+     *         Returns null if no sale handle is given or payment is insufficient.
+     * @throws OperationFailedException If the exchange rates could not be retrieved.
+     * @throws IllegalArgumentException If there is no exchange rate for the currency of a tender.
+     * @throws IllegalStateException    If the sale has already been paid for or cancelled.
+     */
+    public Amount enterPayment(SaleHandle saleHandle, List<Amount> tenders) throws OperationFailedException {
+        if (saleHandle == null) {
+            return null;
+        }
+        saleHandle.checkNotFinished();
+        Sale sale = saleHandle.getSale();
+        Amount amountTendered;
+        try {
+            amountTendered = convertTenders(tenders, sale.getRunningTotalIncludingVAT().getCurrency());
+        } catch (DatabaseFailureException e) {
+            throw new OperationFailedException("Could not retrieve the exchange rates for the payment", e);
+        }
+        return pay(saleHandle, amountTendered, tenders);
+    }
+
+    private Amount convertTenders(List<Amount> tenders, Currency currency) {
+        if (tenders.isEmpty()) {
             return null;
         }
+        return convertCurrencyStats.time(() -> {
+            ExchangeRates rates = null;
+            long tenderedMinorUnits = 0;
+            for (Amount tender : tenders) {
+                if (tender.getCurrency() != currency) {
+                    if (rates == null) {
+                        rates = converter.getRates();
+                    }
+                    tender = rates.convert(tender, currency);
+                }
+                tenderedMinorUnits += tender.getMinorUnits();
+            }
+            return Amount.ofMinorUnits(tenderedMinorUnits, currency);
+        });
+    }
 
-        accSys.registerSale(currentSale);
-        invSys.updateInventory(currentSale);
+    /**
+     * Completes the payment of a sale. Once the sale is paid, it is finished and its catalog
+     * version is released, even if an external system could not be updated.
+     * @param tenders The tenders of a payment in several currencies, or null if the payment is
+     *                only the tendered amount.
+     */
+    private Amount pay(SaleHandle saleHandle, Amount amountTendered, List<Amount> tenders) {
+        Sale sale = saleHandle.getSale();
+        PaymentEvent event = new PaymentEvent();
+        event.begin();
+        long started = enterPaymentStats.start();
+        boolean succeeded = false;
+        boolean paid = false;
+        try {
+            Amount change = sale.makePayment(amountTendered);
+            if (change == null) {
+                return null;
+            }
+            paid = true;
 
-        Amount amountPaidForSale = currentSale.getRunningTotalIncludingVAT();
-        register.updateRegister(amountPaidForSale);
+            registerSaleStats.time(() -> accSys.registerSale(sale));
+            updateInventoryStats.time(() -> invSys.updateInventory(sale));
 
-        Receipt receipt = currentSale.getReceipt();
-        printer.printReceipt(receipt);
+            if (tenders == null) {
+                updateRegisterStats.time(() -> register.updateRegister(sale.getRunningTotalIncludingVAT()));
+            } else {
+                updateRegisterStats.time(() -> register.updateRegister(tenders, change));
+            }
 
-        return change;
+            Receipt receipt = sale.getReceipt();
+            printReceipt(sale.getSaleID(), receipt);
+
+            succeeded = true;
+            return change;
+        } finally {
+            if (paid) {
+                saleHandle.finish();
+            }
+            enterPaymentStats.finish(started, succeeded);
+            if (event.shouldCommit()) {
+                event.saleID = sale.getSaleID();
+                event.totalMinorUnits = sale.getRunningTotalIncludingVAT().getMinorUnits();
+                event.succeeded = succeeded;
+                event.commit();
+            }
+        }
+    }
+
+    private void printReceipt(long saleID, Receipt receipt) {
+        ReceiptPrintedEvent event = new ReceiptPrintedEvent();
+        event.begin();
+        printReceiptStats.time(() -> printer.printReceipt(receipt));
+        if (event.shouldCommit()) {
+            event.saleID = saleID;
+            event.commit();
+        }
     }
 
     /**
-     * Signals a discount request for the current customer.
-     * (Not implemented for Seminar 3 required flow).
+     * Applies the best discount that the specified customer is entitled to, to the specified sale.
+     * The discount is calculated again before payment if more items are entered.
+     * @param saleHandle The sale the customer is paying for.
      * @param customerID The ID of the customer requesting a discount.
-     * @return The total price after discount, or null.
+     * @return The total price after the discount, the same as before if the customer has no
+     *         discount. Returns null if no sale handle is given.
      */
-    public Amount signalDiscountCustomer(String customerID) {
-        if (currentSale == null) {
+    public Amount signalDiscountCustomer(SaleHandle saleHandle, String customerID) {
+        if (saleHandle == null) {
             return null;
         }
-        System.out.println("LOG: signalDiscountCustomer called. (Not implemented for Seminar 3 scope)");
-        return currentSale.calculateTotal();
+        Sale sale = saleHandle.getSale();
+        return signalDiscountCustomerStats.time(() -> sale.applyDiscounts(discountDB.fetchDiscounts(customerID)));
+    }
+
+    /**
+     * Waits until all revenue observers have been notified of all completed sales, and stops
+     * the thread that notifies them. No sale may be paid for after this method has been called.
+     *
+     * @throws InterruptedException If interrupted while waiting for the observers.
+     */
+    public void shutdown() throws InterruptedException {
+        revenueEventBus.close();
+    }
+
+    /**
+     * Builds a Controller whose revenue event bus, metrics registry or currency converter is not
+     * the default one. Whatever is not set gets the default of
+     * {@link Controller#Controller(InventorySystem, AccountingSystem, DiscountDatabase, Printer, Register)}.
+     */
+    public static final class Builder {
+        private final InventorySystem invSys;
+        private final AccountingSystem accSys;
+        private final DiscountDatabase discountDB;
+        private final Printer printer;
+        private final Register register;
+        private RevenueEventBus revenueEventBus;
+        private MetricsRegistry metrics;
+        private CurrencyConverter converter;
+
+        private Builder(InventorySystem invSys, AccountingSystem accSys, DiscountDatabase discountDB,
+                        Printer printer, Register register) {
+            this.invSys = invSys;
+            this.accSys = accSys;
+            this.discountDB = discountDB;
+            this.printer = printer;
+            this.register = register;
+        }
+
+        /**
+         * Sets the bus that delivers completed sales to the revenue observers.
+         * @param revenueEventBus The bus.
+         * @return This builder.
+         */
+        public Builder revenueEventBus(RevenueEventBus revenueEventBus) {
+            this.revenueEventBus = revenueEventBus;
+            return this;
+        }
+
+        /**
+         * Sets the registry that the statistics of the operations are recorded in.
+         * @param metrics The registry.
+         * @return This builder.
+         */
+        public Builder metrics(MetricsRegistry metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * Sets the converter of payments in other currencies than the prices.
+         * @param converter The converter.
+         * @return This builder.
+         */
+        public Builder currencyConverter(CurrencyConverter converter) {
+            this.converter = converter;
+            return this;
+        }
+
+        /**
+         * Builds the controller.
+         * @return The new controller.
+         */
+        public Controller build() {
+            return new Controller(this);
+        }
     }
 }
@@ -4,13 +4,31 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import se.kth.iv1350.dto.BatchEntryResultDTO;
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.dto.ItemEntryDTO;
 import se.kth.iv1350.dto.SaleStateDTO;
 import se.kth.iv1350.integration.*;
 import se.kth.iv1350.model.Register;
 import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.util.Currency;
+import se.kth.iv1350.util.MetricsRegistry;
+import se.kth.iv1350.util.SaleRecording;
+import se.kth.iv1350.util.SaleRecordingAnalyzer;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.io.TempDir;
 
 public class ControllerTest {
     private Controller controller;
+    private SaleHandle sale;
 
     @BeforeEach
     public void setUp() {
@@ -20,18 +38,18 @@ public class ControllerTest {
         Printer printer = new Printer();
         Register register = new Register();
         controller = new Controller(invSys, accSys, discountDB, printer, register);
-        controller.startSale();
+        sale = controller.startSale();
     }
 
     @Test
     public void testEnterValidItemDoesNotThrow() {
-        assertDoesNotThrow(() -> controller.enterItem("abc123", 1),
+        assertDoesNotThrow(() -> controller.enterItem(sale, "abc123", 1),
                 "Entering a valid item ID should not throw any exception.");
     }
 
     @Test
     public void testEnterValidItemReturnsSaleState() throws ItemNotFoundException, OperationFailedException {
-        SaleStateDTO result = controller.enterItem("abc123", 1);
+        SaleStateDTO result = controller.enterItem(sale, "abc123", 1);
         assertNotNull(result, "A valid item should return a non-null SaleStateDTO.");
         assertEquals("abc123", result.getLastAddedItem().getItemID(),
                 "Returned sale state should contain the added item.");
@@ -40,14 +58,14 @@ public class ControllerTest {
     @Test
     public void testEnterItemWithInvalidIDThrowsItemNotFoundException() {
         assertThrows(ItemNotFoundException.class,
-                () -> controller.enterItem("nonExistentID", 1),
+                () -> controller.enterItem(sale, "nonExistentID", 1),
                 "Searching for a non-existent item ID should throw ItemNotFoundException.");
     }
 
     @Test
     public void testItemNotFoundExceptionContainsItemID() {
         try {
-            controller.enterItem("badID", 1);
+            controller.enterItem(sale, "badID", 1);
             fail("Expected ItemNotFoundException was not thrown.");
         } catch (ItemNotFoundException e) {
             assertEquals("badID", e.getItemID(),
@@ -62,14 +80,14 @@ public class ControllerTest {
     @Test
     public void testDatabaseFailureThrowsOperationFailedException() {
         assertThrows(OperationFailedException.class,
-                () -> controller.enterItem("FAIL_DB", 1),
+                () -> controller.enterItem(sale, "FAIL_DB", 1),
                 "A simulated database failure should throw OperationFailedException.");
     }
 
     @Test
     public void testOperationFailedExceptionHasCause() {
         try {
-            controller.enterItem("FAIL_DB", 1);
+            controller.enterItem(sale, "FAIL_DB", 1);
             fail("Expected OperationFailedException was not thrown.");
         } catch (OperationFailedException e) {
             assertNotNull(e.getCause(),
@@ -84,18 +102,18 @@ public class ControllerTest {
     @Test
     public void testSaleStateUnchangedAfterItemNotFoundException()
             throws ItemNotFoundException, OperationFailedException {
-        controller.enterItem("abc123", 1);
-        Amount totalBefore = controller.endSale();
+        controller.enterItem(sale, "abc123", 1);
+        Amount totalBefore = controller.endSale(sale);
 
-        controller.startSale();
-        controller.enterItem("abc123", 1);
+        sale = controller.startSale();
+        controller.enterItem(sale, "abc123", 1);
         try {
-            controller.enterItem("nonExistentID", 1);
+            controller.enterItem(sale, "nonExistentID", 1);
             fail("Expected ItemNotFoundException.");
         } catch (ItemNotFoundException e) {
             // expected
         }
-        Amount totalAfter = controller.endSale();
+        Amount totalAfter = controller.endSale(sale);
 
         assertEquals(totalBefore.getValue(), totalAfter.getValue(), 0.01,
                 "Sale state should not change when an exception is thrown.");
@@ -104,20 +122,298 @@ public class ControllerTest {
     @Test
     public void testSaleStateUnchangedAfterDatabaseFailure()
             throws ItemNotFoundException, OperationFailedException {
-        controller.enterItem("abc123", 1);
-        Amount totalBefore = controller.endSale();
+        controller.enterItem(sale, "abc123", 1);
+        Amount totalBefore = controller.endSale(sale);
 
-        controller.startSale();
-        controller.enterItem("abc123", 1);
+        sale = controller.startSale();
+        controller.enterItem(sale, "abc123", 1);
         try {
-            controller.enterItem("FAIL_DB", 1);
+            controller.enterItem(sale, "FAIL_DB", 1);
             fail("Expected OperationFailedException.");
         } catch (OperationFailedException e) {
             // expected
         }
-        Amount totalAfter = controller.endSale();
+        Amount totalAfter = controller.endSale(sale);
 
         assertEquals(totalBefore.getValue(), totalAfter.getValue(), 0.01,
                 "Sale state should not change when a database failure occurs.");
     }
+
+    @Test
+    public void testConcurrentSalesDoNotAffectEachOther()
+            throws ItemNotFoundException, OperationFailedException {
+        SaleHandle otherSale = controller.startSale();
+        controller.enterItem(sale, "abc123", 2);
+        controller.enterItem(otherSale, "ghi789", 1);
+
+        assertEquals(2 * (29.90 + 29.90 * 0.06), controller.endSale(sale).getValue(), 0.01,
+                "A sale should only contain the items entered with its own handle.");
+        assertEquals(50.00 + 50.00 * 0.12, controller.endSale(otherSale).getValue(), 0.01,
+                "A sale should only contain the items entered with its own handle.");
+    }
+
+    @Test
+    public void testEnterItemWithoutSaleHandleReturnsNull()
+            throws ItemNotFoundException, OperationFailedException {
+        assertNull(controller.enterItem(null, "abc123", 1),
+                "Entering an item without a sale handle should return null.");
+    }
+
+    @Test
+    public void testEnterItemsAddsWholeBatch() throws OperationFailedException {
+        BatchEntryResultDTO result = controller.enterItems(sale, List.of(
+                new ItemEntryDTO("abc123", 2),
+                new ItemEntryDTO("ghi789", 1),
+                new ItemEntryDTO("abc123", 1)));
+
+        assertTrue(result.isComplete(), "All items of the batch exist and should be added.");
+        assertEquals("abc123", result.getSaleState().getLastAddedItem().getItemID(),
+                "The last added item should be the last entry of the batch.");
+        assertEquals(3 * (29.90 + 29.90 * 0.06) + (50.00 + 50.00 * 0.12),
+                result.getSaleState().getRunningTotalIncludingVAT().getValue(), 0.01,
+                "The running total should include every entry of the batch.");
+    }
+
+    @Test
+    public void testEnterItemsReportsItemsNotFound() throws OperationFailedException {
+        BatchEntryResultDTO result = controller.enterItems(sale, List.of(
+                new ItemEntryDTO("abc123", 1),
+                new ItemEntryDTO("nonExistentID", 4)));
+
+        assertEquals(1, result.getItemsNotFound().size(), "The unknown item should be reported.");
+        assertEquals("nonExistentID", result.getItemsNotFound().get(0).getItemID(),
+                "The reported entry should be the one with the unknown item ID.");
+        assertEquals(29.90 + 29.90 * 0.06, controller.endSale(sale).getValue(), 0.01,
+                "The items that were found should still be added.");
+    }
+
+    @Test
+    public void testEnterItemsWithDatabaseFailureAddsNothing() {
+        assertThrows(OperationFailedException.class, () -> controller.enterItems(sale, List.of(
+                new ItemEntryDTO("abc123", 1),
+                new ItemEntryDTO("FAIL_DB", 1))),
+                "A database failure should fail the whole batch.");
+        assertEquals(0, controller.endSale(sale).getValue(), 0.001,
+                "No item should be added when the batch fails.");
+    }
+
+    @Test
+    public void testRevenueObserverIsNotifiedAfterPayment()
+            throws ItemNotFoundException, OperationFailedException, InterruptedException {
+        List<Amount> received = Collections.synchronizedList(new ArrayList<>());
+        controller.addRevenueObserver(received::add);
+        controller.enterItem(sale, "abc123", 1);
+        Amount total = controller.endSale(sale);
+
+        controller.enterPayment(sale, new Amount(100, "SEK"));
+        controller.shutdown();
+
+        assertEquals(List.of(total), received, "The observer should receive the total of the paid sale.");
+    }
+
+    @Test
+    public void testBuiltControllerRecordsInGivenRegistry() throws InterruptedException {
+        MetricsRegistry metrics = new MetricsRegistry();
+        Controller built = Controller.builder(new InventorySystem(), new AccountingSystem(), new DiscountDatabase(),
+                new Printer(), new Register()).metrics(metrics).build();
+
+        built.endSale(built.startSale());
+        built.shutdown();
+
+        assertSame(metrics, built.getMetrics(), "The given registry should be used.");
+        assertEquals(1, metrics.operation("controller.endSale").getCount(), "The call should be recorded.");
+    }
+
+    @Test
+    public void testOperationsAndIntegrationCallsAreMeasured()
+            throws ItemNotFoundException, OperationFailedException {
+        controller.enterItem(sale, "abc123", 1);
+        assertThrows(ItemNotFoundException.class, () -> controller.enterItem(sale, "unknown", 1));
+        controller.endSale(sale);
+        controller.enterPayment(sale, new Amount(100, "SEK"));
+
+        MetricsRegistry metrics = controller.getMetrics();
+        assertEquals(2, metrics.operation("controller.enterItem").getCount(), "Both scans should be counted.");
+        assertEquals(1, metrics.operation("controller.enterItem").getFailureCount(),
+                "The scan of an unknown item should be counted as failed.");
+        assertEquals(2, metrics.operation("inventory.retrieveItemInfo").getCount(),
+                "Both lookups should be counted.");
+        assertEquals(1, metrics.operation("printer.printReceipt").getCount(), "The receipt should be counted.");
+        assertEquals(0, metrics.operation("controller.enterPayment").getInFlight(),
+                "No payment should be in flight after it returned.");
+    }
+
+    @Test
+    public void testSignalDiscountCustomerReducesTotalOfMember()
+            throws ItemNotFoundException, OperationFailedException {
+        controller.enterItem(sale, "abc123", 1);
+        controller.enterItem(sale, "ghi789", 1);
+        Amount total = controller.endSale(sale);
+
+        Amount discounted = controller.signalDiscountCustomer(sale, "member1");
+
+        assertEquals(total.subtract(new Amount(29.90 * 1.06 * 0.05, "SEK")), discounted,
+                "Members should get 5% off everything except the confectionery.");
+    }
+
+    @Test
+    public void testSignalDiscountCustomerWithoutDiscountKeepsTotal()
+            throws ItemNotFoundException, OperationFailedException {
+        controller.enterItem(sale, "abc123", 1);
+        Amount total = controller.endSale(sale);
+
+        assertEquals(total, controller.signalDiscountCustomer(sale, "nobody"),
+                "A customer without a discount should pay the full total.");
+    }
+
+    @Test
+    public void testMixedTenderIsConvertedAndKeptPerCurrency()
+            throws ItemNotFoundException, OperationFailedException {
+        Register register = new Register();
+        Controller borderStore = new Controller(new InventorySystem(), new AccountingSystem(),
+                new DiscountDatabase(), new Printer(), register);
+        SaleHandle borderSale = borderStore.startSale();
+        borderStore.enterItem(borderSale, "abc123", 1);
+        borderStore.endSale(borderSale);
+
+        Amount change = borderStore.enterPayment(borderSale,
+                List.of(new Amount(2, Currency.EUR), new Amount(10, Currency.SEK)));
+
+        assertEquals(new Amount(33.00 - 31.69, Currency.SEK), change,
+                "2 EUR and 10 SEK are 33 SEK, and the change should be given in SEK.");
+        assertEquals(new Amount(2, Currency.EUR), register.getBalance(Currency.EUR),
+                "The euros should be kept in the register as euros.");
+        assertEquals(new Amount(10 - 1.31, Currency.SEK), register.getBalance(),
+                "The change should be taken from the SEK balance.");
+    }
+
+    @Test
+    public void testPaidSaleCanNotBePaidAgain() throws ItemNotFoundException, OperationFailedException {
+        Register register = new Register();
+        Controller paying = new Controller(new InventorySystem(), new AccountingSystem(),
+                new DiscountDatabase(), new Printer(), register);
+        SaleHandle paidSale = paying.startSale();
+        paying.enterItem(paidSale, "abc123", 1);
+        paying.endSale(paidSale);
+        paying.enterPayment(paidSale, new Amount(100, "SEK"));
+        Amount balance = register.getBalance();
+
+        assertThrows(IllegalStateException.class, () -> paying.enterPayment(paidSale, new Amount(100, "SEK")),
+                "A sale that is already paid for should not be paid again.");
+        assertThrows(IllegalStateException.class,
+                () -> paying.enterPayment(paidSale, List.of(new Amount(100, "SEK"))),
+                "A sale that is already paid for should not be paid again with several tenders.");
+        assertEquals(balance, register.getBalance(), "The sale should only be added to the register once.");
+    }
+
+    @Test
+    public void testCancelledSaleCanNotBePaid() throws ItemNotFoundException, OperationFailedException {
+        controller.enterItem(sale, "abc123", 1);
+        controller.endSale(sale);
+        controller.cancelSale(sale);
+
+        assertThrows(IllegalStateException.class, () -> controller.enterPayment(sale, new Amount(100, "SEK")),
+                "A cancelled sale should not be paid for.");
+        assertThrows(IllegalStateException.class,
+                () -> controller.enterPayment(sale, List.of(new Amount(100, "SEK"))),
+                "A cancelled sale should not be paid for with several tenders.");
+    }
+
+    @Test
+    public void testPaymentInOtherCurrencyWithoutConversionIsRejected()
+            throws ItemNotFoundException, OperationFailedException {
+        controller.enterItem(sale, "abc123", 1);
+        controller.endSale(sale);
+
+        assertThrows(IllegalArgumentException.class, () -> controller.enterPayment(sale, new Amount(100, "EUR")),
+                "A payment in another currency should not be compared with the total in SEK.");
+    }
+
+    @Test
+    public void testSaleLifecycleIsRecordedWithSaleID(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("sales.jfr");
+        Controller recorded = new Controller(new InventorySystem(new CachingItemCatalog(
+                new InMemoryItemCatalog(List.of(new ItemDTO("abc123", "BigWheel Oatmeal", "",
+                        new Amount(29.90, "SEK"), 0.06))), 100, Duration.ofMinutes(1))),
+                new AccountingSystem(), new DiscountDatabase(), new Printer(), new Register());
+        recorded.addRevenueObserver(totalPriceOfSale -> { });
+        SaleHandle recordedSale;
+        try (Recording recording = SaleRecording.start(file)) {
+            recordedSale = recorded.startSale();
+            recorded.enterItem(recordedSale, "abc123", 1);
+            recorded.enterItem(recordedSale, "abc123", 1);
+            recorded.endSale(recordedSale);
+            recorded.enterPayment(recordedSale, new Amount(100, "SEK"));
+            recorded.shutdown();
+            recording.stop();
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        long saleID = recordedSale.getSaleID();
+        for (String eventName : SaleRecording.EVENT_NAMES) {
+            assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals(eventName)
+                            && event.getLong("saleID") == saleID),
+                    eventName + " should be recorded with the ID of the sale.");
+        }
+
+        SaleRecordingAnalyzer analyzer = SaleRecordingAnalyzer.read(file);
+        assertEquals(1, analyzer.getStartedSales(), "The analyzer should count the started sale.");
+        assertEquals(2, analyzer.getStages().get(SaleRecordingAnalyzer.ENTER_ITEM).getTotalCount(),
+                "Both scans should be in the enterItem stage.");
+        assertEquals(1, analyzer.getStages().get(SaleRecordingAnalyzer.LOOKUP_CACHE_HIT).getTotalCount(),
+                "The second scan of the item should be a cache hit.");
+        assertEquals(1, analyzer.getStages().get(SaleRecordingAnalyzer.PRINT_RECEIPT).getTotalCount(),
+                "The receipt should be in the printReceipt stage.");
+        assertEquals(List.of(saleID), analyzer.getSlowestSales(5), "The sale should be found by its ID.");
+    }
+
+    @Test
+    public void testCatalogReloadDoesNotChangePricesOfOngoingSale() throws Exception {
+        InventorySystem invSys = new InventorySystem(
+                itemID -> new ItemDTO(itemID, "Milk", "", new Amount(10, "SEK"), 0.0));
+        Controller reloading = new Controller(invSys, new AccountingSystem(), new DiscountDatabase(),
+                new Printer(), new Register());
+        SaleHandle ongoing = reloading.startSale();
+        reloading.enterItem(ongoing, "milk", 1);
+
+        invSys.reloadCatalog(itemID -> new ItemDTO(itemID, "Milk", "", new Amount(12, "SEK"), 0.0));
+        SaleStateDTO ongoingState = reloading.enterItem(ongoing, "milk", 1);
+        SaleStateDTO newState = reloading.enterItem(reloading.startSale(), "milk", 1);
+
+        assertEquals(new Amount(20, "SEK"), ongoingState.getRunningTotalIncludingVAT(),
+                "The ongoing sale should keep the prices it started with.");
+        assertEquals(new Amount(12, "SEK"), newState.getRunningTotalIncludingVAT(),
+                "A new sale should use the reloaded prices.");
+        assertEquals(2, invSys.getCatalogVersion(), "The reloaded catalog should be version 2.");
+    }
+
+    @Test
+    public void testTryEnterItemReturnsNullForUnknownItem() throws OperationFailedException {
+        assertNull(controller.tryEnterItem(sale, "nonExistentID", 1),
+                "An unknown item should not throw, but return null.");
+        SaleStateDTO result = controller.tryEnterItem(sale, "abc123", 1);
+        assertEquals("abc123", result.getLastAddedItem().getItemID(), "A known item should be added.");
+    }
+
+    @Test
+    public void testFinishedSaleReleasesItsCatalogVersion() throws Exception {
+        InventorySystem invSys = new InventorySystem();
+        Controller releasing = new Controller(invSys, new AccountingSystem(), new DiscountDatabase(),
+                new Printer(), new Register());
+        SaleHandle cancelled = releasing.startSale();
+        SaleHandle underpaid = releasing.startSale();
+        releasing.enterItem(underpaid, "abc123", 1);
+        CatalogSnapshot firstVersion = invSys.pinCatalog();
+        invSys.releaseCatalog(firstVersion);
+
+        invSys.reloadCatalog(new InMemoryItemCatalog(List.of()));
+        releasing.cancelSale(cancelled);
+        assertNull(releasing.enterPayment(underpaid, new Amount(1, "SEK")), "1 SEK should not be enough.");
+        assertFalse(firstVersion.isReclaimed(), "An underpaid sale should keep its catalog version.");
+        releasing.enterPayment(underpaid, new Amount(100, "SEK"));
+
+        assertTrue(firstVersion.isReclaimed(), "The old version should be released when both sales finish.");
+        assertThrows(IllegalStateException.class, () -> releasing.enterItem(cancelled, "abc123", 1),
+                "No items can be entered into a cancelled sale.");
+    }
 }
@@ -0,0 +1,90 @@
+package se.kth.iv1350.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import se.kth.iv1350.integration.*;
+import se.kth.iv1350.model.Register;
+import se.kth.iv1350.util.Amount;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ControllerThroughputTest {
+    private static final int SALES_PER_LANE = 200;
+    private static final int[] LANE_COUNTS = {1, 2, 4, 8, 16};
+    private static final double TOTAL_PER_SALE =
+            2 * (29.90 + 29.90 * 0.06) + (14.90 + 14.90 * 0.06) + (50.00 + 50.00 * 0.12);
+
+    private PrintStream originalOut;
+
+    @BeforeEach
+    public void setUp() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    public void testSalesPerSecondWithGrowingNumberOfLanes() throws Exception {
+        for (int lanes : LANE_COUNTS) {
+            Register register = new Register();
+            Controller controller = new Controller(new InventorySystem(), new AccountingSystem(),
+                    new DiscountDatabase(), new Printer(), register);
+
+            long start = System.nanoTime();
+            runLanes(controller, lanes);
+            long elapsed = System.nanoTime() - start;
+
+            int totalSales = lanes * SALES_PER_LANE;
+            double salesPerSecond = totalSales / (elapsed / 1_000_000_000.0);
+            originalOut.printf("%2d lanes: %8.0f sales/s%n", lanes, salesPerSecond);
+
+            assertEquals(totalSales * TOTAL_PER_SALE, register.getBalance().getValue(), 0.01 * totalSales,
+                    "The register should contain the payments of all sales from all lanes.");
+        }
+    }
+
+    private void runLanes(Controller controller, int lanes) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(lanes);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < lanes; i++) {
+                results.add(executor.submit(() -> {
+                    for (int j = 0; j < SALES_PER_LANE; j++) {
+                        runOneSale(controller);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void runOneSale(Controller controller) throws ItemNotFoundException, OperationFailedException {
+        SaleHandle sale = controller.startSale();
+        controller.enterItem(sale, "abc123", 1);
+        controller.enterItem(sale, "def456", 1);
+        controller.enterItem(sale, "abc123", 1);
+        controller.enterItem(sale, "ghi789", 1);
+        assertEquals(TOTAL_PER_SALE, controller.endSale(sale).getValue(), 0.01,
+                "Each lane should only see the items of its own sale.");
+        assertNotNull(controller.enterPayment(sale, new Amount(500, "SEK")),
+                "Payment should succeed for a sufficient amount.");
+    }
+}
@@ -0,0 +1,91 @@
+package se.kth.iv1350.controller;
+
+import java.lang.ref.Cleaner;
+import se.kth.iv1350.integration.CatalogSnapshot;
+import se.kth.iv1350.model.Sale;
+
+/**
+ * Identifies one ongoing sale session in the {@link Controller}. A handle is
+ * returned by {@link Controller#startSale()} and must be passed to every
+ * following call that concerns the same sale. Many handles can be open at the
+ * same time, one per checkout lane or self-checkout station.
+ * <p>
+ * A single handle is meant to be used by one lane at a time. Different handles
+ * can be used concurrently from different threads.
+ * <p>
+ * The handle pins the version of the item catalog that the sale started with. The pin is
+ * released when the sale is paid for or cancelled with {@link Controller#cancelSale(SaleHandle)}.
+ * If a handle is dropped without either, the pin is released when the handle is garbage
+ * collected, but that may take a long time.
+ */
+public final class SaleHandle {
+    private static final Cleaner CATALOG_PINS = Cleaner.create();
+
+    private final Sale sale;
+    private final CatalogSnapshot catalog;
+    private final Cleaner.Cleanable catalogPin;
+    private volatile boolean finished;
+
+    SaleHandle(Sale sale, CatalogSnapshot catalog, Runnable releaseCatalog) {
+        this.sale = sale;
+        this.catalog = catalog;
+        this.catalogPin = CATALOG_PINS.register(this, releaseCatalog);
+    }
+
+    /**
+     * Gets the identifier of the sale, unique within this process.
+     *
+     * @return The sale identifier.
+     */
+    public long getSaleID() {
+        return sale.getSaleID();
+    }
+
+    Sale getSale() {
+        return sale;
+    }
+
+    /**
+     * Gets the catalog version of the sale, which is only available until the sale is finished.
+     *
+     * @throws IllegalStateException If the sale has been paid for or cancelled.
+     */
+    CatalogSnapshot getCatalog() {
+        checkNotFinished();
+        return catalog;
+    }
+
+    /**
+     * Checks that the sale can still be changed or paid for.
+     *
+     * @throws IllegalStateException If the sale has been paid for or cancelled.
+     */
+    void checkNotFinished() {
+        if (finished) {
+            throw new IllegalStateException("Sale #" + sale.getSaleID() + " is already finished.");
+        }
+    }
+
+    /**
+     * Tells whether the sale has been paid for or cancelled.
+     *
+     * @return {@code true} if no more items can be entered into the sale.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Marks the sale as finished and releases its catalog version. Calling this more than once
+     * has no effect.
+     */
+    void finish() {
+        finished = true;
+        catalogPin.clean();
+    }
+
+    @Override
+    public String toString() {
+        return "Sale #" + sale.getSaleID();
+    }
+}
@@ -0,0 +1,54 @@
+package se.kth.iv1350.dto;
+
+import se.kth.iv1350.util.Amount;
+
+/**
+ * Represents a promotion that is applied to a sale, and how much it reduces the total.
+ * This is a Data Transfer Object.
+ */
+public class AppliedPromotionDTO {
+    private final PromotionDTO promotion;
+    private final int timesApplied;
+    private final Amount discount;
+
+    /**
+     * Creates a new instance representing an applied promotion.
+     * @param promotion The promotion.
+     * @param timesApplied The number of times the promotion is applied to the sale.
+     * @param discount The total reduction of all applications, including VAT.
+     */
+    public AppliedPromotionDTO(PromotionDTO promotion, int timesApplied, Amount discount) {
+        this.promotion = promotion;
+        this.timesApplied = timesApplied;
+        this.discount = discount;
+    }
+
+    /**
+     * Gets the promotion.
+     * @return The promotion.
+     */
+    public PromotionDTO getPromotion() {
+        return promotion;
+    }
+
+    /**
+     * Gets the number of times the promotion is applied to the sale.
+     * @return The number of applications.
+     */
+    public int getTimesApplied() {
+        return timesApplied;
+    }
+
+    /**
+     * Gets the total reduction of the sale by the promotion.
+     * @return The discount, including VAT.
+     */
+    public Amount getDiscount() {
+        return discount;
+    }
+
+    @Override
+    public String toString() {
+        return promotion.getName() + " x" + timesApplied + ": -" + discount;
+    }
+}
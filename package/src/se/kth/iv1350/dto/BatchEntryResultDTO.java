@@ -0,0 +1,48 @@
+package se.kth.iv1350.dto;
+
+import java.util.List;
+
+/**
+ * Represents the outcome of entering a batch of items into a sale: the state of the sale after
+ * all found items were added, and the entries whose items could not be found.
+ * This is a Data Transfer Object.
+ */
+public class BatchEntryResultDTO {
+    private final SaleStateDTO saleState;
+    private final List<ItemEntryDTO> itemsNotFound;
+
+    /**
+     * Creates a new instance representing the outcome of a batch entry.
+     * @param saleState The state of the sale after the batch was entered.
+     * @param itemsNotFound The entries whose item IDs do not exist in the inventory.
+     */
+    public BatchEntryResultDTO(SaleStateDTO saleState, List<ItemEntryDTO> itemsNotFound) {
+        this.saleState = saleState;
+        this.itemsNotFound = List.copyOf(itemsNotFound);
+    }
+
+    /**
+     * Gets the state of the sale after the batch was entered. The last added item
+     * is the last entry of the batch that was found, or null if no item was found.
+     * @return The sale state.
+     */
+    public SaleStateDTO getSaleState() {
+        return saleState;
+    }
+
+    /**
+     * Gets the entries that were not added because their item IDs do not exist in the inventory.
+     * @return The entries that were not found, in batch order.
+     */
+    public List<ItemEntryDTO> getItemsNotFound() {
+        return itemsNotFound;
+    }
+
+    /**
+     * Checks whether all entries of the batch were added to the sale.
+     * @return {@code true} if every item was found.
+     */
+    public boolean isComplete() {
+        return itemsNotFound.isEmpty();
+    }
+}
@@ -0,0 +1,73 @@
+package se.kth.iv1350.dto;
+
+import java.util.List;
+
+/**
+ * Represents the changes of the item catalog between two versions, as sent by the central
+ * inventory to the catalog replica of each lane.
+ * This is a Data Transfer Object.
+ */
+public class CatalogDeltaDTO {
+    private final long fromVersion;
+    private final long toVersion;
+    private final List<ItemDTO> changedItems;
+    private final List<String> removedItemIDs;
+
+    /**
+     * Creates a new instance representing the changes between two catalog versions.
+     * @param fromVersion The version the changes apply to.
+     * @param toVersion The version of the catalog after the changes.
+     * @param changedItems The items that are new or have changed, for example in price.
+     * @param removedItemIDs The IDs of the items that are no longer sold.
+     */
+    public CatalogDeltaDTO(long fromVersion, long toVersion, List<ItemDTO> changedItems,
+                           List<String> removedItemIDs) {
+        if (toVersion < fromVersion) {
+            throw new IllegalArgumentException("The changes can not lead to an older version.");
+        }
+        this.fromVersion = fromVersion;
+        this.toVersion = toVersion;
+        this.changedItems = List.copyOf(changedItems);
+        this.removedItemIDs = List.copyOf(removedItemIDs);
+    }
+
+    /**
+     * Gets the version the changes apply to.
+     * @return The version before the changes.
+     */
+    public long getFromVersion() {
+        return fromVersion;
+    }
+
+    /**
+     * Gets the version of the catalog after the changes.
+     * @return The version after the changes. Equal to the from version if nothing has changed.
+     */
+    public long getToVersion() {
+        return toVersion;
+    }
+
+    /**
+     * Gets the items that are new or have changed.
+     * @return The changed items.
+     */
+    public List<ItemDTO> getChangedItems() {
+        return changedItems;
+    }
+
+    /**
+     * Gets the IDs of the items that have been removed from the catalog.
+     * @return The removed item IDs.
+     */
+    public List<String> getRemovedItemIDs() {
+        return removedItemIDs;
+    }
+
+    /**
+     * Gets the number of changes, counting each changed and each removed item.
+     * @return The number of changes.
+     */
+    public int getChangeCount() {
+        return changedItems.size() + removedItemIDs.size();
+    }
+}
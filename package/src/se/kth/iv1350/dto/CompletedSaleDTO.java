@@ -0,0 +1,74 @@
+package se.kth.iv1350.dto;
+import se.kth.iv1350.util.Amount;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Represents a completed and paid sale, as recorded in the sales journal.
+ * This is a Data Transfer Object.
+ */
+public class CompletedSaleDTO {
+    private final LocalDateTime saleTimestamp;
+    private final int registerID;
+    private final Amount totalPriceIncludingVAT;
+    private final Amount totalVAT;
+    private final List<SoldItemDTO> soldItems;
+
+    /**
+     * Creates a new instance representing a completed sale.
+     * @param saleTimestamp The time the sale was started.
+     * @param registerID The ID of the register where the sale was made.
+     * @param totalPriceIncludingVAT The total price of the sale, including VAT.
+     * @param totalVAT The total VAT of the sale.
+     * @param soldItems The lines of the sale.
+     */
+    public CompletedSaleDTO(LocalDateTime saleTimestamp, int registerID, Amount totalPriceIncludingVAT,
+                            Amount totalVAT, List<SoldItemDTO> soldItems) {
+        this.saleTimestamp = saleTimestamp;
+        this.registerID = registerID;
+        this.totalPriceIncludingVAT = totalPriceIncludingVAT;
+        this.totalVAT = totalVAT;
+        this.soldItems = List.copyOf(soldItems);
+    }
+
+    /**
+     * Gets the time the sale was started.
+     * @return The sale timestamp.
+     */
+    public LocalDateTime getSaleTimestamp() {
+        return saleTimestamp;
+    }
+
+    /**
+     * Gets the ID of the register where the sale was made.
+     * @return The register ID.
+     */
+    public int getRegisterID() {
+        return registerID;
+    }
+
+    /**
+     * Gets the total price of the sale, including VAT.
+     * @return The total price.
+     */
+    public Amount getTotalPriceIncludingVAT() {
+        return totalPriceIncludingVAT;
+    }
+
+    /**
+     * Gets the total VAT of the sale.
+     * @return The total VAT.
+     */
+    public Amount getTotalVAT() {
+        return totalVAT;
+    }
+
+    /**
+     * Gets the lines of the sale.
+     * @return The sold items, in the order they were first scanned.
+     */
+    public List<SoldItemDTO> getSoldItems() {
+        return soldItems;
+    }
+}
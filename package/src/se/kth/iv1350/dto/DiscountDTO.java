@@ -0,0 +1,143 @@
+package se.kth.iv1350.dto;
+
+import se.kth.iv1350.util.Amount;
+
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Represents a discount that a customer is entitled to, either a percentage of the price or a
+ * fixed amount off the sale. Items in the excluded categories are never discounted.
+ * This is a Data Transfer Object.
+ */
+public final class DiscountDTO {
+    /**
+     * How the size of a discount is determined.
+     */
+    public enum Type {
+        /**
+         * A percentage of the price of each item that is not excluded.
+         */
+        PERCENTAGE,
+        /**
+         * A fixed amount off the sale, at most the price of the items that are not excluded.
+         */
+        FIXED_AMOUNT
+    }
+
+    private final String name;
+    private final Type type;
+    private final double percentage;
+    private final Amount fixedAmount;
+    private final Set<String> excludedCategories;
+
+    private DiscountDTO(String name, Type type, double percentage, Amount fixedAmount,
+                        Set<String> excludedCategories) {
+        this.name = name;
+        this.type = type;
+        this.percentage = percentage;
+        this.fixedAmount = fixedAmount;
+        this.excludedCategories = Set.copyOf(excludedCategories);
+    }
+
+    /**
+     * Creates a discount of a percentage of the price.
+     * @param name The name of the discount, as shown to the cashier.
+     * @param percentage The percentage, from 0 to 100 (e.g., 10 for 10% off).
+     * @param excludedCategories The item categories that are not discounted.
+     * @return The new discount.
+     */
+    public static DiscountDTO percentage(String name, double percentage, Set<String> excludedCategories) {
+        if (percentage < 0 || percentage > 100) {
+            throw new IllegalArgumentException("The percentage must be from 0 to 100, was " + percentage);
+        }
+        return new DiscountDTO(name, Type.PERCENTAGE, percentage, null, excludedCategories);
+    }
+
+    /**
+     * Creates a discount of a fixed amount off the sale.
+     * @param name The name of the discount, as shown to the cashier.
+     * @param amount The amount off the sale, including VAT.
+     * @param excludedCategories The item categories that are not discounted.
+     * @return The new discount.
+     */
+    public static DiscountDTO fixedAmount(String name, Amount amount, Set<String> excludedCategories) {
+        if (amount.getMinorUnits() < 0) {
+            throw new IllegalArgumentException("The amount must not be negative, was " + amount);
+        }
+        return new DiscountDTO(name, Type.FIXED_AMOUNT, 0, amount, excludedCategories);
+    }
+
+    /**
+     * Gets the name of the discount.
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets how the size of the discount is determined.
+     * @return The type of the discount.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the percentage of a {@link Type#PERCENTAGE} discount.
+     * @return The percentage, or 0 for a fixed amount discount.
+     */
+    public double getPercentage() {
+        return percentage;
+    }
+
+    /**
+     * Gets the amount of a {@link Type#FIXED_AMOUNT} discount.
+     * @return The amount, including VAT, or null for a percentage discount.
+     */
+    public Amount getFixedAmount() {
+        return fixedAmount;
+    }
+
+    /**
+     * Gets the item categories that are not discounted.
+     * @return The excluded categories.
+     */
+    public Set<String> getExcludedCategories() {
+        return excludedCategories;
+    }
+
+    /**
+     * Tells whether an item is discounted by this discount.
+     * @param item The item.
+     * @return True if the category of the item is not excluded.
+     */
+    public boolean appliesTo(ItemDTO item) {
+        return excludedCategories.isEmpty() || !excludedCategories.contains(item.getCategory());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DiscountDTO)) {
+            return false;
+        }
+        DiscountDTO other = (DiscountDTO) o;
+        return type == other.type && Double.compare(percentage, other.percentage) == 0
+                && name.equals(other.name) && Objects.equals(fixedAmount, other.fixedAmount)
+                && excludedCategories.equals(other.excludedCategories);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, type, percentage, fixedAmount, excludedCategories);
+    }
+
+    @Override
+    public String toString() {
+        return type == Type.PERCENTAGE ? name + " (" + percentage + "% off)" : name + " (" + fixedAmount + " off)";
+    }
+}
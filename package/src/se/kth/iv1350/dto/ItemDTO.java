@@ -10,6 +10,7 @@ public class ItemDTO {
     private final String description;
     private final Amount price;
     private final double vatRate; // e.g., 0.06 for 6%
+    private final String category;
 
     /**
      * Creates a new instance of an ItemDTO.
@@ -20,11 +21,26 @@ public class ItemDTO {
      * @param vatRate The VAT rate applicable to this item (e.g., 0.06 for 6%).
      */
     public ItemDTO(String itemID, String name, String description, Amount price, double vatRate) {
+        this(itemID, name, description, price, vatRate, "");
+    }
+
+    /**
+     * Creates a new instance of an ItemDTO that belongs to a category.
+     * @param itemID The unique identifier for the item.
+     * @param name The name of the item.
+     * @param description A description of the item.
+     * @param price The price of the item.
+     * @param vatRate The VAT rate applicable to this item (e.g., 0.06 for 6%).
+     * @param category The category of the item (e.g., "tobacco"), used to exclude items from discounts.
+     */
+    public ItemDTO(String itemID, String name, String description, Amount price, double vatRate,
+                   String category) {
         this.itemID = itemID;
         this.name = name;
         this.description = description;
         this.price = price;
         this.vatRate = vatRate;
+        this.category = category;
     }
 
     /**
@@ -67,6 +83,14 @@ public class ItemDTO {
         return vatRate;
     }
 
+    /**
+     * Gets the category of the item.
+     * @return The category, or an empty string if the item has no category.
+     */
+    public String getCategory() {
+        return category;
+    }
+
     @Override
     public String toString() {
         return "Item ID: " + itemID + "\n" +
@@ -0,0 +1,41 @@
+package se.kth.iv1350.dto;
+
+/**
+ * Represents one scanned or ordered item and its quantity, as entered in a batch.
+ * This is a Data Transfer Object.
+ */
+public class ItemEntryDTO {
+    private final String itemID;
+    private final int quantity;
+
+    /**
+     * Creates a new instance representing an item entry.
+     * @param itemID The ID of the item.
+     * @param quantity The quantity of the item.
+     */
+    public ItemEntryDTO(String itemID, int quantity) {
+        this.itemID = itemID;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Gets the item ID.
+     * @return The item ID.
+     */
+    public String getItemID() {
+        return itemID;
+    }
+
+    /**
+     * Gets the quantity.
+     * @return The quantity.
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    @Override
+    public String toString() {
+        return quantity + " x " + itemID;
+    }
+}
@@ -0,0 +1,83 @@
+package se.kth.iv1350.dto;
+
+/**
+ * Represents the outcome of looking up a scanned item ID in the inventory: either the item, or
+ * the information that no item has the ID. Unlike an exception, a result that the item was not
+ * found is cheap to create, which matters since misread and unknown barcodes are frequent.
+ * This is a Data Transfer Object.
+ */
+public final class ItemLookupResultDTO {
+    /**
+     * The outcomes of a lookup.
+     */
+    public enum Status {
+        /**
+         * The item was found.
+         */
+        FOUND,
+        /**
+         * No item has the ID.
+         */
+        NOT_FOUND
+    }
+
+    private final Status status;
+    private final String itemID;
+    private final ItemDTO item;
+
+    private ItemLookupResultDTO(Status status, String itemID, ItemDTO item) {
+        this.status = status;
+        this.itemID = itemID;
+        this.item = item;
+    }
+
+    /**
+     * Creates a result for an item that was found.
+     * @param item The found item.
+     * @return The result.
+     */
+    public static ItemLookupResultDTO found(ItemDTO item) {
+        return new ItemLookupResultDTO(Status.FOUND, item.getItemID(), item);
+    }
+
+    /**
+     * Creates a result for an item ID that no item has.
+     * @param itemID The item ID that was looked up.
+     * @return The result.
+     */
+    public static ItemLookupResultDTO notFound(String itemID) {
+        return new ItemLookupResultDTO(Status.NOT_FOUND, itemID, null);
+    }
+
+    /**
+     * Gets the outcome of the lookup.
+     * @return The status.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Tells whether the item was found.
+     * @return {@code true} if the item was found.
+     */
+    public boolean isFound() {
+        return status == Status.FOUND;
+    }
+
+    /**
+     * Gets the item ID that was looked up.
+     * @return The item ID.
+     */
+    public String getItemID() {
+        return itemID;
+    }
+
+    /**
+     * Gets the found item.
+     * @return The item, or null if it was not found.
+     */
+    public ItemDTO getItem() {
+        return item;
+    }
+}
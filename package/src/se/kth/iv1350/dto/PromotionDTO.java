@@ -0,0 +1,169 @@
+package se.kth.iv1350.dto;
+
+import se.kth.iv1350.util.Amount;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Represents a promotion of the store that applies to a combination of items, such as "3 for 2",
+ * "buy one, get one free" or a bundle of items for a fixed price. Each time a promotion is
+ * applied, it uses up the quantities of its required items.
+ * This is a Data Transfer Object.
+ */
+public final class PromotionDTO {
+    /**
+     * The kinds of promotions.
+     */
+    public enum Type {
+        /**
+         * Buy a number of one item and pay for fewer, such as "3 for 2".
+         */
+        MULTI_BUY,
+        /**
+         * Buy a number of one item and get a number of another item for free.
+         */
+        BUY_X_GET_Y,
+        /**
+         * Buy a set of items together for a fixed price.
+         */
+        BUNDLE
+    }
+
+    private final String promotionID;
+    private final String name;
+    private final Type type;
+    private final Map<String, Integer> requiredItems;
+    private final String freeItemID;
+    private final int freeQuantity;
+    private final Amount bundlePrice;
+
+    private PromotionDTO(String promotionID, String name, Type type, Map<String, Integer> requiredItems,
+                         String freeItemID, int freeQuantity, Amount bundlePrice) {
+        for (int quantity : requiredItems.values()) {
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("The required quantities must be positive, were " + requiredItems);
+            }
+        }
+        this.promotionID = promotionID;
+        this.name = name;
+        this.type = type;
+        this.requiredItems = Collections.unmodifiableMap(new LinkedHashMap<>(requiredItems));
+        this.freeItemID = freeItemID;
+        this.freeQuantity = freeQuantity;
+        this.bundlePrice = bundlePrice;
+    }
+
+    /**
+     * Creates a promotion where a number of an item is sold for the price of fewer.
+     * @param promotionID The unique identifier of the promotion.
+     * @param name The name of the promotion, as printed on the receipt.
+     * @param itemID The item.
+     * @param buyQuantity The number of the item that must be bought (e.g., 3 for "3 for 2").
+     * @param payForQuantity The number of the item that is paid for (e.g., 2 for "3 for 2").
+     * @return The new promotion.
+     */
+    public static PromotionDTO multiBuy(String promotionID, String name, String itemID, int buyQuantity,
+                                        int payForQuantity) {
+        if (payForQuantity < 0 || payForQuantity >= buyQuantity) {
+            throw new IllegalArgumentException("Must pay for fewer than " + buyQuantity + " items, was " + payForQuantity);
+        }
+        return new PromotionDTO(promotionID, name, Type.MULTI_BUY, Map.of(itemID, buyQuantity),
+                itemID, buyQuantity - payForQuantity, null);
+    }
+
+    /**
+     * Creates a promotion where buying a number of one item gives a number of another item for free.
+     * @param promotionID The unique identifier of the promotion.
+     * @param name The name of the promotion, as printed on the receipt.
+     * @param itemID The item that must be bought.
+     * @param quantity The number of the item that must be bought.
+     * @param freeItemID The item that is given for free.
+     * @param freeQuantity The number of the free item.
+     * @return The new promotion.
+     */
+    public static PromotionDTO buyXGetY(String promotionID, String name, String itemID, int quantity,
+                                        String freeItemID, int freeQuantity) {
+        Map<String, Integer> requiredItems = new LinkedHashMap<>();
+        requiredItems.put(itemID, quantity);
+        requiredItems.merge(freeItemID, freeQuantity, Integer::sum);
+        return new PromotionDTO(promotionID, name, Type.BUY_X_GET_Y, requiredItems, freeItemID, freeQuantity, null);
+    }
+
+    /**
+     * Creates a promotion where a set of items is sold together for a fixed price.
+     * @param promotionID The unique identifier of the promotion.
+     * @param name The name of the promotion, as printed on the receipt.
+     * @param items The quantity of each item of the bundle, by item ID.
+     * @param price The price of the whole bundle, including VAT.
+     * @return The new promotion.
+     */
+    public static PromotionDTO bundle(String promotionID, String name, Map<String, Integer> items, Amount price) {
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("A bundle must contain at least one item.");
+        }
+        return new PromotionDTO(promotionID, name, Type.BUNDLE, items, null, 0, price);
+    }
+
+    /**
+     * Gets the unique identifier of the promotion.
+     * @return The promotion ID.
+     */
+    public String getPromotionID() {
+        return promotionID;
+    }
+
+    /**
+     * Gets the name of the promotion.
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the kind of the promotion.
+     * @return The type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the quantities that are used up each time the promotion is applied, including any free items.
+     * @return The quantity of each required item, by item ID.
+     */
+    public Map<String, Integer> getRequiredItems() {
+        return requiredItems;
+    }
+
+    /**
+     * Gets the item that is given for free by a {@link Type#MULTI_BUY} or {@link Type#BUY_X_GET_Y} promotion.
+     * @return The ID of the free item, or null for a bundle.
+     */
+    public String getFreeItemID() {
+        return freeItemID;
+    }
+
+    /**
+     * Gets the number of the free item that is given each time the promotion is applied.
+     * @return The free quantity, or 0 for a bundle.
+     */
+    public int getFreeQuantity() {
+        return freeQuantity;
+    }
+
+    /**
+     * Gets the price of a {@link Type#BUNDLE}.
+     * @return The price of the bundle, including VAT, or null for other promotions.
+     */
+    public Amount getBundlePrice() {
+        return bundlePrice;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + promotionID + ")";
+    }
+}
@@ -0,0 +1,57 @@
+package se.kth.iv1350.dto;
+
+import se.kth.iv1350.util.Amount;
+
+/**
+ * Represents the revenue of one group of a settlement, such as one article or one hour.
+ * This is a Data Transfer Object.
+ */
+public class RevenueDTO {
+    private final long count;
+    private final Amount revenueIncludingVAT;
+    private final Amount vat;
+
+    /**
+     * Creates a new instance representing the revenue of a group.
+     * @param count The number of units sold, or the number of sales, depending on the group.
+     * @param revenueIncludingVAT The revenue of the group, including VAT.
+     * @param vat The VAT of the revenue.
+     */
+    public RevenueDTO(long count, Amount revenueIncludingVAT, Amount vat) {
+        this.count = count;
+        this.revenueIncludingVAT = revenueIncludingVAT;
+        this.vat = vat;
+    }
+
+    /**
+     * Gets the number of units sold, or the number of sales, depending on the group.
+     * @return The count.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the revenue, including VAT.
+     * @return The revenue including VAT.
+     */
+    public Amount getRevenueIncludingVAT() {
+        return revenueIncludingVAT;
+    }
+
+    /**
+     * Gets the VAT of the revenue.
+     * @return The VAT.
+     */
+    public Amount getVAT() {
+        return vat;
+    }
+
+    /**
+     * Gets the revenue, excluding VAT.
+     * @return The revenue excluding VAT.
+     */
+    public Amount getRevenueExcludingVAT() {
+        return revenueIncludingVAT.subtract(vat);
+    }
+}
@@ -1,6 +1,8 @@
 package se.kth.iv1350.dto;
 import se.kth.iv1350.util.Amount;
 
+import java.util.List;
+
 /**
  * Represents the current state of a sale, typically returned after adding an item.
  * This is a Data Transfer Object.
@@ -9,6 +11,7 @@ public class SaleStateDTO {
     private final ItemDTO lastAddedItem;
     private final Amount runningTotalIncludingVAT;
     private final Amount currentTotalVAT;
+    private final List<AppliedPromotionDTO> appliedPromotions;
 
     /**
      * Creates a new instance representing the state of the sale.
@@ -17,9 +20,30 @@ public class SaleStateDTO {
      * @param currentTotalVAT The current total VAT amount for the sale.
      */
     public SaleStateDTO(ItemDTO lastAddedItem, Amount runningTotalIncludingVAT, Amount currentTotalVAT) {
+        this(lastAddedItem, runningTotalIncludingVAT, currentTotalVAT, List.of());
+    }
+
+    /**
+     * Creates a new instance representing the state of a sale with promotions.
+     * @param lastAddedItem The most recently added item's details.
+     * @param runningTotalIncludingVAT The current running total of the sale, including VAT.
+     * @param currentTotalVAT The current total VAT amount for the sale.
+     * @param appliedPromotions The promotions that are applied to the sale.
+     */
+    public SaleStateDTO(ItemDTO lastAddedItem, Amount runningTotalIncludingVAT, Amount currentTotalVAT,
+                        List<AppliedPromotionDTO> appliedPromotions) {
         this.lastAddedItem = lastAddedItem;
         this.runningTotalIncludingVAT = runningTotalIncludingVAT;
         this.currentTotalVAT = currentTotalVAT;
+        this.appliedPromotions = appliedPromotions;
+    }
+
+    /**
+     * Gets the promotions that are applied to the sale.
+     * @return The applied promotions, empty if there are none.
+     */
+    public List<AppliedPromotionDTO> getAppliedPromotions() {
+        return appliedPromotions;
     }
 
     /**
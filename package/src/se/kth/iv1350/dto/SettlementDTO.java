@@ -0,0 +1,141 @@
+package se.kth.iv1350.dto;
+
+import se.kth.iv1350.util.Amount;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Represents the settlement of all completed sales of a period: the revenue of the period, and
+ * the revenue per article, per VAT rate, per hour and per register.
+ * <p>
+ * The revenue per article and per VAT rate is the revenue of the sold items at their prices,
+ * before customer discounts and promotions, which are only recorded in the total of each sale.
+ * The difference is given by {@link #getDiscounts()}. The revenue per hour and per register is
+ * the paid totals of the sales.
+ * This is a Data Transfer Object.
+ */
+public class SettlementDTO {
+    private final LocalDateTime periodStart;
+    private final LocalDateTime periodEnd;
+    private final long saleCount;
+    private final Amount totalIncludingVAT;
+    private final Amount totalVAT;
+    private final Amount discounts;
+    private final Map<String, RevenueDTO> revenuePerArticle;
+    private final Map<Double, RevenueDTO> revenuePerVATRate;
+    private final Map<LocalDateTime, RevenueDTO> revenuePerHour;
+    private final Map<Integer, RevenueDTO> revenuePerRegister;
+
+    /**
+     * Creates a new instance representing a settlement.
+     * @param periodStart The start of the period, inclusive.
+     * @param periodEnd The end of the period, exclusive.
+     * @param saleCount The number of completed sales in the period.
+     * @param totalIncludingVAT The paid total of all sales, including VAT.
+     * @param totalVAT The VAT of all sales.
+     * @param discounts The difference between the revenue of the sold items and the paid totals.
+     * @param revenuePerArticle The revenue of each item ID, counting units sold.
+     * @param revenuePerVATRate The revenue of each VAT rate, counting units sold.
+     * @param revenuePerHour The revenue of each hour, by its start, counting sales.
+     * @param revenuePerRegister The revenue of each register ID, counting sales.
+     */
+    public SettlementDTO(LocalDateTime periodStart, LocalDateTime periodEnd, long saleCount,
+                         Amount totalIncludingVAT, Amount totalVAT, Amount discounts,
+                         Map<String, RevenueDTO> revenuePerArticle, Map<Double, RevenueDTO> revenuePerVATRate,
+                         Map<LocalDateTime, RevenueDTO> revenuePerHour, Map<Integer, RevenueDTO> revenuePerRegister) {
+        this.periodStart = periodStart;
+        this.periodEnd = periodEnd;
+        this.saleCount = saleCount;
+        this.totalIncludingVAT = totalIncludingVAT;
+        this.totalVAT = totalVAT;
+        this.discounts = discounts;
+        this.revenuePerArticle = Collections.unmodifiableMap(new TreeMap<>(revenuePerArticle));
+        this.revenuePerVATRate = Collections.unmodifiableMap(new TreeMap<>(revenuePerVATRate));
+        this.revenuePerHour = Collections.unmodifiableMap(new TreeMap<>(revenuePerHour));
+        this.revenuePerRegister = Collections.unmodifiableMap(new TreeMap<>(revenuePerRegister));
+    }
+
+    /**
+     * Gets the start of the settled period.
+     * @return The first time included in the period.
+     */
+    public LocalDateTime getPeriodStart() {
+        return periodStart;
+    }
+
+    /**
+     * Gets the end of the settled period.
+     * @return The first time after the period.
+     */
+    public LocalDateTime getPeriodEnd() {
+        return periodEnd;
+    }
+
+    /**
+     * Gets the number of completed sales in the period.
+     * @return The number of sales.
+     */
+    public long getSaleCount() {
+        return saleCount;
+    }
+
+    /**
+     * Gets the paid total of all sales in the period.
+     * @return The total including VAT.
+     */
+    public Amount getTotalIncludingVAT() {
+        return totalIncludingVAT;
+    }
+
+    /**
+     * Gets the VAT of all sales in the period.
+     * @return The total VAT.
+     */
+    public Amount getTotalVAT() {
+        return totalVAT;
+    }
+
+    /**
+     * Gets the customer discounts and promotions of the period, as the difference between the
+     * revenue of the sold items and the paid totals.
+     * @return The discounts, including VAT.
+     */
+    public Amount getDiscounts() {
+        return discounts;
+    }
+
+    /**
+     * Gets the revenue of each article, where the count is the number of units sold.
+     * @return The revenue per item ID, sorted by item ID.
+     */
+    public Map<String, RevenueDTO> getRevenuePerArticle() {
+        return revenuePerArticle;
+    }
+
+    /**
+     * Gets the revenue of each VAT rate, where the count is the number of units sold.
+     * @return The revenue per VAT rate, sorted by rate.
+     */
+    public Map<Double, RevenueDTO> getRevenuePerVATRate() {
+        return revenuePerVATRate;
+    }
+
+    /**
+     * Gets the revenue of each hour with sales, where the count is the number of sales.
+     * @return The revenue per hour, by the start of the hour, in time order.
+     */
+    public Map<LocalDateTime, RevenueDTO> getRevenuePerHour() {
+        return revenuePerHour;
+    }
+
+    /**
+     * Gets the revenue of each register, where the count is the number of sales.
+     * @return The revenue per register ID, sorted by register ID.
+     */
+    public Map<Integer, RevenueDTO> getRevenuePerRegister() {
+        return revenuePerRegister;
+    }
+}
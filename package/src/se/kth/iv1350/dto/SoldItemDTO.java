@@ -0,0 +1,75 @@
+package se.kth.iv1350.dto;
+import se.kth.iv1350.util.Amount;
+
+/**
+ * Represents one line of a completed sale, as recorded in the sales journal.
+ * This is a Data Transfer Object.
+ */
+public class SoldItemDTO {
+    private final String itemID;
+    private final int quantity;
+    private final Amount unitPrice;
+    private final double vatRate;
+
+    /**
+     * Creates a new instance representing a sold line.
+     * @param itemID The ID of the sold item.
+     * @param quantity The quantity sold.
+     * @param unitPrice The price of one item, excluding VAT.
+     * @param vatRate The VAT rate of the item (e.g., 0.06 for 6%).
+     */
+    public SoldItemDTO(String itemID, int quantity, Amount unitPrice, double vatRate) {
+        this.itemID = itemID;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+        this.vatRate = vatRate;
+    }
+
+    /**
+     * Gets the ID of the sold item.
+     * @return The item ID.
+     */
+    public String getItemID() {
+        return itemID;
+    }
+
+    /**
+     * Gets the quantity sold.
+     * @return The quantity.
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Gets the price of one item, excluding VAT.
+     * @return The unit price.
+     */
+    public Amount getUnitPrice() {
+        return unitPrice;
+    }
+
+    /**
+     * Gets the VAT rate of the item.
+     * @return The VAT rate (e.g., 0.06 for 6%).
+     */
+    public double getVatRate() {
+        return vatRate;
+    }
+
+    /**
+     * Calculates the total price of the line, excluding VAT.
+     * @return The unit price multiplied by the quantity.
+     */
+    public Amount getTotalPrice() {
+        return unitPrice.multiply(quantity);
+    }
+
+    /**
+     * Calculates the total VAT of the line, rounded once for the whole line.
+     * @return The VAT of the line.
+     */
+    public Amount getTotalVAT() {
+        return getTotalPrice().applyRate(vatRate);
+    }
+}
@@ -0,0 +1,53 @@
+package se.kth.iv1350.dto;
+import se.kth.iv1350.util.Amount;
+
+/**
+ * Represents the part of a sale that is taxed with one VAT rate.
+ * This is a Data Transfer Object.
+ */
+public class VATSubtotalDTO {
+    private final double vatRate;
+    private final Amount totalExcludingVAT;
+    private final Amount totalVAT;
+
+    /**
+     * Creates a new instance representing the subtotal for one VAT rate.
+     * @param vatRate The VAT rate (e.g., 0.06 for 6%).
+     * @param totalExcludingVAT The total price, excluding VAT, of all items with this VAT rate.
+     * @param totalVAT The total VAT of all items with this VAT rate.
+     */
+    public VATSubtotalDTO(double vatRate, Amount totalExcludingVAT, Amount totalVAT) {
+        this.vatRate = vatRate;
+        this.totalExcludingVAT = totalExcludingVAT;
+        this.totalVAT = totalVAT;
+    }
+
+    /**
+     * Gets the VAT rate of this subtotal.
+     * @return The VAT rate (e.g., 0.06 for 6%).
+     */
+    public double getVatRate() {
+        return vatRate;
+    }
+
+    /**
+     * Gets the total price, excluding VAT, of all items with this VAT rate.
+     * @return The total excluding VAT.
+     */
+    public Amount getTotalExcludingVAT() {
+        return totalExcludingVAT;
+    }
+
+    /**
+     * Gets the total VAT of all items with this VAT rate.
+     * @return The total VAT.
+     */
+    public Amount getTotalVAT() {
+        return totalVAT;
+    }
+
+    @Override
+    public String toString() {
+        return "VAT " + (int)(vatRate * 100) + "%: " + totalVAT + " of " + totalExcludingVAT;
+    }
+}
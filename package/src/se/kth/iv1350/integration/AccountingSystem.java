@@ -1,24 +1,102 @@
 package se.kth.iv1350.integration;
 
+import se.kth.iv1350.dto.CompletedSaleDTO;
 import se.kth.iv1350.model.Sale;
+import se.kth.iv1350.util.AsyncLogger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
 
 /**
- * Handles communication with an external accounting system (simulated).
+ * Handles communication with an external accounting system (simulated). If the accounting
+ * system has a {@link SalesJournal}, every registered sale is written durably to it. If it has a
+ * {@link SalesOutbox}, every registered sale waits there until it is delivered with
+ * {@link #deliverWaitingSales(Consumer)}, so sales can be registered while the lane is offline.
  */
 public class AccountingSystem {
+    private static final AsyncLogger LOGGER = AsyncLogger.getDefault();
+
+    private final SalesJournal journal;
+    private final Path journalFile;
+    private final SalesOutbox outbox;
+
     /**
-     * Creates a new AccountingSystem instance.
+     * Creates a new AccountingSystem instance that does not keep a journal.
      */
     public AccountingSystem() {
+        this(null, null, null);
+    }
+
+    /**
+     * Creates a new AccountingSystem instance that writes all registered sales to a journal.
+     * @param journal The opened journal to write sales to.
+     * @param journalFile The file of the journal, used to replay earlier sales.
+     */
+    public AccountingSystem(SalesJournal journal, Path journalFile) {
+        this(journal, journalFile, null);
     }
 
     /**
-     * Registers a completed sale in the accounting system.
-     * (Currently a placeholder).
+     * Creates a new AccountingSystem instance that writes all registered sales to a journal and
+     * keeps them in an outbox until they are delivered to the central accounting system.
+     * <p>
+     * The journal and the outbox are separate files, because the journal keeps every sale while
+     * the outbox is emptied once its sales are delivered. A sale is therefore forced to disk
+     * twice, one after the other, which about doubles the time {@link #registerSale(Sale)} waits
+     * for the disk. Group commit lets concurrent lanes share both flushes. A lane that does not
+     * need the local history of sales should pass only the outbox.
+     * @param journal The opened journal to write sales to, or null if there is none.
+     * @param journalFile The file of the journal, used to replay earlier sales, or null if there is none.
+     * @param outbox The opened outbox of the lane.
+     */
+    public AccountingSystem(SalesJournal journal, Path journalFile, SalesOutbox outbox) {
+        this.journal = journal;
+        this.journalFile = journalFile;
+        this.outbox = outbox;
+    }
+
+    /**
+     * Registers a completed sale in the accounting system. If there is a journal, this
+     * method returns when the sale has been written to disk.
      * @param currentSale The sale to be registered.
      */
     public void registerSale(Sale currentSale) {
-        // In a real system, this would send sale data to an accounting service
-        System.out.println("LOG: Accounting system notified. Sale total: " + currentSale.getRunningTotalIncludingVAT());
+        if (journal != null) {
+            journal.append(currentSale);
+        }
+        if (outbox != null) {
+            outbox.add(currentSale);
+        }
+        LOGGER.debug(() -> "Accounting system notified. Sale total: " + currentSale.getRunningTotalIncludingVAT());
+    }
+
+    /**
+     * Reads all sales that were registered earlier, for example to rebuild totals after a restart.
+     * @param handler Receives every sale in the journal, in the order they were registered.
+     * @return The number of sales read. Zero if there is no journal.
+     * @throws IOException If the journal could not be read.
+     */
+    public long replayRegisteredSales(Consumer<CompletedSaleDTO> handler) throws IOException {
+        if (journalFile == null) {
+            return 0;
+        }
+        return SalesJournal.replay(journalFile, handler);
+    }
+
+    /**
+     * Delivers the sales that are waiting in the outbox to the central accounting system, for
+     * example when the connection has returned after the lane was offline.
+     * @param centralSystem Receives each waiting sale, and throws an exception if it can not be delivered.
+     * @return The number of sales that were delivered. Zero if there is no outbox.
+     * @throws IOException If the outbox could not be read or updated.
+     */
+    public long deliverWaitingSales(Consumer<CompletedSaleDTO> centralSystem) throws IOException {
+        if (outbox == null) {
+            return 0;
+        }
+        long delivered = outbox.reconcile(centralSystem);
+        LOGGER.info(() -> delivered + " waiting sales delivered to the central accounting system.");
+        return delivered;
     }
-}
\ No newline at end of file
+}
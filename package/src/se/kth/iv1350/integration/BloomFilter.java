@@ -0,0 +1,67 @@
+package se.kth.iv1350.integration;
+
+/**
+ * A set of strings that may answer that it contains a string that was never added, with a
+ * chosen probability, but never that it lacks a string that was added. It uses about ten bits
+ * per string for a false positive rate of one percent, however long the strings are. Used by
+ * {@link CustomerDiscountIndex} to answer most lookups of customers without a discount without
+ * searching the index. Not thread-safe while strings are being added.
+ */
+class BloomFilter {
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * Creates a filter sized for the specified number of strings and false positive rate.
+     */
+    BloomFilter(long expectedStrings, double falsePositiveRate) {
+        long n = Math.max(1, expectedStrings);
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bits = new long[(int) Math.max(1, (optimalBits + 63) / 64)];
+        this.bitCount = bits.length * 64L;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitCount / n * ln2));
+    }
+
+    /**
+     * Adds a string.
+     */
+    void add(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+    }
+
+    /**
+     * Tells whether the string may have been added. False means that it was certainly not added.
+     */
+    boolean mightContain(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+}
@@ -0,0 +1,252 @@
+package se.kth.iv1350.integration;
+
+import se.kth.iv1350.dto.ItemDTO;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded read-through cache in front of another {@link ItemCatalog}. Items that are found
+ * are kept for a limited time, so most scans of popular items never reach the underlying catalog.
+ * <p>
+ * When the cache is full, a newly loaded item only replaces the least recently used item if it
+ * has been requested more often recently (TinyLFU admission). Items that are seen once, such as
+ * rare articles, therefore do not push out everyday items like milk and bread. A least recently
+ * used item that has expired is replaced without that check. Unknown item IDs are never cached.
+ * <p>
+ * The cache is split into independently locked segments, so lanes scanning different items
+ * rarely wait for each other.
+ */
+public class CachingItemCatalog implements ItemCatalog {
+    private static final int MAX_SEGMENTS = 16;
+
+    private final ItemCatalog backend;
+    private final Segment[] segments;
+    private final long timeToLiveNanos;
+    private final LongSupplier clock;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a new cache in front of the specified catalog.
+     *
+     * @param backend The catalog that is read when an item is not in the cache.
+     * @param maximumSize The maximum number of items to keep in the cache.
+     * @param timeToLive How long an item is kept before it is read from the backend again.
+     */
+    public CachingItemCatalog(ItemCatalog backend, int maximumSize, Duration timeToLive) {
+        this(backend, maximumSize, timeToLive, System::nanoTime);
+    }
+
+    CachingItemCatalog(ItemCatalog backend, int maximumSize, Duration timeToLive, LongSupplier clock) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("The maximum size must be at least one.");
+        }
+        this.backend = backend;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.clock = clock;
+        int segmentCount = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maximumSize));
+        int segmentSize = (maximumSize + segmentCount - 1) / segmentCount;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    @Override
+    public ItemDTO findItem(String itemID) {
+        Segment segment = segmentFor(itemID);
+        long now = clock.getAsLong();
+        ItemDTO cached = segment.get(itemID, now);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        ItemDTO loaded = backend.findItem(itemID);
+        if (loaded != null) {
+            segment.offer(itemID, loaded, now);
+        }
+        return loaded;
+    }
+
+    /**
+     * Finds all items with the specified IDs. Items that are not in the cache are read from the
+     * backend with one {@link ItemCatalog#findItems(Collection)} call.
+     */
+    @Override
+    public Map<String, ItemDTO> findItems(Collection<String> itemIDs) {
+        Map<String, ItemDTO> found = new HashMap<>();
+        List<String> notCached = new ArrayList<>();
+        long now = clock.getAsLong();
+        for (String itemID : itemIDs) {
+            ItemDTO cached = segmentFor(itemID).get(itemID, now);
+            if (cached != null) {
+                hits.increment();
+                found.put(itemID, cached);
+            } else {
+                misses.increment();
+                notCached.add(itemID);
+            }
+        }
+        if (!notCached.isEmpty()) {
+            Map<String, ItemDTO> loaded = backend.findItems(notCached);
+            for (Map.Entry<String, ItemDTO> item : loaded.entrySet()) {
+                segmentFor(item.getKey()).offer(item.getKey(), item.getValue(), now);
+            }
+            found.putAll(loaded);
+        }
+        return found;
+    }
+
+    /**
+     * Tells whether the item is in the cache and has not expired. Unlike {@link #findItem}, this
+     * does not count as a hit or a miss, and does not add to the frequency of the item.
+     */
+    @Override
+    public boolean isCached(String itemID) {
+        return segmentFor(itemID).contains(itemID, clock.getAsLong());
+    }
+
+    /**
+     * Removes an item from the cache, so that it is read from the backend the next time it is requested.
+     *
+     * @param itemID The ID of the item to remove.
+     */
+    public void invalidate(String itemID) {
+        segmentFor(itemID).remove(itemID);
+    }
+
+    /**
+     * Gets the number of lookups that were answered from the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that had to read from the backend.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of items that were removed to make room for other items.
+     *
+     * @return The number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the share of lookups that were answered from the cache.
+     *
+     * @return The hit rate between 0 and 1, or 0 if there have been no lookups.
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Gets the number of items currently in the cache.
+     *
+     * @return The number of cached items.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segmentFor(String itemID) {
+        int h = itemID.hashCode();
+        return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+    }
+
+    private final class Segment {
+        private final int capacity;
+        private final Map<String, Entry> entries;
+        private final FrequencySketch sketch;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.entries = new LinkedHashMap<>(capacity * 2, 0.75f, true);
+            this.sketch = new FrequencySketch(capacity);
+        }
+
+        synchronized ItemDTO get(String itemID, long now) {
+            sketch.increment(itemID);
+            Entry entry = entries.get(itemID);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.expiresAt >= 0) {
+                entries.remove(itemID);
+                return null;
+            }
+            return entry.item;
+        }
+
+        synchronized boolean contains(String itemID, long now) {
+            Entry entry = entries.get(itemID);
+            return entry != null && now - entry.expiresAt < 0;
+        }
+
+        /**
+         * Adds a loaded item if there is room, or if it may replace the least recently used item.
+         * An expired item is always replaced, however often it was requested.
+         */
+        synchronized void offer(String itemID, ItemDTO item, long now) {
+            if (!entries.containsKey(itemID) && entries.size() >= capacity) {
+                Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+                Map.Entry<String, Entry> victim = eldest.next();
+                if (now - victim.getValue().expiresAt >= 0) {
+                    eldest.remove();
+                } else if (sketch.frequency(itemID) <= sketch.frequency(victim.getKey())) {
+                    return;
+                } else {
+                    eldest.remove();
+                    evictions.increment();
+                }
+            }
+            entries.put(itemID, new Entry(item, now + timeToLiveNanos));
+        }
+
+        synchronized void remove(String itemID) {
+            entries.remove(itemID);
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+
+    private static final class Entry {
+        private final ItemDTO item;
+        private final long expiresAt;
+
+        Entry(ItemDTO item, long expiresAt) {
+            this.item = item;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package se.kth.iv1350.integration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.util.Amount;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+public class CachingItemCatalogTest {
+    private Map<String, Integer> backendLookups;
+    private ItemCatalog backend;
+    private long now;
+
+    @BeforeEach
+    public void setUp() {
+        backendLookups = new HashMap<>();
+        now = 0;
+        backend = itemID -> {
+            backendLookups.merge(itemID, 1, Integer::sum);
+            if (itemID.startsWith("missing")) {
+                return null;
+            }
+            return new ItemDTO(itemID, "Item " + itemID, "", new Amount(10, "SEK"), 0.06);
+        };
+    }
+
+    @Test
+    public void testIsCachedIsTrueOnlyForUnexpiredCachedItems() {
+        CachingItemCatalog cache = new CachingItemCatalog(backend, 10, Duration.ofSeconds(5), () -> now);
+
+        assertFalse(cache.isCached("milk"), "An item that was never looked up should not be cached.");
+        cache.findItem("milk");
+        assertTrue(cache.isCached("milk"), "A looked up item should be cached.");
+        now += Duration.ofSeconds(5).toNanos();
+        assertFalse(cache.isCached("milk"), "An expired item should not be reported as cached.");
+        assertEquals(0, cache.getHitCount(), "Checking should not count as a hit.");
+        assertEquals(1, backendLookups.get("milk"), "Checking should not read the backend.");
+    }
+
+    @Test
+    public void testRepeatedLookupIsAnsweredFromCache() {
+        CachingItemCatalog cache = new CachingItemCatalog(backend, 10, Duration.ofMinutes(1), () -> now);
+
+        cache.findItem("milk");
+        cache.findItem("milk");
+        cache.findItem("milk");
+
+        assertEquals(1, backendLookups.get("milk"), "Only the first lookup should reach the backend.");
+        assertEquals(2, cache.getHitCount(), "The second and third lookups should be hits.");
+        assertEquals(1, cache.getMissCount(), "The first lookup should be a miss.");
+    }
+
+    @Test
+    public void testExpiredItemIsReadAgain() {
+        CachingItemCatalog cache = new CachingItemCatalog(backend, 10, Duration.ofSeconds(5), () -> now);
+
+        cache.findItem("milk");
+        now += Duration.ofSeconds(6).toNanos();
+        cache.findItem("milk");
+
+        assertEquals(2, backendLookups.get("milk"),
+                "An item older than its time to live should be read from the backend again.");
+    }
+
+    @Test
+    public void testUnknownItemIsNotCached() {
+        CachingItemCatalog cache = new CachingItemCatalog(backend, 10, Duration.ofMinutes(1), () -> now);
+
+        assertNull(cache.findItem("missing1"), "An unknown item should give null.");
+        assertNull(cache.findItem("missing1"), "An unknown item should give null.");
+
+        assertEquals(2, backendLookups.get("missing1"), "Unknown items should not be cached.");
+        assertEquals(0, cache.size(), "Unknown items should not take any room in the cache.");
+    }
+
+    @Test
+    public void testPopularItemIsNotEvictedByRareItems() {
+        CachingItemCatalog cache = new CachingItemCatalog(backend, 1, Duration.ofMinutes(1), () -> now);
+        for (int i = 0; i < 5; i++) {
+            cache.findItem("milk");
+        }
+
+        for (int i = 0; i < 100; i++) {
+            cache.findItem("rare" + i);
+        }
+        cache.findItem("milk");
+
+        assertEquals(1, backendLookups.get("milk"),
+                "Items requested only once should not replace a frequently requested item.");
+        assertEquals(0, cache.getEvictionCount(), "No item should have been evicted.");
+    }
+
+    @Test
+    public void testFrequentItemReplacesLessFrequentItem() {
+        CachingItemCatalog cache = new CachingItemCatalog(backend, 1, Duration.ofMinutes(1), () -> now);
+        cache.findItem("rare");
+
+        for (int i = 0; i < 3; i++) {
+            cache.findItem("bread");
+        }
+
+        assertEquals(1, cache.getEvictionCount(), "The rarely requested item should be evicted.");
+        assertEquals(2, backendLookups.get("bread"),
+                "The item should be admitted on its second request and then answered from the cache.");
+    }
+
+    @Test
+    public void testExpiredItemIsReplacedRegardlessOfFrequency() {
+        CachingItemCatalog cache = new CachingItemCatalog(backend, 1, Duration.ofSeconds(5), () -> now);
+        for (int i = 0; i < 5; i++) {
+            cache.findItem("milk");
+        }
+        now += Duration.ofSeconds(6).toNanos();
+
+        cache.findItem("rare");
+        cache.findItem("rare");
+
+        assertEquals(1, backendLookups.get("rare"), "The new item should take the place of the expired item.");
+        assertTrue(cache.isCached("rare"), "The new item should be cached.");
+    }
+}
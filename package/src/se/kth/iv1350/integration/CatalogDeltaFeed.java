@@ -0,0 +1,19 @@
+package se.kth.iv1350.integration;
+
+import se.kth.iv1350.dto.CatalogDeltaDTO;
+
+/**
+ * The feed of catalog changes published by the central inventory, read by the
+ * {@link CatalogReplica} of each lane.
+ */
+public interface CatalogDeltaFeed {
+
+    /**
+     * Fetches all changes of the catalog made after the specified version.
+     *
+     * @param version The version the caller already has.
+     * @return The changes from the specified version to the latest version.
+     * @throws DatabaseFailureException If the central inventory cannot be reached.
+     */
+    CatalogDeltaDTO fetchChangesSince(long version);
+}
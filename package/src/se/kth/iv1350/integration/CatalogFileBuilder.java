@@ -0,0 +1,210 @@
+package se.kth.iv1350.integration;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds a binary catalog file for {@link MappedItemCatalog} from a CSV file. Each line of
+ * the CSV file describes one item:
+ * <pre>
+ * itemID,name,description,price,vatRate[,currency]
+ * </pre>
+ * for example {@code abc123,BigWheel Oatmeal,"Oatmeal 500g, whole grain",29.90,0.06,SEK}.
+ * Fields containing commas or quotes are enclosed in double quotes, with quotes inside the
+ * field doubled. The currency is SEK if omitted, and a first line starting with
+ * {@code itemID} is treated as a header and skipped.
+ * <p>
+ * Run with {@code java se.kth.iv1350.integration.CatalogFileBuilder <csv-file> <catalog-file>}.
+ */
+public class CatalogFileBuilder {
+    private static final String DEFAULT_CURRENCY = "SEK";
+    private static final String HEADER_START = "itemID";
+
+    private int[] hashes = new int[1024];
+    private int[] recordOffsets = new int[1024];
+    private int itemCount;
+
+    /**
+     * Builds a catalog file from the CSV file given as the first argument and writes it to
+     * the file given as the second argument.
+     *
+     * @param args The CSV file and the catalog file.
+     * @throws IOException If a file could not be read or written, or the CSV file is invalid.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: java se.kth.iv1350.integration.CatalogFileBuilder <csv-file> <catalog-file>");
+            System.exit(1);
+        }
+        try (Reader csv = Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            int count = build(csv, Path.of(args[1]));
+            System.out.println("Wrote " + count + " items to " + args[1]);
+        }
+    }
+
+    /**
+     * Reads items from CSV and writes them to a catalog file, replacing any existing file.
+     *
+     * @param csv The CSV data to read.
+     * @param catalogFile The catalog file to write.
+     * @return The number of items written.
+     * @throws IOException If a file could not be read or written, or the CSV data is invalid.
+     */
+    public static int build(Reader csv, Path catalogFile) throws IOException {
+        return new CatalogFileBuilder().buildCatalog(csv, catalogFile);
+    }
+
+    private int buildCatalog(Reader csv, Path catalogFile) throws IOException {
+        Path records = Files.createTempFile(catalogFile.toAbsolutePath().getParent(), "catalog", ".records");
+        try {
+            long recordsSize = writeRecords(new BufferedReader(csv), records);
+            int slotCount = CatalogFileFormat.slotCountFor(itemCount);
+            long dataStart = CatalogFileFormat.HEADER_SIZE + (long) slotCount * CatalogFileFormat.SLOT_SIZE;
+            if (dataStart + recordsSize > Integer.MAX_VALUE) {
+                throw new IOException("The catalog would be larger than 2 GB.");
+            }
+            writeCatalog(catalogFile, records, slotCount, (int) dataStart);
+            return itemCount;
+        } finally {
+            Files.deleteIfExists(records);
+        }
+    }
+
+    private long writeRecords(BufferedReader csv, Path records) throws IOException {
+        Set<String> itemIDs = new HashSet<>();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(records)))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = csv.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && line.startsWith(HEADER_START))) {
+                    continue;
+                }
+                List<String> fields = parseLine(line, lineNumber);
+                if (fields.size() < 5 || fields.size() > 6) {
+                    throw new IOException("Line " + lineNumber + " should have 5 or 6 fields.");
+                }
+                String itemID = fields.get(0);
+                if (!itemIDs.add(itemID)) {
+                    throw new IOException("Line " + lineNumber + " repeats the item ID " + itemID + ".");
+                }
+                addIndexEntry(CatalogFileFormat.hash(itemID), out.size());
+                writeString(out, itemID);
+                writeString(out, fields.get(1));
+                writeString(out, fields.get(2));
+                out.writeLong(parseScaled(fields.get(3), 2, lineNumber));
+                writeString(out, fields.size() == 6 ? fields.get(5) : DEFAULT_CURRENCY);
+                out.writeInt((int) parseScaled(fields.get(4), 4, lineNumber));
+            }
+            return out.size();
+        }
+    }
+
+    private void writeCatalog(Path catalogFile, Path records, int slotCount, int dataStart) throws IOException {
+        ByteBuffer table = ByteBuffer.allocate(dataStart);
+        table.putInt(CatalogFileFormat.MAGIC);
+        table.putInt(CatalogFileFormat.VERSION);
+        table.putInt(slotCount);
+        table.putInt(itemCount);
+        int slotMask = slotCount - 1;
+        for (int i = 0; i < itemCount; i++) {
+            int slot = hashes[i] & slotMask;
+            while (table.getInt(slotPosition(slot) + 4) != 0) {
+                slot = (slot + 1) & slotMask;
+            }
+            table.putInt(slotPosition(slot), hashes[i]);
+            table.putInt(slotPosition(slot) + 4, dataStart + recordOffsets[i]);
+        }
+        table.position(0);
+
+        try (FileChannel out = FileChannel.open(catalogFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             FileChannel in = FileChannel.open(records, StandardOpenOption.READ)) {
+            while (table.hasRemaining()) {
+                out.write(table);
+            }
+            long position = 0;
+            long size = in.size();
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    private static int slotPosition(int slot) {
+        return CatalogFileFormat.HEADER_SIZE + slot * CatalogFileFormat.SLOT_SIZE;
+    }
+
+    private void addIndexEntry(int hash, int recordOffset) {
+        if (itemCount == hashes.length) {
+            hashes = Arrays.copyOf(hashes, itemCount * 2);
+            recordOffsets = Arrays.copyOf(recordOffsets, itemCount * 2);
+        }
+        hashes[itemCount] = hash;
+        recordOffsets[itemCount] = recordOffset;
+        itemCount++;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("The text \"" + value.substring(0, 20) + "...\" is too long.");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static long parseScaled(String number, int decimals, int lineNumber) throws IOException {
+        try {
+            return new BigDecimal(number.trim()).movePointRight(decimals).longValueExact();
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new IOException("Line " + lineNumber + " has the invalid number \"" + number + "\".", e);
+        }
+    }
+
+    static List<String> parseLine(String line, int lineNumber) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IOException("Line " + lineNumber + " has an unterminated quote.");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,43 @@
+package se.kth.iv1350.integration;
+
+/**
+ * Describes the binary catalog file read by {@link MappedItemCatalog} and written by
+ * {@link CatalogFileBuilder}. All numbers are big-endian.
+ * <pre>
+ * header:  int magic, int version, int slotCount, int itemCount
+ * slots:   slotCount x (int hash, int recordOffset), recordOffset 0 marks an empty slot
+ * records: short idLength, id, short nameLength, name, short descriptionLength, description,
+ *          long priceInMinorUnits, short currencyLength, currency, int vatRateInBasisPoints
+ * </pre>
+ * Strings are UTF-8 encoded. The slots form an open addressing hash table with linear probing,
+ * and the number of slots is a power of two at least twice the number of items.
+ */
+final class CatalogFileFormat {
+    static final int MAGIC = 0x43415431; // "CAT1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int SLOT_SIZE = 8;
+    static final int VAT_RATE_SCALE = 10_000;
+
+    private CatalogFileFormat() {
+    }
+
+    /**
+     * Calculates the hash code used to place an item ID in the slot table.
+     */
+    static int hash(String itemID) {
+        int h = itemID.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Calculates the number of slots needed for the specified number of items.
+     */
+    static int slotCountFor(int itemCount) {
+        int slots = 2;
+        while (slots < itemCount * 2L) {
+            slots <<= 1;
+        }
+        return slots;
+    }
+}
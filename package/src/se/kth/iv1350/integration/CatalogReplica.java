@@ -0,0 +1,508 @@
+package se.kth.iv1350.integration;
+
+import se.kth.iv1350.dto.CatalogDeltaDTO;
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.util.AsyncLogger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A local copy of the item catalog kept by each lane, so that the lane keeps selling when the
+ * central inventory can not be reached. The replica is a base catalog, such as a
+ * {@link MappedItemCatalog} of the latest full export, with the changes published since then
+ * laid on top of it.
+ * <p>
+ * The replica is brought up to date with {@link #synchronize(CatalogDeltaFeed)}, which fetches
+ * only the changes since the version the replica has. The changes are first appended to a change
+ * log on disk, so the replica has the same version after a restart, and are then published as
+ * a new catalog version (see {@link VersionedItemCatalog}). Scans are never paused while changes
+ * are applied, and sales in progress keep the version they started with.
+ * <p>
+ * Each published version shares the changes of the earlier versions, and only adds a layer with
+ * the changes of the new delta. To keep lookups fast, the layers are merged into one after
+ * {@value #MAX_OVERLAY_LAYERS} deltas. When a new full export arrives, {@link #rebase(ItemCatalog, long)}
+ * makes it the base catalog, and drops the changes it already contains, from memory and from the
+ * change log.
+ * <p>
+ * Each record of the change log is
+ * <pre>
+ * int magic, int payloadLength, int crc32OfPayload, payload
+ * payload: long fromVersion, long toVersion, int changedCount,
+ *          changedCount x (itemID, name, description, category, long priceInMinorUnits, currency,
+ *                          int vatRateInBasisPoints),
+ *          int removedCount, removedCount x itemID
+ * </pre>
+ * where all strings are a short length followed by UTF-8 bytes. A record that was only partly
+ * written before a crash is removed when the replica is opened.
+ */
+public class CatalogReplica extends VersionedItemCatalog implements Closeable {
+    private static final AsyncLogger LOGGER = AsyncLogger.getDefault();
+    private static final int MAGIC = 0x43444C54; // "CDLT"
+    private static final int HEADER_SIZE = 12;
+    private static final int VAT_RATE_SCALE = 10_000;
+    private static final int MAX_OVERLAY_LAYERS = 8;
+
+    private final Path changeLogFile;
+    private FileChannel changeLog;
+    private ItemCatalog base;
+    private long baseVersion;
+    private Overlay overlay;
+    private volatile long replicaVersion;
+
+    private CatalogReplica(Path changeLogFile, FileChannel changeLog, ItemCatalog base, long baseVersion,
+                           Overlay overlay, long replicaVersion) {
+        super(new ReplicaCatalog(base, overlay));
+        this.changeLogFile = changeLogFile;
+        this.changeLog = changeLog;
+        this.base = base;
+        this.baseVersion = baseVersion;
+        this.overlay = overlay;
+        this.replicaVersion = replicaVersion;
+    }
+
+    /**
+     * Opens a replica of a base catalog that has no changes of the central catalog, creating its
+     * change log if it does not exist. All changes in the log are applied to the base catalog.
+     *
+     * @param changeLogFile The file with the changes made after the base catalog.
+     * @param base The catalog the changes apply to. It is not closed by the replica.
+     * @return The opened replica.
+     * @throws IOException If the change log can not be read.
+     */
+    public static CatalogReplica open(Path changeLogFile, ItemCatalog base) throws IOException {
+        return open(changeLogFile, base, 0);
+    }
+
+    /**
+     * Opens a replica, creating its change log if it does not exist. The changes in the log that
+     * are newer than the base catalog are applied to it, and older changes are removed from the log.
+     *
+     * @param changeLogFile The file with the changes made after the base catalog.
+     * @param base The catalog the changes apply to. It is not closed by the replica.
+     * @param baseVersion The version of the central catalog that the base catalog is an export of.
+     * @return The opened replica.
+     * @throws IOException If the change log can not be read.
+     */
+    public static CatalogReplica open(Path changeLogFile, ItemCatalog base, long baseVersion) throws IOException {
+        FileChannel channel = FileChannel.open(changeLogFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            LoggedChanges logged = readChangeLog(channel, baseVersion);
+            channel.truncate(logged.end);
+            channel.position(logged.end);
+            channel = dropChangesBefore(logged, changeLogFile, channel);
+            return new CatalogReplica(changeLogFile, channel, base, baseVersion, Overlay.of(logged.changes),
+                    logged.version);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the version of the central catalog that the replica has.
+     *
+     * @return The replica version, or 0 if no changes have been applied to the base catalog.
+     */
+    public long getReplicaVersion() {
+        return replicaVersion;
+    }
+
+    /**
+     * Fetches the changes made since the replica version and applies them. If the central
+     * inventory can not be reached, the replica keeps its version and the lane keeps selling.
+     *
+     * @param feed The feed of changes from the central inventory.
+     * @return {@code true} if the replica is up to date, {@code false} if the feed could not be reached.
+     * @throws IOException If the changes could not be written to the change log.
+     */
+    public boolean synchronize(CatalogDeltaFeed feed) throws IOException {
+        CatalogDeltaDTO delta;
+        try {
+            delta = feed.fetchChangesSince(replicaVersion);
+        } catch (DatabaseFailureException e) {
+            LOGGER.warn(() -> "Catalog feed unreachable, selling from replica version " + replicaVersion + ": "
+                    + e.getMessage());
+            return false;
+        }
+        if (delta.getToVersion() != replicaVersion) {
+            applyChanges(delta);
+        }
+        return true;
+    }
+
+    /**
+     * Applies changes to the replica. The changes are written to the change log before they are
+     * published, so they are kept after a restart.
+     *
+     * @param delta The changes, which must apply to the replica version.
+     * @throws IOException If the changes could not be written to the change log.
+     * @throws IllegalArgumentException If the changes apply to another version than the replica version.
+     */
+    public synchronized void applyChanges(CatalogDeltaDTO delta) throws IOException {
+        if (delta.getFromVersion() != replicaVersion) {
+            throw new IllegalArgumentException("The changes apply to version " + delta.getFromVersion()
+                    + ", but the replica has version " + replicaVersion + ".");
+        }
+        long started = System.nanoTime();
+        ByteBuffer record = encode(delta);
+        while (record.hasRemaining()) {
+            changeLog.write(record);
+        }
+        changeLog.force(false);
+
+        Map<String, ItemDTO> deltaChanges = new HashMap<>();
+        for (ItemDTO item : delta.getChangedItems()) {
+            deltaChanges.put(item.getItemID(), item);
+        }
+        for (String itemID : delta.getRemovedItemIDs()) {
+            deltaChanges.put(itemID, ReplicaCatalog.REMOVED);
+        }
+        Overlay nextOverlay = overlay.with(deltaChanges);
+        publish(new ReplicaCatalog(base, nextOverlay));
+        overlay = nextOverlay;
+        replicaVersion = delta.getToVersion();
+        LOGGER.info(() -> "Catalog replica updated to version " + delta.getToVersion() + " with "
+                + delta.getChangeCount() + " changes in " + (System.nanoTime() - started) / 1_000_000 + " ms.");
+    }
+
+    /**
+     * Makes a new full export of the central catalog the base of the replica. The changes that the
+     * export already contains are dropped, and the change log is rewritten without them, so
+     * neither the memory nor the log of the replica keeps growing between exports. The changes
+     * newer than the export are kept, and are laid on top of it.
+     * <p>
+     * The export must be stored where it is found after a restart before this method is called,
+     * since the replica must then be opened with the new base and base version.
+     *
+     * @param newBase The new base catalog. It is not closed by the replica.
+     * @param newBaseVersion The version of the central catalog that the new base is an export of.
+     * @throws IOException If the change log could not be rewritten.
+     * @throws IllegalArgumentException If the new base is older than the current base.
+     */
+    public synchronized void rebase(ItemCatalog newBase, long newBaseVersion) throws IOException {
+        if (newBaseVersion < baseVersion) {
+            throw new IllegalArgumentException("The new base has version " + newBaseVersion
+                    + ", but the replica already has base version " + baseVersion + ".");
+        }
+        LoggedChanges logged = readChangeLog(changeLog, newBaseVersion);
+        changeLog = dropChangesBefore(logged, changeLogFile, changeLog);
+        Overlay nextOverlay = Overlay.of(logged.changes);
+        publish(new ReplicaCatalog(newBase, nextOverlay));
+        base = newBase;
+        baseVersion = newBaseVersion;
+        overlay = nextOverlay;
+        replicaVersion = logged.version;
+        LOGGER.info(() -> "Catalog replica rebased on version " + newBaseVersion + ", keeping "
+                + logged.changes.size() + " newer changes.");
+    }
+
+    /**
+     * Closes the change log.
+     *
+     * @throws IOException If the change log could not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        changeLog.close();
+    }
+
+    /**
+     * Reads the valid records of a change log, and applies those that are newer than a base
+     * version. A record that spans the base version is applied too, which gives the same items
+     * since each change holds the whole item.
+     */
+    private static LoggedChanges readChangeLog(FileChannel channel, long baseVersion) throws IOException {
+        LoggedChanges logged = new LoggedChanges(baseVersion);
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (true) {
+            header.clear();
+            if (readFully(channel, header, position) < HEADER_SIZE) {
+                break;
+            }
+            int payloadLength = header.getInt(4);
+            if (header.getInt(0) != MAGIC || payloadLength < 0
+                    || position + HEADER_SIZE + payloadLength > channel.size()) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+            readFully(channel, payload, position + HEADER_SIZE);
+            if (checksum(payload.array()) != header.getInt(8)) {
+                break;
+            }
+            payload.flip();
+            if (payload.getLong(8) > baseVersion) {
+                boolean firstKept = logged.keptStart < 0;
+                if (firstKept) {
+                    logged.keptStart = position;
+                }
+                logged.version = decodeAndApply(payload, logged.changes, logged.version, firstKept);
+            }
+            position += HEADER_SIZE + payloadLength;
+        }
+        logged.end = position;
+        if (logged.keptStart < 0) {
+            logged.keptStart = position;
+        }
+        return logged;
+    }
+
+    /**
+     * Rewrites the change log without the records before the kept ones. The log is replaced
+     * atomically, so after a crash it holds either all records or only the kept ones.
+     * @return The channel of the change log, positioned at its end.
+     */
+    private static FileChannel dropChangesBefore(LoggedChanges logged, Path changeLogFile, FileChannel channel)
+            throws IOException {
+        if (logged.keptStart == 0) {
+            return channel;
+        }
+        Path compacted = changeLogFile.resolveSibling(changeLogFile.getFileName() + ".compacted");
+        long length = logged.end - logged.keptStart;
+        try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long copied = 0;
+            while (copied < length) {
+                copied += channel.transferTo(logged.keptStart + copied, length - copied, target);
+            }
+            target.force(false);
+        }
+        channel.close();
+        Files.move(compacted, changeLogFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        FileChannel reopened = FileChannel.open(changeLogFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        reopened.position(length);
+        return reopened;
+    }
+
+    private static ByteBuffer encode(CatalogDeltaDTO delta) {
+        int payloadSize = 8 + 8 + 4 + 4;
+        byte[][][] items = new byte[delta.getChangedItems().size()][][];
+        for (int i = 0; i < items.length; i++) {
+            ItemDTO item = delta.getChangedItems().get(i);
+            items[i] = new byte[][] {utf8(item.getItemID()), utf8(item.getName()), utf8(item.getDescription()),
+                    utf8(item.getCategory()), utf8(item.getPrice().getCurrency().getCode())};
+            for (byte[] string : items[i]) {
+                payloadSize += 2 + string.length;
+            }
+            payloadSize += 8 + 4;
+        }
+        byte[][] removed = new byte[delta.getRemovedItemIDs().size()][];
+        for (int i = 0; i < removed.length; i++) {
+            removed[i] = utf8(delta.getRemovedItemIDs().get(i));
+            payloadSize += 2 + removed[i].length;
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payloadSize);
+        record.position(HEADER_SIZE);
+        record.putLong(delta.getFromVersion());
+        record.putLong(delta.getToVersion());
+        record.putInt(items.length);
+        for (int i = 0; i < items.length; i++) {
+            ItemDTO item = delta.getChangedItems().get(i);
+            putBytes(record, items[i][0]);
+            putBytes(record, items[i][1]);
+            putBytes(record, items[i][2]);
+            putBytes(record, items[i][3]);
+            record.putLong(item.getPrice().getMinorUnits());
+            putBytes(record, items[i][4]);
+            record.putInt((int) Math.round(item.getVatRate() * VAT_RATE_SCALE));
+        }
+        record.putInt(removed.length);
+        for (byte[] itemID : removed) {
+            putBytes(record, itemID);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_SIZE, payloadSize);
+        record.putInt(0, MAGIC);
+        record.putInt(4, payloadSize);
+        record.putInt(8, (int) crc.getValue());
+        record.flip();
+        return record;
+    }
+
+    /**
+     * Applies the changes of a payload to a map of changes, where a removed item maps to
+     * {@link ReplicaCatalog#REMOVED}.
+     * @param first Whether this is the first record applied, which may start before the version.
+     * @return The version after the changes.
+     */
+    private static long decodeAndApply(ByteBuffer payload, Map<String, ItemDTO> changes, long version,
+                                       boolean first) {
+        long fromVersion = payload.getLong();
+        long toVersion = payload.getLong();
+        if (fromVersion > version || (fromVersion < version && !first)) {
+            throw new IllegalStateException("The change log skips from version " + version + " to " + fromVersion + ".");
+        }
+        int changedCount = payload.getInt();
+        for (int i = 0; i < changedCount; i++) {
+            String itemID = getString(payload);
+            String name = getString(payload);
+            String description = getString(payload);
+            String category = getString(payload);
+            long priceInMinorUnits = payload.getLong();
+            String currency = getString(payload);
+            double vatRate = (double) payload.getInt() / VAT_RATE_SCALE;
+            changes.put(itemID, new ItemDTO(itemID, name, description,
+                    Amount.ofMinorUnits(priceInMinorUnits, currency), vatRate, category));
+        }
+        int removedCount = payload.getInt();
+        for (int i = 0; i < removedCount; i++) {
+            changes.put(getString(payload), ReplicaCatalog.REMOVED);
+        }
+        return toVersion;
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] utf8(String value) {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("A text of the catalog changes is too long.");
+        }
+        return bytes;
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The changes in a change log that are newer than a base version.
+     */
+    private static final class LoggedChanges {
+        private final Map<String, ItemDTO> changes = new HashMap<>();
+        private long version;
+        private long keptStart = -1;
+        private long end;
+
+        LoggedChanges(long baseVersion) {
+            this.version = baseVersion;
+        }
+    }
+
+    /**
+     * The changes since the base catalog, as layers with the newest on top. A new version only
+     * adds a layer with the changes of one delta, and shares the layers below it with the earlier
+     * versions. The layers are never modified after they are created.
+     */
+    private static final class Overlay {
+        private static final Overlay EMPTY = new Overlay(Map.of(), null, 0);
+
+        private final Map<String, ItemDTO> changes;
+        private final Overlay older;
+        private final int depth;
+
+        private Overlay(Map<String, ItemDTO> changes, Overlay older, int depth) {
+            this.changes = changes;
+            this.older = older;
+            this.depth = depth;
+        }
+
+        static Overlay of(Map<String, ItemDTO> changes) {
+            return changes.isEmpty() ? EMPTY : new Overlay(changes, null, 1);
+        }
+
+        /**
+         * @return The overlay with the specified changes on top. If it would have more than
+         *         {@value CatalogReplica#MAX_OVERLAY_LAYERS} layers, all layers are merged into one.
+         */
+        Overlay with(Map<String, ItemDTO> newerChanges) {
+            if (depth == 0) {
+                return of(newerChanges);
+            }
+            if (depth < MAX_OVERLAY_LAYERS) {
+                return new Overlay(newerChanges, this, depth + 1);
+            }
+            Map<String, ItemDTO> merged = new HashMap<>();
+            copyTo(merged);
+            merged.putAll(newerChanges);
+            return new Overlay(merged, null, 1);
+        }
+
+        private void copyTo(Map<String, ItemDTO> target) {
+            if (older != null) {
+                older.copyTo(target);
+            }
+            target.putAll(changes);
+        }
+
+        /**
+         * @return The newest change of the item, or null if it has not changed since the base.
+         */
+        ItemDTO get(String itemID) {
+            for (Overlay layer = this; layer != null; layer = layer.older) {
+                ItemDTO changed = layer.changes.get(itemID);
+                if (changed != null) {
+                    return changed;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * One version of the replica: the base catalog with the changes since the base laid on top.
+     */
+    private static final class ReplicaCatalog implements ItemCatalog {
+        static final ItemDTO REMOVED = new ItemDTO("", "", "", Amount.ofMinorUnits(0, "SEK"), 0);
+
+        private final ItemCatalog base;
+        private final Overlay changes;
+
+        ReplicaCatalog(ItemCatalog base, Overlay changes) {
+            this.base = base;
+            this.changes = changes;
+        }
+
+        @Override
+        public ItemDTO findItem(String itemID) {
+            ItemDTO changed = changes.get(itemID);
+            if (changed == null) {
+                return base.findItem(itemID);
+            }
+            return changed == REMOVED ? null : changed;
+        }
+
+        @Override
+        public boolean isCached(String itemID) {
+            return changes.get(itemID) != null || base.isCached(itemID);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package se.kth.iv1350.integration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import se.kth.iv1350.dto.CatalogDeltaDTO;
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.util.Amount;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CatalogReplicaTest {
+    @TempDir
+    Path tempDir;
+    private Path changeLog;
+    private ItemCatalog base;
+
+    @BeforeEach
+    public void setUp() {
+        changeLog = tempDir.resolve("catalog-changes.bin");
+        base = new InMemoryItemCatalog(List.of(item("milk", 1200), item("bread", 2500)));
+    }
+
+    @Test
+    public void testChangesAreLaidOverBaseCatalog() throws IOException {
+        try (CatalogReplica replica = CatalogReplica.open(changeLog, base)) {
+            replica.applyChanges(new CatalogDeltaDTO(0, 3, List.of(item("milk", 1400), item("eggs", 3900)),
+                    List.of("bread")));
+
+            assertEquals(3, replica.getReplicaVersion(), "The replica should have the version of the changes.");
+            assertEquals(Amount.ofMinorUnits(1400, "SEK"), replica.findItem("milk").getPrice(),
+                    "A changed price should be used.");
+            assertNotNull(replica.findItem("eggs"), "A new item should be found.");
+            assertNull(replica.findItem("bread"), "A removed item should not be found.");
+        }
+    }
+
+    @Test
+    public void testChangesAreKeptAfterRestart() throws IOException {
+        try (CatalogReplica replica = CatalogReplica.open(changeLog, base)) {
+            replica.applyChanges(new CatalogDeltaDTO(0, 1, List.of(item("milk", 1400)), List.of()));
+            replica.applyChanges(new CatalogDeltaDTO(1, 2, List.of(), List.of("bread")));
+        }
+        Files.write(changeLog, new byte[] {0x43, 0x44}, StandardOpenOption.APPEND);
+
+        try (CatalogReplica reopened = CatalogReplica.open(changeLog, base)) {
+            assertEquals(2, reopened.getReplicaVersion(), "The version should be read from the change log.");
+            assertEquals(Amount.ofMinorUnits(1400, "SEK"), reopened.findItem("milk").getPrice(),
+                    "The logged price should be used.");
+            assertNull(reopened.findItem("bread"), "The logged removal should be applied.");
+            reopened.applyChanges(new CatalogDeltaDTO(2, 3, List.of(item("bread", 2600)), List.of()));
+        }
+        try (CatalogReplica reopened = CatalogReplica.open(changeLog, base)) {
+            assertEquals(3, reopened.getReplicaVersion(), "A partly written record should have been removed.");
+        }
+    }
+
+    @Test
+    public void testChangesForAnotherVersionAreRejected() throws IOException {
+        try (CatalogReplica replica = CatalogReplica.open(changeLog, base)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> replica.applyChanges(new CatalogDeltaDTO(5, 6, List.of(item("milk", 1)), List.of())),
+                    "Changes that skip versions should not be applied.");
+            assertEquals(Amount.ofMinorUnits(1200, "SEK"), replica.findItem("milk").getPrice(),
+                    "The replica should be unchanged.");
+        }
+    }
+
+    @Test
+    public void testUnreachableFeedKeepsReplica() throws IOException {
+        try (CatalogReplica replica = CatalogReplica.open(changeLog, base)) {
+            boolean upToDate = replica.synchronize(version -> {
+                throw new DatabaseFailureException();
+            });
+
+            assertFalse(upToDate, "The replica should report that it could not synchronize.");
+            assertNotNull(replica.findItem("milk"), "The lane should keep selling from the replica.");
+        }
+    }
+
+    @Test
+    public void testLargeDeltaDoesNotChangePinnedVersion() throws IOException {
+        List<ItemDTO> changed = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            changed.add(item("item" + i, 1000 + i));
+        }
+        changed.add(item("milk", 1300));
+        try (CatalogReplica replica = CatalogReplica.open(changeLog, base)) {
+            CatalogSnapshot pinned = replica.pin();
+
+            assertTrue(replica.synchronize(version -> new CatalogDeltaDTO(version, version + 1, changed, List.of())),
+                    "The feed should be reachable.");
+
+            assertEquals(Amount.ofMinorUnits(1200, "SEK"), pinned.findItem("milk").getPrice(),
+                    "A sale in progress should keep its prices.");
+            assertEquals(Amount.ofMinorUnits(1300, "SEK"), replica.findItem("milk").getPrice(),
+                    "New lookups should see the changes.");
+            assertEquals(Amount.ofMinorUnits(100_999, "SEK"), replica.findItem("item99999").getPrice(),
+                    "Every change should be applied.");
+            replica.release(pinned);
+        }
+    }
+
+    @Test
+    public void testRebaseDropsChangesContainedInNewBase() throws IOException {
+        try (CatalogReplica replica = CatalogReplica.open(changeLog, base)) {
+            replica.applyChanges(new CatalogDeltaDTO(0, 1, List.of(item("milk", 1400)), List.of()));
+            replica.applyChanges(new CatalogDeltaDTO(1, 2, List.of(), List.of("bread")));
+            replica.applyChanges(new CatalogDeltaDTO(2, 3, List.of(item("eggs", 3900)), List.of()));
+            long logSizeBefore = Files.size(changeLog);
+            ItemCatalog export = new InMemoryItemCatalog(List.of(item("milk", 1400), item("butter", 4500)));
+
+            replica.rebase(export, 2);
+
+            assertEquals(3, replica.getReplicaVersion(), "Changes newer than the export should be kept.");
+            assertNotNull(replica.findItem("eggs"), "The change after the export should still apply.");
+            assertNotNull(replica.findItem("butter"), "Items of the export should be found.");
+            assertNull(replica.findItem("bread"), "An item removed before the export should stay removed.");
+            assertTrue(Files.size(changeLog) < logSizeBefore, "The older changes should be removed from the log.");
+            replica.applyChanges(new CatalogDeltaDTO(3, 4, List.of(item("milk", 1500)), List.of()));
+        }
+        try (CatalogReplica reopened = CatalogReplica.open(changeLog,
+                new InMemoryItemCatalog(List.of(item("milk", 1400), item("butter", 4500))), 2)) {
+            assertEquals(4, reopened.getReplicaVersion(), "The compacted log should apply to the export.");
+            assertEquals(Amount.ofMinorUnits(1500, "SEK"), reopened.findItem("milk").getPrice(),
+                    "The change made after the rebase should be kept.");
+        }
+    }
+
+    @Test
+    public void testRebaseOnNewerExportEmptiesLog() throws IOException {
+        try (CatalogReplica replica = CatalogReplica.open(changeLog, base)) {
+            replica.applyChanges(new CatalogDeltaDTO(0, 1, List.of(item("milk", 1400)), List.of()));
+
+            replica.rebase(new InMemoryItemCatalog(List.of(item("milk", 1600))), 5);
+
+            assertEquals(5, replica.getReplicaVersion(), "The replica should have the version of the export.");
+            assertEquals(Amount.ofMinorUnits(1600, "SEK"), replica.findItem("milk").getPrice(),
+                    "The export should replace the logged change.");
+            assertEquals(0, Files.size(changeLog), "No logged change should be left.");
+            assertThrows(IllegalArgumentException.class, () -> replica.rebase(base, 0),
+                    "An older export should not be accepted.");
+        }
+    }
+
+    @Test
+    public void testManyDeltasKeepNewestChangesAndPinnedVersions() throws IOException {
+        try (CatalogReplica replica = CatalogReplica.open(changeLog, base)) {
+            CatalogSnapshot pinned = null;
+            for (int version = 0; version < 20; version++) {
+                List<String> removed = version % 2 == 0 ? List.of("bread") : List.of();
+                List<ItemDTO> changed = version % 2 == 0 ? List.of(item("milk", 1300 + version))
+                        : List.of(item("milk", 1300 + version), item("bread", 2500 + version));
+                replica.applyChanges(new CatalogDeltaDTO(version, version + 1, changed, removed));
+                if (version == 4) {
+                    pinned = replica.pin();
+                }
+            }
+
+            assertEquals(Amount.ofMinorUnits(1319, "SEK"), replica.findItem("milk").getPrice(),
+                    "The newest change should be used.");
+            assertEquals(Amount.ofMinorUnits(2519, "SEK"), replica.findItem("bread").getPrice(),
+                    "An item added again should be found.");
+            assertEquals(Amount.ofMinorUnits(1304, "SEK"), pinned.findItem("milk").getPrice(),
+                    "A pinned version should not see later changes.");
+            assertNull(pinned.findItem("bread"), "A pinned version should keep its removals.");
+            replica.release(pinned);
+        }
+    }
+
+    private static ItemDTO item(String itemID, long priceInMinorUnits) {
+        return new ItemDTO(itemID, "Item " + itemID, "", Amount.ofMinorUnits(priceInMinorUnits, "SEK"), 0.12);
+    }
+}
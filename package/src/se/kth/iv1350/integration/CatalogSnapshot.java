@@ -0,0 +1,108 @@
+package se.kth.iv1350.integration;
+
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.util.AsyncLogger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One version of the item catalog of a {@link VersionedItemCatalog}. A snapshot never changes, so
+ * all items of a sale that has pinned a snapshot have the prices and VAT rates of the same version.
+ * <p>
+ * A snapshot counts the references to it: one for being the current version, and one for each
+ * pin. When the last reference is released, the snapshot is reclaimed, which closes its catalog
+ * if the catalog is {@link Closeable}, such as a {@link MappedItemCatalog}.
+ */
+public final class CatalogSnapshot {
+    private static final AsyncLogger LOGGER = AsyncLogger.getDefault();
+
+    private final long version;
+    private final ItemCatalog catalog;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    CatalogSnapshot(long version, ItemCatalog catalog) {
+        this.version = version;
+        this.catalog = catalog;
+    }
+
+    /**
+     * Gets the version of the snapshot. Versions increase by one with each published catalog.
+     * @return The version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Searches the snapshot for an item.
+     * @param itemID The ID of the item.
+     * @return The item, or null if it is not in this version of the catalog.
+     */
+    public ItemDTO findItem(String itemID) {
+        return catalog.findItem(itemID);
+    }
+
+    /**
+     * Searches the snapshot for several items.
+     * @param itemIDs The IDs of the items.
+     * @return The items that were found, by item ID.
+     */
+    public Map<String, ItemDTO> findItems(Collection<String> itemIDs) {
+        return catalog.findItems(itemIDs);
+    }
+
+    boolean isCached(String itemID) {
+        return catalog.isCached(itemID);
+    }
+
+    /**
+     * Checks whether the snapshot has been reclaimed, because it is no longer the current version
+     * and no sale has it pinned.
+     * @return {@code true} if the snapshot has been reclaimed.
+     */
+    public boolean isReclaimed() {
+        return references.get() == 0;
+    }
+
+    /**
+     * Adds a reference, unless the snapshot has already been reclaimed.
+     * @return {@code false} if the snapshot has been reclaimed and can not be used.
+     */
+    boolean retain() {
+        int count;
+        do {
+            count = references.get();
+            if (count == 0) {
+                return false;
+            }
+        } while (!references.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    /**
+     * Releases a reference, and reclaims the snapshot if it was the last.
+     */
+    void release() {
+        int count = references.decrementAndGet();
+        if (count == 0) {
+            reclaim();
+        } else if (count < 0) {
+            throw new IllegalStateException("Catalog version " + version + " was released too many times.");
+        }
+    }
+
+    private void reclaim() {
+        LOGGER.debug(() -> "Catalog version " + version + " reclaimed.");
+        if (catalog instanceof Closeable) {
+            try {
+                ((Closeable) catalog).close();
+            } catch (IOException e) {
+                LOGGER.warn(() -> "Could not close catalog version " + version + ": " + e.getMessage());
+            }
+        }
+    }
+}
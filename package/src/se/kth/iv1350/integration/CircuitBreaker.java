@@ -0,0 +1,93 @@
+package se.kth.iv1350.integration;
+
+import se.kth.iv1350.util.AsyncLogger;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops calls to a failing backend for a while, so that callers fail fast instead of each
+ * waiting for the backend to time out.
+ * <p>
+ * The breaker opens after a number of consecutive failures. While it is open, no call is
+ * allowed. When the open duration has passed, one trial call is allowed: the breaker closes if
+ * the trial succeeds and opens again if it fails.
+ */
+final class CircuitBreaker {
+    private static final AsyncLogger LOGGER = AsyncLogger.getDefault();
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialRunning;
+    private Exception lastFailure;
+
+    CircuitBreaker(String name, int failureThreshold, Duration openDuration, LongSupplier clock) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("The failure threshold must be at least one.");
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Checks whether a call may be made now. A call that is allowed must be followed by
+     * {@link #recordSuccess()} or {@link #recordFailure(Exception)}.
+     */
+    synchronized boolean allowRequest() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            trialRunning = false;
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (trialRunning) {
+                    return false;
+                }
+                trialRunning = true;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            LOGGER.info(() -> "Circuit breaker of " + name + " closed.");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    synchronized void recordFailure(Exception cause) {
+        lastFailure = cause;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && ++consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+            consecutiveFailures = 0;
+            LOGGER.warn(() -> "Circuit breaker of " + name + " opened: " + cause);
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Gets the failure of the latest call that failed, which is reported as the cause when a
+     * call is not allowed.
+     */
+    synchronized Exception getLastFailure() {
+        return lastFailure;
+    }
+}
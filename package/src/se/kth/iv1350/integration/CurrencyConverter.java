@@ -0,0 +1,99 @@
+package se.kth.iv1350.integration;
+
+import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.util.AsyncLogger;
+import se.kth.iv1350.util.Currency;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Converts amounts between currencies with a cached snapshot of the exchange rates. The rates
+ * are fetched again when the snapshot is older than the configured maximum age. If they can not
+ * be fetched, the old snapshot is used until the next attempt, one maximum age later, so a
+ * payment does not fail only because the exchange rate service is down. Conversions with the
+ * same snapshot never wait for each other.
+ */
+public class CurrencyConverter {
+    private static final AsyncLogger LOGGER = AsyncLogger.getDefault();
+
+    private final Supplier<ExchangeRates> source;
+    private final long maxAgeNanos;
+    private final LongSupplier clock;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Creates a new converter that caches the rates of the specified database.
+     * @param database The database the rates are fetched from.
+     * @param maxAge How long a snapshot of the rates is used before the rates are fetched again.
+     */
+    public CurrencyConverter(ExchangeRateDatabase database, Duration maxAge) {
+        this(database::fetchRates, maxAge, System::nanoTime);
+    }
+
+    CurrencyConverter(Supplier<ExchangeRates> source, Duration maxAge, LongSupplier clock) {
+        this.source = source;
+        this.maxAgeNanos = maxAge.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Gets the current snapshot of the exchange rates, fetching new rates if the snapshot is too old.
+     * Several amounts converted with the same snapshot are converted with the same rates.
+     * @return The current rates.
+     * @throws DatabaseFailureException If there are no rates yet and they could not be fetched.
+     */
+    public ExchangeRates getRates() {
+        long now = clock.getAsLong();
+        Snapshot current = snapshot;
+        if (current != null && now - current.fetchedAt < maxAgeNanos) {
+            return current.rates;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && now - current.fetchedAt < maxAgeNanos) {
+                return current.rates;
+            }
+            try {
+                ExchangeRates rates = source.get();
+                snapshot = new Snapshot(rates, now);
+                return rates;
+            } catch (DatabaseFailureException e) {
+                if (current == null) {
+                    throw e;
+                }
+                ExchangeRates oldRates = current.rates;
+                LOGGER.warn(() -> "Could not fetch exchange rates, using the rates of "
+                        + oldRates.getPublished() + ": " + e.getMessage());
+                snapshot = new Snapshot(oldRates, now);
+                return oldRates;
+            }
+        }
+    }
+
+    /**
+     * Converts an amount to another currency with the current rates.
+     * @param amount The amount to convert.
+     * @param targetCurrency The currency to convert to.
+     * @return The converted amount.
+     * @throws IllegalArgumentException If there is no rate for one of the currencies.
+     * @throws DatabaseFailureException If there are no rates yet and they could not be fetched.
+     */
+    public Amount convert(Amount amount, Currency targetCurrency) {
+        if (amount.getCurrency() == targetCurrency) {
+            return amount;
+        }
+        return getRates().convert(amount, targetCurrency);
+    }
+
+    private static final class Snapshot {
+        private final ExchangeRates rates;
+        private final long fetchedAt;
+
+        Snapshot(ExchangeRates rates, long fetchedAt) {
+            this.rates = rates;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
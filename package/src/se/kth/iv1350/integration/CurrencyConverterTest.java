@@ -0,0 +1,72 @@
+package se.kth.iv1350.integration;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.util.Currency;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CurrencyConverterTest {
+    private static final ExchangeRates RATES = new ExchangeRates(Currency.SEK,
+            Map.of(Currency.EUR, 11.5, Currency.NOK, 0.987654), LocalDateTime.of(2024, 5, 1, 9, 0));
+
+    @Test
+    public void testConversionRoundsToWholeMinorUnits() {
+        assertEquals(Amount.ofMinorUnits(11500, Currency.SEK), RATES.convert(new Amount(10, Currency.EUR), Currency.SEK),
+                "10 EUR should be 115 SEK.");
+        assertEquals(Amount.ofMinorUnits(1013, Currency.NOK), RATES.convert(new Amount(10, Currency.SEK), Currency.NOK),
+                "10 SEK should be 10.1250 NOK, rounded to 10.13 NOK.");
+        assertEquals(Amount.ofMinorUnits(859, Currency.EUR), RATES.convert(new Amount(100, Currency.NOK), Currency.EUR),
+                "100 NOK should be converted through SEK to 8.59 EUR.");
+    }
+
+    @Test
+    public void testCurrencyWithoutRateIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RATES.convert(new Amount(1, "USD"), Currency.SEK),
+                "There is no rate for USD.");
+    }
+
+    @Test
+    public void testRatesAreFetchedAgainOnlyWhenTooOld() {
+        AtomicInteger fetches = new AtomicInteger();
+        AtomicLong now = new AtomicLong();
+        CurrencyConverter converter = new CurrencyConverter(() -> {
+            fetches.incrementAndGet();
+            return RATES;
+        }, Duration.ofMinutes(15), now::get);
+
+        converter.convert(new Amount(1, Currency.EUR), Currency.SEK);
+        now.set(Duration.ofMinutes(14).toNanos());
+        converter.convert(new Amount(1, Currency.EUR), Currency.SEK);
+        assertEquals(1, fetches.get(), "The cached rates should be used while they are fresh.");
+
+        now.set(Duration.ofMinutes(16).toNanos());
+        converter.convert(new Amount(1, Currency.EUR), Currency.SEK);
+        assertEquals(2, fetches.get(), "The rates should be fetched again when they are too old.");
+    }
+
+    @Test
+    public void testOldRatesAreUsedWhenFetchingFails() {
+        AtomicInteger fetches = new AtomicInteger();
+        AtomicLong now = new AtomicLong();
+        CurrencyConverter converter = new CurrencyConverter(() -> {
+            if (fetches.incrementAndGet() > 1) {
+                throw new DatabaseFailureException();
+            }
+            return RATES;
+        }, Duration.ofMinutes(15), now::get);
+        converter.getRates();
+
+        now.set(Duration.ofMinutes(20).toNanos());
+
+        assertSame(RATES, converter.getRates(), "The old rates should be used when new rates can not be fetched.");
+        converter.getRates();
+        assertEquals(2, fetches.get(), "A failed fetch should not be retried until the rates are too old again.");
+    }
+}
@@ -0,0 +1,213 @@
+package se.kth.iv1350.integration;
+
+import se.kth.iv1350.dto.DiscountDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable index of the discounts of millions of customers. A customer can belong to a
+ * segment, such as "student" or "senior", whose discount all its members get, and can have a
+ * discount of their own.
+ * <p>
+ * The index is kept compact: the customer IDs are stored sorted, one after the other in a
+ * single {@code char} array, and each customer has two {@code int}s for its segment and its
+ * own discount, which refer to a shared table of distinct discounts. That is about 8 bytes plus
+ * two bytes per character of the ID for each customer, instead of the roughly 100 bytes per
+ * customer of a {@code HashMap}. A customer is found by binary search, but a
+ * {@link BloomFilter} is checked first, so most lookups of customers without a discount, who
+ * are the majority, are answered without searching. The index can be read by several threads
+ * at the same time.
+ */
+public final class CustomerDiscountIndex {
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+    private static final int NONE = -1;
+
+    private final char[] customerIDs;
+    private final int[] idOffsets;
+    private final int[] segmentDiscounts;
+    private final int[] customerDiscounts;
+    private final DiscountDTO[] discounts;
+    private final BloomFilter indexedCustomers;
+
+    private CustomerDiscountIndex(char[] customerIDs, int[] idOffsets, int[] segmentDiscounts,
+                                  int[] customerDiscounts, DiscountDTO[] discounts, BloomFilter indexedCustomers) {
+        this.customerIDs = customerIDs;
+        this.idOffsets = idOffsets;
+        this.segmentDiscounts = segmentDiscounts;
+        this.customerDiscounts = customerDiscounts;
+        this.discounts = discounts;
+        this.indexedCustomers = indexedCustomers;
+    }
+
+    /**
+     * Creates a builder of a new index.
+     * @return The builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Finds the discounts that a customer is entitled to.
+     * @param customerID The ID of the customer.
+     * @return The discount of the customer's segment and the customer's own discount, those of them
+     *         that exist. The list is empty if the customer has no discount.
+     */
+    public List<DiscountDTO> findDiscounts(String customerID) {
+        if (!indexedCustomers.mightContain(customerID)) {
+            return Collections.emptyList();
+        }
+        int customer = indexOf(customerID);
+        if (customer < 0) {
+            return Collections.emptyList();
+        }
+        int segmentDiscount = segmentDiscounts[customer];
+        int customerDiscount = customerDiscounts[customer];
+        if (segmentDiscount == NONE) {
+            return List.of(discounts[customerDiscount]);
+        }
+        if (customerDiscount == NONE) {
+            return List.of(discounts[segmentDiscount]);
+        }
+        return List.of(discounts[segmentDiscount], discounts[customerDiscount]);
+    }
+
+    /**
+     * Gets the number of customers with a discount.
+     * @return The number of customers in the index.
+     */
+    public int size() {
+        return segmentDiscounts.length;
+    }
+
+    private int indexOf(String customerID) {
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareID(middle, customerID);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return NONE;
+    }
+
+    private int compareID(int customer, String customerID) {
+        int start = idOffsets[customer];
+        int length = idOffsets[customer + 1] - start;
+        int common = Math.min(length, customerID.length());
+        for (int i = 0; i < common; i++) {
+            int difference = customerIDs[start + i] - customerID.charAt(i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - customerID.length();
+    }
+
+    /**
+     * Collects segments and customers, and builds a {@link CustomerDiscountIndex} of them.
+     * Not thread-safe.
+     */
+    public static final class Builder {
+        private final Map<String, Integer> segments = new HashMap<>();
+        private final Map<DiscountDTO, Integer> discountNumbers = new HashMap<>();
+        private final List<DiscountDTO> discounts = new ArrayList<>();
+        private final Map<String, int[]> customers = new HashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a segment of customers who all get the same discount.
+         * @param segment The name of the segment.
+         * @param discount The discount of the members of the segment.
+         * @return This builder.
+         */
+        public Builder addSegment(String segment, DiscountDTO discount) {
+            segments.put(segment, numberOf(discount));
+            return this;
+        }
+
+        /**
+         * Makes a customer a member of a segment, replacing any earlier segment of the customer.
+         * @param customerID The ID of the customer.
+         * @param segment The name of a segment added with {@link #addSegment}.
+         * @return This builder.
+         * @throws IllegalArgumentException If there is no such segment.
+         */
+        public Builder assignSegment(String customerID, String segment) {
+            Integer discount = segments.get(segment);
+            if (discount == null) {
+                throw new IllegalArgumentException("Unknown customer segment: " + segment);
+            }
+            entryOf(customerID)[0] = discount;
+            return this;
+        }
+
+        /**
+         * Gives a customer a discount of their own, replacing any earlier discount of the customer.
+         * @param customerID The ID of the customer.
+         * @param discount The discount.
+         * @return This builder.
+         */
+        public Builder addCustomerDiscount(String customerID, DiscountDTO discount) {
+            entryOf(customerID)[1] = numberOf(discount);
+            return this;
+        }
+
+        /**
+         * Builds the index.
+         * @return The new index.
+         */
+        public CustomerDiscountIndex build() {
+            String[] sortedIDs = customers.keySet().toArray(new String[0]);
+            Arrays.sort(sortedIDs);
+            int totalLength = 0;
+            for (String customerID : sortedIDs) {
+                totalLength += customerID.length();
+            }
+
+            char[] customerIDs = new char[totalLength];
+            int[] idOffsets = new int[sortedIDs.length + 1];
+            int[] segmentDiscounts = new int[sortedIDs.length];
+            int[] customerDiscounts = new int[sortedIDs.length];
+            BloomFilter indexedCustomers = new BloomFilter(sortedIDs.length, BLOOM_FALSE_POSITIVE_RATE);
+            int offset = 0;
+            for (int i = 0; i < sortedIDs.length; i++) {
+                String customerID = sortedIDs[i];
+                customerID.getChars(0, customerID.length(), customerIDs, offset);
+                idOffsets[i] = offset;
+                offset += customerID.length();
+                int[] entry = customers.get(customerID);
+                segmentDiscounts[i] = entry[0];
+                customerDiscounts[i] = entry[1];
+                indexedCustomers.add(customerID);
+            }
+            idOffsets[sortedIDs.length] = offset;
+            return new CustomerDiscountIndex(customerIDs, idOffsets, segmentDiscounts, customerDiscounts,
+                    discounts.toArray(new DiscountDTO[0]), indexedCustomers);
+        }
+
+        private int numberOf(DiscountDTO discount) {
+            return discountNumbers.computeIfAbsent(discount, newDiscount -> {
+                discounts.add(newDiscount);
+                return discounts.size() - 1;
+            });
+        }
+
+        private int[] entryOf(String customerID) {
+            return customers.computeIfAbsent(customerID, newCustomer -> new int[] {NONE, NONE});
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package se.kth.iv1350.integration;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import se.kth.iv1350.dto.DiscountDTO;
+import se.kth.iv1350.util.Amount;
+
+import java.util.List;
+import java.util.Set;
+
+public class CustomerDiscountIndexTest {
+    private static final DiscountDTO STUDENT = DiscountDTO.percentage("Student", 10, Set.of("tobacco"));
+    private static final DiscountDTO BIRTHDAY = DiscountDTO.fixedAmount("Birthday", new Amount(50, "SEK"), Set.of());
+
+    @Test
+    public void testSegmentAndCustomerDiscountsAreFound() {
+        CustomerDiscountIndex index = CustomerDiscountIndex.builder()
+                .addSegment("student", STUDENT)
+                .assignSegment("c1", "student")
+                .addCustomerDiscount("c2", BIRTHDAY)
+                .assignSegment("c3", "student")
+                .addCustomerDiscount("c3", BIRTHDAY)
+                .build();
+
+        assertEquals(List.of(STUDENT), index.findDiscounts("c1"), "c1 should get the segment discount.");
+        assertEquals(List.of(BIRTHDAY), index.findDiscounts("c2"), "c2 should get its own discount.");
+        assertEquals(List.of(STUDENT, BIRTHDAY), index.findDiscounts("c3"), "c3 should get both discounts.");
+        assertEquals(List.of(), index.findDiscounts("c4"), "c4 has no discount.");
+        assertEquals(List.of(), index.findDiscounts("c"), "A prefix of an ID should not match.");
+    }
+
+    @Test
+    public void testEveryCustomerOfLargeIndexIsFound() {
+        CustomerDiscountIndex.Builder builder = CustomerDiscountIndex.builder().addSegment("student", STUDENT);
+        for (int i = 0; i < 100_000; i += 2) {
+            builder.assignSegment("customer" + i, "student");
+        }
+        CustomerDiscountIndex index = builder.build();
+
+        assertEquals(50_000, index.size(), "Every added customer should be in the index.");
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(i % 2 == 0, !index.findDiscounts("customer" + i).isEmpty(),
+                    "Only the even customers have a discount, checked customer" + i);
+        }
+    }
+
+    @Test
+    public void testUnknownSegmentIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> CustomerDiscountIndex.builder().assignSegment("c1", "pensioner"),
+                "A customer cannot be assigned to a segment that does not exist.");
+    }
+
+    @Test
+    public void testBloomFilterRejectsMostCustomersThatWereNotAdded() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("member" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(i >= 10_000 || filter.mightContain("member" + i), "An added string must always be found.");
+            if (filter.mightContain("guest" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "About 1% of other strings should be false positives, was "
+                + falsePositives + " of 100000.");
+    }
+}
@@ -14,6 +14,15 @@ public class DatabaseFailureException extends RuntimeException {
         super("Could not connect to the inventory database.");
     }
 
+    /**
+     * Creates a new instance with a message describing how the database failed.
+     *
+     * @param message A description of the failure.
+     */
+    public DatabaseFailureException(String message) {
+        super(message);
+    }
+
     /**
      * Creates a new instance with a message and the underlying cause.
      *
@@ -22,4 +31,15 @@ public class DatabaseFailureException extends RuntimeException {
     public DatabaseFailureException(Exception cause) {
         super("Could not connect to the inventory database.", cause);
     }
+
+    /**
+     * Creates a new instance with a message describing how the database failed, and the
+     * underlying cause.
+     *
+     * @param message A description of the failure.
+     * @param cause The exception that caused the database failure.
+     */
+    public DatabaseFailureException(String message, Exception cause) {
+        super(message, cause);
+    }
 }
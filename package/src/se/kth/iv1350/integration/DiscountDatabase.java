@@ -1,25 +1,73 @@
 package se.kth.iv1350.integration;
 
+import se.kth.iv1350.dto.DiscountDTO;
+import se.kth.iv1350.dto.PromotionDTO;
+import se.kth.iv1350.model.PromotionIndex;
+import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.util.AsyncLogger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
- * Handles communication with an external discount database (simulated).
- * Not actively used in the current required flows for Seminar 3.
+ * Handles communication with an external discount database (simulated). The discounts of all
+ * customers are held in a {@link CustomerDiscountIndex}, and the promotions of the store, which
+ * apply to all customers, in a {@link PromotionIndex}.
  */
 public class DiscountDatabase {
+    private static final AsyncLogger LOGGER = AsyncLogger.getDefault();
+
+    private final CustomerDiscountIndex index;
+    private final PromotionIndex promotions;
+
     /**
-     * Creates a new DiscountDatabase instance.
+     * Creates a new DiscountDatabase instance with a few sample customers: the members
+     * "member1" and "member2", who get 5% off everything except confectionery, and "vip1",
+     * who is a member and also gets 20 SEK off. The sample promotions are "3 for 2" on
+     * YouGoGo Blueberry and a bundle of two YouGoGo Blueberry and a Luxury Chocolate for 70 SEK.
      */
     public DiscountDatabase() {
-        // Initialization if needed
+        this(CustomerDiscountIndex.builder()
+                .addSegment("member", DiscountDTO.percentage("Member discount", 5, Set.of("confectionery")))
+                .assignSegment("member1", "member")
+                .assignSegment("member2", "member")
+                .assignSegment("vip1", "member")
+                .addCustomerDiscount("vip1", DiscountDTO.fixedAmount("VIP discount", new Amount(20, "SEK"), Set.of()))
+                .build(),
+                new PromotionIndex(List.of(
+                        PromotionDTO.multiBuy("P1", "3 for 2 YouGoGo", "def456", 3, 2),
+                        PromotionDTO.bundle("P2", "Chocolate and yoghurt", Map.of("def456", 2, "ghi789", 1),
+                                new Amount(70, "SEK")))));
+    }
+
+    /**
+     * Creates a new DiscountDatabase instance that reads the discounts from the specified index.
+     * @param index The discounts of all customers.
+     * @param promotions The promotions of the store.
+     */
+    public DiscountDatabase(CustomerDiscountIndex index, PromotionIndex promotions) {
+        this.index = index;
+        this.promotions = promotions;
+    }
+
+    /**
+     * Gets the promotions of the store, which are applied to every sale.
+     * @return The promotions, indexed by item.
+     */
+    public PromotionIndex getPromotions() {
+        return promotions;
     }
 
     /**
-     * Fetches discount information based on a customer ID.
-     * (Currently a placeholder as discounts are not part of the required flow).
+     * Fetches the discounts that a customer is entitled to.
      * @param customerID The ID of the customer.
-     * @return Discount information (structure TBD if implemented).
+     * @return The discount of the customer's segment and the customer's own discount, those of
+     *         them that exist. The list is empty if the customer has no discount.
      */
-    public Object fetchDiscount(String customerID) {
-        System.out.println("LOG: DiscountDatabase queried for customer ID: " + customerID);
-        return null;
+    public List<DiscountDTO> fetchDiscounts(String customerID) {
+        List<DiscountDTO> discounts = index.findDiscounts(customerID);
+        LOGGER.debug(() -> "Discounts of customer " + customerID + ": " + discounts);
+        return discounts;
     }
-}
\ No newline at end of file
+}
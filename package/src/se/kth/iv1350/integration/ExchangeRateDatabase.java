@@ -0,0 +1,39 @@
+package se.kth.iv1350.integration;
+
+import se.kth.iv1350.util.Currency;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Handles communication with an external service that publishes exchange rates (simulated).
+ */
+public class ExchangeRateDatabase {
+    private final Map<Currency, Double> rates;
+
+    /**
+     * Creates a new ExchangeRateDatabase instance with sample rates for the currencies accepted
+     * in the border stores: 1 EUR is 11.50 SEK and 1 NOK is 1.00 SEK.
+     */
+    public ExchangeRateDatabase() {
+        this(Map.of(Currency.EUR, 11.50, Currency.NOK, 1.00));
+    }
+
+    /**
+     * Creates a new ExchangeRateDatabase instance with the specified rates.
+     * @param ratesInSEK The value of one unit of each currency, in SEK.
+     */
+    public ExchangeRateDatabase(Map<Currency, Double> ratesInSEK) {
+        this.rates = Map.copyOf(ratesInSEK);
+    }
+
+    /**
+     * Fetches the current exchange rates. Every call is a request to the external service, so
+     * the rates should be cached, see {@link CurrencyConverter}.
+     * @return The current rates, in SEK.
+     * @throws DatabaseFailureException If the rates could not be fetched.
+     */
+    public ExchangeRates fetchRates() {
+        return new ExchangeRates(Currency.SEK, rates, LocalDateTime.now());
+    }
+}
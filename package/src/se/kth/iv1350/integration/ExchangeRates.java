@@ -0,0 +1,113 @@
+package se.kth.iv1350.integration;
+
+import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.util.Currency;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A snapshot of exchange rates, each given as the value of one unit of a currency in a base
+ * currency. The rates are stored with six decimals in an array indexed by
+ * {@link Currency#getIndex()}, so an amount is converted without looking up currency codes.
+ * A snapshot never changes.
+ */
+public final class ExchangeRates {
+    private static final long RATE_SCALE = 1_000_000;
+
+    private final Currency baseCurrency;
+    private final LocalDateTime published;
+    private final long[] scaledRates;
+
+    /**
+     * Creates a new snapshot of exchange rates.
+     * @param baseCurrency The currency the rates are given in.
+     * @param ratesInBaseCurrency The value of one unit of each currency, in the base currency.
+     *                            For example 11.5 for EUR if the base currency is SEK.
+     * @param published When the rates were published.
+     * @throws IllegalArgumentException If a rate is not positive.
+     */
+    public ExchangeRates(Currency baseCurrency, Map<Currency, Double> ratesInBaseCurrency, LocalDateTime published) {
+        this.baseCurrency = baseCurrency;
+        this.published = published;
+        int size = baseCurrency.getIndex() + 1;
+        for (Currency currency : ratesInBaseCurrency.keySet()) {
+            size = Math.max(size, currency.getIndex() + 1);
+        }
+        this.scaledRates = new long[size];
+        scaledRates[baseCurrency.getIndex()] = RATE_SCALE;
+        for (Map.Entry<Currency, Double> rate : ratesInBaseCurrency.entrySet()) {
+            long scaledRate = Math.round(rate.getValue() * RATE_SCALE);
+            if (scaledRate <= 0) {
+                throw new IllegalArgumentException("The rate of " + rate.getKey() + " must be positive.");
+            }
+            scaledRates[rate.getKey().getIndex()] = scaledRate;
+        }
+    }
+
+    /**
+     * Gets the currency the rates are given in.
+     * @return The base currency.
+     */
+    public Currency getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    /**
+     * Gets the time the rates were published.
+     * @return The publication time.
+     */
+    public LocalDateTime getPublished() {
+        return published;
+    }
+
+    /**
+     * Checks whether there is a rate for the specified currency.
+     * @param currency The currency.
+     * @return {@code true} if amounts in the currency can be converted.
+     */
+    public boolean hasRate(Currency currency) {
+        return scaledRateOf(currency) > 0;
+    }
+
+    /**
+     * Converts an amount to another currency. The result is rounded half away from zero to a
+     * whole minor unit of the target currency.
+     * @param amount The amount to convert.
+     * @param targetCurrency The currency to convert to.
+     * @return The converted amount, or the same amount if it already is in the target currency.
+     * @throws IllegalArgumentException If there is no rate for the currency of the amount or
+     *                                  for the target currency.
+     */
+    public Amount convert(Amount amount, Currency targetCurrency) {
+        Currency sourceCurrency = amount.getCurrency();
+        if (sourceCurrency == targetCurrency) {
+            return amount;
+        }
+        long sourceRate = requireRate(sourceCurrency);
+        long targetRate = requireRate(targetCurrency);
+        long product = Math.multiplyExact(amount.getMinorUnits(), sourceRate);
+        long half = targetRate / 2;
+        long converted = product >= 0 ? (product + half) / targetRate : -((-product + half) / targetRate);
+        return Amount.ofMinorUnits(converted, targetCurrency);
+    }
+
+    private long scaledRateOf(Currency currency) {
+        int index = currency.getIndex();
+        return index < scaledRates.length ? scaledRates[index] : 0;
+    }
+
+    private long requireRate(Currency currency) {
+        long rate = scaledRateOf(currency);
+        if (rate == 0) {
+            throw new IllegalArgumentException("There is no exchange rate for " + currency + ".");
+        }
+        return rate;
+    }
+
+    @Override
+    public String toString() {
+        return "ExchangeRates[" + baseCurrency + ", " + published + ", " + Arrays.toString(scaledRates) + "]";
+    }
+}
@@ -0,0 +1,73 @@
+package se.kth.iv1350.integration;
+
+/**
+ * Estimates how often keys have been seen recently, using a count-min sketch with four rows
+ * of small saturating counters. All counters are halved periodically, so old popularity fades.
+ * Used by {@link CachingItemCatalog} to decide which items are worth keeping. Not thread-safe.
+ */
+class FrequencySketch {
+    private static final int ROWS = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x97CB3127, 0xB3C4E99F, 0x4F5A3C1D, 0x2C9277B5};
+
+    private final byte[][] counters = new byte[ROWS][];
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * Creates a sketch suitable for tracking the specified number of distinct keys.
+     */
+    FrequencySketch(int expectedKeys) {
+        int width = Integer.highestOneBit(Math.max(16, expectedKeys * 8 - 1)) << 1;
+        for (int row = 0; row < ROWS; row++) {
+            counters[row] = new byte[width];
+        }
+        this.mask = width - 1;
+        this.sampleSize = width * 10;
+    }
+
+    /**
+     * Records one occurrence of a key.
+     */
+    void increment(Object key) {
+        int hash = key.hashCode();
+        boolean added = false;
+        for (int row = 0; row < ROWS; row++) {
+            int index = indexOf(hash, row);
+            if (counters[row][index] < MAX_COUNT) {
+                counters[row][index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            halveAll();
+        }
+    }
+
+    /**
+     * Estimates how many times a key has been seen recently.
+     */
+    int frequency(Object key) {
+        int hash = key.hashCode();
+        int min = MAX_COUNT;
+        for (int row = 0; row < ROWS; row++) {
+            min = Math.min(min, counters[row][indexOf(hash, row)]);
+        }
+        return min;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = hash * SEEDS[row];
+        return (h ^ (h >>> 15)) & mask;
+    }
+
+    private void halveAll() {
+        for (byte[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>= 1;
+            }
+        }
+        additions /= 2;
+    }
+}
@@ -0,0 +1,31 @@
+package se.kth.iv1350.integration;
+
+import se.kth.iv1350.dto.ItemDTO;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An {@link ItemCatalog} that keeps all items in a map on the heap. Suitable for small catalogs
+ * and for testing. The content is fixed when the catalog is created.
+ */
+public class InMemoryItemCatalog implements ItemCatalog {
+    private final Map<String, ItemDTO> items = new HashMap<>();
+
+    /**
+     * Creates a new catalog containing the specified items.
+     *
+     * @param items The items of the catalog.
+     */
+    public InMemoryItemCatalog(Collection<ItemDTO> items) {
+        for (ItemDTO item : items) {
+            this.items.put(item.getItemID(), item);
+        }
+    }
+
+    @Override
+    public ItemDTO findItem(String itemID) {
+        return items.get(itemID);
+    }
+}
@@ -2,30 +2,79 @@ package se.kth.iv1350.integration;
 
 import se.kth.iv1350.util.Amount;
 import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.dto.ItemEntryDTO;
+import se.kth.iv1350.dto.ItemLookupResultDTO;
 import se.kth.iv1350.model.Sale;
-import java.util.HashMap;
+import se.kth.iv1350.model.SalesLineItem;
+import se.kth.iv1350.util.AsyncLogger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 /**
- * Handles communication with an external inventory system (simulated).
+ * Handles communication with an external inventory system (simulated). Item information
+ * is read from an {@link ItemCatalog}, and the quantity in stock is kept in a {@link StockLedger}.
+ * <p>
+ * The catalog is kept in a {@link VersionedItemCatalog}, so it can be replaced with
+ * {@link #reloadCatalog(ItemCatalog)} while sales are in progress. A sale pins the catalog
+ * version it started with and retrieves all its items from that version.
  */
 public class InventorySystem {
+    private static final AsyncLogger LOGGER = AsyncLogger.getDefault();
     private static final String DATABASE_FAILURE_ITEM_ID = "FAIL_DB";
-    private Map<String, ItemDTO> inventory = new HashMap<>();
+    private static final int SAMPLE_ITEM_STOCK = 100;
+
+    private static final int UNKNOWN_ITEMS_CACHE_SIZE = 10_000;
+    private static final Duration UNKNOWN_ITEMS_TIME_TO_LIVE = Duration.ofSeconds(30);
+
+    private final VersionedItemCatalog catalog;
+    private final StockLedger stockLedger;
+    private final NegativeLookupCache unknownItems;
 
     /**
      * Creates a new InventorySystem and populates it with some sample items.
      */
     public InventorySystem() {
-        inventory.put("abc123", new ItemDTO("abc123", "BigWheel Oatmeal",
-                "BigWheel Oatmeal 500g, whole grain oats, high fiber, gluten free",
-                new Amount(29.90, "SEK"), 0.06));
-        inventory.put("def456", new ItemDTO("def456", "YouGoGo Blueberry",
-                "YouGoGo Blueberry 240g, low sugar youghurt, blueberry flavour",
-                new Amount(14.90, "SEK"), 0.06));
-        inventory.put("ghi789", new ItemDTO("ghi789", "Luxury Chocolate",
-                "Dark chocolate 70%",
-                new Amount(50.00, "SEK"), 0.12));
+        this(new InMemoryItemCatalog(List.of(
+                new ItemDTO("abc123", "BigWheel Oatmeal",
+                        "BigWheel Oatmeal 500g, whole grain oats, high fiber, gluten free",
+                        new Amount(29.90, "SEK"), 0.06, "cereal"),
+                new ItemDTO("def456", "YouGoGo Blueberry",
+                        "YouGoGo Blueberry 240g, low sugar youghurt, blueberry flavour",
+                        new Amount(14.90, "SEK"), 0.06, "dairy"),
+                new ItemDTO("ghi789", "Luxury Chocolate",
+                        "Dark chocolate 70%",
+                        new Amount(50.00, "SEK"), 0.12, "confectionery"))), new StockLedger());
+        for (String itemID : List.of("abc123", "def456", "ghi789")) {
+            stockLedger.addStock(itemID, SAMPLE_ITEM_STOCK);
+        }
+    }
+
+    /**
+     * Creates a new InventorySystem that reads item information from the specified catalog
+     * and starts with an empty stock ledger.
+     *
+     * @param catalog The catalog containing all items that can be sold.
+     */
+    public InventorySystem(ItemCatalog catalog) {
+        this(catalog, new StockLedger());
+    }
+
+    /**
+     * Creates a new InventorySystem that reads item information from the specified catalog
+     * and keeps the quantity in stock in the specified ledger.
+     *
+     * @param catalog The catalog containing all items that can be sold.
+     * @param stockLedger The ledger with the quantity in stock of each item.
+     */
+    public InventorySystem(ItemCatalog catalog, StockLedger stockLedger) {
+        this.catalog = catalog instanceof VersionedItemCatalog
+                ? (VersionedItemCatalog) catalog : new VersionedItemCatalog(catalog);
+        this.stockLedger = stockLedger;
+        this.unknownItems = new NegativeLookupCache(UNKNOWN_ITEMS_CACHE_SIZE, UNKNOWN_ITEMS_TIME_TO_LIVE,
+                System::nanoTime);
     }
 
     /**
@@ -38,26 +87,197 @@ public class InventorySystem {
      *                                    the item ID {@value #DATABASE_FAILURE_ITEM_ID}.
      */
     public ItemDTO retrieveItemInfo(String itemID) throws ItemNotFoundException {
+        return itemOf(lookUpItem(itemID));
+    }
+
+    /**
+     * Retrieves item information based on its ID, from the specified version of the catalog.
+     *
+     * @param itemID The ID of the item to retrieve.
+     * @param snapshot The catalog version pinned by the sale, see {@link #pinCatalog()}.
+     * @return The {@link ItemDTO} if found.
+     * @throws ItemNotFoundException      If the specified item ID does not exist in the catalog version.
+     * @throws DatabaseFailureException   If the database cannot be reached. Simulated by using
+     *                                    the item ID {@value #DATABASE_FAILURE_ITEM_ID}.
+     */
+    public ItemDTO retrieveItemInfo(String itemID, CatalogSnapshot snapshot) throws ItemNotFoundException {
+        return itemOf(lookUpItem(itemID, snapshot));
+    }
+
+    private static ItemDTO itemOf(ItemLookupResultDTO result) throws ItemNotFoundException {
+        if (!result.isFound()) {
+            throw new ItemNotFoundException(result.getItemID());
+        }
+        return result.getItem();
+    }
+
+    /**
+     * Looks up an item based on its ID, without throwing an exception if there is no such item.
+     *
+     * @param itemID The ID of the item to look up.
+     * @return The result of the lookup, with the {@link ItemDTO} if it was found.
+     * @throws DatabaseFailureException   If the database cannot be reached. Simulated by using
+     *                                    the item ID {@value #DATABASE_FAILURE_ITEM_ID}.
+     */
+    public ItemLookupResultDTO lookUpItem(String itemID) {
+        CatalogSnapshot snapshot = catalog.pin();
+        try {
+            return lookUpItem(itemID, snapshot);
+        } finally {
+            catalog.release(snapshot);
+        }
+    }
+
+    /**
+     * Looks up an item based on its ID in the specified version of the catalog, without throwing
+     * an exception if there is no such item. IDs that were recently not found in the same version
+     * are answered without searching the catalog.
+     *
+     * @param itemID The ID of the item to look up.
+     * @param snapshot The catalog version pinned by the sale, see {@link #pinCatalog()}.
+     * @return The result of the lookup, with the {@link ItemDTO} if it was found.
+     * @throws DatabaseFailureException   If the database cannot be reached. Simulated by using
+     *                                    the item ID {@value #DATABASE_FAILURE_ITEM_ID}.
+     */
+    public ItemLookupResultDTO lookUpItem(String itemID, CatalogSnapshot snapshot) {
         if (DATABASE_FAILURE_ITEM_ID.equals(itemID)) {
             throw new DatabaseFailureException();
         }
+        if (unknownItems.isMissing(itemID, snapshot.getVersion())) {
+            return ItemLookupResultDTO.notFound(itemID);
+        }
 
-        ItemDTO found = inventory.get(itemID);
+        ItemDTO found = snapshot.findItem(itemID);
         if (found == null) {
-            throw new ItemNotFoundException(itemID);
+            unknownItems.addMissing(itemID, snapshot.getVersion());
+            return ItemLookupResultDTO.notFound(itemID);
+        }
+        return ItemLookupResultDTO.found(found);
+    }
+
+    /**
+     * Tells whether the item information of an item can be retrieved without reading the
+     * underlying item catalog, because it is cached.
+     *
+     * @param itemID The ID of the item.
+     * @return True if the item is cached.
+     */
+    public boolean isItemCached(String itemID) {
+        return catalog.isCached(itemID);
+    }
+
+    /**
+     * Retrieves item information for several items with one request to the inventory.
+     *
+     * @param itemIDs The IDs of the items to retrieve.
+     * @return The {@link ItemDTO}s of the items that exist in the inventory, by item ID.
+     *         Item IDs that do not exist are left out.
+     * @throws DatabaseFailureException   If the database cannot be reached. Simulated by including
+     *                                    the item ID {@value #DATABASE_FAILURE_ITEM_ID}.
+     */
+    public Map<String, ItemDTO> retrieveItemInfos(Collection<String> itemIDs) {
+        if (itemIDs.contains(DATABASE_FAILURE_ITEM_ID)) {
+            throw new DatabaseFailureException();
+        }
+        return catalog.findItems(itemIDs);
+    }
+
+    /**
+     * Retrieves item information for several items with one request to the inventory, from the
+     * specified version of the catalog.
+     *
+     * @param itemIDs The IDs of the items to retrieve.
+     * @param snapshot The catalog version pinned by the sale, see {@link #pinCatalog()}.
+     * @return The {@link ItemDTO}s of the items that exist in the catalog version, by item ID.
+     * @throws DatabaseFailureException   If the database cannot be reached. Simulated by including
+     *                                    the item ID {@value #DATABASE_FAILURE_ITEM_ID}.
+     */
+    public Map<String, ItemDTO> retrieveItemInfos(Collection<String> itemIDs, CatalogSnapshot snapshot) {
+        if (itemIDs.contains(DATABASE_FAILURE_ITEM_ID)) {
+            throw new DatabaseFailureException();
         }
-        return found;
+        return snapshot.findItems(itemIDs);
+    }
+
+    /**
+     * Pins the current version of the catalog, so that it stays available until it is released
+     * with {@link #releaseCatalog(CatalogSnapshot)}, even if a new version is loaded.
+     *
+     * @return The current catalog version.
+     */
+    public CatalogSnapshot pinCatalog() {
+        return catalog.pin();
     }
 
     /**
-     * Updates the inventory system after a sale is completed.
-     * (Currently a placeholder).
+     * Releases a catalog version pinned with {@link #pinCatalog()}.
+     *
+     * @param snapshot The pinned catalog version.
+     */
+    public void releaseCatalog(CatalogSnapshot snapshot) {
+        catalog.release(snapshot);
+    }
+
+    /**
+     * Replaces the item catalog with a new version, for example with new prices or VAT rates.
+     * Sales that are already in progress keep the version they started with.
+     *
+     * @param newCatalog The new version of the catalog, completely loaded.
+     * @return The number of the new version.
+     */
+    public long reloadCatalog(ItemCatalog newCatalog) {
+        long version = catalog.publish(newCatalog);
+        LOGGER.info(() -> "Item catalog version " + version + " loaded.");
+        return version;
+    }
+
+    /**
+     * Gets the version of the item catalog that new sales start with.
+     *
+     * @return The current catalog version.
+     */
+    public long getCatalogVersion() {
+        return catalog.getCurrentVersion();
+    }
+
+    /**
+     * Updates the inventory system after a sale is completed, by removing the sold
+     * items from the stock.
      *
      * @param sale The completed sale information.
      */
     public void updateInventory(Sale sale) {
-        System.out.println("LOG: Inventory system notified of sale. Items sold:");
-        sale.getItems().forEach(itemLine -> System.out
-                .println("LOG: - " + itemLine.getItem().getName() + ", Qty: " + itemLine.getQuantity()));
+        List<SalesLineItem> soldLines = sale.getItems();
+        List<ItemEntryDTO> soldItems = new ArrayList<>(soldLines.size());
+        for (SalesLineItem itemLine : soldLines) {
+            soldItems.add(new ItemEntryDTO(itemLine.getItem().getItemID(), itemLine.getQuantity()));
+        }
+        stockLedger.removeSoldItems(soldItems);
+
+        LOGGER.debug(() -> {
+            StringBuilder message = new StringBuilder("Inventory system notified of sale. Items sold:");
+            soldLines.forEach(itemLine -> message.append("\n - ").append(itemLine.getItem().getName())
+                    .append(", Qty: ").append(itemLine.getQuantity()));
+            return message.toString();
+        });
+    }
+
+    /**
+     * Gets the current quantity in stock of an item.
+     *
+     * @param itemID The ID of the item.
+     * @return The quantity in stock.
+     */
+    public long getStock(String itemID) {
+        return stockLedger.getStock(itemID);
+    }
+
+    /**
+     * Creates a consistent copy of the quantity in stock of all items, for stock-taking.
+     *
+     * @return The quantity in stock of every item, by item ID.
+     */
+    public Map<String, Long> takeStockSnapshot() {
+        return stockLedger.snapshot();
     }
 }
@@ -5,6 +5,12 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.dto.ItemLookupResultDTO;
+import se.kth.iv1350.model.Sale;
+import se.kth.iv1350.util.Amount;
+
+import java.util.HashMap;
+import java.util.Map;
 
 public class InventorySystemTest {
     private InventorySystem inventory;
@@ -47,4 +53,46 @@ public class InventorySystemTest {
                     "Exception message should contain the item ID that was not found.");
         }
     }
+
+    @Test
+    public void testUpdateInventoryRemovesSoldItemsFromStock() throws ItemNotFoundException {
+        long stockBefore = inventory.getStock("abc123");
+        Sale sale = new Sale();
+        sale.addItemToSale(inventory.retrieveItemInfo("abc123"), 3);
+
+        inventory.updateInventory(sale);
+
+        assertEquals(stockBefore - 3, inventory.getStock("abc123"),
+                "The sold quantity should be removed from the stock.");
+    }
+
+    @Test
+    public void testLookUpUnknownItemReturnsNotFound() {
+        ItemLookupResultDTO result = inventory.lookUpItem("nonExistentID");
+
+        assertEquals(ItemLookupResultDTO.Status.NOT_FOUND, result.getStatus(),
+                "An unknown item should be reported as not found.");
+        assertEquals("nonExistentID", result.getItemID(), "The result should contain the item ID.");
+        assertNull(result.getItem(), "No item should be returned.");
+        assertTrue(inventory.lookUpItem("abc123").isFound(), "An existing item should be found.");
+    }
+
+    @Test
+    public void testRepeatedUnknownItemIsNotSearchedAgainUntilReload() throws ItemNotFoundException {
+        Map<String, Integer> searches = new HashMap<>();
+        InventorySystem counted = new InventorySystem(itemID -> {
+            searches.merge(itemID, 1, Integer::sum);
+            return null;
+        });
+
+        counted.lookUpItem("misread");
+        counted.lookUpItem("misread");
+        assertThrows(ItemNotFoundException.class, () -> counted.retrieveItemInfo("misread"),
+                "Existing callers should still get the exception.");
+        assertEquals(1, searches.get("misread"), "The unknown item should only be searched once.");
+
+        counted.reloadCatalog(itemID -> new ItemDTO(itemID, "New item", "", new Amount(10, "SEK"), 0.06));
+        assertEquals("misread", counted.retrieveItemInfo("misread").getItemID(),
+                "An item added by a reload should be found at once.");
+    }
 }
@@ -0,0 +1,53 @@
+package se.kth.iv1350.integration;
+
+import se.kth.iv1350.dto.ItemDTO;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A source of item information, used by {@link InventorySystem} to look up scanned items.
+ * Implementations must be safe to use from several checkout lanes at the same time.
+ */
+public interface ItemCatalog {
+
+    /**
+     * Finds the item with the specified ID.
+     *
+     * @param itemID The ID of the item to find.
+     * @return The {@link ItemDTO} of the item, or null if there is no item with the specified ID.
+     * @throws DatabaseFailureException If the catalog cannot be read.
+     */
+    ItemDTO findItem(String itemID);
+
+    /**
+     * Finds all items with the specified IDs in one request. Catalogs backed by a remote
+     * database should override this to fetch all items in one round-trip.
+     *
+     * @param itemIDs The IDs of the items to find.
+     * @return The items that were found, by item ID. IDs without an item are left out.
+     * @throws DatabaseFailureException If the catalog cannot be read.
+     */
+    default Map<String, ItemDTO> findItems(Collection<String> itemIDs) {
+        Map<String, ItemDTO> found = new HashMap<>();
+        for (String itemID : itemIDs) {
+            ItemDTO item = findItem(itemID);
+            if (item != null) {
+                found.put(itemID, item);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Tells whether the item with the specified ID would be found without reading the underlying
+     * storage, for example because it is in a cache. Checking never loads the item.
+     *
+     * @param itemID The ID of the item.
+     * @return True if the item is held in memory by this catalog. False by default.
+     */
+    default boolean isCached(String itemID) {
+        return false;
+    }
+}
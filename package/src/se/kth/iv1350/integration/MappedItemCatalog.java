@@ -0,0 +1,145 @@
+package se.kth.iv1350.integration;
+
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.util.Amount;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An {@link ItemCatalog} that reads items from a memory-mapped binary catalog file, see
+ * {@link CatalogFileFormat}. Both the hash index and the item data stay in the file, so opening
+ * the catalog is fast and the heap does not grow with the size of the catalog. An
+ * {@link ItemDTO} is decoded only when its item is looked up.
+ * <p>
+ * Catalog files are created with {@link CatalogFileBuilder} and can be at most 2 GB.
+ */
+public class MappedItemCatalog implements ItemCatalog, Closeable {
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slotMask;
+    private final int itemCount;
+
+    private MappedItemCatalog(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        if (buffer.limit() < CatalogFileFormat.HEADER_SIZE
+                || buffer.getInt(0) != CatalogFileFormat.MAGIC
+                || buffer.getInt(4) != CatalogFileFormat.VERSION) {
+            throw new IOException("Not a catalog file of version " + CatalogFileFormat.VERSION + ".");
+        }
+        int slotCount = buffer.getInt(8);
+        if (Integer.bitCount(slotCount) != 1 || CatalogFileFormat.HEADER_SIZE
+                + (long) slotCount * CatalogFileFormat.SLOT_SIZE > buffer.limit()) {
+            throw new IOException("The slot table of the catalog file is damaged.");
+        }
+        this.slotMask = slotCount - 1;
+        this.itemCount = buffer.getInt(12);
+    }
+
+    /**
+     * Opens a catalog file and maps it into memory.
+     *
+     * @param catalogFile The catalog file to open.
+     * @return The opened catalog.
+     * @throws IOException If the file cannot be read or is not a valid catalog file.
+     */
+    public static MappedItemCatalog open(Path catalogFile) throws IOException {
+        FileChannel channel = FileChannel.open(catalogFile, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedItemCatalog(channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of items in the catalog.
+     *
+     * @return The number of items.
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws DatabaseFailureException If every slot of the slot table was probed without finding
+     *                                  the item or an empty slot, which means the file is damaged.
+     */
+    @Override
+    public ItemDTO findItem(String itemID) {
+        int hash = CatalogFileFormat.hash(itemID);
+        byte[] key = null;
+        int slot = hash & slotMask;
+        for (int probes = 0; probes <= slotMask; probes++, slot = (slot + 1) & slotMask) {
+            int slotPosition = CatalogFileFormat.HEADER_SIZE + slot * CatalogFileFormat.SLOT_SIZE;
+            int recordOffset = buffer.getInt(slotPosition + 4);
+            if (recordOffset == 0) {
+                return null;
+            }
+            if (buffer.getInt(slotPosition) != hash) {
+                continue;
+            }
+            if (key == null) {
+                key = itemID.getBytes(StandardCharsets.UTF_8);
+            }
+            if (idEquals(recordOffset, key)) {
+                return decodeItem(recordOffset);
+            }
+        }
+        throw new DatabaseFailureException("The slot table of the catalog file has no empty slot.");
+    }
+
+    private boolean idEquals(int recordOffset, byte[] key) {
+        int length = Short.toUnsignedInt(buffer.getShort(recordOffset));
+        if (length != key.length) {
+            return false;
+        }
+        int position = recordOffset + 2;
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(position + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ItemDTO decodeItem(int recordOffset) {
+        ByteBuffer record = buffer.duplicate();
+        record.position(recordOffset);
+        String itemID = readString(record);
+        String name = readString(record);
+        String description = readString(record);
+        long priceInMinorUnits = record.getLong();
+        String currency = readString(record);
+        double vatRate = (double) record.getInt() / CatalogFileFormat.VAT_RATE_SCALE;
+        return new ItemDTO(itemID, name, description, Amount.ofMinorUnits(priceInMinorUnits, currency), vatRate);
+    }
+
+    private static String readString(ByteBuffer record) {
+        int length = Short.toUnsignedInt(record.getShort());
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Closes the catalog file. The mapping itself is released when the catalog is garbage collected.
+     *
+     * @throws IOException If the file could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
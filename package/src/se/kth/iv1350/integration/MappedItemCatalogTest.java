@@ -0,0 +1,113 @@
+package se.kth.iv1350.integration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.util.Currency;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class MappedItemCatalogTest {
+    private static final String CSV =
+            "itemID,name,description,price,vatRate,currency\n"
+            + "abc123,BigWheel Oatmeal,\"BigWheel Oatmeal 500g, whole grain oats\",29.90,0.06,SEK\n"
+            + "def456,YouGoGo Blueberry,\"Low sugar \"\"youghurt\"\"\",14.90,0.06\n"
+            + "ghi789,Luxury Chocolate,Dark chocolate 70%,50,0.12,SEK\n";
+
+    @TempDir
+    Path tempDir;
+    private MappedItemCatalog catalog;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Path catalogFile = tempDir.resolve("catalog.bin");
+        CatalogFileBuilder.build(new StringReader(CSV), catalogFile);
+        catalog = MappedItemCatalog.open(catalogFile);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        catalog.close();
+    }
+
+    @Test
+    public void testFindItemDecodesAllFields() {
+        ItemDTO item = catalog.findItem("abc123");
+        assertNotNull(item, "An item in the catalog file should be found.");
+        assertEquals("BigWheel Oatmeal", item.getName(), "The name should be read from the file.");
+        assertEquals("BigWheel Oatmeal 500g, whole grain oats", item.getDescription(),
+                "A quoted field may contain commas.");
+        assertEquals(2990, item.getPrice().getMinorUnits(), "The price should be read exactly.");
+        assertSame(Currency.SEK, item.getPrice().getCurrency(), "The currency should be read from the file.");
+        assertEquals(0.06, item.getVatRate(), 0.00001, "The VAT rate should be read from the file.");
+    }
+
+    @Test
+    public void testQuotesAndDefaultCurrencyAreHandled() {
+        ItemDTO item = catalog.findItem("def456");
+        assertEquals("Low sugar \"youghurt\"", item.getDescription(),
+                "Doubled quotes inside a quoted field should become one quote.");
+        assertSame(Currency.SEK, item.getPrice().getCurrency(), "The currency should default to SEK.");
+    }
+
+    @Test
+    public void testFindMissingItemReturnsNull() {
+        assertNull(catalog.findItem("nonExistentID"), "An unknown item ID should give null.");
+    }
+
+    @Test
+    public void testManyItemsCanBeFound() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            csv.append("item").append(i).append(",Item ").append(i).append(",,").append(i).append(".50,0.25\n");
+        }
+        Path catalogFile = tempDir.resolve("large.bin");
+        CatalogFileBuilder.build(new StringReader(csv.toString()), catalogFile);
+
+        try (MappedItemCatalog large = MappedItemCatalog.open(catalogFile)) {
+            assertEquals(10_000, large.getItemCount(), "All items should be written to the file.");
+            for (int i = 0; i < 10_000; i++) {
+                assertEquals(i * 100L + 50, large.findItem("item" + i).getPrice().getMinorUnits(),
+                        "Every item should be found with its own price.");
+            }
+        }
+    }
+
+    @Test
+    public void testRepeatedItemIDIsRejected() {
+        String csv = "abc123,A,,1.00,0.06\nabc123,B,,2.00,0.06\n";
+        assertThrows(IOException.class,
+                () -> CatalogFileBuilder.build(new StringReader(csv), tempDir.resolve("bad.bin")),
+                "A catalog must not contain the same item ID twice.");
+    }
+
+    @Test
+    public void testOpenInvalidFileFails() throws IOException {
+        Path invalid = Files.writeString(tempDir.resolve("invalid.bin"), "not a catalog file");
+        assertThrows(IOException.class, () -> MappedItemCatalog.open(invalid),
+                "Opening a file that is not a catalog file should fail.");
+    }
+
+    @Test
+    public void testLookupInFullSlotTableFails() throws IOException {
+        ByteBuffer file = ByteBuffer.allocate(CatalogFileFormat.HEADER_SIZE + 2 * CatalogFileFormat.SLOT_SIZE)
+                .putInt(CatalogFileFormat.MAGIC).putInt(CatalogFileFormat.VERSION).putInt(2).putInt(2);
+        for (int slot = 0; slot < 2; slot++) {
+            file.putInt(CatalogFileFormat.hash("nonExistentID") + 1).putInt(CatalogFileFormat.HEADER_SIZE);
+        }
+        Path full = Files.write(tempDir.resolve("full.bin"), file.array());
+
+        try (MappedItemCatalog fullCatalog = MappedItemCatalog.open(full)) {
+            assertThrows(DatabaseFailureException.class, () -> fullCatalog.findItem("nonExistentID"),
+                    "A lookup in a slot table without empty slots should fail instead of probing forever.");
+        }
+    }
+}
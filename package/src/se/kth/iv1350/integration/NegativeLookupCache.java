@@ -0,0 +1,90 @@
+package se.kth.iv1350.integration;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers item IDs that were not found in a version of the item catalog, so that an unknown
+ * barcode that is scanned again and again, for example by a scanner that keeps misreading the
+ * same label, is answered without searching the catalog.
+ * <p>
+ * An ID is only known to be missing in the catalog version it was looked up in. When an ID is
+ * found missing in a newer version, all IDs of older versions are forgotten, so an item added by
+ * a reload is found at once. Entries also expire after a while, for catalogs that change without
+ * a new version. When the cache is full, the IDs that were added first are removed, so adding an
+ * ID takes constant time however full the cache is.
+ */
+final class NegativeLookupCache {
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    private volatile long currentVersion;
+
+    NegativeLookupCache(int maximumSize, Duration timeToLive, LongSupplier clock) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("The maximum size must be at least one.");
+        }
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Tells whether the ID is known to be missing in the specified catalog version.
+     */
+    boolean isMissing(String itemID, long catalogVersion) {
+        Entry entry = entries.get(itemID);
+        return entry != null && entry.catalogVersion == catalogVersion && clock.getAsLong() - entry.expiresAt < 0;
+    }
+
+    /**
+     * Remembers that the ID was not found in the specified catalog version. IDs missing in a
+     * version older than the newest one seen are not remembered.
+     */
+    void addMissing(String itemID, long catalogVersion) {
+        if (catalogVersion > currentVersion) {
+            forgetOlderVersions(catalogVersion);
+        } else if (catalogVersion < currentVersion) {
+            return;
+        }
+        Entry entry = new Entry(catalogVersion, clock.getAsLong() + timeToLiveNanos);
+        if (entries.put(itemID, entry) == null) {
+            insertionOrder.add(itemID);
+            while (entries.size() > maximumSize) {
+                String oldest = insertionOrder.poll();
+                if (oldest == null) {
+                    break;
+                }
+                entries.remove(oldest);
+            }
+        }
+    }
+
+    private synchronized void forgetOlderVersions(long catalogVersion) {
+        if (catalogVersion > currentVersion) {
+            entries.clear();
+            insertionOrder.clear();
+            currentVersion = catalogVersion;
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        private final long catalogVersion;
+        private final long expiresAt;
+
+        Entry(long catalogVersion, long expiresAt) {
+            this.catalogVersion = catalogVersion;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package se.kth.iv1350.integration;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+public class NegativeLookupCacheTest {
+    private long now;
+
+    @Test
+    public void testFullCacheForgetsOldestIDs() {
+        NegativeLookupCache cache = new NegativeLookupCache(3, Duration.ofMinutes(1), () -> now);
+
+        for (int i = 0; i < 5; i++) {
+            cache.addMissing("misread" + i, 1);
+        }
+
+        assertEquals(3, cache.size(), "The cache should not grow beyond its maximum size.");
+        assertFalse(cache.isMissing("misread0", 1), "The oldest ID should be forgotten.");
+        assertTrue(cache.isMissing("misread4", 1), "The newest ID should be remembered.");
+    }
+
+    @Test
+    public void testNewerVersionForgetsOlderVersions() {
+        NegativeLookupCache cache = new NegativeLookupCache(10, Duration.ofMinutes(1), () -> now);
+        cache.addMissing("misread", 1);
+
+        cache.addMissing("other", 2);
+        cache.addMissing("stale", 1);
+
+        assertEquals(1, cache.size(), "Only the ID of the newest version should be kept.");
+        assertFalse(cache.isMissing("misread", 2), "An ID of an older version is not known to be missing.");
+        assertTrue(cache.isMissing("other", 2), "The ID of the newest version should be remembered.");
+    }
+
+    @Test
+    public void testExpiredIDIsNotMissing() {
+        NegativeLookupCache cache = new NegativeLookupCache(10, Duration.ofSeconds(30), () -> now);
+        cache.addMissing("misread", 1);
+
+        now += Duration.ofSeconds(30).toNanos();
+
+        assertFalse(cache.isMissing("misread", 1), "An expired ID should be looked up again.");
+    }
+}
@@ -1,27 +1,120 @@
 package se.kth.iv1350.integration;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import se.kth.iv1350.model.Receipt;
 
 /**
  * Handles printing operations (simulated by printing to System.out).
+ * Receipts are written with a {@link ReceiptRenderer}, one receipt at a time.
  */
 public class Printer {
+    private final ReceiptRenderer renderer;
+    private final WritableByteChannel output;
+
     /**
      * Creates a new Printer instance.
      */
     public Printer() {
+        this(new ReceiptRenderer());
+    }
+
+    /**
+     * Creates a new Printer instance that writes receipts with the specified renderer.
+     * @param renderer The renderer used to write receipts.
+     */
+    public Printer(ReceiptRenderer renderer) {
+        this(renderer, new ConsoleChannel());
+    }
+
+    /**
+     * Creates a new Printer instance that writes receipts to the specified channel instead of
+     * the console.
+     * @param renderer The renderer used to write receipts.
+     * @param output The channel the receipts are written to.
+     */
+    public Printer(ReceiptRenderer renderer, WritableByteChannel output) {
+        this.renderer = renderer;
+        this.output = output;
+    }
+
+    /**
+     * Creates a new Printer instance that renders receipts but discards them, for example when
+     * a batch of sales is processed without a physical printer.
+     * @return The new printer.
+     */
+    public static Printer discardingReceipts() {
+        return new Printer(new ReceiptRenderer(), new DiscardingChannel());
     }
 
     /**
      * Prints the specified receipt.
-     * In this simulation, it prints to the console.
+     * In this simulation, it prints to the console or to the output channel of the printer.
      * @param receipt The receipt to be printed.
      */
-    public void printReceipt(Receipt receipt) {
+    public synchronized void printReceipt(Receipt receipt) {
         if (receipt != null) {
-            System.out.println(receipt.toString());
+            try {
+                renderer.renderLine(receipt, output);
+                if (output instanceof ConsoleChannel) {
+                    System.out.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not print the receipt.", e);
+            }
         } else {
             System.out.println("ERROR: Receipt object was null, cannot print.");
         }
     }
+
+    /**
+     * Writes bytes to the stream that is {@code System.out} at the time of writing.
+     */
+    private static final class ConsoleChannel implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer src) {
+            int length = src.remaining();
+            if (src.hasArray()) {
+                System.out.write(src.array(), src.arrayOffset() + src.position(), length);
+                src.position(src.limit());
+            } else {
+                byte[] bytes = new byte[length];
+                src.get(bytes);
+                System.out.write(bytes, 0, length);
+            }
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Accepts and discards all bytes.
+     */
+    private static final class DiscardingChannel implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer src) {
+            int length = src.remaining();
+            src.position(src.limit());
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
 }
@@ -0,0 +1,329 @@
+package se.kth.iv1350.integration;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import se.kth.iv1350.dto.AppliedPromotionDTO;
+import se.kth.iv1350.model.Receipt;
+import se.kth.iv1350.model.SalesLineItem;
+import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.util.Currency;
+
+/**
+ * Writes receipts to a channel, byte for byte in the layout of {@link Receipt#toString()}.
+ * The fixed parts of the layout, and the digits and decimal separator of the locale, are
+ * encoded once when the renderer is created. Numbers and timestamps are written digit by
+ * digit into a reusable buffer, without {@code String.format} or any temporary strings. The
+ * buffer is written to the channel each time it is full, so a receipt of any length is
+ * streamed in chunks of the buffer size.
+ * <p>
+ * The number format of the locale is read when the renderer is created, like
+ * {@link Amount#toString()} uses the default locale when it is called. A renderer reuses its
+ * buffer and is not thread-safe.
+ */
+public class ReceiptRenderer {
+    private static final int DEFAULT_BUFFER_CAPACITY = 8192;
+    private static final int NAME_COLUMN_WIDTH = 25;
+    private static final int MINOR_UNITS_PER_MAJOR_UNIT = 100;
+    private static final Currency OMITTED_UNIT_PRICE_CURRENCY = Currency.SEK;
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final Charset charset;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer buffer;
+    private final byte[][] digits = new byte[10][];
+    private final byte[] decimalSeparator;
+    private final byte[] digitScratch = new byte[20];
+
+    private final byte[] begin;
+    private final byte[] timeOfSale;
+    private final byte[] quantitySeparator;
+    private final byte[] promotionSeparator;
+    private final byte[] discount;
+    private final byte[] total;
+    private final byte[] vat;
+    private final byte[] cash;
+    private final byte[] change;
+    private final byte[] end;
+    private final byte[] lineSeparator;
+
+    /**
+     * Creates a new renderer that encodes receipts with the default charset, and formats
+     * numbers like the default locale.
+     */
+    public ReceiptRenderer() {
+        this(Charset.defaultCharset(), Locale.getDefault(Locale.Category.FORMAT), DEFAULT_BUFFER_CAPACITY);
+    }
+
+    /**
+     * Creates a new renderer.
+     * @param charset The charset used to encode receipts. It must encode ASCII characters as
+     *                single bytes with the same values, like UTF-8 and ISO-8859-1 do.
+     * @param locale The locale whose digits and decimal separator are used for numbers.
+     * @param bufferCapacity The size in bytes of the chunks written to the channel.
+     * @throws IllegalArgumentException If the charset does not encode ASCII as single bytes.
+     */
+    public ReceiptRenderer(Charset charset, Locale locale, int bufferCapacity) {
+        if (!isAsciiCompatible(charset)) {
+            throw new IllegalArgumentException("Receipts can not be rendered in " + charset + ".");
+        }
+        this.charset = charset;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.buffer = ByteBuffer.allocate(Math.max(bufferCapacity, 64));
+
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        for (int digit = 0; digit < digits.length; digit++) {
+            digits[digit] = encode(String.valueOf((char) (symbols.getZeroDigit() + digit)));
+        }
+        this.decimalSeparator = encode(String.valueOf(symbols.getDecimalSeparator()).replace('.', ':'));
+
+        this.begin = encode("---------------- Begin receipt ----------------\n");
+        this.timeOfSale = encode("Time of Sale: ");
+        this.quantitySeparator = encode(" x ");
+        this.promotionSeparator = encode(" x\t-");
+        this.discount = encode("\nDiscount:\t\t\t\t");
+        this.total = encode("\nTotal: \t\t\t\t\t");
+        this.vat = encode("\nVAT:   \t\t\t\t\t");
+        this.cash = encode("\n\nCash:  \t\t\t\t\t");
+        this.change = encode("\nChange:\t\t\t\t\t");
+        this.end = encode("\n----------------- End receipt -----------------\n");
+        this.lineSeparator = encode(System.lineSeparator());
+    }
+
+    /**
+     * Writes the specified receipt to the channel, with the same bytes as the encoded
+     * {@link Receipt#toString()}.
+     * @param receipt The receipt to write.
+     * @param channel The channel to write to.
+     * @throws IOException If the channel could not be written.
+     */
+    public void render(Receipt receipt, WritableByteChannel channel) throws IOException {
+        writeReceipt(receipt, channel);
+        drain(channel);
+    }
+
+    /**
+     * Writes the specified receipt to the channel followed by the line separator, with the
+     * same bytes as {@code PrintStream.println(receipt.toString())}.
+     * @param receipt The receipt to write.
+     * @param channel The channel to write to.
+     * @throws IOException If the channel could not be written.
+     */
+    public void renderLine(Receipt receipt, WritableByteChannel channel) throws IOException {
+        writeReceipt(receipt, channel);
+        put(lineSeparator, channel);
+        drain(channel);
+    }
+
+    private void writeReceipt(Receipt receipt, WritableByteChannel channel) throws IOException {
+        buffer.clear();
+        put(begin, channel);
+        put(timeOfSale, channel);
+        putTimestamp(receipt.getSaleTimestamp(), channel);
+        putByte('\n', channel);
+        putByte('\n', channel);
+
+        List<SalesLineItem> items = receipt.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            putLine(items.get(i), channel);
+        }
+        List<AppliedPromotionDTO> promotions = receipt.getAppliedPromotions();
+        for (int i = 0; i < promotions.size(); i++) {
+            putPromotion(promotions.get(i), channel);
+        }
+
+        if (receipt.getDiscount().getMinorUnits() != 0) {
+            put(discount, channel);
+            putAmount(receipt.getDiscount(), channel);
+        }
+        put(total, channel);
+        putAmount(receipt.getTotalPriceIncludingVAT(), channel);
+        put(vat, channel);
+        putAmount(receipt.getTotalVAT(), channel);
+        put(cash, channel);
+        putAmount(receipt.getAmountPaid(), channel);
+        put(change, channel);
+        putAmount(receipt.getChange(), channel);
+        put(end, channel);
+    }
+
+    private void putLine(SalesLineItem lineItem, WritableByteChannel channel) throws IOException {
+        String name = String.valueOf(lineItem.getItem().getName());
+        putText(name, channel);
+        for (int i = name.length(); i < NAME_COLUMN_WIDTH; i++) {
+            putByte(' ', channel);
+        }
+        putByte(' ', channel);
+        putNumber(lineItem.getQuantity(), channel);
+        put(quantitySeparator, channel);
+
+        Amount unitPrice = lineItem.getItem().getPrice();
+        putMinorUnits(unitPrice.getMinorUnits(), channel);
+        if (unitPrice.getCurrency() != OMITTED_UNIT_PRICE_CURRENCY) {
+            putByte(' ', channel);
+            putCurrency(unitPrice.getCurrency(), channel);
+        }
+        putByte('\t', channel);
+        putMinorUnits(lineItem.getTotalPriceMinorUnits(), channel);
+        putByte(' ', channel);
+        putCurrency(unitPrice.getCurrency(), channel);
+        putByte('\n', channel);
+    }
+
+    private void putPromotion(AppliedPromotionDTO promotion, WritableByteChannel channel) throws IOException {
+        String name = String.valueOf(promotion.getPromotion().getName());
+        putText(name, channel);
+        for (int i = name.length(); i < NAME_COLUMN_WIDTH; i++) {
+            putByte(' ', channel);
+        }
+        putByte(' ', channel);
+        putNumber(promotion.getTimesApplied(), channel);
+        put(promotionSeparator, channel);
+        putAmount(promotion.getDiscount(), channel);
+        putByte('\n', channel);
+    }
+
+    private void putAmount(Amount amount, WritableByteChannel channel) throws IOException {
+        putMinorUnits(amount.getMinorUnits(), channel);
+        putByte(' ', channel);
+        putCurrency(amount.getCurrency(), channel);
+    }
+
+    private void putMinorUnits(long minorUnits, WritableByteChannel channel) throws IOException {
+        if (minorUnits < 0) {
+            putByte('-', channel);
+        }
+        long magnitude = Math.abs(minorUnits);
+        putDigits(magnitude / MINOR_UNITS_PER_MAJOR_UNIT, channel);
+        put(decimalSeparator, channel);
+        long fraction = magnitude % MINOR_UNITS_PER_MAJOR_UNIT;
+        put(digits[(int) (fraction / 10)], channel);
+        put(digits[(int) (fraction % 10)], channel);
+    }
+
+    private void putNumber(long number, WritableByteChannel channel) throws IOException {
+        if (number < 0) {
+            putByte('-', channel);
+        }
+        putDigits(Math.abs(number), channel);
+    }
+
+    private void putDigits(long magnitude, WritableByteChannel channel) throws IOException {
+        int count = 0;
+        do {
+            digitScratch[count++] = (byte) (magnitude % 10);
+            magnitude /= 10;
+        } while (magnitude > 0);
+        while (count > 0) {
+            put(digits[digitScratch[--count]], channel);
+        }
+    }
+
+    private void putTimestamp(LocalDateTime timestamp, WritableByteChannel channel) throws IOException {
+        int year = timestamp.getYear();
+        if (year < 0 || year > 9999) {
+            putText(timestamp.format(TIMESTAMP_FORMAT), channel);
+            return;
+        }
+        putAsciiDigits(year, 4, channel);
+        putByte('-', channel);
+        putAsciiDigits(timestamp.getMonthValue(), 2, channel);
+        putByte('-', channel);
+        putAsciiDigits(timestamp.getDayOfMonth(), 2, channel);
+        putByte(' ', channel);
+        putAsciiDigits(timestamp.getHour(), 2, channel);
+        putByte(':', channel);
+        putAsciiDigits(timestamp.getMinute(), 2, channel);
+    }
+
+    private void putAsciiDigits(int value, int width, WritableByteChannel channel) throws IOException {
+        for (int divisor = (int) Math.pow(10, width - 1); divisor > 0; divisor /= 10) {
+            putByte('0' + (value / divisor) % 10, channel);
+        }
+    }
+
+    private void putCurrency(Currency currency, WritableByteChannel channel) throws IOException {
+        String code = currency.getCode();
+        putText(code.indexOf('.') < 0 ? code : code.replace('.', ':'), channel);
+    }
+
+    private void putText(String text, WritableByteChannel channel) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                putEncoded(text, channel);
+                return;
+            }
+        }
+        for (int i = 0; i < text.length(); i++) {
+            putByte(text.charAt(i), channel);
+        }
+    }
+
+    private void putEncoded(String text, WritableByteChannel channel) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                drain(channel);
+            }
+        } while (result.isOverflow());
+        while (encoder.flush(buffer).isOverflow()) {
+            drain(channel);
+        }
+    }
+
+    private void put(byte[] bytes, WritableByteChannel channel) throws IOException {
+        for (int offset = 0; offset < bytes.length; ) {
+            if (!buffer.hasRemaining()) {
+                drain(channel);
+            }
+            int length = Math.min(bytes.length - offset, buffer.remaining());
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private void putByte(int asciiChar, WritableByteChannel channel) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain(channel);
+        }
+        buffer.put((byte) asciiChar);
+    }
+
+    private void drain(WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private byte[] encode(String text) {
+        return text.getBytes(charset);
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        byte[] ascii = new byte[0x80];
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] = (byte) i;
+        }
+        String asciiText = new String(ascii, StandardCharsets.US_ASCII);
+        return charset.canEncode() && Arrays.equals(ascii, asciiText.getBytes(charset));
+    }
+}
@@ -0,0 +1,191 @@
+package se.kth.iv1350.integration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import se.kth.iv1350.dto.DiscountDTO;
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.dto.PromotionDTO;
+import se.kth.iv1350.model.PromotionIndex;
+import se.kth.iv1350.model.Receipt;
+import se.kth.iv1350.model.Sale;
+import se.kth.iv1350.util.Amount;
+
+public class ReceiptRendererTest {
+    private Locale originalLocale;
+    private PrintStream originalOut;
+
+    @BeforeEach
+    public void setUp() {
+        originalLocale = Locale.getDefault();
+        originalOut = System.out;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Locale.setDefault(originalLocale);
+        System.setOut(originalOut);
+    }
+
+    @Test
+    public void testRenderedReceiptIsIdenticalToToString() throws IOException {
+        Receipt receipt = createReceipt(3);
+
+        assertRenderedAsToString(receipt, Locale.US, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testRenderedReceiptWithDiscountIsIdenticalToToString() throws IOException {
+        Sale sale = new Sale();
+        sale.addItemToSale(new ItemDTO("abc123", "BigWheel Oatmeal", "BigWheel Oatmeal 500g",
+                new Amount(29.90, "SEK"), 0.06), 2);
+        sale.applyDiscounts(List.of(DiscountDTO.percentage("Member", 5, Set.of())));
+        sale.makePayment(new Amount(100, "SEK"));
+
+        assertTrue(sale.getReceipt().toString().contains("Discount:"), "The receipt should show the discount.");
+        assertRenderedAsToString(sale.getReceipt(), Locale.US, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testRenderedReceiptWithPromotionIsIdenticalToToString() throws IOException {
+        Sale sale = new Sale(new PromotionIndex(List.of(PromotionDTO.multiBuy("P1", "3 f\u00f6r 2", "def456", 3, 2))));
+        sale.addItemToSale(new ItemDTO("def456", "YouGoGo Blueberry", "", new Amount(14.90, "SEK"), 0.06), 7);
+        sale.makePayment(new Amount(100, "SEK"));
+
+        assertRenderedAsToString(sale.getReceipt(), Locale.US, StandardCharsets.UTF_8);
+        assertRenderedAsToString(sale.getReceipt(), new Locale("sv", "SE"), StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    public void testRenderedReceiptIsIdenticalToToStringInOtherLocales() throws IOException {
+        Receipt receipt = createReceipt(3);
+
+        for (Locale locale : new Locale[] {new Locale("sv", "SE"), Locale.GERMANY, new Locale("ar", "EG"),
+                new Locale("hi", "IN", "")}) {
+            assertRenderedAsToString(receipt, locale, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testRenderedReceiptIsIdenticalToToStringInOtherCharset() throws IOException {
+        Receipt receipt = createReceipt(3);
+
+        assertRenderedAsToString(receipt, new Locale("sv", "SE"), StandardCharsets.ISO_8859_1);
+        assertRenderedAsToString(receipt, Locale.US, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void testLongReceiptIsStreamedInChunks() throws IOException {
+        Receipt receipt = createReceipt(500);
+        Locale.setDefault(Locale.US);
+        ChunkCountingChannel channel = new ChunkCountingChannel();
+
+        new ReceiptRenderer(StandardCharsets.UTF_8, Locale.US, 256).render(receipt, channel);
+
+        byte[] expected = receipt.toString().getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(expected, channel.bytes.toByteArray(),
+                "A receipt longer than the buffer should be written unchanged.");
+        assertEquals((expected.length + 255) / 256, channel.chunks,
+                "A receipt longer than the buffer should be written in chunks of the buffer size.");
+    }
+
+    @Test
+    public void testPrinterPrintsSameBytesAsPrintln() {
+        Receipt receipt = createReceipt(3);
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true, StandardCharsets.UTF_8));
+
+        new Printer(new ReceiptRenderer(StandardCharsets.UTF_8, Locale.getDefault(), 64)).printReceipt(receipt);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        new PrintStream(expected, true, StandardCharsets.UTF_8).println(receipt.toString());
+        assertArrayEquals(expected.toByteArray(), printed.toByteArray(),
+                "The printer should print the same bytes as println of the receipt.");
+    }
+
+    @Test
+    public void testPrinterWritesToGivenChannelInsteadOfConsole() {
+        Receipt receipt = createReceipt(3);
+        ByteArrayOutputStream console = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(console, true, StandardCharsets.UTF_8));
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+
+        new Printer(new ReceiptRenderer(StandardCharsets.UTF_8, Locale.getDefault(), 64), Channels.newChannel(printed))
+                .printReceipt(receipt);
+
+        assertEquals(receipt.toString() + System.lineSeparator(), printed.toString(StandardCharsets.UTF_8),
+                "The printer should write the receipt to its channel.");
+        assertEquals(0, console.size(), "The printer should not write to the console.");
+    }
+
+    @Test
+    public void testCharsetThatIsNotAsciiCompatibleIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ReceiptRenderer(StandardCharsets.UTF_16, Locale.US, 64),
+                "A charset that encodes ASCII as several bytes should be rejected.");
+    }
+
+    private void assertRenderedAsToString(Receipt receipt, Locale locale, Charset charset) throws IOException {
+        Locale.setDefault(locale);
+        ByteArrayOutputStream rendered = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(rendered);
+
+        new ReceiptRenderer(charset, locale, 64).render(receipt, channel);
+
+        assertArrayEquals(receipt.toString().getBytes(charset), rendered.toByteArray(),
+                "The rendered receipt should be identical to toString in " + locale + " and " + charset + ".");
+    }
+
+    private static Receipt createReceipt(int numberOfItems) {
+        Sale sale = new Sale();
+        sale.addItemToSale(new ItemDTO("abc123", "BigWheel Oatmeal", "BigWheel Oatmeal 500g",
+                new Amount(29.90, "SEK"), 0.06), 2);
+        sale.addItemToSale(new ItemDTO("def456", "R\u00e4ksm\u00f6rg\u00e5s med \u00e4gg och majonn\u00e4s",
+                "Shrimp sandwich", new Amount(1234567.05, "SEK"), 0.12), 1);
+        for (int i = 2; i < numberOfItems; i++) {
+            sale.addItemToSale(new ItemDTO("item" + i, "Item " + i, "Item number " + i,
+                    Amount.ofMinorUnits(i * 7L, "SEK"), 0.25), i);
+        }
+        sale.addItemToSale(new ItemDTO("ghi789", "Sm\u00f6r", "Butter 500g", new Amount(0.05, "SEK"), 0.12), 1);
+        Amount total = sale.getRunningTotalIncludingVAT();
+        Amount paid = total.add(new Amount(100, "SEK"));
+        sale.makePayment(paid);
+        return sale.getReceipt();
+    }
+
+    private static final class ChunkCountingChannel implements WritableByteChannel {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private int chunks;
+
+        @Override
+        public int write(ByteBuffer src) {
+            chunks++;
+            int length = src.remaining();
+            bytes.write(src.array(), src.arrayOffset() + src.position(), length);
+            src.position(src.limit());
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package se.kth.iv1350.integration;
+
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.util.AsyncLogger;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Protects the lanes from a slow or failing inventory database. Every lookup in the primary
+ * catalog has a deadline, and a {@link CircuitBreaker} stops calling the primary catalog after
+ * repeated failures, so lookups fail fast instead of each waiting for the deadline.
+ * <p>
+ * If a secondary catalog, such as a read replica, is given, a lookup that the primary catalog has
+ * not answered within the hedge delay is also sent to the secondary catalog, and the first answer
+ * is used. The secondary catalog is also used at once when the primary catalog fails or its
+ * circuit breaker is open.
+ * <p>
+ * When no catalog answers before the deadline, the last item information that was found for
+ * the item is returned instead. Only if there is none does the lookup fail, with a
+ * {@link DatabaseFailureException} whose cause tells why.
+ */
+public class ResilientItemCatalog implements ItemCatalog, Closeable {
+    private static final AsyncLogger LOGGER = AsyncLogger.getDefault();
+    private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    private static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+
+    private final ItemCatalog primary;
+    private final ItemCatalog secondary;
+    private final long deadlineNanos;
+    private final long hedgeDelayNanos;
+    private final CircuitBreaker breaker;
+    private final ExecutorService executor;
+    private final Map<String, ItemDTO> lastKnownItems = new ConcurrentHashMap<>();
+    private final LongAdder hedgedLookups = new LongAdder();
+    private final LongAdder fallbackLookups = new LongAdder();
+
+    /**
+     * Creates a new resilient catalog. The circuit breaker opens after five consecutive failures
+     * and stays open for 30 seconds.
+     *
+     * @param primary The catalog that is normally read.
+     * @param secondary The catalog that is read when the primary catalog is slow or failing, or
+     *                  null if there is none.
+     * @param deadline The longest time a lookup may take before the last known item is used.
+     * @param hedgeDelay How long the primary catalog may take before the lookup is also sent to
+     *                   the secondary catalog.
+     */
+    public ResilientItemCatalog(ItemCatalog primary, ItemCatalog secondary, Duration deadline, Duration hedgeDelay) {
+        this(primary, secondary, deadline, hedgeDelay, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION,
+                System::nanoTime);
+    }
+
+    ResilientItemCatalog(ItemCatalog primary, ItemCatalog secondary, Duration deadline, Duration hedgeDelay,
+                         int failureThreshold, Duration openDuration, LongSupplier clock) {
+        this.primary = primary;
+        this.secondary = secondary;
+        this.deadlineNanos = deadline.toNanos();
+        this.hedgeDelayNanos = hedgeDelay.toNanos();
+        this.breaker = new CircuitBreaker("the inventory database", failureThreshold, openDuration, clock);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-lookup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public ItemDTO findItem(String itemID) {
+        try {
+            ItemDTO item = lookUp(catalog -> catalog.findItem(itemID));
+            if (item != null) {
+                lastKnownItems.put(itemID, item);
+            }
+            return item;
+        } catch (DatabaseFailureException e) {
+            ItemDTO lastKnown = lastKnownItems.get(itemID);
+            if (lastKnown == null) {
+                throw e;
+            }
+            fallbackLookups.increment();
+            LOGGER.warn(() -> "Using last known information for item " + itemID + ": " + e.getCause());
+            return lastKnown;
+        }
+    }
+
+    /**
+     * Finds several items with one request. If no catalog answers before the deadline, the last
+     * known items are returned only if all of the items are known, since an unknown item can
+     * not be told apart from an item that does not exist.
+     */
+    @Override
+    public Map<String, ItemDTO> findItems(Collection<String> itemIDs) {
+        try {
+            Map<String, ItemDTO> items = lookUp(catalog -> catalog.findItems(itemIDs));
+            lastKnownItems.putAll(items);
+            return items;
+        } catch (DatabaseFailureException e) {
+            Map<String, ItemDTO> lastKnown = new HashMap<>();
+            for (String itemID : itemIDs) {
+                ItemDTO item = lastKnownItems.get(itemID);
+                if (item == null) {
+                    throw e;
+                }
+                lastKnown.put(itemID, item);
+            }
+            fallbackLookups.increment();
+            LOGGER.warn(() -> "Using last known information for " + itemIDs.size() + " items: " + e.getCause());
+            return lastKnown;
+        }
+    }
+
+    private <T> T lookUp(Function<ItemCatalog, T> query) {
+        Lookup<T> lookup = new Lookup<>(query);
+        if (!lookup.start()) {
+            throw new DatabaseFailureException("The circuit breaker of the inventory database is open.",
+                    breaker.getLastFailure());
+        }
+        try {
+            return lookup.result.get(deadlineNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new DatabaseFailureException("No answer from the inventory database within "
+                    + Duration.ofNanos(deadlineNanos).toMillis() + " ms.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DatabaseFailureException) {
+                throw (DatabaseFailureException) cause;
+            }
+            throw new DatabaseFailureException(cause instanceof Exception ? (Exception) cause : e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseFailureException(e);
+        }
+    }
+
+    /**
+     * Gets the number of lookups that were also sent to the secondary catalog.
+     *
+     * @return The number of hedged lookups.
+     */
+    public long getHedgedLookupCount() {
+        return hedgedLookups.sum();
+    }
+
+    /**
+     * Gets the number of lookups that were answered with last known item information.
+     *
+     * @return The number of fallback lookups.
+     */
+    public long getFallbackLookupCount() {
+        return fallbackLookups.sum();
+    }
+
+    CircuitBreaker.State getBreakerState() {
+        return breaker.getState();
+    }
+
+    /**
+     * Stops the threads that run the lookups.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * One lookup, sent to the primary catalog and possibly to the secondary catalog. The result
+     * is completed by the first answer, or with the failure of the last catalog that failed.
+     */
+    private final class Lookup<T> {
+        private final Function<ItemCatalog, T> query;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicBoolean secondaryStarted = new AtomicBoolean();
+
+        Lookup(Function<ItemCatalog, T> query) {
+            this.query = query;
+        }
+
+        /**
+         * @return false if neither catalog may be called.
+         */
+        boolean start() {
+            if (!breaker.allowRequest()) {
+                return startSecondary();
+            }
+            running.incrementAndGet();
+            CompletableFuture.supplyAsync(() -> query.apply(primary), executor)
+                    .orTimeout(deadlineNanos, TimeUnit.NANOSECONDS)
+                    .whenComplete((answer, failure) -> {
+                        if (failure == null) {
+                            breaker.recordSuccess();
+                            result.complete(answer);
+                        } else {
+                            breaker.recordFailure(unwrap(failure));
+                            failed(failure);
+                        }
+                    });
+            if (secondary != null) {
+                CompletableFuture.delayedExecutor(hedgeDelayNanos, TimeUnit.NANOSECONDS, executor)
+                        .execute(() -> {
+                            if (startSecondary()) {
+                                hedgedLookups.increment();
+                            }
+                        });
+            }
+            return true;
+        }
+
+        private boolean startSecondary() {
+            if (secondary == null || result.isDone() || !secondaryStarted.compareAndSet(false, true)) {
+                return false;
+            }
+            running.incrementAndGet();
+            CompletableFuture.supplyAsync(() -> query.apply(secondary), executor)
+                    .whenComplete((answer, failure) -> {
+                        if (failure == null) {
+                            result.complete(answer);
+                        } else {
+                            failed(failure);
+                        }
+                    });
+            return true;
+        }
+
+        private void failed(Throwable failure) {
+            startSecondary();
+            if (running.decrementAndGet() == 0) {
+                result.completeExceptionally(unwrap(failure));
+            }
+        }
+
+        private Exception unwrap(Throwable failure) {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+            return cause instanceof Exception ? (Exception) cause : new CompletionException(cause);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package se.kth.iv1350.integration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.util.Amount;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ResilientItemCatalogTest {
+    private static final Duration DEADLINE = Duration.ofMillis(200);
+    private static final Duration HEDGE_DELAY = Duration.ofMillis(20);
+
+    private final FaultInjectingCatalog primary = new FaultInjectingCatalog(10);
+    private final FaultInjectingCatalog secondary = new FaultInjectingCatalog(20);
+    private ResilientItemCatalog catalog;
+    private long now;
+
+    @AfterEach
+    public void tearDown() {
+        if (catalog != null) {
+            catalog.close();
+        }
+    }
+
+    @Test
+    public void testHealthyPrimaryIsNotHedged() {
+        catalog = createCatalog(secondary);
+
+        ItemDTO item = catalog.findItem("milk");
+
+        assertEquals(new Amount(10, "SEK"), item.getPrice(), "The primary catalog should answer.");
+        assertEquals(0, catalog.getHedgedLookupCount(), "A fast lookup should not be hedged.");
+        assertEquals(0, secondary.calls.get(), "The secondary catalog should not be called.");
+    }
+
+    @Test
+    public void testSlowPrimaryIsHedgedToSecondary() {
+        catalog = createCatalog(secondary);
+        primary.latency = Duration.ofMillis(150);
+
+        long started = System.nanoTime();
+        ItemDTO item = catalog.findItem("milk");
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        assertEquals(new Amount(20, "SEK"), item.getPrice(), "The secondary catalog should answer first.");
+        assertEquals(1, catalog.getHedgedLookupCount(), "The lookup should be hedged.");
+        assertTrue(elapsedMillis < 150, "The lookup should not wait for the slow primary catalog.");
+    }
+
+    @Test
+    public void testFailingPrimaryFallsOverToSecondary() {
+        catalog = createCatalog(secondary);
+        primary.failing = true;
+
+        Map<String, ItemDTO> items = catalog.findItems(List.of("milk", "bread"));
+
+        assertEquals(2, items.size(), "The secondary catalog should answer the batch.");
+        assertEquals(new Amount(20, "SEK"), items.get("bread").getPrice(), "The items should be from the secondary.");
+    }
+
+    @Test
+    public void testTimeoutFallsBackToLastKnownItem() {
+        catalog = createCatalog(null);
+        catalog.findItem("milk");
+        primary.latency = Duration.ofSeconds(1);
+
+        ItemDTO item = catalog.findItem("milk");
+
+        assertEquals(new Amount(10, "SEK"), item.getPrice(), "The last known item should be returned.");
+        assertEquals(1, catalog.getFallbackLookupCount(), "The fallback should be counted.");
+    }
+
+    @Test
+    public void testTimeoutWithoutLastKnownItemReportsCause() {
+        catalog = createCatalog(null);
+        primary.latency = Duration.ofSeconds(1);
+
+        DatabaseFailureException e = assertThrows(DatabaseFailureException.class,
+                () -> catalog.findItem("milk"), "An unknown item should not be invented.");
+        assertTrue(e.getCause() instanceof TimeoutException, "The timeout should be the cause.");
+    }
+
+    @Test
+    public void testOpenBreakerFailsFastAndClosesAfterTrial() {
+        catalog = new ResilientItemCatalog(primary, null, DEADLINE, HEDGE_DELAY, 2, Duration.ofSeconds(30),
+                () -> now);
+        primary.failing = true;
+        assertThrows(DatabaseFailureException.class, () -> catalog.findItem("milk"));
+        assertThrows(DatabaseFailureException.class, () -> catalog.findItem("milk"));
+        assertEquals(CircuitBreaker.State.OPEN, catalog.getBreakerState(), "Two failures should open the breaker.");
+
+        DatabaseFailureException e = assertThrows(DatabaseFailureException.class, () -> catalog.findItem("milk"));
+        assertEquals(2, primary.calls.get(), "An open breaker should not call the primary catalog.");
+        assertTrue(e.getCause() instanceof DatabaseFailureException, "The last failure should be the cause.");
+
+        primary.failing = false;
+        now += Duration.ofSeconds(30).toNanos();
+        assertNotNull(catalog.findItem("milk"), "The trial lookup should reach the primary catalog.");
+        assertEquals(CircuitBreaker.State.CLOSED, catalog.getBreakerState(), "A successful trial should close it.");
+    }
+
+    private ResilientItemCatalog createCatalog(ItemCatalog secondaryCatalog) {
+        return new ResilientItemCatalog(primary, secondaryCatalog, DEADLINE, HEDGE_DELAY);
+    }
+
+    /**
+     * A catalog that answers after a configurable latency, or fails like an unreachable database.
+     */
+    private static final class FaultInjectingCatalog implements ItemCatalog {
+        private final double price;
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile Duration latency = Duration.ZERO;
+        private volatile boolean failing;
+
+        FaultInjectingCatalog(double price) {
+            this.price = price;
+        }
+
+        @Override
+        public ItemDTO findItem(String itemID) {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(latency.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failing) {
+                throw new DatabaseFailureException();
+            }
+            return new ItemDTO(itemID, "Item " + itemID, "", new Amount(price, "SEK"), 0.06);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package se.kth.iv1350.integration;
+
+import se.kth.iv1350.dto.CompletedSaleDTO;
+import se.kth.iv1350.model.Sale;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * An append-only journal of completed sales, stored in a binary file with checksummed records
+ * (see {@link SalesJournalFormat}). A sale is not reported as registered until its record has
+ * been forced to disk, so no completed sale is lost if the process dies.
+ * <p>
+ * Records are written by a background thread using group commit: when a sale arrives, the thread
+ * waits at most the configured commit delay for more sales, and then writes all waiting sales
+ * with a single {@code fsync}. Under load, many sales therefore share the cost of one disk flush.
+ * <p>
+ * When a journal is opened, a record at the end of the file that was only partly written before
+ * a crash is removed. A damaged record in the middle of the file is skipped, and the records
+ * after it are kept.
+ */
+public class SalesJournal implements Closeable {
+    private static final int MAX_BATCH_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final int registerID;
+    private final long maxCommitDelayNanos;
+    private final Thread writer;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition recordsWaiting = lock.newCondition();
+    private final Condition recordsCommitted = lock.newCondition();
+    private final Queue<byte[]> pendingRecords = new ArrayDeque<>();
+    private int pendingBytes;
+    private long appendedCount;
+    private long committedCount;
+    private long commitCount;
+    private IOException writeFailure;
+    private boolean closed;
+
+    private SalesJournal(FileChannel channel, int registerID, Duration maxCommitDelay) {
+        this.channel = channel;
+        this.registerID = registerID;
+        this.maxCommitDelayNanos = maxCommitDelay.toNanos();
+        this.writer = new Thread(this::writeRecords, "sales-journal-writer");
+        writer.start();
+    }
+
+    /**
+     * Opens a journal file for appending, creating it if it does not exist.
+     *
+     * @param journalFile The journal file.
+     * @param registerID The ID of the register whose sales are written to the journal.
+     * @param maxCommitDelay The longest time a sale waits for other sales to be written with it.
+     *                       Zero writes each batch as soon as the previous one is on disk.
+     * @return The opened journal.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static SalesJournal open(Path journalFile, int registerID, Duration maxCommitDelay) throws IOException {
+        FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long validLength = SalesJournalFormat.readValidRecords(channel, null);
+            channel.truncate(validLength);
+            channel.position(validLength);
+            return new SalesJournal(channel, registerID, maxCommitDelay);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads all sales in a journal file, in the order they were written. Damaged records are
+     * skipped, and a record at the end of the file that was only partly written is ignored.
+     *
+     * @param journalFile The journal file.
+     * @param handler Receives every completed sale in the journal.
+     * @return The number of sales that were read.
+     * @throws IOException If the file cannot be read.
+     */
+    public static long replay(Path journalFile, Consumer<CompletedSaleDTO> handler) throws IOException {
+        long[] count = new long[1];
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+            SalesJournalFormat.readValidRecords(channel, sale -> {
+                count[0]++;
+                handler.accept(sale);
+            });
+        }
+        return count[0];
+    }
+
+    /**
+     * Writes a completed sale to the journal, and waits until it has been forced to disk.
+     *
+     * @param sale The completed sale.
+     * @throws UncheckedIOException If the journal could not be written.
+     * @throws IllegalStateException If the journal has been closed.
+     */
+    public void append(Sale sale) {
+        byte[] record = SalesJournalFormat.encode(sale, registerID);
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("The sales journal is closed.");
+            }
+            pendingRecords.add(record);
+            pendingBytes += record.length;
+            long sequenceNumber = ++appendedCount;
+            recordsWaiting.signal();
+            while (committedCount < sequenceNumber && writeFailure == null) {
+                recordsCommitted.awaitUninterruptibly();
+            }
+            if (committedCount < sequenceNumber) {
+                throw new UncheckedIOException("Could not write the sale to the journal.", writeFailure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of times the journal has been forced to disk. Compared to the number of
+     * appended sales, this shows how well group commit is working.
+     *
+     * @return The number of commits.
+     */
+    public long getCommitCount() {
+        lock.lock();
+        try {
+            return commitCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes all waiting sales to disk and closes the journal file.
+     *
+     * @throws IOException If the file could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            recordsWaiting.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void writeRecords() {
+        ByteBuffer batch = ByteBuffer.allocateDirect(MAX_BATCH_SIZE + SalesJournalFormat.MAX_PAYLOAD_SIZE
+                + SalesJournalFormat.HEADER_SIZE);
+        while (true) {
+            long lastSequenceNumber;
+            lock.lock();
+            try {
+                if (!awaitBatch()) {
+                    return;
+                }
+                batch.clear();
+                while (!pendingRecords.isEmpty() && batch.position() < MAX_BATCH_SIZE) {
+                    byte[] record = pendingRecords.poll();
+                    pendingBytes -= record.length;
+                    batch.put(record);
+                }
+                lastSequenceNumber = appendedCount - pendingRecords.size();
+            } finally {
+                lock.unlock();
+            }
+
+            IOException failure = null;
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                failure = e;
+            }
+
+            lock.lock();
+            try {
+                if (failure == null) {
+                    committedCount = lastSequenceNumber;
+                    commitCount++;
+                } else {
+                    writeFailure = failure;
+                }
+                recordsCommitted.signalAll();
+                if (failure != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Waits until there are records to write, and then at most the commit delay for more records.
+     * Must be called with the lock held.
+     *
+     * @return {@code false} if the journal is closed and there is nothing more to write.
+     */
+    private boolean awaitBatch() {
+        while (pendingRecords.isEmpty()) {
+            if (closed) {
+                return false;
+            }
+            recordsWaiting.awaitUninterruptibly();
+        }
+        long deadline = System.nanoTime() + maxCommitDelayNanos;
+        long remaining = maxCommitDelayNanos;
+        while (remaining > 0 && !closed && pendingBytes < MAX_BATCH_SIZE) {
+            try {
+                recordsWaiting.awaitNanos(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            remaining = deadline - System.nanoTime();
+        }
+        return true;
+    }
+}
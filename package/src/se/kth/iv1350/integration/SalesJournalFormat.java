@@ -0,0 +1,205 @@
+package se.kth.iv1350.integration;
+
+import se.kth.iv1350.dto.CompletedSaleDTO;
+import se.kth.iv1350.dto.SoldItemDTO;
+import se.kth.iv1350.model.Sale;
+import se.kth.iv1350.model.SalesLineItem;
+import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.util.AsyncLogger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Describes the records of the sales journal written by {@link SalesJournal}. All numbers are
+ * big-endian. Each record is
+ * <pre>
+ * int magic, int payloadLength, int crc32OfPayload, payload
+ * payload: long saleTime, int registerID, long totalInMinorUnits, long vatInMinorUnits,
+ *          short currencyLength, currency, int lineCount,
+ *          lineCount x (short itemIDLength, itemID, int quantity, long unitPriceInMinorUnits,
+ *                       int vatRateInBasisPoints)
+ * </pre>
+ * The sale time is the local date and time of the sale in milliseconds, counted as if it were UTC.
+ * Strings are UTF-8 encoded. The magic number and checksum make it possible to detect a record
+ * that was only partly written, and to find the start of the next record from any position.
+ */
+final class SalesJournalFormat {
+    private static final AsyncLogger LOGGER = AsyncLogger.getDefault();
+    static final int MAGIC = 0x53414C45; // "SALE"
+    static final int HEADER_SIZE = 12;
+    static final int MAX_PAYLOAD_SIZE = 1 << 20;
+    private static final int VAT_RATE_SCALE = 10_000;
+
+    private SalesJournalFormat() {
+    }
+
+    /**
+     * Encodes a completed sale as a complete record, including the header.
+     */
+    static byte[] encode(Sale sale, int registerID) {
+        List<SalesLineItem> lines = sale.getItems();
+        byte[] currency = utf8(sale.getRunningTotalIncludingVAT().getCurrency().getCode());
+        byte[][] itemIDs = new byte[lines.size()][];
+        int payloadSize = 8 + 4 + 8 + 8 + 2 + currency.length + 4;
+        for (int i = 0; i < lines.size(); i++) {
+            itemIDs[i] = utf8(lines.get(i).getItem().getItemID());
+            payloadSize += 2 + itemIDs[i].length + 4 + 8 + 4;
+        }
+        if (payloadSize > MAX_PAYLOAD_SIZE) {
+            throw new IllegalArgumentException("The sale is too large for a journal record.");
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payloadSize);
+        record.position(HEADER_SIZE);
+        record.putLong(sale.getSaleTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli());
+        record.putInt(registerID);
+        record.putLong(sale.getRunningTotalIncludingVAT().getMinorUnits());
+        record.putLong(sale.getCurrentTotalVAT().getMinorUnits());
+        putBytes(record, currency);
+        record.putInt(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            SalesLineItem line = lines.get(i);
+            putBytes(record, itemIDs[i]);
+            record.putInt(line.getQuantity());
+            record.putLong(line.getItem().getPrice().getMinorUnits());
+            record.putInt((int) Math.round(line.getItem().getVatRate() * VAT_RATE_SCALE));
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_SIZE, payloadSize);
+        record.putInt(0, MAGIC);
+        record.putInt(4, payloadSize);
+        record.putInt(8, (int) crc.getValue());
+        return record.array();
+    }
+
+    /**
+     * Checks whether a complete and undamaged record starts at the specified position.
+     *
+     * @return The total length of the record, or -1 if there is no valid record at the position.
+     */
+    static int validRecordLength(ByteBuffer buffer, int position) {
+        if (buffer.limit() - position < HEADER_SIZE || buffer.getInt(position) != MAGIC) {
+            return -1;
+        }
+        int payloadSize = buffer.getInt(position + 4);
+        if (payloadSize <= 0 || payloadSize > MAX_PAYLOAD_SIZE
+                || buffer.limit() - position - HEADER_SIZE < payloadSize) {
+            return -1;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(position + HEADER_SIZE + payloadSize).position(position + HEADER_SIZE));
+        if ((int) crc.getValue() != buffer.getInt(position + 8)) {
+            return -1;
+        }
+        return HEADER_SIZE + payloadSize;
+    }
+
+    /**
+     * Decodes the valid record that starts at the specified position.
+     */
+    static CompletedSaleDTO decode(ByteBuffer buffer, int position) {
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(position + HEADER_SIZE);
+        LocalDateTime saleTimestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(payload.getLong()), ZoneOffset.UTC);
+        int registerID = payload.getInt();
+        long total = payload.getLong();
+        long vat = payload.getLong();
+        String currency = getString(payload);
+        int lineCount = payload.getInt();
+        List<SoldItemDTO> soldItems = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            String itemID = getString(payload);
+            int quantity = payload.getInt();
+            Amount unitPrice = Amount.ofMinorUnits(payload.getLong(), currency);
+            double vatRate = (double) payload.getInt() / VAT_RATE_SCALE;
+            soldItems.add(new SoldItemDTO(itemID, quantity, unitPrice, vatRate));
+        }
+        return new CompletedSaleDTO(saleTimestamp, registerID, Amount.ofMinorUnits(total, currency),
+                Amount.ofMinorUnits(vat, currency), soldItems);
+    }
+
+    /**
+     * Reads all valid records of a journal file, from the start to the end of the file. A damaged
+     * part in the middle of the file is logged and skipped, by searching for the next valid record.
+     * Bytes after the last valid record are a record that was only partly written, and are not
+     * part of the valid length.
+     *
+     * @param channel The journal file.
+     * @param handler Receives every valid record, or null if the records should only be counted.
+     * @return The length of the file up to the end of the last valid record.
+     */
+    static long readValidRecords(FileChannel channel, Consumer<CompletedSaleDTO> handler) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4 * MAX_PAYLOAD_SIZE);
+        long validLength = 0;
+        long readPosition = 0;
+        long damagedStart = -1;
+        boolean endOfFile = false;
+        buffer.limit(0);
+        while (true) {
+            if (!endOfFile && buffer.remaining() < HEADER_SIZE + MAX_PAYLOAD_SIZE) {
+                buffer.compact();
+                int read = channel.read(buffer, readPosition);
+                buffer.flip();
+                if (read < 0) {
+                    endOfFile = true;
+                } else {
+                    readPosition += read;
+                }
+                continue;
+            }
+            if (!buffer.hasRemaining()) {
+                return validLength;
+            }
+            long recordStart = readPosition - buffer.remaining();
+            int recordLength = validRecordLength(buffer, buffer.position());
+            if (recordLength < 0) {
+                if (damagedStart < 0) {
+                    damagedStart = recordStart;
+                }
+                buffer.position(buffer.position() + 1);
+                continue;
+            }
+            if (damagedStart >= 0) {
+                long skippedStart = damagedStart;
+                LOGGER.warn(() -> "Skipped " + (recordStart - skippedStart) + " damaged bytes at offset "
+                        + skippedStart + " of the sales journal.");
+                damagedStart = -1;
+            }
+            if (handler != null) {
+                handler.accept(decode(buffer, buffer.position()));
+            }
+            buffer.position(buffer.position() + recordLength);
+            validLength = recordStart + recordLength;
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("The text is too long for a journal record.");
+        }
+        return bytes;
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,154 @@
+package se.kth.iv1350.integration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import se.kth.iv1350.dto.CompletedSaleDTO;
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.model.Sale;
+import se.kth.iv1350.util.Amount;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+public class SalesJournalTest {
+    @TempDir
+    Path tempDir;
+    private Path journalFile;
+    private ItemDTO oatmeal;
+    private ItemDTO chocolate;
+
+    @BeforeEach
+    public void setUp() {
+        journalFile = tempDir.resolve("sales-journal.bin");
+        oatmeal = new ItemDTO("abc123", "BigWheel Oatmeal", "", new Amount(29.90, "SEK"), 0.06);
+        chocolate = new ItemDTO("ghi789", "Luxury Chocolate", "", new Amount(50.00, "SEK"), 0.12);
+    }
+
+    @Test
+    public void testReplayReturnsAppendedSales() throws IOException {
+        Sale sale = createSale(2);
+        try (SalesJournal journal = SalesJournal.open(journalFile, 7, Duration.ZERO)) {
+            journal.append(sale);
+        }
+
+        List<CompletedSaleDTO> replayed = replayAll();
+
+        assertEquals(1, replayed.size(), "The appended sale should be replayed.");
+        CompletedSaleDTO completed = replayed.get(0);
+        assertEquals(7, completed.getRegisterID(), "The register ID should be recorded.");
+        assertEquals(sale.getRunningTotalIncludingVAT(), completed.getTotalPriceIncludingVAT(),
+                "The total should be recorded exactly.");
+        assertEquals(sale.getCurrentTotalVAT(), completed.getTotalVAT(), "The VAT should be recorded exactly.");
+        assertEquals(2, completed.getSoldItems().size(), "Every line of the sale should be recorded.");
+        assertEquals(2, completed.getSoldItems().get(0).getQuantity(), "The quantity should be recorded.");
+        assertEquals(0.12, completed.getSoldItems().get(1).getVatRate(), 0.00001,
+                "The VAT rate should be recorded.");
+        assertEquals(sale.getSaleTimestamp().withNano(sale.getSaleTimestamp().getNano() / 1_000_000 * 1_000_000),
+                completed.getSaleTimestamp(), "The sale time should be recorded with millisecond precision.");
+    }
+
+    @Test
+    public void testReopenedJournalKeepsEarlierSales() throws IOException {
+        try (SalesJournal journal = SalesJournal.open(journalFile, 1, Duration.ZERO)) {
+            journal.append(createSale(1));
+        }
+        try (SalesJournal journal = SalesJournal.open(journalFile, 1, Duration.ZERO)) {
+            journal.append(createSale(1));
+        }
+
+        assertEquals(2, replayAll().size(), "Sales from both sessions should be replayed.");
+    }
+
+    @Test
+    public void testPartlyWrittenRecordIsIgnoredAndRemoved() throws IOException {
+        try (SalesJournal journal = SalesJournal.open(journalFile, 1, Duration.ZERO)) {
+            journal.append(createSale(1));
+        }
+        byte[] complete = Files.readAllBytes(journalFile);
+        Files.write(journalFile, Arrays.copyOf(complete, 20), StandardOpenOption.APPEND);
+
+        assertEquals(1, replayAll().size(), "A partly written record should not be replayed.");
+
+        try (SalesJournal journal = SalesJournal.open(journalFile, 1, Duration.ZERO)) {
+            journal.append(createSale(3));
+        }
+        List<CompletedSaleDTO> replayed = replayAll();
+        assertEquals(2, replayed.size(), "A sale appended after the damaged record should be replayed.");
+        assertEquals(3, replayed.get(1).getSoldItems().get(0).getQuantity(),
+                "The sale appended after reopening should follow the first sale.");
+    }
+
+    @Test
+    public void testDamagedRecordInTheMiddleDoesNotRemoveLaterSales() throws IOException {
+        try (SalesJournal journal = SalesJournal.open(journalFile, 1, Duration.ZERO)) {
+            journal.append(createSale(1));
+            journal.append(createSale(2));
+            journal.append(createSale(3));
+        }
+        byte[] bytes = Files.readAllBytes(journalFile);
+        int recordLength = bytes.length / 3;
+        bytes[recordLength + SalesJournalFormat.HEADER_SIZE + 2] ^= 0x5A;
+        Files.write(journalFile, bytes);
+
+        try (SalesJournal journal = SalesJournal.open(journalFile, 1, Duration.ZERO)) {
+            journal.append(createSale(4));
+        }
+
+        List<CompletedSaleDTO> replayed = replayAll();
+        assertEquals(List.of(1, 3, 4), replayed.stream().map(sale -> sale.getSoldItems().get(0).getQuantity())
+                .collect(Collectors.toList()), "Only the damaged sale should be lost.");
+    }
+
+    @Test
+    public void testConcurrentSalesShareCommits() throws Exception {
+        int lanes = 16;
+        int salesPerLane = 50;
+        long commits;
+        try (SalesJournal journal = SalesJournal.open(journalFile, 1, Duration.ofMillis(5))) {
+            ExecutorService executor = Executors.newFixedThreadPool(lanes);
+            List<Future<?>> results = new ArrayList<>();
+            for (int lane = 0; lane < lanes; lane++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < salesPerLane; i++) {
+                        journal.append(createSale(1));
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            executor.shutdown();
+            commits = journal.getCommitCount();
+        }
+
+        assertEquals(lanes * salesPerLane, replayAll().size(), "Every appended sale should be replayed.");
+        assertTrue(commits < lanes * salesPerLane,
+                "Sales arriving at the same time should be written with a shared commit.");
+    }
+
+    private Sale createSale(int oatmealQuantity) {
+        Sale sale = new Sale();
+        sale.addItemToSale(oatmeal, oatmealQuantity);
+        sale.addItemToSale(chocolate, 1);
+        return sale;
+    }
+
+    private List<CompletedSaleDTO> replayAll() throws IOException {
+        List<CompletedSaleDTO> sales = new ArrayList<>();
+        SalesJournal.replay(journalFile, sales::add);
+        return sales;
+    }
+}
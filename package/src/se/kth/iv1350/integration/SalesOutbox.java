@@ -0,0 +1,190 @@
+package se.kth.iv1350.integration;
+
+import se.kth.iv1350.dto.CompletedSaleDTO;
+import se.kth.iv1350.model.Sale;
+import se.kth.iv1350.util.AsyncLogger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the completed sales of a lane on local disk until they have been delivered to the
+ * central accounting system, so that the lane can keep selling while the central system can not
+ * be reached. The sales are stored in a {@link SalesJournal}, and the number of sales already
+ * delivered is stored in a file next to it.
+ * <p>
+ * {@link #reconcile(Consumer)} delivers the waiting sales in the order they were completed, and
+ * stops at the first sale that can not be delivered. A sale is delivered at least once: if the
+ * process dies right after a sale was delivered, that sale is delivered again after the restart.
+ * When all sales have been delivered, the outbox is emptied.
+ */
+public class SalesOutbox implements Closeable {
+    private static final AsyncLogger LOGGER = AsyncLogger.getDefault();
+    private static final Duration MAX_COMMIT_DELAY = Duration.ofMillis(2);
+
+    private final Path outboxFile;
+    private final int registerID;
+    private final FileChannel deliveredFile;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong saleCount;
+    private SalesJournal journal;
+    private long deliveredCount;
+
+    private SalesOutbox(Path outboxFile, int registerID, FileChannel deliveredFile, long deliveredCount,
+                        long saleCount) throws IOException {
+        this.outboxFile = outboxFile;
+        this.registerID = registerID;
+        this.deliveredFile = deliveredFile;
+        this.deliveredCount = deliveredCount;
+        this.saleCount = new AtomicLong(saleCount);
+        this.journal = SalesJournal.open(outboxFile, registerID, MAX_COMMIT_DELAY);
+    }
+
+    /**
+     * Opens an outbox, creating it if it does not exist. Sales that were not delivered before the
+     * outbox was closed are still waiting.
+     *
+     * @param outboxFile The file that holds the waiting sales. The number of delivered sales is
+     *                   kept in a file with the same name ending with {@code .delivered}.
+     * @param registerID The ID of the register whose sales are kept in the outbox.
+     * @return The opened outbox.
+     * @throws IOException If the outbox can not be opened.
+     */
+    public static SalesOutbox open(Path outboxFile, int registerID) throws IOException {
+        long saleCount = Files.exists(outboxFile) ? SalesJournal.replay(outboxFile, sale -> { }) : 0;
+        FileChannel deliveredFile = FileChannel.open(outboxFile.resolveSibling(outboxFile.getFileName() + ".delivered"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer count = ByteBuffer.allocate(Long.BYTES);
+            deliveredFile.read(count, 0);
+            long deliveredCount = count.position() == Long.BYTES ? Math.min(count.getLong(0), saleCount) : 0;
+            return new SalesOutbox(outboxFile, registerID, deliveredFile, deliveredCount, saleCount);
+        } catch (IOException | RuntimeException e) {
+            deliveredFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Adds a completed sale to the outbox, and waits until it has been written to disk.
+     * Sales can be added from several lanes while the outbox is reconciled.
+     *
+     * @param sale The completed sale.
+     */
+    public void add(Sale sale) {
+        lock.readLock().lock();
+        try {
+            journal.append(sale);
+            saleCount.incrementAndGet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of sales that have not been delivered yet.
+     *
+     * @return The number of waiting sales.
+     */
+    public synchronized long getWaitingCount() {
+        return saleCount.get() - deliveredCount;
+    }
+
+    /**
+     * Delivers the waiting sales to the central system, in the order they were completed. Only
+     * one reconciliation runs at a time.
+     *
+     * @param centralSystem Receives each waiting sale. It throws an exception if a sale could not
+     *                      be delivered, which stops the reconciliation.
+     * @return The number of sales that were delivered.
+     * @throws IOException If the outbox could not be read or updated.
+     */
+    public synchronized long reconcile(Consumer<CompletedSaleDTO> centralSystem) throws IOException {
+        long alreadyDelivered = deliveredCount;
+        long[] position = new long[1];
+        try {
+            SalesJournal.replay(outboxFile, sale -> {
+                if (position[0]++ < alreadyDelivered) {
+                    return;
+                }
+                centralSystem.accept(sale);
+                try {
+                    storeDeliveredCount(deliveredCount + 1);
+                } catch (IOException e) {
+                    throw new DeliveredCountNotStored(e);
+                }
+            });
+        } catch (DeliveredCountNotStored e) {
+            throw (IOException) e.getCause();
+        } catch (RuntimeException e) {
+            long waiting = saleCount.get() - deliveredCount;
+            LOGGER.warn(() -> "Reconciliation stopped with " + waiting + " sales waiting: " + e);
+        }
+        long delivered = deliveredCount - alreadyDelivered;
+        if (deliveredCount > 0 && deliveredCount == saleCount.get()) {
+            empty();
+        }
+        return delivered;
+    }
+
+    /**
+     * Removes all delivered sales, if no sale was added while the outbox was reconciled.
+     */
+    private void empty() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (deliveredCount != saleCount.get()) {
+                return;
+            }
+            journal.close();
+            storeDeliveredCount(0);
+            try (FileChannel channel = FileChannel.open(outboxFile, StandardOpenOption.WRITE)) {
+                channel.truncate(0);
+                channel.force(true);
+            }
+            saleCount.set(0);
+            journal = SalesJournal.open(outboxFile, registerID, MAX_COMMIT_DELAY);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void storeDeliveredCount(long count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, count);
+        deliveredFile.write(buffer, 0);
+        deliveredFile.force(false);
+        deliveredCount = count;
+    }
+
+    /**
+     * Closes the outbox. Sales that have not been delivered are kept until it is opened again.
+     *
+     * @throws IOException If a file could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            journal.close();
+            deliveredFile.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class DeliveredCountNotStored extends RuntimeException {
+        DeliveredCountNotStored(IOException cause) {
+            super(cause);
+        }
+    }
+}
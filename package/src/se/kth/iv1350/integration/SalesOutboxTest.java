@@ -0,0 +1,79 @@
+package se.kth.iv1350.integration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import se.kth.iv1350.dto.CompletedSaleDTO;
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.model.Sale;
+import se.kth.iv1350.util.Amount;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class SalesOutboxTest {
+    @TempDir
+    Path tempDir;
+    private Path outboxFile;
+    private ItemDTO oatmeal;
+
+    @BeforeEach
+    public void setUp() {
+        outboxFile = tempDir.resolve("sales-outbox.bin");
+        oatmeal = new ItemDTO("abc123", "BigWheel Oatmeal", "", new Amount(29.90, "SEK"), 0.06);
+    }
+
+    @Test
+    public void testSalesWaitUntilTheyAreDelivered() throws IOException {
+        List<CompletedSaleDTO> delivered = new ArrayList<>();
+        try (SalesOutbox outbox = SalesOutbox.open(outboxFile, 3)) {
+            outbox.add(createSale(1));
+            outbox.add(createSale(2));
+            assertEquals(2, outbox.getWaitingCount(), "Both sales should wait.");
+
+            assertEquals(2, outbox.reconcile(delivered::add), "Both sales should be delivered.");
+
+            assertEquals(0, outbox.getWaitingCount(), "No sale should wait after delivery.");
+            assertEquals(2, delivered.get(1).getSoldItems().get(0).getQuantity(),
+                    "The sales should be delivered in order.");
+            assertEquals(0, outbox.reconcile(delivered::add), "Delivered sales should not be delivered again.");
+        }
+    }
+
+    @Test
+    public void testFailedDeliveryIsResumedAfterRestart() throws IOException {
+        List<CompletedSaleDTO> delivered = new ArrayList<>();
+        try (SalesOutbox outbox = SalesOutbox.open(outboxFile, 3)) {
+            for (int i = 1; i <= 3; i++) {
+                outbox.add(createSale(i));
+            }
+            long count = outbox.reconcile(sale -> {
+                if (!delivered.isEmpty()) {
+                    throw new IllegalStateException("Connection lost.");
+                }
+                delivered.add(sale);
+            });
+            assertEquals(1, count, "Only the first sale should be delivered.");
+        }
+
+        try (SalesOutbox reopened = SalesOutbox.open(outboxFile, 3)) {
+            assertEquals(2, reopened.getWaitingCount(), "The undelivered sales should still wait.");
+            assertEquals(2, reopened.reconcile(delivered::add), "The remaining sales should be delivered.");
+            reopened.add(createSale(4));
+            assertEquals(1, reopened.getWaitingCount(), "A new sale should wait in the emptied outbox.");
+        }
+        assertEquals(List.of(1, 2, 3), delivered.stream().map(sale -> sale.getSoldItems().get(0).getQuantity())
+                .collect(Collectors.toList()), "Every sale should be delivered once, in order.");
+    }
+
+    private Sale createSale(int quantity) {
+        Sale sale = new Sale();
+        sale.addItemToSale(oatmeal, quantity);
+        return sale;
+    }
+}
@@ -0,0 +1,241 @@
+package se.kth.iv1350.integration;
+
+import se.kth.iv1350.dto.CompletedSaleDTO;
+import se.kth.iv1350.dto.RevenueDTO;
+import se.kth.iv1350.dto.SettlementDTO;
+import se.kth.iv1350.dto.SoldItemDTO;
+import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.util.Currency;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Settles the completed sales of a period from a sales journal written by {@link SalesJournal}.
+ * <p>
+ * The journal file is split into chunks that are read in parallel on a {@link ForkJoinPool},
+ * each chunk summing the sales whose records start in it, and the sums of the chunks are then
+ * added together. A chunk finds its first record with the magic number and checksum that start
+ * every record, so the file can be split at any position. Unlike {@link SalesJournal#replay},
+ * the settlement continues after a damaged record, with the next valid record.
+ */
+public class SalesSettlement {
+    static final long DEFAULT_CHUNK_SIZE = 16 << 20;
+    private static final Currency DEFAULT_CURRENCY = Currency.SEK;
+    private static final double VAT_RATE_SCALE = 10_000;
+
+    private final ForkJoinPool pool;
+    private final long chunkSize;
+
+    /**
+     * Creates a new settlement that reads journals on the common fork-join pool.
+     */
+    public SalesSettlement() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a new settlement that reads journals on the specified pool.
+     * @param pool The pool that reads the chunks of a journal.
+     */
+    public SalesSettlement(ForkJoinPool pool) {
+        this(pool, DEFAULT_CHUNK_SIZE);
+    }
+
+    SalesSettlement(ForkJoinPool pool, long chunkSize) {
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Settles all sales in a journal file that were completed in the specified period.
+     *
+     * @param journalFile The journal file.
+     * @param periodStart The start of the period, inclusive.
+     * @param periodEnd The end of the period, exclusive.
+     * @return The settlement of the period.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalStateException If the sales of the period are in more than one currency.
+     */
+    public SettlementDTO settle(Path journalFile, LocalDateTime periodStart, LocalDateTime periodEnd)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+            ChunkTask task = new ChunkTask(channel, channel.size(), 0, channel.size(), periodStart, periodEnd);
+            return pool.invoke(task).toSettlement(periodStart, periodEnd);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ChunkTask extends RecursiveTask<Totals> {
+        private final FileChannel channel;
+        private final long fileSize;
+        private final long start;
+        private final long end;
+        private final LocalDateTime periodStart;
+        private final LocalDateTime periodEnd;
+
+        ChunkTask(FileChannel channel, long fileSize, long start, long end,
+                  LocalDateTime periodStart, LocalDateTime periodEnd) {
+            this.channel = channel;
+            this.fileSize = fileSize;
+            this.start = start;
+            this.end = end;
+            this.periodStart = periodStart;
+            this.periodEnd = periodEnd;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (end - start <= chunkSize) {
+                try {
+                    return readChunk();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            long middle = start + (end - start) / 2;
+            ChunkTask second = new ChunkTask(channel, fileSize, middle, end, periodStart, periodEnd);
+            second.fork();
+            Totals totals = new ChunkTask(channel, fileSize, start, middle, periodStart, periodEnd).compute();
+            totals.add(second.join());
+            return totals;
+        }
+
+        /**
+         * Sums the sales whose records start in this chunk. The mapped part of the file extends
+         * past the chunk by the largest record size, so that the last record can be read whole.
+         */
+        private Totals readChunk() throws IOException {
+            Totals totals = new Totals();
+            long mappedEnd = Math.min(fileSize,
+                    end + SalesJournalFormat.HEADER_SIZE + SalesJournalFormat.MAX_PAYLOAD_SIZE);
+            if (mappedEnd <= start) {
+                return totals;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, mappedEnd - start);
+            int chunkLength = (int) (end - start);
+            int position = 0;
+            while (position < chunkLength) {
+                int recordLength = SalesJournalFormat.validRecordLength(buffer, position);
+                if (recordLength < 0) {
+                    position++;
+                    continue;
+                }
+                CompletedSaleDTO sale = SalesJournalFormat.decode(buffer, position);
+                if (!sale.getSaleTimestamp().isBefore(periodStart) && sale.getSaleTimestamp().isBefore(periodEnd)) {
+                    totals.add(sale);
+                }
+                position += recordLength;
+            }
+            return totals;
+        }
+    }
+
+    /**
+     * The sums of the sales of one or more chunks, in minor units. Each sum is an array of the
+     * count, the revenue including VAT and the VAT.
+     */
+    private static final class Totals {
+        private Currency currency;
+        private long saleCount;
+        private long totalIncludingVAT;
+        private long totalVAT;
+        private long itemRevenue;
+        private final Map<String, long[]> perArticle = new HashMap<>();
+        private final Map<Integer, long[]> perVATRate = new HashMap<>();
+        private final Map<LocalDateTime, long[]> perHour = new HashMap<>();
+        private final Map<Integer, long[]> perRegister = new HashMap<>();
+
+        void add(CompletedSaleDTO sale) {
+            useCurrency(sale.getTotalPriceIncludingVAT().getCurrency());
+            long total = sale.getTotalPriceIncludingVAT().getMinorUnits();
+            long vat = sale.getTotalVAT().getMinorUnits();
+            saleCount++;
+            totalIncludingVAT += total;
+            totalVAT += vat;
+            addTo(perHour, sale.getSaleTimestamp().truncatedTo(ChronoUnit.HOURS), 1, total, vat);
+            addTo(perRegister, sale.getRegisterID(), 1, total, vat);
+            for (SoldItemDTO item : sale.getSoldItems()) {
+                long price = item.getUnitPrice().getMinorUnits() * item.getQuantity();
+                long itemVAT = Amount.applyRate(price, item.getVatRate());
+                itemRevenue += price + itemVAT;
+                addTo(perArticle, item.getItemID(), item.getQuantity(), price + itemVAT, itemVAT);
+                addTo(perVATRate, (int) Math.round(item.getVatRate() * VAT_RATE_SCALE), item.getQuantity(),
+                        price + itemVAT, itemVAT);
+            }
+        }
+
+        void add(Totals other) {
+            if (other.currency != null) {
+                useCurrency(other.currency);
+            }
+            saleCount += other.saleCount;
+            totalIncludingVAT += other.totalIncludingVAT;
+            totalVAT += other.totalVAT;
+            itemRevenue += other.itemRevenue;
+            addAll(perArticle, other.perArticle);
+            addAll(perVATRate, other.perVATRate);
+            addAll(perHour, other.perHour);
+            addAll(perRegister, other.perRegister);
+        }
+
+        private void useCurrency(Currency saleCurrency) {
+            if (currency == null) {
+                currency = saleCurrency;
+            } else if (currency != saleCurrency) {
+                throw new IllegalStateException("Cannot settle sales in both " + currency + " and " + saleCurrency);
+            }
+        }
+
+        private static <K> void addTo(Map<K, long[]> sums, K key, long count, long revenue, long vat) {
+            long[] sum = sums.computeIfAbsent(key, k -> new long[3]);
+            sum[0] += count;
+            sum[1] += revenue;
+            sum[2] += vat;
+        }
+
+        private static <K> void addAll(Map<K, long[]> sums, Map<K, long[]> other) {
+            for (Map.Entry<K, long[]> entry : other.entrySet()) {
+                long[] sum = entry.getValue();
+                addTo(sums, entry.getKey(), sum[0], sum[1], sum[2]);
+            }
+        }
+
+        SettlementDTO toSettlement(LocalDateTime periodStart, LocalDateTime periodEnd) {
+            Currency settlementCurrency = currency != null ? currency : DEFAULT_CURRENCY;
+            Map<Double, RevenueDTO> revenuePerVATRate = new HashMap<>();
+            for (Map.Entry<Integer, long[]> entry : perVATRate.entrySet()) {
+                revenuePerVATRate.put(entry.getKey() / VAT_RATE_SCALE, toRevenue(entry.getValue(), settlementCurrency));
+            }
+            return new SettlementDTO(periodStart, periodEnd, saleCount,
+                    Amount.ofMinorUnits(totalIncludingVAT, settlementCurrency),
+                    Amount.ofMinorUnits(totalVAT, settlementCurrency),
+                    Amount.ofMinorUnits(itemRevenue - totalIncludingVAT, settlementCurrency),
+                    toRevenues(perArticle, settlementCurrency), revenuePerVATRate,
+                    toRevenues(perHour, settlementCurrency), toRevenues(perRegister, settlementCurrency));
+        }
+
+        private static <K> Map<K, RevenueDTO> toRevenues(Map<K, long[]> sums, Currency currency) {
+            Map<K, RevenueDTO> revenues = new HashMap<>();
+            for (Map.Entry<K, long[]> entry : sums.entrySet()) {
+                revenues.put(entry.getKey(), toRevenue(entry.getValue(), currency));
+            }
+            return revenues;
+        }
+
+        private static RevenueDTO toRevenue(long[] sum, Currency currency) {
+            return new RevenueDTO(sum[0], Amount.ofMinorUnits(sum[1], currency), Amount.ofMinorUnits(sum[2], currency));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package se.kth.iv1350.integration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.dto.RevenueDTO;
+import se.kth.iv1350.dto.SettlementDTO;
+import se.kth.iv1350.model.Sale;
+import se.kth.iv1350.util.Amount;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+public class SalesSettlementTest {
+    private static final LocalDateTime DISTANT_PAST = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final LocalDateTime DISTANT_FUTURE = LocalDateTime.of(2100, 1, 1, 0, 0);
+
+    @TempDir
+    Path tempDir;
+    private Path journalFile;
+    private ItemDTO oatmeal;
+    private ItemDTO chocolate;
+
+    @BeforeEach
+    public void setUp() {
+        journalFile = tempDir.resolve("sales-journal.bin");
+        oatmeal = new ItemDTO("abc123", "BigWheel Oatmeal", "", new Amount(29.90, "SEK"), 0.06);
+        chocolate = new ItemDTO("ghi789", "Luxury Chocolate", "", new Amount(50.00, "SEK"), 0.12);
+    }
+
+    @Test
+    public void testRevenueIsGroupedPerArticleVATRateAndRegister() throws IOException {
+        writeSales(1, 10);
+        writeSales(2, 5);
+
+        SettlementDTO settlement = new SalesSettlement().settle(journalFile, DISTANT_PAST, DISTANT_FUTURE);
+
+        Sale sale = createSale();
+        assertEquals(15, settlement.getSaleCount(), "Every sale should be settled.");
+        assertEquals(sale.getRunningTotalIncludingVAT().multiply(15), settlement.getTotalIncludingVAT(),
+                "The total should be the sum of the sales.");
+        RevenueDTO oatmealRevenue = settlement.getRevenuePerArticle().get("abc123");
+        assertEquals(30, oatmealRevenue.getCount(), "Two oatmeal were sold in each sale.");
+        assertEquals(Amount.ofMinorUnits(15 * (5980 + 359), "SEK"), oatmealRevenue.getRevenueIncludingVAT(),
+                "The oatmeal revenue should include the VAT of each line.");
+        assertEquals(settlement.getRevenuePerArticle().get("ghi789").getRevenueIncludingVAT(),
+                settlement.getRevenuePerVATRate().get(0.12).getRevenueIncludingVAT(),
+                "Only the chocolate has 12% VAT.");
+        assertEquals(10, settlement.getRevenuePerRegister().get(1).getCount(), "Register 1 had ten sales.");
+        assertEquals(5, settlement.getRevenuePerRegister().get(2).getCount(), "Register 2 had five sales.");
+        assertEquals(15, settlement.getRevenuePerHour().values().stream().mapToLong(RevenueDTO::getCount).sum(),
+                "Every sale should be in an hour.");
+        assertEquals(Amount.ofMinorUnits(0, "SEK"), settlement.getDiscounts(), "No sale had a discount.");
+    }
+
+    @Test
+    public void testSmallChunksGiveTheSameSettlement() throws IOException {
+        writeSales(1, 50);
+
+        SettlementDTO whole = new SalesSettlement().settle(journalFile, DISTANT_PAST, DISTANT_FUTURE);
+        SettlementDTO chunked = new SalesSettlement(new ForkJoinPool(4), 37)
+                .settle(journalFile, DISTANT_PAST, DISTANT_FUTURE);
+
+        assertEquals(50, chunked.getSaleCount(), "Every record should be read by exactly one chunk.");
+        assertEquals(whole.getTotalIncludingVAT(), chunked.getTotalIncludingVAT(),
+                "The chunks should add up to the whole journal.");
+        assertEquals(whole.getRevenuePerArticle().get("abc123").getRevenueIncludingVAT(),
+                chunked.getRevenuePerArticle().get("abc123").getRevenueIncludingVAT(),
+                "The article revenue of the chunks should add up to the whole journal.");
+    }
+
+    @Test
+    public void testSalesOutsideThePeriodAreNotSettled() throws IOException {
+        writeSales(1, 3);
+        LocalDateTime now = LocalDateTime.now();
+
+        SettlementDTO settlement = new SalesSettlement().settle(journalFile, now.plusDays(1), now.plusDays(2));
+
+        assertEquals(0, settlement.getSaleCount(), "No sale was completed in the period.");
+        assertTrue(settlement.getRevenuePerArticle().isEmpty(), "No article was sold in the period.");
+    }
+
+    @Test
+    public void testDamagedRecordIsSkipped() throws IOException {
+        writeSales(1, 1);
+        byte[] complete = Files.readAllBytes(journalFile);
+        Files.write(journalFile, Arrays.copyOf(complete, 20), StandardOpenOption.APPEND);
+        Files.write(journalFile, complete, StandardOpenOption.APPEND);
+
+        SettlementDTO settlement = new SalesSettlement(ForkJoinPool.commonPool(), 16)
+                .settle(journalFile, DISTANT_PAST, DISTANT_FUTURE);
+
+        assertEquals(2, settlement.getSaleCount(), "The sales before and after the damaged record should be settled.");
+    }
+
+    private void writeSales(int registerID, int count) throws IOException {
+        Path registerJournal = tempDir.resolve("register-" + registerID + ".bin");
+        try (SalesJournal journal = SalesJournal.open(registerJournal, registerID, Duration.ofMillis(1))) {
+            for (int i = 0; i < count; i++) {
+                journal.append(createSale());
+            }
+        }
+        Files.write(journalFile, Files.readAllBytes(registerJournal), StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    private Sale createSale() {
+        Sale sale = new Sale();
+        sale.addItemToSale(oatmeal, 2);
+        sale.addItemToSale(chocolate, 1);
+        return sale;
+    }
+}
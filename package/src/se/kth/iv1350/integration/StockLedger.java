@@ -0,0 +1,115 @@
+package se.kth.iv1350.integration;
+
+import se.kth.iv1350.dto.ItemEntryDTO;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps track of how many of each item are in stock. Many checkout lanes can remove sold items
+ * at the same time without losing any updates.
+ * <p>
+ * Each item has its own {@link LongAdder}, so lanes selling the same popular item do not wait for
+ * each other. A sale takes the read side of one of several lock stripes while it removes its
+ * items, and a snapshot takes the write side of all stripes. A snapshot therefore always contains
+ * either all or none of the items of each sale.
+ * <p>
+ * The stock of an item may become negative if more is sold than was registered.
+ */
+public class StockLedger {
+    private static final int STRIPES = 16;
+
+    private final Map<String, LongAdder> stock = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock[] stripes = new ReentrantReadWriteLock[STRIPES];
+
+    /**
+     * Creates a new, empty stock ledger.
+     */
+    public StockLedger() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Adds items to the stock, for example when a delivery arrives.
+     *
+     * @param itemID The ID of the item.
+     * @param quantity The quantity to add.
+     */
+    public void addStock(String itemID, long quantity) {
+        Lock lock = stripeForCurrentThread().readLock();
+        lock.lock();
+        try {
+            counterFor(itemID).add(quantity);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all items of a completed sale from the stock.
+     *
+     * @param soldItems The IDs and quantities of the sold items.
+     */
+    public void removeSoldItems(Collection<ItemEntryDTO> soldItems) {
+        Lock lock = stripeForCurrentThread().readLock();
+        lock.lock();
+        try {
+            for (ItemEntryDTO soldItem : soldItems) {
+                counterFor(soldItem.getItemID()).add(-soldItem.getQuantity());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the current stock of an item. The value may be out of date as soon as it is returned
+     * if lanes are selling the item.
+     *
+     * @param itemID The ID of the item.
+     * @return The quantity in stock, zero if the item has never been registered.
+     */
+    public long getStock(String itemID) {
+        LongAdder counter = stock.get(itemID);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Creates a consistent copy of the stock of all items, for example for stock-taking. Sales
+     * that are being registered while the snapshot is taken are either completely included or
+     * not included at all.
+     *
+     * @return The quantity in stock of every registered item, by item ID.
+     */
+    public Map<String, Long> snapshot() {
+        for (ReentrantReadWriteLock stripe : stripes) {
+            stripe.writeLock().lock();
+        }
+        try {
+            Map<String, Long> copy = new HashMap<>();
+            stock.forEach((itemID, counter) -> copy.put(itemID, counter.sum()));
+            return copy;
+        } finally {
+            for (int i = STRIPES - 1; i >= 0; i--) {
+                stripes[i].writeLock().unlock();
+            }
+        }
+    }
+
+    private LongAdder counterFor(String itemID) {
+        LongAdder counter = stock.get(itemID);
+        return counter != null ? counter : stock.computeIfAbsent(itemID, id -> new LongAdder());
+    }
+
+    private ReentrantReadWriteLock stripeForCurrentThread() {
+        long threadID = Thread.currentThread().getId();
+        return stripes[(int) (threadID ^ (threadID >>> 16)) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,105 @@
+package se.kth.iv1350.integration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import se.kth.iv1350.dto.ItemEntryDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class StockLedgerTest {
+    private static final int LANES = 16;
+    private static final int SALES_PER_LANE = 20_000;
+    private static final long INITIAL_STOCK = 1_000_000;
+
+    private StockLedger ledger;
+
+    @BeforeEach
+    public void setUp() {
+        ledger = new StockLedger();
+        ledger.addStock("promo", INITIAL_STOCK);
+        ledger.addStock("milk", INITIAL_STOCK);
+    }
+
+    @Test
+    public void testRemoveSoldItemsDecreasesStock() {
+        ledger.removeSoldItems(List.of(new ItemEntryDTO("milk", 3), new ItemEntryDTO("promo", 1)));
+
+        assertEquals(INITIAL_STOCK - 3, ledger.getStock("milk"), "The sold quantity should be removed.");
+        assertEquals(INITIAL_STOCK - 1, ledger.getStock("promo"), "The sold quantity should be removed.");
+    }
+
+    @Test
+    public void testSellingUnregisteredItemGivesNegativeStock() {
+        ledger.removeSoldItems(List.of(new ItemEntryDTO("unknown", 2)));
+
+        assertEquals(-2, ledger.getStock("unknown"), "Selling more than registered should give negative stock.");
+    }
+
+    @Test
+    public void testConcurrentSalesDoNotLoseUpdates() throws Exception {
+        runLanes(lane -> List.of(new ItemEntryDTO("promo", 1), new ItemEntryDTO("lane" + lane, 2)));
+
+        assertEquals(INITIAL_STOCK - (long) LANES * SALES_PER_LANE, ledger.getStock("promo"),
+                "Every sale of the shared item should be counted exactly once.");
+        for (int lane = 0; lane < LANES; lane++) {
+            assertEquals(-2L * SALES_PER_LANE, ledger.getStock("lane" + lane),
+                    "Every sale of a lane's own item should be counted exactly once.");
+        }
+    }
+
+    @Test
+    public void testSnapshotNeverContainsHalfASale() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<String> inconsistencies = new ArrayList<>();
+        Thread stockTaker = new Thread(() -> {
+            while (running.get()) {
+                Map<String, Long> snapshot = ledger.snapshot();
+                if (!snapshot.get("promo").equals(snapshot.get("milk"))) {
+                    inconsistencies.add(snapshot.toString());
+                }
+            }
+        });
+        stockTaker.start();
+
+        runLanes(lane -> List.of(new ItemEntryDTO("promo", 1), new ItemEntryDTO("milk", 1)));
+        running.set(false);
+        stockTaker.join();
+
+        assertTrue(inconsistencies.isEmpty(),
+                "A snapshot should include either both or none of the items of a sale: " + inconsistencies);
+        assertEquals(ledger.getStock("promo"), ledger.getStock("milk"),
+                "Both items should have been sold the same number of times.");
+    }
+
+    private void runLanes(LaneSale saleForLane) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(LANES);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int lane = 0; lane < LANES; lane++) {
+                List<ItemEntryDTO> sale = saleForLane.itemsSold(lane);
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < SALES_PER_LANE; i++) {
+                        ledger.removeSoldItems(sale);
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private interface LaneSale {
+        List<ItemEntryDTO> itemsSold(int lane);
+    }
+}
@@ -0,0 +1,111 @@
+package se.kth.iv1350.integration;
+
+import se.kth.iv1350.dto.ItemDTO;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An item catalog whose contents can be replaced while it is used, for example when new prices
+ * and VAT rates arrive during the day. Each published catalog becomes a new immutable
+ * {@link CatalogSnapshot} with a higher version, which replaces the current snapshot atomically.
+ * Lookups never wait for a reload, and a reload of millions of items is built completely before
+ * it is published, so a lookup sees either the old or the new catalog, never a mix.
+ * <p>
+ * A sale pins the snapshot that is current when the sale starts, and looks up all its items in
+ * that snapshot. An old snapshot is reclaimed when it is no longer current and the last sale that
+ * pinned it has released it.
+ * <p>
+ * A {@link CachingItemCatalog} should be put in front of the catalog of each snapshot, not in
+ * front of this catalog, since the cache would otherwise return items of older versions.
+ */
+public class VersionedItemCatalog implements ItemCatalog {
+    private final AtomicReference<CatalogSnapshot> current;
+
+    /**
+     * Creates a new catalog whose first version is the specified catalog.
+     * @param initialCatalog The catalog of version 1.
+     */
+    public VersionedItemCatalog(ItemCatalog initialCatalog) {
+        this.current = new AtomicReference<>(new CatalogSnapshot(1, initialCatalog));
+    }
+
+    /**
+     * Makes the specified catalog the current version. Sales that have pinned an older version
+     * keep using it until they release it.
+     * @param catalog The new version of the catalog. It must not be changed after it is published.
+     * @return The version of the published catalog.
+     */
+    public long publish(ItemCatalog catalog) {
+        CatalogSnapshot previous;
+        CatalogSnapshot next;
+        synchronized (current) {
+            previous = current.get();
+            next = new CatalogSnapshot(previous.getVersion() + 1, catalog);
+            current.set(next);
+        }
+        previous.release();
+        return next.getVersion();
+    }
+
+    /**
+     * Gets the version of the current snapshot.
+     * @return The current version.
+     */
+    public long getCurrentVersion() {
+        return current.get().getVersion();
+    }
+
+    /**
+     * Pins the current snapshot, so that it is not reclaimed until it is released with
+     * {@link #release(CatalogSnapshot)}.
+     * @return The current snapshot.
+     */
+    public CatalogSnapshot pin() {
+        while (true) {
+            CatalogSnapshot snapshot = current.get();
+            if (snapshot.retain()) {
+                return snapshot;
+            }
+        }
+    }
+
+    /**
+     * Releases a snapshot pinned with {@link #pin()}. Each pin must be released exactly once.
+     * @param snapshot The pinned snapshot.
+     */
+    public void release(CatalogSnapshot snapshot) {
+        snapshot.release();
+    }
+
+    /**
+     * Searches the current snapshot for an item. The snapshot is pinned during the search.
+     * @param itemID The ID of the item.
+     * @return The item, or null if it is not in the current catalog.
+     */
+    @Override
+    public ItemDTO findItem(String itemID) {
+        CatalogSnapshot snapshot = pin();
+        try {
+            return snapshot.findItem(itemID);
+        } finally {
+            snapshot.release();
+        }
+    }
+
+    @Override
+    public Map<String, ItemDTO> findItems(Collection<String> itemIDs) {
+        CatalogSnapshot snapshot = pin();
+        try {
+            return snapshot.findItems(itemIDs);
+        } finally {
+            snapshot.release();
+        }
+    }
+
+    @Override
+    public boolean isCached(String itemID) {
+        return current.get().isCached(itemID);
+    }
+}
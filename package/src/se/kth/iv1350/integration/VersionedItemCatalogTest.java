@@ -0,0 +1,92 @@
+package se.kth.iv1350.integration;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.util.Amount;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class VersionedItemCatalogTest {
+
+    @Test
+    public void testPublishedCatalogBecomesNewVersion() {
+        VersionedItemCatalog catalog = new VersionedItemCatalog(catalogWithPrice(10));
+
+        long version = catalog.publish(catalogWithPrice(12));
+
+        assertEquals(2, version, "The first published catalog should be version 2.");
+        assertEquals(2, catalog.getCurrentVersion(), "The published catalog should be current.");
+        assertEquals(new Amount(12, "SEK"), catalog.findItem("milk").getPrice(),
+                "Lookups should use the new prices.");
+    }
+
+    @Test
+    public void testPinnedSnapshotKeepsOldPrices() {
+        VersionedItemCatalog catalog = new VersionedItemCatalog(catalogWithPrice(10));
+        CatalogSnapshot pinned = catalog.pin();
+
+        catalog.publish(catalogWithPrice(12));
+
+        assertEquals(1, pinned.getVersion(), "The pinned snapshot should keep its version.");
+        assertEquals(new Amount(10, "SEK"), pinned.findItem("milk").getPrice(),
+                "The pinned snapshot should keep the old prices.");
+        assertEquals(new Amount(10, "SEK"), pinned.findItems(List.of("milk")).get("milk").getPrice(),
+                "Batch lookups in the pinned snapshot should keep the old prices.");
+        assertFalse(pinned.isReclaimed(), "A pinned snapshot should not be reclaimed.");
+    }
+
+    @Test
+    public void testOldSnapshotIsReclaimedWhenLastPinIsReleased() {
+        AtomicBoolean closed = new AtomicBoolean();
+        VersionedItemCatalog catalog = new VersionedItemCatalog(closeableCatalog(closed));
+        CatalogSnapshot first = catalog.pin();
+        CatalogSnapshot second = catalog.pin();
+
+        catalog.publish(catalogWithPrice(12));
+        catalog.release(first);
+        assertFalse(closed.get(), "The catalog should stay open while a sale has it pinned.");
+        catalog.release(second);
+
+        assertTrue(second.isReclaimed(), "The old snapshot should be reclaimed after the last release.");
+        assertTrue(closed.get(), "The catalog of a reclaimed snapshot should be closed.");
+    }
+
+    @Test
+    public void testCurrentSnapshotIsNotReclaimedByRelease() {
+        VersionedItemCatalog catalog = new VersionedItemCatalog(catalogWithPrice(10));
+        CatalogSnapshot pinned = catalog.pin();
+
+        catalog.release(pinned);
+
+        assertFalse(pinned.isReclaimed(), "The current snapshot should stay available.");
+        assertThrows(IllegalStateException.class, () -> {
+            catalog.release(pinned);
+            catalog.release(pinned);
+        }, "Releasing more often than pinned should be detected.");
+    }
+
+    private static ItemCatalog catalogWithPrice(double price) {
+        return itemID -> new ItemDTO(itemID, "Item " + itemID, "", new Amount(price, "SEK"), 0.06);
+    }
+
+    private interface CloseableCatalog extends ItemCatalog, Closeable {
+    }
+
+    private static ItemCatalog closeableCatalog(AtomicBoolean closed) {
+        return new CloseableCatalog() {
+            @Override
+            public ItemDTO findItem(String itemID) {
+                return new ItemDTO(itemID, "Item " + itemID, "", new Amount(10, "SEK"), 0.06);
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+    }
+}
@@ -1,22 +1,48 @@
 package se.kth.iv1350;
 
 import se.kth.iv1350.controller.Controller;
+import se.kth.iv1350.controller.OperationFailedException;
 import se.kth.iv1350.integration.*;
 import se.kth.iv1350.model.Register;
+import se.kth.iv1350.util.AsyncLogger;
 import se.kth.iv1350.view.View;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Duration;
+import javax.management.JMException;
+
 /**
  * Starts the entire application, contains the main method used to start the application.
  */
 public class main {
+    private static final int ITEM_CACHE_SIZE = 10_000;
+    private static final Duration ITEM_CACHE_TIME_TO_LIVE = Duration.ofMinutes(10);
+    private static final Path SALES_JOURNAL_FILE = Path.of("sales-journal.bin");
+    private static final int REGISTER_ID = 1;
+    private static final Duration JOURNAL_COMMIT_DELAY = Duration.ofMillis(2);
+    private static final String METRICS_DOMAIN = "se.kth.iv1350";
+    private static final Path METRICS_SNAPSHOT_FILE = Path.of("metrics-snapshot.csv");
+    private static final Duration METRICS_SNAPSHOT_PERIOD = Duration.ofSeconds(10);
+
     /**
      * The main method used to start the application.
-     * @param args The application does not take any command line parameters.
+     * @param args Optionally the path of a catalog file created by {@link CatalogFileBuilder}.
+     *             If no catalog file is given, a few sample items are used.
+     * @throws IOException If the catalog file or the sales journal cannot be opened.
+     * @throws OperationFailedException If the sales in the journal cannot be read.
+     * @throws InterruptedException If interrupted while waiting for the revenue observers.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException, OperationFailedException, InterruptedException {
         // Create integration layer objects
-        InventorySystem invSys = new InventorySystem();
-        AccountingSystem accSys = new AccountingSystem();
+        InventorySystem invSys = args.length > 0
+                ? new InventorySystem(new CachingItemCatalog(MappedItemCatalog.open(Path.of(args[0])),
+                        ITEM_CACHE_SIZE, ITEM_CACHE_TIME_TO_LIVE))
+                : new InventorySystem();
+        SalesJournal journal = SalesJournal.open(SALES_JOURNAL_FILE, REGISTER_ID, JOURNAL_COMMIT_DELAY);
+        AccountingSystem accSys = new AccountingSystem(journal, SALES_JOURNAL_FILE);
         DiscountDatabase discountDB = new DiscountDatabase();
         Printer printer = new Printer();
         
@@ -26,10 +52,29 @@ public class main {
         // Create controller
         Controller contr = new Controller(invSys, accSys, discountDB, printer, register);
 
+        // Publish the operation statistics through JMX and a snapshot file
+        try {
+            contr.getMetrics().registerMBeans(ManagementFactory.getPlatformMBeanServer(), METRICS_DOMAIN);
+        } catch (JMException e) {
+            AsyncLogger.getDefault().warn(() -> "Could not register the metrics MBeans: " + e.getMessage());
+        }
+        Closeable metricsSnapshots = contr.getMetrics().startPeriodicSnapshots(METRICS_SNAPSHOT_FILE,
+                METRICS_SNAPSHOT_PERIOD);
+
         // Create view
         View view = new View(contr);
         
+        // Rebuild the register balance and revenue totals from earlier sales
+        contr.restoreEarlierSales();
+
         // Start the application by running the interactive sale
-        view.startSale(); 
+        try {
+            view.startSale();
+        } finally {
+            view.close();
+            contr.shutdown();
+            journal.close();
+            metricsSnapshots.close();
+        }
     }
 }
@@ -0,0 +1,24 @@
+package se.kth.iv1350.model;
+
+/**
+ * Decides what a {@link RevenueEventBus} does with a new event when its buffer is full.
+ */
+public enum BackpressurePolicy {
+    /**
+     * Waits until there is room in the buffer. No event is lost, but a payment may wait for
+     * slow observers when the buffer is full.
+     */
+    BLOCK,
+
+    /**
+     * Discards the new event and counts it as dropped. A payment never waits, but observers
+     * miss the dropped sales.
+     */
+    DROP,
+
+    /**
+     * Notifies the observers directly on the paying lane's thread. No event is lost, but the
+     * payment waits for the observers, and events may reach observers out of order.
+     */
+    CALLER_RUNS
+}
@@ -0,0 +1,220 @@
+package se.kth.iv1350.model;
+
+import se.kth.iv1350.dto.DiscountDTO;
+import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.util.Currency;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the customer discounts of one {@link Sale} up to date as items are added. For each
+ * discount the customer is entitled to, the share of each line is kept together with its sum
+ * over the sale and per VAT rate, so a changed line only replaces its own share and the cost of
+ * adding an item does not depend on the number of lines in the sale. The best discount is chosen
+ * again from these sums after each change.
+ * <p>
+ * A percentage discount is taken from the price of each line after its promotions, with the VAT
+ * of the discount taken from that line. A fixed amount is limited to the price of the lines it
+ * applies to, and is spread over the VAT rates in proportion to the price of those lines.
+ */
+class CustomerDiscountEvaluator {
+    private final Map<String, SalesLineItem> lines;
+    private final PromotionEvaluator promotions;
+    private final Map<Double, long[]> discountsPerVATRate = new HashMap<>();
+    private List<DiscountShares> discounts = List.of();
+    private DiscountDTO appliedDiscount;
+    private long discountIncludingVAT;
+    private long discountVAT;
+
+    /**
+     * Creates an evaluator of the customer discounts of a sale.
+     * @param lines The lines of the sale, by item ID, which are read when an item is added.
+     * @param promotions The promotions of the sale, whose discounts are taken off before the
+     *                   customer discount.
+     */
+    CustomerDiscountEvaluator(Map<String, SalesLineItem> lines, PromotionEvaluator promotions) {
+        this.lines = lines;
+        this.promotions = promotions;
+    }
+
+    /**
+     * Replaces the discounts of the customer, calculates them from all lines and chooses the best.
+     */
+    void setDiscounts(List<DiscountDTO> customerDiscounts, Currency currency) {
+        List<DiscountShares> shares = new ArrayList<>(customerDiscounts.size());
+        for (DiscountDTO discount : customerDiscounts) {
+            DiscountShares discountShares = new DiscountShares(discount);
+            for (String itemID : lines.keySet()) {
+                discountShares.lineChanged(itemID);
+            }
+            shares.add(discountShares);
+        }
+        this.discounts = shares;
+        chooseBest(currency);
+    }
+
+    /**
+     * Updates the discounts after the quantity of an item has changed.
+     * @param itemID The item whose quantity changed.
+     * @param promotionItems The items whose promotion discount may have changed with it.
+     */
+    void itemChanged(String itemID, Collection<String> promotionItems, Currency currency) {
+        if (discounts.isEmpty()) {
+            return;
+        }
+        for (DiscountShares discount : discounts) {
+            discount.lineChanged(itemID);
+            for (String promotionItem : promotionItems) {
+                if (!promotionItem.equals(itemID)) {
+                    discount.lineChanged(promotionItem);
+                }
+            }
+        }
+        chooseBest(currency);
+    }
+
+    /**
+     * Gets the discount that is applied, or null if no discount reduces the total.
+     */
+    DiscountDTO getAppliedDiscount() {
+        return appliedDiscount;
+    }
+
+    /**
+     * Gets the applied discount, including VAT.
+     */
+    long getDiscountIncludingVAT() {
+        return discountIncludingVAT;
+    }
+
+    /**
+     * Gets the VAT part of the applied discount.
+     */
+    long getDiscountVAT() {
+        return discountVAT;
+    }
+
+    /**
+     * Gets the discount of the items with a VAT rate, as {excluding VAT, VAT}, or null if there is none.
+     */
+    long[] getDiscountOfVATRate(double vatRate) {
+        return discountsPerVATRate.get(vatRate);
+    }
+
+    private void chooseBest(Currency currency) {
+        DiscountShares best = null;
+        long bestDiscount = 0;
+        for (DiscountShares discount : discounts) {
+            long discountMinorUnits = discount.totalDiscount(currency);
+            if (discountMinorUnits > bestDiscount) {
+                best = discount;
+                bestDiscount = discountMinorUnits;
+            }
+        }
+        appliedDiscount = best == null ? null : best.discount;
+        discountIncludingVAT = bestDiscount;
+        discountVAT = 0;
+        discountsPerVATRate.clear();
+        if (best == null) {
+            return;
+        }
+        if (best.percentage) {
+            for (Map.Entry<Double, long[]> rateShare : best.sharesPerVATRate.entrySet()) {
+                long[] share = rateShare.getValue();
+                putDiscountOfVATRate(rateShare.getKey(), share[0], share[1]);
+            }
+            return;
+        }
+        long remainingFixed = bestDiscount;
+        long remainingEligible = best.includingVAT;
+        for (Map.Entry<Double, long[]> rateShare : best.sharesPerVATRate.entrySet()) {
+            long eligibleIncludingVAT = rateShare.getValue()[0];
+            if (eligibleIncludingVAT == 0) {
+                continue;
+            }
+            long rateDiscount = remainingFixed * eligibleIncludingVAT / remainingEligible;
+            remainingFixed -= rateDiscount;
+            remainingEligible -= eligibleIncludingVAT;
+            long rateDiscountVAT = Math.round((double) rateDiscount * rateShare.getValue()[1] / eligibleIncludingVAT);
+            putDiscountOfVATRate(rateShare.getKey(), rateDiscount, rateDiscountVAT);
+        }
+    }
+
+    private void putDiscountOfVATRate(double vatRate, long includingVAT, long vat) {
+        discountsPerVATRate.put(vatRate, new long[] {includingVAT - vat, vat});
+        discountVAT += vat;
+    }
+
+    /**
+     * The share of each line in one discount, as {including VAT, VAT}, and their sums. The share
+     * of a line is its discount for a percentage discount, and its price after promotions for a
+     * fixed amount, which is spread over the lines when the discount is applied.
+     */
+    private final class DiscountShares {
+        private final DiscountDTO discount;
+        private final boolean percentage;
+        private final double rate;
+        private final Map<String, long[]> lineShares = new HashMap<>();
+        private final Map<Double, long[]> sharesPerVATRate = new TreeMap<>();
+        private long includingVAT;
+
+        DiscountShares(DiscountDTO discount) {
+            this.discount = discount;
+            this.percentage = discount.getType() == DiscountDTO.Type.PERCENTAGE;
+            this.rate = discount.getPercentage() / 100;
+        }
+
+        long totalDiscount(Currency currency) {
+            if (percentage) {
+                return includingVAT;
+            }
+            Amount fixedAmount = discount.getFixedAmount();
+            if (fixedAmount.getCurrency() != currency) {
+                return 0;
+            }
+            return Math.min(fixedAmount.getMinorUnits(), includingVAT);
+        }
+
+        void lineChanged(String itemID) {
+            SalesLineItem line = lines.get(itemID);
+            double vatRate = line.getItem().getVatRate();
+            long[] previous = lineShares.remove(itemID);
+            if (previous != null) {
+                addToSums(vatRate, -previous[0], -previous[1]);
+            }
+            if (!discount.appliesTo(line.getItem())) {
+                return;
+            }
+            long lineVAT = line.getTotalVATMinorUnits();
+            long lineIncludingVAT = line.getTotalPriceMinorUnits() + lineVAT;
+            long[] promotionDiscount = promotions.getDiscountOfItem(itemID);
+            if (promotionDiscount != null) {
+                lineIncludingVAT -= promotionDiscount[0];
+                lineVAT -= promotionDiscount[1];
+            }
+            long[] share;
+            if (percentage) {
+                long lineDiscount = Amount.applyRate(lineIncludingVAT, rate);
+                long lineDiscountVAT = lineIncludingVAT == 0 ? 0
+                        : Math.round((double) lineDiscount * lineVAT / lineIncludingVAT);
+                share = new long[] {lineDiscount, lineDiscountVAT};
+            } else {
+                share = new long[] {lineIncludingVAT, lineVAT};
+            }
+            lineShares.put(itemID, share);
+            addToSums(vatRate, share[0], share[1]);
+        }
+
+        private void addToSums(double vatRate, long changeIncludingVAT, long changeOfVAT) {
+            includingVAT += changeIncludingVAT;
+            long[] rateShare = sharesPerVATRate.computeIfAbsent(vatRate, newRate -> new long[2]);
+            rateShare[0] += changeIncludingVAT;
+            rateShare[1] += changeOfVAT;
+        }
+    }
+}
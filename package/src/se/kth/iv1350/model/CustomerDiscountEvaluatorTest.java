@@ -0,0 +1,89 @@
+package se.kth.iv1350.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import se.kth.iv1350.dto.DiscountDTO;
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.dto.PromotionDTO;
+import se.kth.iv1350.dto.VATSubtotalDTO;
+import se.kth.iv1350.util.Amount;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class CustomerDiscountEvaluatorTest {
+    private static final PromotionDTO BUNDLE = PromotionDTO.bundle("P2", "Chocolate and yoghurt",
+            Map.of("yoghurt", 2, "chocolate", 1), new Amount(70, "SEK"));
+    private static final DiscountDTO MEMBER = DiscountDTO.percentage("Member", 10, Set.of());
+    private static final DiscountDTO VOUCHER = DiscountDTO.fixedAmount("Voucher", new Amount(40, "SEK"), Set.of());
+
+    private ItemDTO yoghurt;
+    private ItemDTO chocolate;
+    private ItemDTO oatmeal;
+
+    @BeforeEach
+    public void setUp() {
+        yoghurt = new ItemDTO("yoghurt", "YouGoGo Blueberry", "", new Amount(14.90, "SEK"), 0.06);
+        chocolate = new ItemDTO("chocolate", "Luxury Chocolate", "", new Amount(50, "SEK"), 0.12);
+        oatmeal = new ItemDTO("oatmeal", "BigWheel Oatmeal", "", new Amount(29.90, "SEK"), 0.06);
+    }
+
+    @Test
+    public void testDiscountFollowsPromotionOfEarlierLine() {
+        Sale scanned = new Sale(new PromotionIndex(List.of(BUNDLE)));
+        scanned.addItemToSale(yoghurt, 2);
+        scanned.applyDiscounts(List.of(MEMBER));
+        scanned.addItemToSale(oatmeal, 1);
+        scanned.addItemToSale(chocolate, 1);
+
+        Sale appliedLast = new Sale(new PromotionIndex(List.of(BUNDLE)));
+        appliedLast.addItemToSale(yoghurt, 2);
+        appliedLast.addItemToSale(oatmeal, 1);
+        appliedLast.addItemToSale(chocolate, 1);
+        appliedLast.applyDiscounts(List.of(MEMBER));
+
+        assertEquals(appliedLast.getDiscount(), scanned.getDiscount(),
+                "The discount of the yoghurt should follow the bundle completed by the chocolate.");
+        assertEquals(appliedLast.getRunningTotalIncludingVAT(), scanned.getRunningTotalIncludingVAT(),
+                "The total should not depend on when the discount was applied.");
+        assertEquals(appliedLast.getCurrentTotalVAT(), scanned.getCurrentTotalVAT(),
+                "The VAT should not depend on when the discount was applied.");
+    }
+
+    @Test
+    public void testBestDiscountChangesAsItemsAreAdded() {
+        Sale sale = new Sale();
+        sale.addItemToSale(oatmeal, 1);
+        sale.applyDiscounts(List.of(MEMBER, VOUCHER));
+        assertEquals(VOUCHER, sale.getAppliedDiscount(), "40 SEK off is more than 10% of one oatmeal.");
+
+        sale.addItemToSale(oatmeal, 20);
+
+        assertEquals(MEMBER, sale.getAppliedDiscount(), "10% of 21 oatmeal is more than 40 SEK off.");
+        assertEquals(Amount.ofMinorUnits(6656, "SEK"), sale.getDiscount(), "The discount should be 10% of the sale.");
+    }
+
+    @Test
+    public void testFixedDiscountKeepsSubtotalsConsistentAsItemsAreAdded() {
+        Sale sale = new Sale();
+        sale.applyDiscounts(List.of(VOUCHER));
+        sale.addItemToSale(oatmeal, 1);
+        sale.addItemToSale(chocolate, 1);
+
+        long subtotalsIncludingVAT = 0;
+        long subtotalsVAT = 0;
+        for (VATSubtotalDTO subtotal : sale.getVATSubtotals()) {
+            subtotalsIncludingVAT += subtotal.getTotalExcludingVAT().getMinorUnits()
+                    + subtotal.getTotalVAT().getMinorUnits();
+            subtotalsVAT += subtotal.getTotalVAT().getMinorUnits();
+        }
+        assertEquals(new Amount(40, "SEK"), sale.getDiscount(), "The whole fixed amount should be taken off.");
+        assertEquals(sale.getRunningTotalIncludingVAT().getMinorUnits(), subtotalsIncludingVAT,
+                "The subtotals should add up to the reduced total.");
+        assertEquals(sale.getCurrentTotalVAT().getMinorUnits(), subtotalsVAT,
+                "The subtotals should add up to the reduced VAT.");
+    }
+}
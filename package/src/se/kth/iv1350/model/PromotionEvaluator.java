@@ -0,0 +1,335 @@
+package se.kth.iv1350.model;
+
+import se.kth.iv1350.dto.AppliedPromotionDTO;
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.dto.PromotionDTO;
+import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.util.Currency;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the promotions of one {@link Sale} up to date as items are added. Promotions that share
+ * items compete for them, so the promotions are evaluated in groups: when an item is added, only
+ * the promotions connected to it through shared items are evaluated again, and the best
+ * combination for that group is searched for. The cost of adding an item therefore depends on the
+ * promotions it takes part in, not on the size of the basket.
+ * <p>
+ * The search tries the largest number of applications of the most valuable promotion first, so
+ * its first solution is the greedy one, and stops improving on it after {@value #SEARCH_BUDGET}
+ * steps for unusually large groups. The discount of each application is put on the free items,
+ * or on the items of a bundle in proportion to their prices, and the VAT of the discount is taken
+ * from those items. Prices are taken as shares of the line totals, so a bundle costs exactly its
+ * price even though the VAT of each line is rounded once for the whole line.
+ */
+class PromotionEvaluator {
+    private static final int SEARCH_BUDGET = 10_000;
+
+    private final PromotionIndex index;
+    private final Map<String, SalesLineItem> lines;
+    private final Map<PromotionDTO, long[]> applications = new LinkedHashMap<>();
+    private final Map<String, long[]> itemDiscounts = new HashMap<>();
+    private final Map<Double, long[]> discountsPerVATRate = new HashMap<>();
+    private long discountIncludingVAT;
+    private long discountVAT;
+
+    /**
+     * Creates an evaluator of the promotions of a sale.
+     * @param index The promotions of the store.
+     * @param lines The lines of the sale, by item ID, which are read when an item is added.
+     */
+    PromotionEvaluator(PromotionIndex index, Map<String, SalesLineItem> lines) {
+        this.index = index;
+        this.lines = lines;
+    }
+
+    /**
+     * Evaluates the promotions that an item takes part in, after its quantity has changed.
+     * @return The items whose promotion discount may have changed.
+     */
+    Set<String> itemChanged(String itemID) {
+        List<PromotionDTO> touched = index.promotionsFor(itemID);
+        if (touched.isEmpty()) {
+            return Set.of();
+        }
+        Set<PromotionDTO> group = new LinkedHashSet<>();
+        Set<String> groupItems = new LinkedHashSet<>();
+        Deque<PromotionDTO> pending = new ArrayDeque<>(touched);
+        while (!pending.isEmpty()) {
+            PromotionDTO promotion = pending.poll();
+            if (group.contains(promotion) || !allItemsInSale(promotion)) {
+                continue;
+            }
+            group.add(promotion);
+            for (String requiredItem : promotion.getRequiredItems().keySet()) {
+                if (groupItems.add(requiredItem)) {
+                    pending.addAll(index.promotionsFor(requiredItem));
+                }
+            }
+        }
+        if (group.isEmpty()) {
+            return Set.of();
+        }
+
+        for (String groupItem : groupItems) {
+            removeItemDiscount(groupItem);
+        }
+        applications.keySet().removeAll(group);
+        new Search(new ArrayList<>(group), new ArrayList<>(groupItems)).applyBest();
+        return groupItems;
+    }
+
+    private boolean allItemsInSale(PromotionDTO promotion) {
+        for (String requiredItem : promotion.getRequiredItems().keySet()) {
+            if (!lines.containsKey(requiredItem)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the total discount of all applied promotions, including VAT.
+     */
+    long getDiscountIncludingVAT() {
+        return discountIncludingVAT;
+    }
+
+    /**
+     * Gets the VAT part of the total discount of all applied promotions.
+     */
+    long getDiscountVAT() {
+        return discountVAT;
+    }
+
+    /**
+     * Gets the discount of the items with a VAT rate, as {excluding VAT, VAT}, or null if there is none.
+     */
+    long[] getDiscountOfVATRate(double vatRate) {
+        return discountsPerVATRate.get(vatRate);
+    }
+
+    /**
+     * Gets the discount of an item, as {including VAT, VAT}, or null if there is none.
+     */
+    long[] getDiscountOfItem(String itemID) {
+        return itemDiscounts.get(itemID);
+    }
+
+    /**
+     * Gets the applied promotions, ordered by promotion ID.
+     */
+    List<AppliedPromotionDTO> getAppliedPromotions() {
+        if (applications.isEmpty()) {
+            return List.of();
+        }
+        List<AppliedPromotionDTO> applied = new ArrayList<>(applications.size());
+        for (Map.Entry<PromotionDTO, long[]> application : applications.entrySet()) {
+            Currency currency = lines.get(application.getKey().getRequiredItems().keySet().iterator().next())
+                    .getItem().getPrice().getCurrency();
+            applied.add(new AppliedPromotionDTO(application.getKey(), (int) application.getValue()[0],
+                    Amount.ofMinorUnits(application.getValue()[1], currency)));
+        }
+        applied.sort(Comparator.comparing(promotion -> promotion.getPromotion().getPromotionID()));
+        return applied;
+    }
+
+    private void addItemDiscount(String itemID, long discount) {
+        SalesLineItem line = lines.get(itemID);
+        ItemDTO item = line.getItem();
+        long lineVAT = line.getTotalVATMinorUnits();
+        long lineIncludingVAT = line.getTotalPriceMinorUnits() + lineVAT;
+        long vat = lineIncludingVAT == 0 ? 0 : Math.round((double) discount * lineVAT / lineIncludingVAT);
+        long[] itemDiscount = itemDiscounts.computeIfAbsent(itemID, newItem -> new long[2]);
+        itemDiscount[0] += discount;
+        itemDiscount[1] += vat;
+        updateTotals(item.getVatRate(), discount, vat);
+    }
+
+    private void removeItemDiscount(String itemID) {
+        long[] itemDiscount = itemDiscounts.remove(itemID);
+        if (itemDiscount != null) {
+            updateTotals(lines.get(itemID).getItem().getVatRate(), -itemDiscount[0], -itemDiscount[1]);
+        }
+    }
+
+    private void updateTotals(double vatRate, long changeIncludingVAT, long changeOfVAT) {
+        discountIncludingVAT += changeIncludingVAT;
+        discountVAT += changeOfVAT;
+        long[] rateDiscount = discountsPerVATRate.computeIfAbsent(vatRate, rate -> new long[2]);
+        rateDiscount[0] += changeIncludingVAT - changeOfVAT;
+        rateDiscount[1] += changeOfVAT;
+    }
+
+    /**
+     * Gets the price, including VAT, of part of the quantity of a line. The VAT of a line is
+     * rounded once for the whole line, so the price is taken as a share of the line total, which
+     * makes the parts of a line add up to the line total.
+     */
+    private long priceOf(String itemID, long quantity) {
+        SalesLineItem line = lines.get(itemID);
+        long lineIncludingVAT = line.getTotalPriceMinorUnits() + line.getTotalVATMinorUnits();
+        return quantity == line.getQuantity() ? lineIncludingVAT
+                : Math.round((double) lineIncludingVAT * quantity / line.getQuantity());
+    }
+
+    /**
+     * A depth-first search for the number of applications of each promotion of a group that
+     * gives the largest total discount.
+     */
+    private final class Search {
+        private final List<PromotionDTO> promotions;
+        private final int[][] requiredItemIndexes;
+        private final int[][] requiredQuantities;
+        private final long[] values;
+        private final int[] remaining;
+        private final int[] counts;
+        private int[] bestCounts;
+        private long bestValue = -1;
+        private int steps;
+
+        Search(List<PromotionDTO> group, List<String> groupItems) {
+            this.remaining = new int[groupItems.size()];
+            for (int i = 0; i < remaining.length; i++) {
+                remaining[i] = lines.get(groupItems.get(i)).getQuantity();
+            }
+            List<PromotionDTO> valuable = new ArrayList<>();
+            List<Long> valuableValues = new ArrayList<>();
+            for (PromotionDTO promotion : group) {
+                long value = valueOfOneApplication(promotion);
+                if (value > 0) {
+                    valuable.add(promotion);
+                    valuableValues.add(value);
+                }
+            }
+            Integer[] order = new Integer[valuable.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparing((Integer i) -> valuableValues.get(i)).reversed());
+
+            this.promotions = new ArrayList<>(order.length);
+            this.values = new long[order.length];
+            this.requiredItemIndexes = new int[order.length][];
+            this.requiredQuantities = new int[order.length][];
+            for (int p = 0; p < order.length; p++) {
+                PromotionDTO promotion = valuable.get(order[p]);
+                promotions.add(promotion);
+                values[p] = valuableValues.get(order[p]);
+                Map<String, Integer> required = promotion.getRequiredItems();
+                requiredItemIndexes[p] = new int[required.size()];
+                requiredQuantities[p] = new int[required.size()];
+                int r = 0;
+                for (Map.Entry<String, Integer> requiredItem : required.entrySet()) {
+                    requiredItemIndexes[p][r] = groupItems.indexOf(requiredItem.getKey());
+                    requiredQuantities[p][r] = requiredItem.getValue();
+                    r++;
+                }
+            }
+            this.counts = new int[order.length];
+        }
+
+        void applyBest() {
+            search(0, 0);
+            for (int p = 0; p < promotions.size(); p++) {
+                if (bestCounts[p] > 0) {
+                    apply(promotions.get(p), bestCounts[p]);
+                }
+            }
+        }
+
+        private void search(int promotion, long value) {
+            steps++;
+            if (promotion == promotions.size()) {
+                if (value > bestValue) {
+                    bestValue = value;
+                    bestCounts = counts.clone();
+                }
+                return;
+            }
+            if (bestCounts != null && (steps > SEARCH_BUDGET || value + upperBound(promotion) <= bestValue)) {
+                return;
+            }
+            for (int count = maxApplications(promotion); count >= 0; count--) {
+                use(promotion, count);
+                counts[promotion] = count;
+                search(promotion + 1, value + count * values[promotion]);
+                use(promotion, -count);
+            }
+            counts[promotion] = 0;
+        }
+
+        private long upperBound(int firstPromotion) {
+            long bound = 0;
+            for (int p = firstPromotion; p < promotions.size(); p++) {
+                bound += maxApplications(p) * values[p];
+            }
+            return bound;
+        }
+
+        private int maxApplications(int promotion) {
+            int max = Integer.MAX_VALUE;
+            for (int r = 0; r < requiredItemIndexes[promotion].length; r++) {
+                max = Math.min(max, remaining[requiredItemIndexes[promotion][r]] / requiredQuantities[promotion][r]);
+            }
+            return max;
+        }
+
+        private void use(int promotion, int count) {
+            for (int r = 0; r < requiredItemIndexes[promotion].length; r++) {
+                remaining[requiredItemIndexes[promotion][r]] -= count * requiredQuantities[promotion][r];
+            }
+        }
+
+        private long valueOfOneApplication(PromotionDTO promotion) {
+            return discountOf(promotion, 1);
+        }
+
+        private long discountOf(PromotionDTO promotion, int count) {
+            if (promotion.getType() != PromotionDTO.Type.BUNDLE) {
+                return priceOf(promotion.getFreeItemID(), (long) count * promotion.getFreeQuantity());
+            }
+            long separatePrice = 0;
+            for (Map.Entry<String, Integer> requiredItem : promotion.getRequiredItems().entrySet()) {
+                SalesLineItem line = lines.get(requiredItem.getKey());
+                if (line.getItem().getPrice().getCurrency() != promotion.getBundlePrice().getCurrency()) {
+                    return 0;
+                }
+                separatePrice += priceOf(requiredItem.getKey(), (long) count * requiredItem.getValue());
+            }
+            return separatePrice - count * promotion.getBundlePrice().getMinorUnits();
+        }
+
+        private void apply(PromotionDTO promotion, int count) {
+            long discount = discountOf(promotion, count);
+            applications.put(promotion, new long[] {count, discount});
+            if (promotion.getType() != PromotionDTO.Type.BUNDLE) {
+                addItemDiscount(promotion.getFreeItemID(), discount);
+                return;
+            }
+            long remainingPrice = 0;
+            for (Map.Entry<String, Integer> requiredItem : promotion.getRequiredItems().entrySet()) {
+                remainingPrice += priceOf(requiredItem.getKey(), (long) count * requiredItem.getValue());
+            }
+            long remainingDiscount = discount;
+            for (Map.Entry<String, Integer> requiredItem : promotion.getRequiredItems().entrySet()) {
+                long itemPrice = priceOf(requiredItem.getKey(), (long) count * requiredItem.getValue());
+                long itemDiscount = remainingPrice == itemPrice ? remainingDiscount
+                        : Math.round((double) remainingDiscount * itemPrice / remainingPrice);
+                addItemDiscount(requiredItem.getKey(), itemDiscount);
+                remainingDiscount -= itemDiscount;
+                remainingPrice -= itemPrice;
+            }
+        }
+    }
+}
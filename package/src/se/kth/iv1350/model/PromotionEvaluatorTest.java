@@ -0,0 +1,127 @@
+package se.kth.iv1350.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import se.kth.iv1350.dto.AppliedPromotionDTO;
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.dto.PromotionDTO;
+import se.kth.iv1350.dto.SaleStateDTO;
+import se.kth.iv1350.dto.VATSubtotalDTO;
+import se.kth.iv1350.util.Amount;
+
+import java.util.List;
+import java.util.Map;
+
+public class PromotionEvaluatorTest {
+    private static final PromotionDTO THREE_FOR_TWO = PromotionDTO.multiBuy("P1", "3 for 2 yoghurt", "yoghurt", 3, 2);
+    private static final PromotionDTO BUNDLE = PromotionDTO.bundle("P2", "Chocolate and yoghurt",
+            Map.of("yoghurt", 2, "chocolate", 1), new Amount(70, "SEK"));
+
+    private ItemDTO yoghurt;
+    private ItemDTO chocolate;
+    private ItemDTO oatmeal;
+
+    @BeforeEach
+    public void setUp() {
+        yoghurt = new ItemDTO("yoghurt", "YouGoGo Blueberry", "", new Amount(14.90, "SEK"), 0.06);
+        chocolate = new ItemDTO("chocolate", "Luxury Chocolate", "", new Amount(50, "SEK"), 0.12);
+        oatmeal = new ItemDTO("oatmeal", "BigWheel Oatmeal", "", new Amount(29.90, "SEK"), 0.06);
+    }
+
+    @Test
+    public void testMultiBuyIsAppliedOncePerCompleteGroup() {
+        Sale sale = new Sale(new PromotionIndex(List.of(THREE_FOR_TWO)));
+        sale.addItemToSale(yoghurt, 2);
+        assertTrue(sale.getAppliedPromotions().isEmpty(), "Two yoghurts are not enough for 3 for 2.");
+
+        SaleStateDTO state = sale.addItemToSale(yoghurt, 1);
+        assertEquals(1, state.getAppliedPromotions().size(), "The third yoghurt should apply the promotion.");
+        assertEquals(Amount.ofMinorUnits(4738 - 1579, "SEK"), state.getRunningTotalIncludingVAT(),
+                "One of the three yoghurts, a third of 47:38 SEK, should be free.");
+
+        sale.addItemToSale(yoghurt, 3);
+        AppliedPromotionDTO applied = sale.getAppliedPromotions().get(0);
+        assertEquals(2, applied.getTimesApplied(), "Six yoghurts should apply the promotion twice.");
+        assertEquals(Amount.ofMinorUnits(3159, "SEK"), applied.getDiscount(),
+                "Two yoghurts, a third of 94:76 SEK each, should be free.");
+    }
+
+    @Test
+    public void testMoreValuablePromotionWinsSharedItems() {
+        Sale sale = new Sale(new PromotionIndex(List.of(THREE_FOR_TWO, BUNDLE)));
+        sale.addItemToSale(yoghurt, 3);
+        assertEquals("P1", sale.getAppliedPromotions().get(0).getPromotion().getPromotionID(),
+                "Without chocolate only 3 for 2 can be applied.");
+
+        sale.addItemToSale(chocolate, 1);
+
+        List<AppliedPromotionDTO> applied = sale.getAppliedPromotions();
+        assertEquals(1, applied.size(), "The yoghurts cannot be used by both promotions.");
+        assertEquals("P2", applied.get(0).getPromotion().getPromotionID(),
+                "The bundle saves more than 3 for 2 and should replace it.");
+        assertEquals(Amount.ofMinorUnits(1579 + 7000, "SEK"), sale.getRunningTotalIncludingVAT(),
+                "The bundle should cost 70 SEK and the third yoghurt its normal price.");
+    }
+
+    @Test
+    public void testBestCombinationIsFoundWhereGreedyChoiceIsWorse() {
+        ItemDTO x = new ItemDTO("x", "X", "", new Amount(10, "SEK"), 0);
+        ItemDTO y = new ItemDTO("y", "Y", "", new Amount(10, "SEK"), 0);
+        ItemDTO z = new ItemDTO("z", "Z", "", new Amount(10, "SEK"), 0);
+        Sale sale = new Sale(new PromotionIndex(List.of(
+                PromotionDTO.multiBuy("A", "2 for 1 X", "x", 2, 1),
+                PromotionDTO.bundle("B", "X and Y", Map.of("x", 1, "y", 1), new Amount(13, "SEK")),
+                PromotionDTO.bundle("C", "X and Z", Map.of("x", 1, "z", 1), new Amount(13, "SEK")))));
+
+        sale.addItemToSale(x, 2);
+        sale.addItemToSale(y, 1);
+        sale.addItemToSale(z, 1);
+
+        assertEquals(new Amount(26, "SEK"), sale.getRunningTotalIncludingVAT(),
+                "Two bundles save 14 SEK, more than the 10 SEK of the single most valuable promotion.");
+    }
+
+    @Test
+    public void testUnrelatedItemsDoNotChangePromotions() {
+        Sale sale = new Sale(new PromotionIndex(List.of(THREE_FOR_TWO)));
+        sale.addItemToSale(yoghurt, 3);
+        Amount discounted = sale.getRunningTotalIncludingVAT();
+
+        sale.addItemToSale(oatmeal, 1);
+
+        assertEquals(discounted.add(Amount.ofMinorUnits(3169, "SEK")), sale.getRunningTotalIncludingVAT(),
+                "The oatmeal should be added at its full price.");
+        assertEquals(1, sale.getAppliedPromotions().get(0).getTimesApplied(), "The promotion should stay applied.");
+    }
+
+    @Test
+    public void testVATSubtotalsIncludePromotionDiscounts() {
+        Sale sale = new Sale(new PromotionIndex(List.of(BUNDLE)));
+        sale.addItemToSale(yoghurt, 2);
+        sale.addItemToSale(chocolate, 1);
+
+        long subtotalsIncludingVAT = 0;
+        long subtotalsVAT = 0;
+        for (VATSubtotalDTO subtotal : sale.getVATSubtotals()) {
+            subtotalsIncludingVAT += subtotal.getTotalExcludingVAT().getMinorUnits()
+                    + subtotal.getTotalVAT().getMinorUnits();
+            subtotalsVAT += subtotal.getTotalVAT().getMinorUnits();
+        }
+        assertEquals(7000, subtotalsIncludingVAT, "The subtotals should add up to the bundle price.");
+        assertEquals(sale.getCurrentTotalVAT().getMinorUnits(), subtotalsVAT,
+                "The subtotals should add up to the reduced VAT.");
+    }
+
+    @Test
+    public void testReceiptListsAppliedPromotions() {
+        Sale sale = new Sale(new PromotionIndex(List.of(THREE_FOR_TWO)));
+        sale.addItemToSale(yoghurt, 3);
+        sale.makePayment(new Amount(100, "SEK"));
+
+        assertEquals(1, sale.getReceipt().getAppliedPromotions().size(), "The receipt should have the promotion.");
+        assertTrue(sale.getReceipt().toString().contains("3 for 2 yoghurt"),
+                "The printed receipt should name the promotion.");
+    }
+}
@@ -0,0 +1,56 @@
+package se.kth.iv1350.model;
+
+import se.kth.iv1350.dto.PromotionDTO;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The promotions of the store, indexed by the items they require, so that the promotions affected
+ * by a scanned item are found without looking at the others. The index is immutable and can be
+ * shared by all sales.
+ */
+public final class PromotionIndex {
+    /**
+     * An index without promotions.
+     */
+    public static final PromotionIndex EMPTY = new PromotionIndex(List.of());
+
+    private final Map<String, List<PromotionDTO>> promotionsByItem = new HashMap<>();
+    private final int size;
+
+    /**
+     * Creates an index of the specified promotions.
+     * @param promotions The promotions.
+     */
+    public PromotionIndex(Collection<PromotionDTO> promotions) {
+        for (PromotionDTO promotion : promotions) {
+            for (String itemID : promotion.getRequiredItems().keySet()) {
+                promotionsByItem.computeIfAbsent(itemID, item -> new ArrayList<>()).add(promotion);
+            }
+        }
+        promotionsByItem.replaceAll((itemID, itemPromotions) -> List.copyOf(itemPromotions));
+        this.size = promotions.size();
+    }
+
+    /**
+     * Finds the promotions that require an item.
+     * @param itemID The ID of the item.
+     * @return The promotions that the item is part of, empty if there are none.
+     */
+    public List<PromotionDTO> promotionsFor(String itemID) {
+        return promotionsByItem.getOrDefault(itemID, Collections.emptyList());
+    }
+
+    /**
+     * Gets the number of promotions in the index.
+     * @return The number of promotions.
+     */
+    public int size() {
+        return size;
+    }
+}
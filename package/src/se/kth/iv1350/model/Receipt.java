@@ -3,16 +3,23 @@ package se.kth.iv1350.model;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import se.kth.iv1350.dto.AppliedPromotionDTO;
+import se.kth.iv1350.dto.VATSubtotalDTO;
 import se.kth.iv1350.util.Amount;
 
 /**
  * Represents a receipt for a completed sale.
  */
 public class Receipt {
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
     private LocalDateTime saleTimestamp;
     private List<SalesLineItem> items;
+    private List<AppliedPromotionDTO> appliedPromotions;
     private Amount totalPriceIncludingVAT;
+    private Amount discount;
     private Amount totalVAT;
+    private List<VATSubtotalDTO> vatSubtotals;
     private Amount amountPaid;
     private Amount change;
 
@@ -33,19 +40,98 @@ public class Receipt {
     public void populateReceipt(Sale sale, Amount amountPaid, Amount change) {
         this.saleTimestamp = sale.getSaleTimestamp();
         this.items = sale.getItems(); // Get a copy if Sale.items can be modified later
+        this.appliedPromotions = sale.getAppliedPromotions();
         this.totalPriceIncludingVAT = sale.getRunningTotalIncludingVAT(); // Or a final total if different
+        this.discount = sale.getDiscount();
         this.totalVAT = sale.getCurrentTotalVAT();
+        this.vatSubtotals = sale.getVATSubtotals();
         this.amountPaid = amountPaid;
         this.change = change;
     }
 
+    /**
+     * Gets the time of the sale.
+     * @return The sale timestamp.
+     */
+    public LocalDateTime getSaleTimestamp() {
+        return saleTimestamp;
+    }
+
+    /**
+     * Gets the line items of the sale, in the order they were first added.
+     * @return The line items.
+     */
+    public List<SalesLineItem> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the promotions that were applied to the sale.
+     * @return The applied promotions, ordered by promotion ID.
+     */
+    public List<AppliedPromotionDTO> getAppliedPromotions() {
+        return appliedPromotions;
+    }
+
+    /**
+     * Gets the total price of the sale, including VAT.
+     * @return The total price.
+     */
+    public Amount getTotalPriceIncludingVAT() {
+        return totalPriceIncludingVAT;
+    }
+
+    /**
+     * Gets the discount that the total price is reduced by.
+     * @return The discount, including VAT. Zero if the sale had no discount.
+     */
+    public Amount getDiscount() {
+        return discount;
+    }
+
+    /**
+     * Gets the total VAT of the sale.
+     * @return The total VAT.
+     */
+    public Amount getTotalVAT() {
+        return totalVAT;
+    }
+
+    /**
+     * Gets the amount paid by the customer.
+     * @return The amount paid.
+     */
+    public Amount getAmountPaid() {
+        return amountPaid;
+    }
+
+    /**
+     * Gets the change given back to the customer.
+     * @return The change.
+     */
+    public Amount getChange() {
+        return change;
+    }
+
+    /**
+     * Gets the total price and VAT of the sale for each VAT rate.
+     * @return The VAT subtotals, ordered by VAT rate.
+     */
+    public List<VATSubtotalDTO> getVATSubtotals() {
+        return vatSubtotals;
+    }
+
+    /**
+     * Creates the text of the receipt. The printer writes the same text with
+     * {@code se.kth.iv1350.integration.ReceiptRenderer}, without creating the string.
+     * @return The receipt as printed.
+     */
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
         sb.append("---------------- Begin receipt ----------------\n");
-        sb.append("Time of Sale: ").append(saleTimestamp.format(formatter)).append("\n\n");
+        sb.append("Time of Sale: ").append(saleTimestamp.format(TIMESTAMP_FORMAT)).append("\n\n");
 
         for (SalesLineItem lineItem : items) {
             sb.append(String.format("%-25s %d x %s\t%s\n",
@@ -54,7 +140,16 @@ public class Receipt {
                     lineItem.getItem().getPrice().toString().replace(" SEK", ""), 
                     lineItem.getTotalPrice()));
         }
+        for (AppliedPromotionDTO promotion : appliedPromotions) {
+            sb.append(String.format("%-25s %d x\t-%s\n",
+                    promotion.getPromotion().getName(),
+                    promotion.getTimesApplied(),
+                    promotion.getDiscount()));
+        }
         sb.append("\n");
+        if (discount.getMinorUnits() != 0) {
+            sb.append("Discount:\t\t\t\t").append(discount).append("\n");
+        }
         sb.append("Total: \t\t\t\t\t").append(totalPriceIncludingVAT).append("\n");
         sb.append("VAT:   \t\t\t\t\t").append(totalVAT).append("\n\n");
         sb.append("Cash:  \t\t\t\t\t").append(amountPaid).append("\n");
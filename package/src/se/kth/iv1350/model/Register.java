@@ -1,18 +1,34 @@
 package se.kth.iv1350.model;
 
+import java.util.List;
 import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.util.Currency;
+import se.kth.iv1350.util.CurrencyTotals;
 
 /**
- * Represents the cash register in the store.
+ * Represents the cash register in the store. The register is shared by all
+ * checkout lanes served by the same controller, so it is safe to update it
+ * from several threads. The register keeps a balance for each currency it
+ * has received, since customers may pay in other currencies than the one the
+ * prices are in.
  */
 public class Register {
-    private Amount balance;
+    private final Currency homeCurrency;
+    private final CurrencyTotals balances = new CurrencyTotals();
 
     /**
-     * Creates a new Register instance with an initial balance of zero.
+     * Creates a new Register instance with an initial balance of zero, where prices are in SEK.
      */
     public Register() {
-        this.balance = new Amount(0, "SEK"); // Assuming SEK, can be configured
+        this(Currency.SEK);
+    }
+
+    /**
+     * Creates a new Register instance with an initial balance of zero.
+     * @param homeCurrency The currency prices are in, whose balance is given by {@link #getBalance()}.
+     */
+    public Register(Currency homeCurrency) {
+        this.homeCurrency = homeCurrency;
     }
 
     /**
@@ -20,17 +36,48 @@ public class Register {
      * The amount added to the balance is the amount paid by the customer for the sale.
      * @param amountPaidToRegister The amount effectively added to the register (total sale price).
      */
-    public void updateRegister(Amount amountPaidToRegister) {
+    public synchronized void updateRegister(Amount amountPaidToRegister) {
         if (amountPaidToRegister != null) {
-            this.balance = this.balance.add(amountPaidToRegister);
+            balances.add(amountPaidToRegister);
         }
     }
 
     /**
-     * Gets the current balance of the register.
+     * Updates the register's balances after a sale paid with one or more tenders, possibly in
+     * different currencies. Each tender is added to the balance of its currency, and the change
+     * is taken from the balance of its currency.
+     * @param tenders The amounts given by the customer.
+     * @param change The change given back to the customer.
+     */
+    public synchronized void updateRegister(List<Amount> tenders, Amount change) {
+        for (Amount tender : tenders) {
+            balances.add(tender);
+        }
+        balances.subtract(change);
+    }
+
+    /**
+     * Gets the current balance of the register in the currency prices are in.
      * @return The current balance.
      */
-    public Amount getBalance() {
-        return balance;
+    public synchronized Amount getBalance() {
+        return balances.getTotal(homeCurrency);
+    }
+
+    /**
+     * Gets the current balance of the register in the specified currency.
+     * @param currency The currency.
+     * @return The current balance of the currency, zero if nothing has been paid in it.
+     */
+    public synchronized Amount getBalance(Currency currency) {
+        return balances.getTotal(currency);
+    }
+
+    /**
+     * Gets the current balances of all currencies the register has received.
+     * @return One balance for each currency.
+     */
+    public synchronized List<Amount> getBalances() {
+        return balances.getTotals();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,255 @@
+package se.kth.iv1350.model;
+
+import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.util.ObserverDispatchEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Delivers completed sales to {@link RevenueObserver}s on a separate thread, so that a payment
+ * never waits for an observer that writes to a slow disk or screen. The bus is itself a
+ * {@link RevenueObserver}: register it with each sale, and the sale's completion is put in a
+ * bounded ring buffer and handed to all observers of the bus by a dedicated consumer thread.
+ * <p>
+ * What happens when the buffer is full is decided by the {@link BackpressurePolicy}. The
+ * number of events each observer has not yet received is available through {@link #getLag}.
+ * Each notification of an observer is recorded as an {@link ObserverDispatchEvent} when that
+ * event is enabled in a Flight Recorder recording.
+ * <p>
+ * Publishing and closing agree through a read-write lock: any number of lanes publish at the
+ * same time under the read lock, and {@link #close()} takes the write lock, so no event can be
+ * put in the buffer after the close marker.
+ */
+public class RevenueEventBus implements RevenueObserver {
+    private static final CompletedSale CLOSE_MARKER = new CompletedSale(0, null);
+
+    private final BlockingQueue<CompletedSale> buffer;
+    private final BackpressurePolicy policy;
+    private final List<ObserverSlot> observers = new CopyOnWriteArrayList<>();
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder failedDeliveryCount = new LongAdder();
+    private final ReadWriteLock publishLock = new ReentrantReadWriteLock();
+    private final Thread consumer;
+    private boolean closed;
+
+    /**
+     * Creates a new bus and starts its consumer thread.
+     *
+     * @param capacity The number of events that can wait for delivery.
+     * @param policy What to do with a new event when the buffer is full.
+     */
+    public RevenueEventBus(int capacity, BackpressurePolicy policy) {
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.policy = policy;
+        this.consumer = new Thread(this::deliverEvents, "revenue-event-bus");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Adds an observer that will be notified of all sales completed from now on.
+     *
+     * @param observer The observer to notify.
+     */
+    public void addObserver(RevenueObserver observer) {
+        observers.add(new ObserverSlot(observer, publishedCount.get()));
+    }
+
+    /**
+     * Puts a completed sale without a sale identifier, such as the revenue of the sales made
+     * before the application was started, in the buffer. The observers receive it with the
+     * sale identifier 0.
+     *
+     * @param totalPriceOfSale The total price (including VAT) of the completed sale.
+     * @throws IllegalStateException If the bus has been closed.
+     */
+    @Override
+    public void newSaleCompleted(Amount totalPriceOfSale) {
+        newSaleCompleted(0, totalPriceOfSale);
+    }
+
+    /**
+     * Puts a completed sale in the buffer, to be delivered to all observers of the bus.
+     *
+     * @param saleID The identifier of the completed sale.
+     * @param totalPriceOfSale The total price (including VAT) of the completed sale.
+     * @throws IllegalStateException If the bus has been closed.
+     */
+    @Override
+    public void newSaleCompleted(long saleID, Amount totalPriceOfSale) {
+        CompletedSale completedSale = new CompletedSale(saleID, totalPriceOfSale);
+        publishLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("The revenue event bus is closed.");
+            }
+            if (buffer.offer(completedSale)) {
+                publishedCount.incrementAndGet();
+                return;
+            }
+            switch (policy) {
+                case BLOCK:
+                    putWaiting(completedSale);
+                    break;
+                case DROP:
+                    droppedCount.increment();
+                    break;
+                case CALLER_RUNS:
+                    publishedCount.incrementAndGet();
+                    deliver(completedSale);
+                    break;
+            }
+        } finally {
+            publishLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of events that the specified observer has not yet received.
+     *
+     * @param observer An observer of this bus.
+     * @return The number of events waiting for the observer, or zero if it is not an observer of this bus.
+     */
+    public long getLag(RevenueObserver observer) {
+        for (ObserverSlot slot : observers) {
+            if (slot.observer == observer) {
+                return Math.max(0, publishedCount.get() - slot.startCount - slot.deliveredCount.get());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the number of events that were discarded because the buffer was full.
+     *
+     * @return The number of dropped events.
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * Gets the number of times an observer threw an exception when it was notified.
+     *
+     * @return The number of failed deliveries.
+     */
+    public long getFailedDeliveryCount() {
+        return failedDeliveryCount.sum();
+    }
+
+    /**
+     * Stops accepting new events, delivers all events already in the buffer, and stops the
+     * consumer thread. Events that are being published while the bus is closed are delivered
+     * before this method returns.
+     *
+     * @throws InterruptedException If interrupted while waiting for the buffer to be drained.
+     */
+    public void close() throws InterruptedException {
+        publishLock.writeLock().lockInterruptibly();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            buffer.put(CLOSE_MARKER);
+        } finally {
+            publishLock.writeLock().unlock();
+        }
+        consumer.join();
+    }
+
+    /**
+     * Waits for room in the buffer. The read lock is held meanwhile, which is safe since the
+     * consumer thread keeps draining the buffer without taking the lock.
+     */
+    private void putWaiting(CompletedSale completedSale) {
+        try {
+            buffer.put(completedSale);
+            publishedCount.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            droppedCount.increment();
+        }
+    }
+
+    private void deliverEvents() {
+        while (true) {
+            CompletedSale event;
+            try {
+                event = buffer.take();
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (event == CLOSE_MARKER) {
+                deliverRemainingEvents();
+                return;
+            }
+            deliver(event);
+        }
+    }
+
+    /**
+     * Delivers anything left behind the close marker, so that no accepted event is lost even if
+     * one was put in the buffer after it.
+     */
+    private void deliverRemainingEvents() {
+        List<CompletedSale> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        for (CompletedSale event : remaining) {
+            if (event != CLOSE_MARKER) {
+                deliver(event);
+            }
+        }
+    }
+
+    private void deliver(CompletedSale completedSale) {
+        for (ObserverSlot slot : observers) {
+            ObserverDispatchEvent dispatch = new ObserverDispatchEvent();
+            dispatch.begin();
+            boolean failed = false;
+            try {
+                slot.observer.newSaleCompleted(completedSale.saleID, completedSale.totalPriceOfSale);
+            } catch (RuntimeException e) {
+                failed = true;
+                failedDeliveryCount.increment();
+            }
+            slot.deliveredCount.incrementAndGet();
+            if (dispatch.shouldCommit()) {
+                dispatch.saleID = completedSale.saleID;
+                dispatch.observer = slot.observer.getClass().getName();
+                dispatch.failed = failed;
+                dispatch.commit();
+            }
+        }
+    }
+
+    private static final class CompletedSale {
+        private final long saleID;
+        private final Amount totalPriceOfSale;
+
+        CompletedSale(long saleID, Amount totalPriceOfSale) {
+            this.saleID = saleID;
+            this.totalPriceOfSale = totalPriceOfSale;
+        }
+    }
+
+    private static final class ObserverSlot {
+        private final RevenueObserver observer;
+        private final long startCount;
+        private final AtomicLong deliveredCount = new AtomicLong();
+
+        ObserverSlot(RevenueObserver observer, long startCount) {
+            this.observer = observer;
+            this.startCount = startCount;
+        }
+    }
+}
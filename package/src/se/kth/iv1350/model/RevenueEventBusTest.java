@@ -0,0 +1,136 @@
+package se.kth.iv1350.model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import se.kth.iv1350.util.Amount;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RevenueEventBusTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private RevenueEventBus bus;
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        release.countDown();
+        bus.close();
+    }
+
+    @Test
+    public void testPublishingDoesNotWaitForSlowObserver() {
+        bus = new RevenueEventBus(16, BackpressurePolicy.BLOCK);
+        bus.addObserver(totalPriceOfSale -> awaitRelease());
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            bus.newSaleCompleted(new Amount(10, "SEK"));
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMillis < 1000, "Publishing should not wait for a blocked observer.");
+    }
+
+    @Test
+    public void testLagShowsUndeliveredEvents() {
+        bus = new RevenueEventBus(16, BackpressurePolicy.BLOCK);
+        RevenueObserver slowObserver = totalPriceOfSale -> awaitRelease();
+        bus.addObserver(slowObserver);
+
+        for (int i = 0; i < 5; i++) {
+            bus.newSaleCompleted(new Amount(10, "SEK"));
+        }
+
+        assertTrue(bus.getLag(slowObserver) >= 4,
+                "At least four events should be waiting while the first is being delivered.");
+    }
+
+    @Test
+    public void testDropPolicyDiscardsEventsWhenFull() {
+        bus = new RevenueEventBus(2, BackpressurePolicy.DROP);
+        bus.addObserver(totalPriceOfSale -> awaitRelease());
+
+        for (int i = 0; i < 10; i++) {
+            bus.newSaleCompleted(new Amount(10, "SEK"));
+        }
+
+        assertTrue(bus.getDroppedCount() >= 7, "Events that do not fit in the buffer should be dropped.");
+    }
+
+    @Test
+    public void testCloseDeliversAllWaitingEvents() throws InterruptedException {
+        bus = new RevenueEventBus(1000, BackpressurePolicy.BLOCK);
+        List<Amount> received = Collections.synchronizedList(new ArrayList<>());
+        bus.addObserver(received::add);
+
+        for (int i = 1; i <= 500; i++) {
+            bus.newSaleCompleted(new Amount(i, "SEK"));
+        }
+        bus.close();
+
+        assertEquals(500, received.size(), "Every published event should be delivered before close returns.");
+        assertEquals(new Amount(500, "SEK"), received.get(499), "Events should be delivered in order.");
+    }
+
+    @Test
+    public void testEventPublishedDuringCloseIsDeliveredOrRejected() throws InterruptedException {
+        bus = new RevenueEventBus(8, BackpressurePolicy.BLOCK);
+        AtomicInteger received = new AtomicInteger();
+        bus.addObserver(totalPriceOfSale -> received.incrementAndGet());
+        AtomicInteger accepted = new AtomicInteger();
+        List<Thread> lanes = new ArrayList<>();
+        for (int lane = 0; lane < 4; lane++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    while (true) {
+                        bus.newSaleCompleted(new Amount(1, "SEK"));
+                        accepted.incrementAndGet();
+                    }
+                } catch (IllegalStateException closed) {
+                    // The bus was closed, so this lane stops.
+                }
+            });
+            lanes.add(thread);
+            thread.start();
+        }
+
+        Thread.sleep(20);
+        bus.close();
+        for (Thread lane : lanes) {
+            lane.join();
+        }
+
+        assertEquals(accepted.get(), received.get(), "Every accepted event should be delivered before close returns.");
+    }
+
+    @Test
+    public void testFailingObserverDoesNotStopOtherObservers() throws InterruptedException {
+        bus = new RevenueEventBus(16, BackpressurePolicy.BLOCK);
+        List<Amount> received = Collections.synchronizedList(new ArrayList<>());
+        bus.addObserver(totalPriceOfSale -> {
+            throw new IllegalStateException("Disk full");
+        });
+        bus.addObserver(received::add);
+
+        bus.newSaleCompleted(new Amount(10, "SEK"));
+        bus.newSaleCompleted(new Amount(20, "SEK"));
+        bus.close();
+
+        assertEquals(2, received.size(), "The second observer should receive every event.");
+        assertEquals(2, bus.getFailedDeliveryCount(), "Both failed deliveries should be counted.");
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
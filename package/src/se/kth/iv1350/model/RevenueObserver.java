@@ -15,4 +15,16 @@ public interface RevenueObserver {
      * @param totalPriceOfSale The total price (including VAT) of the completed sale.
      */
     void newSaleCompleted(Amount totalPriceOfSale);
+
+    /**
+     * Invoked when a sale has been completed and paid for, with the identifier of the sale.
+     * Observers that do not need the identifier only implement {@link #newSaleCompleted(Amount)},
+     * which this method calls by default.
+     *
+     * @param saleID The identifier of the completed sale, see {@link Sale#getSaleID()}.
+     * @param totalPriceOfSale The total price (including VAT) of the completed sale.
+     */
+    default void newSaleCompleted(long saleID, Amount totalPriceOfSale) {
+        newSaleCompleted(totalPriceOfSale);
+    }
 }
@@ -1,33 +1,106 @@
 package se.kth.iv1350.model;
 
+import se.kth.iv1350.dto.AppliedPromotionDTO;
+import se.kth.iv1350.dto.DiscountDTO;
 import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.dto.ItemEntryDTO;
 import se.kth.iv1350.dto.SaleStateDTO;
+import se.kth.iv1350.dto.VATSubtotalDTO;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.util.AmountAccumulator;
+import se.kth.iv1350.util.Currency;
 
 /**
- * Represents a single sale transaction.
+ * Represents a single sale transaction. Line items are indexed by item ID, so finding the line
+ * of a scanned item takes constant time. The running totals, and the subtotals per VAT rate,
+ * are updated with only the change of the affected line each time an item is added, so the
+ * cost of adding an item does not depend on the number of lines in the sale.
+ * <p>
+ * A customer discount is kept up to date as items are added in the same way, with only the
+ * share of the affected line calculated again, see {@link CustomerDiscountEvaluator}. The totals,
+ * the VAT and the subtotals per VAT rate are all reduced by the discount, with the VAT of the
+ * discount taken from the discounted lines.
+ * <p>
+ * The promotions of the store, such as "3 for 2", are kept up to date as items are added, see
+ * {@link PromotionEvaluator}. A customer discount applies to the price after the promotions.
+ * <p>
+ * All items of a sale must be priced in the same currency, which is the currency of the first
+ * item added. A sale without items is in SEK.
  */
 public class Sale {
+    private static final AtomicLong nextSaleID = new AtomicLong(1);
+
+    private final long saleID;
     private LocalDateTime saleTimestamp;
-    private List<SalesLineItem> items;
-    private Amount runningTotalIncludingVAT;
-    private Amount currentTotalVAT;
+    private Map<String, SalesLineItem> items;
+    private AmountAccumulator runningTotalIncludingVAT;
+    private AmountAccumulator currentTotalVAT;
+    private final Map<Double, VATRateTotals> totalsPerVATRate = new TreeMap<>();
     private Receipt receipt;
     private List<RevenueObserver> revenueObservers = new ArrayList<>();
+    private final PromotionEvaluator promotions;
+    private final CustomerDiscountEvaluator discounts;
+    private final long catalogVersion;
 
     /**
-     * Creates a new Sale instance.
+     * Creates a new Sale instance without promotions.
      * Initializes the sale time, item list, and totals.
      */
     public Sale() {
+        this(PromotionIndex.EMPTY);
+    }
+
+    /**
+     * Creates a new Sale instance where the specified promotions are applied.
+     * Initializes the sale time, item list, and totals.
+     * @param promotions The promotions of the store.
+     */
+    public Sale(PromotionIndex promotions) {
+        this(promotions, 0);
+    }
+
+    /**
+     * Creates a new Sale instance where the specified promotions are applied, and whose items
+     * are all taken from the specified version of the item catalog.
+     * Initializes the sale time, item list, and totals.
+     * @param promotions The promotions of the store.
+     * @param catalogVersion The version of the item catalog the sale started with.
+     */
+    public Sale(PromotionIndex promotions, long catalogVersion) {
+        this.catalogVersion = catalogVersion;
+        this.saleID = nextSaleID.getAndIncrement();
         this.saleTimestamp = LocalDateTime.now();
-        this.items = new ArrayList<>();
-        this.runningTotalIncludingVAT = new Amount(0, "SEK");
-        this.currentTotalVAT = new Amount(0, "SEK");
+        this.items = new LinkedHashMap<>();
+        this.runningTotalIncludingVAT = new AmountAccumulator(Currency.SEK);
+        this.currentTotalVAT = new AmountAccumulator(Currency.SEK);
         this.receipt = new Receipt();
+        this.promotions = new PromotionEvaluator(promotions, items);
+        this.discounts = new CustomerDiscountEvaluator(items, this.promotions);
+    }
+
+    /**
+     * Gets the identifier of the sale, unique within this process.
+     * @return The sale identifier.
+     */
+    public long getSaleID() {
+        return saleID;
+    }
+
+    /**
+     * Gets the version of the item catalog that all items of the sale are taken from, so that
+     * a sale has consistent prices even if the catalog is reloaded while it is in progress.
+     * @return The catalog version, or 0 if the sale was not started with a versioned catalog.
+     */
+    public long getCatalogVersion() {
+        return catalogVersion;
     }
 
     /**
@@ -46,11 +119,11 @@ public class Sale {
     }
 
     /**
-     * Gets the list of items currently in the sale.
+     * Gets the list of items currently in the sale, in the order they were first added.
      * @return A list of {@link SalesLineItem}s.
      */
     public List<SalesLineItem> getItems() {
-        return new ArrayList<>(items);
+        return new ArrayList<>(items.values());
     }
 
     /**
@@ -58,7 +131,12 @@ public class Sale {
      * @return The running total.
      */
     public Amount getRunningTotalIncludingVAT() {
-        return runningTotalIncludingVAT;
+        long reduction = discounts.getDiscountIncludingVAT() + promotions.getDiscountIncludingVAT();
+        if (reduction == 0) {
+            return runningTotalIncludingVAT.toAmount();
+        }
+        return Amount.ofMinorUnits(runningTotalIncludingVAT.getMinorUnits() - reduction,
+                runningTotalIncludingVAT.getCurrency());
     }
 
     /**
@@ -66,7 +144,63 @@ public class Sale {
      * @return The total VAT.
      */
     public Amount getCurrentTotalVAT() {
-        return currentTotalVAT;
+        long reduction = discounts.getDiscountVAT() + promotions.getDiscountVAT();
+        if (reduction == 0) {
+            return currentTotalVAT.toAmount();
+        }
+        return Amount.ofMinorUnits(currentTotalVAT.getMinorUnits() - reduction, currentTotalVAT.getCurrency());
+    }
+
+    /**
+     * Gets the promotions that are applied to the sale.
+     * @return The applied promotions, ordered by promotion ID.
+     */
+    public List<AppliedPromotionDTO> getAppliedPromotions() {
+        return promotions.getAppliedPromotions();
+    }
+
+    /**
+     * Gets the discount that the total of the sale is reduced by.
+     * @return The discount, including VAT. Zero if no discount is applied.
+     */
+    public Amount getDiscount() {
+        return Amount.ofMinorUnits(discounts.getDiscountIncludingVAT(), runningTotalIncludingVAT.getCurrency());
+    }
+
+    /**
+     * Gets the discount that is applied to the sale.
+     * @return The applied discount, or null if no discount is applied.
+     */
+    public DiscountDTO getAppliedDiscount() {
+        return discounts.getAppliedDiscount();
+    }
+
+    /**
+     * Gets the total price and VAT of the sale for each VAT rate, ordered by VAT rate.
+     * @return One {@link VATSubtotalDTO} for each VAT rate that occurs in the sale.
+     */
+    public List<VATSubtotalDTO> getVATSubtotals() {
+        List<VATSubtotalDTO> subtotals = new ArrayList<>(totalsPerVATRate.size());
+        for (Map.Entry<Double, VATRateTotals> entry : totalsPerVATRate.entrySet()) {
+            VATRateTotals totals = entry.getValue();
+            Currency currency = totals.totalVAT.getCurrency();
+            long reductionExcludingVAT = 0;
+            long reductionOfVAT = 0;
+            long[] customerDiscount = discounts.getDiscountOfVATRate(entry.getKey());
+            if (customerDiscount != null) {
+                reductionExcludingVAT += customerDiscount[0];
+                reductionOfVAT += customerDiscount[1];
+            }
+            long[] promotionDiscount = promotions.getDiscountOfVATRate(entry.getKey());
+            if (promotionDiscount != null) {
+                reductionExcludingVAT += promotionDiscount[0];
+                reductionOfVAT += promotionDiscount[1];
+            }
+            subtotals.add(new VATSubtotalDTO(entry.getKey(),
+                    Amount.ofMinorUnits(totals.totalExcludingVAT.getMinorUnits() - reductionExcludingVAT, currency),
+                    Amount.ofMinorUnits(totals.totalVAT.getMinorUnits() - reductionOfVAT, currency)));
+        }
+        return subtotals;
     }
 
     /**
@@ -85,51 +219,105 @@ public class Sale {
      * @param quantity The quantity of the item to add.
      * @return A {@link SaleStateDTO} representing the current state of the sale after adding the item.
      *         Returns null if itemInfo is null.
+     * @throws IllegalArgumentException If the item is priced in another currency than the sale.
      */
     public SaleStateDTO addItemToSale(ItemDTO itemInfo, int quantity) {
         if (itemInfo == null) {
             return null;
         }
 
-        SalesLineItem existingItem = findItem(itemInfo.getItemID());
-        if (existingItem != null) {
-            existingItem.increaseQuantity(quantity);
-        } else {
-            SalesLineItem newItemLine = new SalesLineItem(itemInfo, quantity);
-            items.add(newItemLine);
+        addLine(itemInfo, quantity);
+        return new SaleStateDTO(itemInfo, getRunningTotalIncludingVAT(), getCurrentTotalVAT(),
+                getAppliedPromotions());
+    }
+
+    /**
+     * Adds a batch of items to the sale in one pass. Entries whose item is missing from
+     * {@code itemInfos} are skipped.
+     * @param entries The item IDs and quantities to add, in the order they were scanned.
+     * @param itemInfos The DTOs of the items to add, by item ID.
+     * @return A {@link SaleStateDTO} representing the state of the sale after the whole batch.
+     *         The last added item is the last entry that was added, or null if no entry was added.
+     * @throws IllegalArgumentException If the items are priced in different currencies, or in another
+     *                                  currency than the sale. No item of the batch is added in that case.
+     */
+    public SaleStateDTO addItemsToSale(List<ItemEntryDTO> entries, Map<String, ItemDTO> itemInfos) {
+        Currency currency = items.isEmpty() ? null : runningTotalIncludingVAT.getCurrency();
+        for (ItemEntryDTO entry : entries) {
+            ItemDTO itemInfo = itemInfos.get(entry.getItemID());
+            if (itemInfo == null) {
+                continue;
+            }
+            if (currency == null) {
+                currency = itemInfo.getPrice().getCurrency();
+            } else {
+                requireCurrency(itemInfo, currency);
+            }
         }
+        ItemDTO lastAddedItem = null;
+        for (ItemEntryDTO entry : entries) {
+            ItemDTO itemInfo = itemInfos.get(entry.getItemID());
+            if (itemInfo != null) {
+                addLine(itemInfo, entry.getQuantity());
+                lastAddedItem = itemInfo;
+            }
+        }
+        return new SaleStateDTO(lastAddedItem, getRunningTotalIncludingVAT(), getCurrentTotalVAT(),
+                getAppliedPromotions());
+    }
 
-        calculateRunningTotalAndVAT();
+    private void addLine(ItemDTO itemInfo, int quantity) {
+        if (items.isEmpty()) {
+            useCurrencyOf(itemInfo);
+        } else {
+            requireCurrency(itemInfo, runningTotalIncludingVAT.getCurrency());
+        }
+        SalesLineItem lineItem = items.get(itemInfo.getItemID());
+        long lineTotalBefore = 0;
+        long lineVATBefore = 0;
+        if (lineItem != null) {
+            lineTotalBefore = lineItem.getTotalPriceMinorUnits();
+            lineVATBefore = lineItem.getTotalVATMinorUnits();
+            lineItem.increaseQuantity(quantity);
+        } else {
+            lineItem = new SalesLineItem(itemInfo, quantity);
+            items.put(itemInfo.getItemID(), lineItem);
+        }
 
-        return new SaleStateDTO(itemInfo, runningTotalIncludingVAT, currentTotalVAT);
+        updateRunningTotalAndVAT(itemInfo.getVatRate(),
+                lineItem.getTotalPriceMinorUnits() - lineTotalBefore,
+                lineItem.getTotalVATMinorUnits() - lineVATBefore);
+        Set<String> promotionItems = promotions.itemChanged(itemInfo.getItemID());
+        discounts.itemChanged(itemInfo.getItemID(), promotionItems, runningTotalIncludingVAT.getCurrency());
     }
 
-    private SalesLineItem findItem(String itemID) {
-        for (SalesLineItem lineItem : items) {
-            if (lineItem.getItem().getItemID().equals(itemID)) {
-                return lineItem;
-            }
+    private void useCurrencyOf(ItemDTO itemInfo) {
+        Currency currency = itemInfo.getPrice().getCurrency();
+        if (currency != runningTotalIncludingVAT.getCurrency()) {
+            runningTotalIncludingVAT = new AmountAccumulator(currency);
+            currentTotalVAT = new AmountAccumulator(currency);
         }
-        return null;
     }
 
-    private void calculateRunningTotalAndVAT() {
-        Amount newRunningTotal = new Amount(0, "SEK");
-        Amount newTotalVAT = new Amount(0, "SEK");
-
-        for (SalesLineItem lineItem : items) {
-            Amount itemPrice = lineItem.getItem().getPrice();
-            double vatRate = lineItem.getItem().getVatRate();
-            int quantity = lineItem.getQuantity();
+    private static void requireCurrency(ItemDTO itemInfo, Currency saleCurrency) {
+        Currency currency = itemInfo.getPrice().getCurrency();
+        if (currency != saleCurrency) {
+            throw new IllegalArgumentException("Item " + itemInfo.getItemID() + " is priced in " + currency
+                    + ", but the sale is in " + saleCurrency + ".");
+        }
+    }
 
-            Amount itemSubtotal = itemPrice.multiply(quantity);
-            Amount itemVAT = itemPrice.multiply(vatRate).multiply(quantity);
+    private void updateRunningTotalAndVAT(double vatRate, long changeOfTotal, long changeOfVAT) {
+        runningTotalIncludingVAT.addMinorUnits(changeOfTotal + changeOfVAT);
+        currentTotalVAT.addMinorUnits(changeOfVAT);
 
-            newRunningTotal = newRunningTotal.add(itemSubtotal.add(itemVAT));
-            newTotalVAT = newTotalVAT.add(itemVAT);
+        VATRateTotals totals = totalsPerVATRate.get(vatRate);
+        if (totals == null) {
+            totals = new VATRateTotals(runningTotalIncludingVAT.getCurrency());
+            totalsPerVATRate.put(vatRate, totals);
         }
-        this.runningTotalIncludingVAT = newRunningTotal;
-        this.currentTotalVAT = newTotalVAT;
+        totals.totalExcludingVAT.addMinorUnits(changeOfTotal);
+        totals.totalVAT.addMinorUnits(changeOfVAT);
     }
 
     /**
@@ -137,7 +325,19 @@ public class Sale {
      * @return The total price.
      */
     public Amount calculateTotal() {
-        return runningTotalIncludingVAT;
+        return getRunningTotalIncludingVAT();
+    }
+
+    /**
+     * Applies the best of the discounts that the customer is entitled to, that is the one that
+     * reduces the total the most. The discount replaces any discount applied earlier, and is
+     * kept up to date when more items are added.
+     * @param discounts The discounts of the customer, may be empty.
+     * @return The total price after the discount (including VAT).
+     */
+    public Amount applyDiscounts(List<DiscountDTO> discounts) {
+        this.discounts.setDiscounts(discounts, runningTotalIncludingVAT.getCurrency());
+        return getRunningTotalIncludingVAT();
     }
 
     /**
@@ -146,20 +346,27 @@ public class Sale {
      *
      * @param amountTendered The amount of money tendered by the customer.
      * @return The change to be given back to the customer. Returns null if payment is insufficient.
+     * @throws IllegalArgumentException If the amount tendered is in another currency than the sale.
      */
     public Amount makePayment(Amount amountTendered) {
-        if (amountTendered == null || amountTendered.getValue() < runningTotalIncludingVAT.getValue()) {
+        if (amountTendered != null && amountTendered.getCurrency() != runningTotalIncludingVAT.getCurrency()) {
+            throw new IllegalArgumentException("The payment is in " + amountTendered.getCurrency()
+                    + ", but the sale is in " + runningTotalIncludingVAT.getCurrency() + ".");
+        }
+        if (amountTendered == null
+                || amountTendered.getMinorUnits() < getRunningTotalIncludingVAT().getMinorUnits()) {
             return null;
         }
-        Amount change = amountTendered.subtract(runningTotalIncludingVAT);
+        Amount change = amountTendered.subtract(getRunningTotalIncludingVAT());
         this.receipt.populateReceipt(this, amountTendered, change);
         notifyObservers();
         return change;
     }
 
     private void notifyObservers() {
+        Amount totalPriceOfSale = getRunningTotalIncludingVAT();
         for (RevenueObserver observer : revenueObservers) {
-            observer.newSaleCompleted(runningTotalIncludingVAT);
+            observer.newSaleCompleted(saleID, totalPriceOfSale);
         }
     }
 
@@ -171,4 +378,14 @@ public class Sale {
     public Receipt getReceipt() {
         return receipt;
     }
+
+    private static class VATRateTotals {
+        private final AmountAccumulator totalExcludingVAT;
+        private final AmountAccumulator totalVAT;
+
+        private VATRateTotals(Currency currency) {
+            this.totalExcludingVAT = new AmountAccumulator(currency);
+            this.totalVAT = new AmountAccumulator(currency);
+        }
+    }
 }
@@ -4,12 +4,15 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import se.kth.iv1350.dto.DiscountDTO;
 import se.kth.iv1350.dto.ItemDTO;
 import se.kth.iv1350.dto.SaleStateDTO;
+import se.kth.iv1350.dto.VATSubtotalDTO;
 import se.kth.iv1350.util.Amount;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 public class SaleTest {
     private Sale sale;
@@ -136,4 +139,141 @@ public class SaleTest {
         assertEquals(expectedTotal, receivedAmount[0], 0.01,
                 "Observer should receive the total price including VAT.");
     }
+
+    @Test
+    public void testRunningTotalEqualsSumOfLinesAfterManyAdditions() {
+        for (int i = 0; i < 50; i++) {
+            sale.addItemToSale(oatmeal, 1);
+            sale.addItemToSale(yoghurt, 3);
+        }
+
+        long expectedTotal = 0;
+        long expectedVAT = 0;
+        for (SalesLineItem lineItem : sale.getItems()) {
+            expectedTotal += lineItem.getTotalPriceMinorUnits() + lineItem.getTotalVATMinorUnits();
+            expectedVAT += lineItem.getTotalVATMinorUnits();
+        }
+        assertEquals(expectedTotal, sale.getRunningTotalIncludingVAT().getMinorUnits(),
+                "The incrementally updated total should equal the sum of all lines.");
+        assertEquals(expectedVAT, sale.getCurrentTotalVAT().getMinorUnits(),
+                "The incrementally updated VAT should equal the sum of all lines.");
+    }
+
+    @Test
+    public void testVATSubtotalsAreKeptPerVATRate() {
+        ItemDTO chocolate = new ItemDTO("ghi789", "Luxury Chocolate",
+                "Dark chocolate 70%", new Amount(50.00, "SEK"), 0.12);
+        sale.addItemToSale(oatmeal, 1);
+        sale.addItemToSale(chocolate, 2);
+        sale.addItemToSale(yoghurt, 1);
+
+        List<VATSubtotalDTO> subtotals = sale.getVATSubtotals();
+
+        assertEquals(2, subtotals.size(), "There should be one subtotal for each VAT rate.");
+        assertEquals(0.06, subtotals.get(0).getVatRate(), 0.0001,
+                "Subtotals should be ordered by VAT rate.");
+        assertEquals(29.90 + 14.90, subtotals.get(0).getTotalExcludingVAT().getValue(), 0.001,
+                "The 6% subtotal should contain the oatmeal and the yoghurt.");
+        assertEquals(2 * 50.00 * 0.12, subtotals.get(1).getTotalVAT().getValue(), 0.001,
+                "The 12% subtotal should contain the VAT of the chocolate.");
+    }
+
+    @Test
+    public void testPercentageDiscountSkipsExcludedCategories() {
+        ItemDTO cigarettes = new ItemDTO("tob1", "Cigarettes", "", new Amount(100, "SEK"), 0.25, "tobacco");
+        ItemDTO cereal = new ItemDTO("cer1", "Cereal", "", new Amount(100, "SEK"), 0.25, "cereal");
+        sale.addItemToSale(cigarettes, 1);
+        sale.addItemToSale(cereal, 1);
+
+        Amount total = sale.applyDiscounts(List.of(
+                DiscountDTO.percentage("Member", 10, Set.of("tobacco"))));
+
+        assertEquals(Amount.ofMinorUnits(1250, "SEK"), sale.getDiscount(),
+                "Only the cereal, 125 SEK including VAT, should be discounted by 10%.");
+        assertEquals(Amount.ofMinorUnits(25000 - 1250, "SEK"), total, "The total should be reduced by the discount.");
+        assertEquals(Amount.ofMinorUnits(5000 - 250, "SEK"), sale.getCurrentTotalVAT(),
+                "The VAT should be reduced by the VAT part of the discount.");
+    }
+
+    @Test
+    public void testBestDiscountIsApplied() {
+        sale.addItemToSale(oatmeal, 1);
+
+        sale.applyDiscounts(List.of(DiscountDTO.percentage("Member", 5, Set.of()),
+                DiscountDTO.fixedAmount("Voucher", new Amount(10, "SEK"), Set.of())));
+
+        assertEquals("Voucher", sale.getAppliedDiscount().getName(),
+                "The discount that reduces the total the most should be applied.");
+        assertEquals(new Amount(10, "SEK"), sale.getDiscount(), "The whole fixed amount should be taken off.");
+    }
+
+    @Test
+    public void testFixedDiscountIsLimitedToEligibleItemsAndKeepsSubtotalsConsistent() {
+        ItemDTO chocolate = new ItemDTO("ghi789", "Luxury Chocolate", "", new Amount(50, "SEK"), 0.12,
+                "confectionery");
+        sale.addItemToSale(oatmeal, 1);
+        sale.addItemToSale(yoghurt, 1);
+        sale.addItemToSale(chocolate, 1);
+
+        sale.applyDiscounts(List.of(DiscountDTO.fixedAmount("Voucher", new Amount(1000, "SEK"), Set.of("confectionery"))));
+
+        assertEquals(new Amount(56.00, "SEK"), sale.getRunningTotalIncludingVAT(),
+                "Only the chocolate should be left to pay.");
+        long subtotalsIncludingVAT = 0;
+        long subtotalsVAT = 0;
+        for (VATSubtotalDTO subtotal : sale.getVATSubtotals()) {
+            subtotalsIncludingVAT += subtotal.getTotalExcludingVAT().getMinorUnits() + subtotal.getTotalVAT().getMinorUnits();
+            subtotalsVAT += subtotal.getTotalVAT().getMinorUnits();
+        }
+        assertEquals(sale.getRunningTotalIncludingVAT().getMinorUnits(), subtotalsIncludingVAT,
+                "The subtotals should add up to the discounted total.");
+        assertEquals(sale.getCurrentTotalVAT().getMinorUnits(), subtotalsVAT,
+                "The subtotals should add up to the discounted VAT.");
+    }
+
+    @Test
+    public void testDiscountIsRecalculatedForItemsAddedBeforePayment() {
+        sale.addItemToSale(oatmeal, 1);
+        sale.applyDiscounts(List.of(DiscountDTO.percentage("Member", 10, Set.of())));
+        sale.addItemToSale(oatmeal, 1);
+
+        Amount total = sale.calculateTotal();
+
+        assertEquals(Amount.ofMinorUnits(6339 - 634, "SEK"), total,
+                "The discount should include the item added after it was applied.");
+    }
+
+    @Test
+    public void testSaleStateIncludesDiscountOfItemAddedAfterIt() {
+        sale.addItemToSale(oatmeal, 1);
+        sale.applyDiscounts(List.of(DiscountDTO.percentage("Member", 10, Set.of())));
+
+        SaleStateDTO state = sale.addItemToSale(oatmeal, 1);
+
+        assertEquals(Amount.ofMinorUnits(6339 - 634, "SEK"), state.getRunningTotalIncludingVAT(),
+                "The running total shown after the scan should include the discount of the new item.");
+        assertEquals(Amount.ofMinorUnits(634, "SEK"), sale.getDiscount(), "The discount should be up to date.");
+    }
+
+    @Test
+    public void testSaleIsInCurrencyOfFirstItem() {
+        ItemDTO baguette = new ItemDTO("eur001", "Baguette", "Baguette 250g", new Amount(1.50, "EUR"), 0.06);
+
+        sale.addItemToSale(baguette, 2);
+
+        assertEquals(Amount.ofMinorUnits(318, "EUR"), sale.getRunningTotalIncludingVAT(),
+                "A sale whose first item is priced in EUR should be totalled in EUR.");
+    }
+
+    @Test
+    public void testItemInOtherCurrencyThanSaleIsRejected() {
+        ItemDTO baguette = new ItemDTO("eur001", "Baguette", "Baguette 250g", new Amount(1.50, "EUR"), 0.06);
+        sale.addItemToSale(oatmeal, 1);
+        Amount totalBefore = sale.getRunningTotalIncludingVAT();
+
+        assertThrows(IllegalArgumentException.class, () -> sale.addItemToSale(baguette, 1),
+                "An item in EUR should not be added to a sale in SEK.");
+        assertEquals(totalBefore, sale.getRunningTotalIncludingVAT(), "The total should not change.");
+        assertEquals(1, sale.getItems().size(), "The item should not be added.");
+    }
 }
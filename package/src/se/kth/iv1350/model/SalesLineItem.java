@@ -49,7 +49,7 @@ public class SalesLineItem {
      * @return The total price for this line item.
      */
     public Amount getTotalPrice() {
-        return item.getPrice().multiply(quantity);
+        return Amount.ofMinorUnits(getTotalPriceMinorUnits(), item.getPrice().getCurrency());
     }
 
     /**
@@ -57,8 +57,23 @@ public class SalesLineItem {
      * @return The total VAT for this line item.
      */
     public Amount getTotalVAT() {
-        Amount itemPrice = item.getPrice();
-        double vatRate = item.getVatRate();
-        return itemPrice.multiply(vatRate).multiply(quantity);
+        return Amount.ofMinorUnits(getTotalVATMinorUnits(), item.getPrice().getCurrency());
+    }
+
+    /**
+     * Calculates the total price for this line item in minor units, without creating any objects.
+     * @return The total price for this line item in minor units.
+     */
+    public long getTotalPriceMinorUnits() {
+        return item.getPrice().getMinorUnits() * quantity;
+    }
+
+    /**
+     * Calculates the total VAT for this line item in minor units, without creating any objects.
+     * The VAT is rounded once for the whole line, see {@link Amount#applyRate(long, double)}.
+     * @return The total VAT for this line item in minor units.
+     */
+    public long getTotalVATMinorUnits() {
+        return Amount.applyRate(getTotalPriceMinorUnits(), item.getVatRate());
     }
 }
@@ -1,37 +1,96 @@
 package se.kth.iv1350.util;
 
-import java.util.Objects;
-
 /**
- * Represents an amount of money with a currency.
+ * Represents an amount of money with a currency. The amount is stored as a whole
+ * number of minor units (ore for SEK), so adding and subtracting amounts is exact.
+ * Amounts can only be added to and compared with amounts in the same {@link Currency}.
  */
 public class Amount {
-    private final double value;
-    private final String currency;
+    private static final int MINOR_UNITS_PER_MAJOR_UNIT = 100;
+    private static final long RATE_SCALE = 10_000;
+
+    private final long minorUnits;
+    private final Currency currency;
 
     /**
      * Creates a new instance representing an amount of money.
-     * @param value The numerical value of the amount.
+     * @param value The numerical value of the amount. It is rounded to the nearest minor unit.
      * @param currency The currency of the amount (e.g., "SEK").
      */
     public Amount(double value, String currency) {
-        this.value = value;
+        this(value, Currency.of(currency));
+    }
+
+    /**
+     * Creates a new instance representing an amount of money.
+     * @param value The numerical value of the amount. It is rounded to the nearest minor unit.
+     * @param currency The currency of the amount.
+     */
+    public Amount(double value, Currency currency) {
+        this(currency, Math.round(value * MINOR_UNITS_PER_MAJOR_UNIT));
+    }
+
+    private Amount(Currency currency, long minorUnits) {
+        this.minorUnits = minorUnits;
         this.currency = currency;
     }
 
+    /**
+     * Creates a new instance from a number of minor units.
+     * @param minorUnits The amount in minor units, for example 2990 for 29:90 SEK.
+     * @param currency The currency of the amount (e.g., "SEK").
+     * @return The new amount.
+     */
+    public static Amount ofMinorUnits(long minorUnits, String currency) {
+        return new Amount(Currency.of(currency), minorUnits);
+    }
+
+    /**
+     * Creates a new instance from a number of minor units.
+     * @param minorUnits The amount in minor units, for example 2990 for 29:90 SEK.
+     * @param currency The currency of the amount.
+     * @return The new amount.
+     */
+    public static Amount ofMinorUnits(long minorUnits, Currency currency) {
+        return new Amount(currency, minorUnits);
+    }
+
+    /**
+     * Multiplies a number of minor units by a rate, such as a VAT rate, and rounds the
+     * result half away from zero to a whole minor unit. The rate is used with four decimals,
+     * which makes the calculation exact for all VAT rates.
+     * @param minorUnits The amount in minor units.
+     * @param rate The rate to multiply by (e.g., 0.06 for 6%).
+     * @return The rounded product in minor units.
+     */
+    public static long applyRate(long minorUnits, double rate) {
+        long scaledRate = Math.round(rate * RATE_SCALE);
+        long product = minorUnits * scaledRate;
+        long half = RATE_SCALE / 2;
+        return product >= 0 ? (product + half) / RATE_SCALE : -((-product + half) / RATE_SCALE);
+    }
+
     /**
      * Gets the numerical value of the amount.
      * @return The value.
      */
     public double getValue() {
-        return value;
+        return (double) minorUnits / MINOR_UNITS_PER_MAJOR_UNIT;
+    }
+
+    /**
+     * Gets the exact value of the amount in minor units.
+     * @return The value in minor units, for example 2990 for 29:90 SEK.
+     */
+    public long getMinorUnits() {
+        return minorUnits;
     }
 
     /**
      * Gets the currency of the amount.
-     * @return The currency string.
+     * @return The currency.
      */
-    public String getCurrency() {
+    public Currency getCurrency() {
         return currency;
     }
 
@@ -39,50 +98,71 @@ public class Amount {
      * Adds another amount to this amount.
      * @param other The amount to add.
      * @return A new Amount object representing the sum.
-     *         Returns null if currencies do not match.
+     * @throws IllegalArgumentException If the amounts have different currencies.
      */
     public Amount add(Amount other) {
-        if (other == null || !this.currency.equals(other.currency)) {
-            return null; // Or handle currency mismatch differently if allowed
-        }
-        return new Amount(this.value + other.value, this.currency);
+        requireSameCurrency(other, "add");
+        return new Amount(currency, this.minorUnits + other.minorUnits);
     }
 
     /**
      * Subtracts another amount from this amount.
      * @param other The amount to subtract.
      * @return A new Amount object representing the difference.
-     *         Returns null if currencies do not match.
+     * @throws IllegalArgumentException If the amounts have different currencies.
      */
     public Amount subtract(Amount other) {
-        if (other == null || !this.currency.equals(other.currency)) {
-            return null;
-        }
-        return new Amount(this.value - other.value, this.currency);
+        requireSameCurrency(other, "subtract");
+        return new Amount(currency, this.minorUnits - other.minorUnits);
     }
 
     /**
      * Multiplies this amount by a factor.
      * @param factor The factor to multiply by.
-     * @return A new Amount object representing the product.
+     * @return A new Amount object representing the product, rounded to the nearest minor unit.
      */
     public Amount multiply(double factor) {
-        return new Amount(this.value * factor, this.currency);
+        return new Amount(currency, Math.round(this.minorUnits * factor));
     }
-    
+
     /**
      * Multiplies this amount by an integer quantity.
      * @param quantity The quantity to multiply by.
      * @return A new Amount object representing the product.
      */
     public Amount multiply(int quantity) {
-        return new Amount(this.value * quantity, this.currency);
+        return new Amount(currency, this.minorUnits * quantity);
+    }
+
+    /**
+     * Multiplies this amount by a rate, such as a VAT rate, using the rounding rules
+     * of {@link #applyRate(long, double)}.
+     * @param rate The rate to multiply by (e.g., 0.06 for 6%).
+     * @return A new Amount object representing the product.
+     */
+    public Amount applyRate(double rate) {
+        return new Amount(currency, applyRate(this.minorUnits, rate));
+    }
+
+    /**
+     * Checks whether the specified amount has the same currency as this amount.
+     * @param other The amount to compare with.
+     * @return {@code true} if both amounts have the same currency.
+     */
+    public boolean hasSameCurrency(Amount other) {
+        return currency == other.currency;
+    }
+
+    private void requireSameCurrency(Amount other, String operation) {
+        if (currency != other.currency) {
+            throw new IllegalArgumentException("Cannot " + operation + " " + other.currency + " and " + currency + ".");
+        }
     }
 
 
     @Override
     public String toString() {
-        return String.format("%.2f %s", value, currency).replace('.', ':'); // Match sample output format
+        return String.format("%.2f %s", getValue(), currency).replace('.', ':'); // Match sample output format
     }
 
     @Override
@@ -90,12 +170,11 @@ public class Amount {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Amount amount = (Amount) o;
-        return Double.compare(amount.value, value) == 0 &&
-               Objects.equals(currency, amount.currency);
+        return amount.minorUnits == minorUnits && amount.currency == currency;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(value, currency);
+        return 31 * Long.hashCode(minorUnits) + currency.getIndex();
     }
-}
\ No newline at end of file
+}
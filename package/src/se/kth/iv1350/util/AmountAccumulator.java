@@ -0,0 +1,98 @@
+package se.kth.iv1350.util;
+
+/**
+ * A mutable sum of money in one currency. Adding to an accumulator does not create
+ * any objects, which makes it suitable for summing loops and running totals.
+ * An accumulator is not thread-safe.
+ */
+public class AmountAccumulator {
+    private final Currency currency;
+    private long minorUnits;
+
+    /**
+     * Creates a new accumulator with a sum of zero.
+     * @param currency The currency of the sum (e.g., "SEK").
+     */
+    public AmountAccumulator(String currency) {
+        this(Currency.of(currency));
+    }
+
+    /**
+     * Creates a new accumulator with a sum of zero.
+     * @param currency The currency of the sum.
+     */
+    public AmountAccumulator(Currency currency) {
+        this.currency = currency;
+    }
+
+    /**
+     * Adds an amount to the sum.
+     * @param amount The amount to add.
+     * @throws IllegalArgumentException If the amount has another currency than this accumulator.
+     */
+    public void add(Amount amount) {
+        checkCurrency(amount);
+        minorUnits += amount.getMinorUnits();
+    }
+
+    /**
+     * Subtracts an amount from the sum.
+     * @param amount The amount to subtract.
+     * @throws IllegalArgumentException If the amount has another currency than this accumulator.
+     */
+    public void subtract(Amount amount) {
+        checkCurrency(amount);
+        minorUnits -= amount.getMinorUnits();
+    }
+
+    /**
+     * Adds a number of minor units, in the currency of this accumulator, to the sum.
+     * @param minorUnitsToAdd The number of minor units to add. May be negative.
+     */
+    public void addMinorUnits(long minorUnitsToAdd) {
+        minorUnits += minorUnitsToAdd;
+    }
+
+    /**
+     * Sets the sum to zero.
+     */
+    public void reset() {
+        minorUnits = 0;
+    }
+
+    /**
+     * Gets the current sum in minor units.
+     * @return The sum in minor units.
+     */
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    /**
+     * Gets the currency of the sum.
+     * @return The currency.
+     */
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Creates an immutable {@link Amount} with the current sum.
+     * @return The current sum.
+     */
+    public Amount toAmount() {
+        return Amount.ofMinorUnits(minorUnits, currency);
+    }
+
+    private void checkCurrency(Amount amount) {
+        Currency other = amount.getCurrency();
+        if (currency != other) {
+            throw new IllegalArgumentException("Cannot add " + other + " to a sum in " + currency + ".");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toAmount().toString();
+    }
+}
@@ -0,0 +1,66 @@
+package se.kth.iv1350.util;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AmountTest {
+
+    @Test
+    public void testRepeatedAdditionDoesNotDrift() {
+        AmountAccumulator sum = new AmountAccumulator("SEK");
+        Amount tenOre = new Amount(0.10, "SEK");
+        for (int i = 0; i < 1_000_000; i++) {
+            sum.add(tenOre);
+        }
+        assertEquals(10_000_000, sum.getMinorUnits(),
+                "Adding 0:10 a million times should give exactly 100000:00.");
+    }
+
+    @Test
+    public void testApplyRateRoundsHalfAwayFromZero() {
+        assertEquals(179, Amount.applyRate(2990, 0.06),
+                "6% of 29:90 is 1:794, which should round to 1:79.");
+        assertEquals(179, Amount.applyRate(2975, 0.06),
+                "6% of 29:75 is exactly 1:785, which should round up to 1:79.");
+        assertEquals(-179, Amount.applyRate(-2975, 0.06),
+                "Negative amounts should round away from zero.");
+    }
+
+    @Test
+    public void testAddWithDifferentCurrencyIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new Amount(1, "SEK").add(new Amount(1, "EUR")),
+                "Adding amounts with different currencies should not be possible.");
+    }
+
+    @Test
+    public void testCurrencyCodesGiveTheSameInstance() {
+        assertSame(Currency.SEK, new Amount(1, "SEK").getCurrency(), "A currency should only have one instance.");
+        assertSame(Currency.of(new String("DKK")), Currency.of("DKK"), "A new currency should only have one instance.");
+    }
+
+    @Test
+    public void testAccumulatorRejectsDifferentCurrency() {
+        AmountAccumulator sum = new AmountAccumulator("SEK");
+        assertThrows(IllegalArgumentException.class, () -> sum.add(new Amount(1, "EUR")),
+                "An accumulator should not accept amounts in another currency.");
+    }
+
+    @Test
+    public void testAmountsWithSameMinorUnitsAreEqual() {
+        assertEquals(new Amount(0.1 + 0.2, "SEK"), new Amount(0.30, "SEK"),
+                "Amounts should be compared by their exact number of minor units.");
+    }
+
+    @Test
+    public void testCurrencyTotalsKeepOneSumPerCurrency() {
+        CurrencyTotals totals = new CurrencyTotals();
+        totals.add(new Amount(10, "SEK"));
+        totals.add(new Amount(5, "EUR"));
+        totals.subtract(new Amount(2.50, "SEK"));
+
+        assertEquals(new Amount(7.50, "SEK"), totals.getTotal(Currency.SEK), "The SEK amounts should be summed.");
+        assertEquals(new Amount(5, "EUR"), totals.getTotal(Currency.EUR), "The EUR amount should be kept apart.");
+        assertEquals(new Amount(0, "NOK"), totals.getTotal(Currency.NOK), "Nothing was added in NOK.");
+        assertEquals(2, totals.getTotals().size(), "Only the used currencies should have a sum.");
+    }
+}
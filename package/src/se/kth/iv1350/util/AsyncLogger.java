@@ -0,0 +1,327 @@
+package se.kth.iv1350.util;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Writes log messages on a background thread, so that logging never makes a checkout lane wait
+ * for a console or a file. Messages are given as suppliers and are only built if their level is
+ * enabled. They are put in a bounded ring buffer, and if the buffer is full the message is
+ * dropped and counted instead of blocking the caller.
+ * <p>
+ * Exceptions of the same kind, thrown from the same place, are written with their stack trace at
+ * most once per {@value #EXCEPTION_REPORT_INTERVAL_SECONDS} seconds. Repetitions in between are
+ * only counted, and the count is written with the next report. A database outage that makes
+ * every scan fail therefore gives a few log entries instead of one stack trace per scan.
+ */
+public class AsyncLogger {
+    private static final int BUFFER_CAPACITY = 8192;
+    private static final int EXCEPTION_REPORT_INTERVAL_SECONDS = 60;
+    private static final int MAX_TRACKED_EXCEPTIONS = 1000;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+    private static final String LEVEL_PROPERTY = "se.kth.iv1350.logLevel";
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static AsyncLogger defaultLogger;
+
+    private final PrintStream out;
+    private final boolean ownsOutput;
+    private final BlockingQueue<LogRecord> buffer = new ArrayBlockingQueue<>(BUFFER_CAPACITY);
+    private final Map<String, RepeatCounter> exceptionCounters = new ConcurrentHashMap<>();
+    private final long exceptionReportIntervalNanos;
+    private final LongAdder droppedCount = new LongAdder();
+    private final Thread writer;
+    private final Thread shutdownHook;
+    private volatile LogLevel level;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new logger that writes to the specified stream, and starts its writer thread.
+     * Waiting messages are written when the JVM shuts down, unless the logger is closed before.
+     * The creator of a logger should close it when it is no longer used, which stops the thread.
+     *
+     * @param out The stream to write to.
+     * @param level The least severe level that is written.
+     */
+    public AsyncLogger(PrintStream out, LogLevel level) {
+        this(out, level, TimeUnit.SECONDS.toNanos(EXCEPTION_REPORT_INTERVAL_SECONDS));
+    }
+
+    AsyncLogger(PrintStream out, LogLevel level, long exceptionReportIntervalNanos) {
+        this(out, false, level, exceptionReportIntervalNanos);
+    }
+
+    private AsyncLogger(PrintStream out, boolean ownsOutput, LogLevel level, long exceptionReportIntervalNanos) {
+        this.out = out;
+        this.ownsOutput = ownsOutput;
+        this.level = level;
+        this.exceptionReportIntervalNanos = exceptionReportIntervalNanos;
+        this.writer = new Thread(this::writeRecords, "async-logger");
+        writer.setDaemon(true);
+        writer.start();
+        this.shutdownHook = new Thread(this::close, "async-logger-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Creates a logger that appends to the specified file. If the file cannot be opened, the
+     * logger writes to {@code System.err} instead. The caller owns the logger, and closes it
+     * when it is no longer used, which also closes the file.
+     *
+     * @param fileName The name of the log file.
+     * @param level The least severe level that is written.
+     * @return The new logger.
+     */
+    public static AsyncLogger forFile(String fileName, LogLevel level) {
+        try {
+            return new AsyncLogger(new PrintStream(new FileOutputStream(fileName, true), false), true, level,
+                    TimeUnit.SECONDS.toNanos(EXCEPTION_REPORT_INTERVAL_SECONDS));
+        } catch (IOException e) {
+            System.err.println("Could not create logger: " + e.getMessage());
+            return new AsyncLogger(System.err, level);
+        }
+    }
+
+    /**
+     * Gets the logger shared by the whole application, which writes to {@code System.out}. Its level is
+     * taken from the system property {@value #LEVEL_PROPERTY}, and is {@link LogLevel#INFO} by default.
+     *
+     * @return The default logger.
+     */
+    public static synchronized AsyncLogger getDefault() {
+        if (defaultLogger == null) {
+            String configured = System.getProperty(LEVEL_PROPERTY, LogLevel.INFO.name());
+            defaultLogger = new AsyncLogger(System.out, LogLevel.valueOf(configured.toUpperCase()));
+        }
+        return defaultLogger;
+    }
+
+    /**
+     * Changes the least severe level that is written.
+     *
+     * @param level The new level.
+     */
+    public void setLevel(LogLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Checks whether messages of the specified level are written.
+     *
+     * @param messageLevel The level to check.
+     * @return {@code true} if messages of the level are written.
+     */
+    public boolean isEnabled(LogLevel messageLevel) {
+        return messageLevel.compareTo(level) >= 0;
+    }
+
+    /**
+     * Logs a message of level {@link LogLevel#DEBUG}.
+     *
+     * @param message Creates the message. Only called if the level is enabled.
+     */
+    public void debug(Supplier<String> message) {
+        log(LogLevel.DEBUG, message, null);
+    }
+
+    /**
+     * Logs a message of level {@link LogLevel#INFO}.
+     *
+     * @param message Creates the message. Only called if the level is enabled.
+     */
+    public void info(Supplier<String> message) {
+        log(LogLevel.INFO, message, null);
+    }
+
+    /**
+     * Logs a message of level {@link LogLevel#WARN}.
+     *
+     * @param message Creates the message. Only called if the level is enabled.
+     */
+    public void warn(Supplier<String> message) {
+        log(LogLevel.WARN, message, null);
+    }
+
+    /**
+     * Logs a message of level {@link LogLevel#ERROR} describing a thrown exception. Repetitions
+     * of the same exception are only counted, see the class description.
+     *
+     * @param message Creates the message. Only called if the exception is written.
+     * @param exception The exception to log, written with its stack trace.
+     */
+    public void error(Supplier<String> message, Throwable exception) {
+        log(LogLevel.ERROR, message, exception);
+    }
+
+    /**
+     * Logs a message describing a thrown exception, using the message of the exception.
+     *
+     * @param exception The exception to log.
+     */
+    public void logException(Exception exception) {
+        error(exception::getMessage, exception);
+    }
+
+    /**
+     * Gets the number of messages that were dropped because the buffer was full.
+     *
+     * @return The number of dropped messages.
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * Writes all waiting messages, stops the writer thread and removes the shutdown hook. A logger
+     * that writes to a file also closes the file. Messages logged after this are ignored.
+     * Waits at most {@value #CLOSE_TIMEOUT_MILLIS} ms, so that an output that does not accept any more
+     * data can not stop the JVM from shutting down.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException shutdownInProgress) {
+                // The hook is already running or done, and will find the logger closed.
+            }
+        }
+        try {
+            if (buffer.offer(LogRecord.CLOSE_MARKER, CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                writer.join(CLOSE_TIMEOUT_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (ownsOutput && !writer.isAlive()) {
+            out.close();
+        }
+    }
+
+    private void log(LogLevel messageLevel, Supplier<String> message, Throwable exception) {
+        if (closed || !isEnabled(messageLevel)) {
+            return;
+        }
+        long repetitions = 0;
+        if (exception != null) {
+            repetitions = countRepetitions(exception);
+            if (repetitions < 0) {
+                return;
+            }
+        }
+        LogRecord record = new LogRecord(messageLevel, LocalDateTime.now(), message.get(), exception, repetitions);
+        if (!buffer.offer(record)) {
+            droppedCount.increment();
+        }
+    }
+
+    /**
+     * @return The number of suppressed repetitions to report with this exception, or -1 if this
+     *         exception should only be counted.
+     */
+    private long countRepetitions(Throwable exception) {
+        if (exceptionCounters.size() > MAX_TRACKED_EXCEPTIONS) {
+            exceptionCounters.clear();
+        }
+        RepeatCounter counter = exceptionCounters.computeIfAbsent(keyOf(exception), key -> new RepeatCounter());
+        long now = System.nanoTime();
+        long lastReport = counter.lastReport.get();
+        if ((counter.reported && now - lastReport < exceptionReportIntervalNanos)
+                || !counter.lastReport.compareAndSet(lastReport, now)) {
+            counter.suppressed.increment();
+            return -1;
+        }
+        counter.reported = true;
+        return counter.suppressed.sumThenReset();
+    }
+
+    private static String keyOf(Throwable exception) {
+        StringBuilder key = new StringBuilder();
+        StackTraceElement[] stackTrace = exception.getStackTrace();
+        if (stackTrace.length > 0) {
+            key.append(stackTrace[0]);
+        }
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            key.append('/').append(cause.getClass().getName());
+        }
+        return key.toString();
+    }
+
+    private void writeRecords() {
+        List<LogRecord> batch = new ArrayList<>();
+        long reportedDrops = 0;
+        while (true) {
+            try {
+                batch.add(buffer.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            buffer.drainTo(batch);
+            for (LogRecord record : batch) {
+                if (record == LogRecord.CLOSE_MARKER) {
+                    out.flush();
+                    return;
+                }
+                write(record);
+            }
+            batch.clear();
+            long dropped = droppedCount.sum() - reportedDrops;
+            if (dropped > 0) {
+                reportedDrops += dropped;
+                out.println(LocalDateTime.now().format(TIMESTAMP_FORMAT) + " - WARN: "
+                        + dropped + " log messages were dropped because the log buffer was full.");
+            }
+            out.flush();
+        }
+    }
+
+    private void write(LogRecord record) {
+        out.println(record.timestamp.format(TIMESTAMP_FORMAT) + " - " + record.level + ": " + record.message);
+        if (record.exception != null) {
+            if (record.repetitions > 0) {
+                out.println("(" + record.repetitions + " more occurrences since the last report)");
+            }
+            record.exception.printStackTrace(out);
+            out.println();
+        }
+    }
+
+    private static final class LogRecord {
+        private static final LogRecord CLOSE_MARKER = new LogRecord(null, null, null, null, 0);
+
+        private final LogLevel level;
+        private final LocalDateTime timestamp;
+        private final String message;
+        private final Throwable exception;
+        private final long repetitions;
+
+        LogRecord(LogLevel level, LocalDateTime timestamp, String message, Throwable exception, long repetitions) {
+            this.level = level;
+            this.timestamp = timestamp;
+            this.message = message;
+            this.exception = exception;
+            this.repetitions = repetitions;
+        }
+    }
+
+    private static final class RepeatCounter {
+        private final AtomicLong lastReport = new AtomicLong();
+        private final LongAdder suppressed = new LongAdder();
+        private volatile boolean reported;
+    }
+}
@@ -0,0 +1,133 @@
+package se.kth.iv1350.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AsyncLoggerTest {
+    private ByteArrayOutputStream output;
+    private PrintStream out;
+
+    @BeforeEach
+    public void setUp() {
+        output = new ByteArrayOutputStream();
+        out = new PrintStream(output, true, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testMessageBelowLevelIsNeitherBuiltNorWritten() {
+        AsyncLogger logger = new AsyncLogger(out, LogLevel.INFO);
+        boolean[] built = {false};
+
+        logger.debug(() -> {
+            built[0] = true;
+            return "Not wanted";
+        });
+        logger.close();
+
+        assertFalse(built[0], "A message below the level should not be built.");
+        assertEquals("", written(), "A message below the level should not be written.");
+    }
+
+    @Test
+    public void testClosingFileLoggerWritesWaitingMessagesToFile(@TempDir Path tempDir) throws IOException {
+        Path logFile = tempDir.resolve("error-log.txt");
+        AsyncLogger logger = AsyncLogger.forFile(logFile.toString(), LogLevel.ERROR);
+
+        logger.logException(new IllegalStateException("Receipt printer offline"));
+        logger.close();
+        logger.close();
+        logger.logException(new IllegalStateException("Logged after close"));
+
+        String written = Files.readString(logFile);
+        assertTrue(written.contains("Receipt printer offline"),
+                "The waiting message should be written before the file is closed.");
+        assertFalse(written.contains("Logged after close"), "A message logged after close should be ignored.");
+    }
+
+    @Test
+    public void testMessageIsWrittenWithLevel() {
+        AsyncLogger logger = new AsyncLogger(out, LogLevel.INFO);
+
+        logger.warn(() -> "Printer is low on paper");
+        logger.close();
+
+        assertTrue(written().contains(" - WARN: Printer is low on paper"),
+                "The message should be written with its level.");
+    }
+
+    @Test
+    public void testRepeatedExceptionIsWrittenOnceAndCounted() {
+        AsyncLogger logger = new AsyncLogger(out, LogLevel.INFO, TimeUnit.HOURS.toNanos(1));
+
+        for (int i = 0; i < 100; i++) {
+            logger.logException(createException("Database down for scan " + i));
+        }
+        logger.close();
+
+        String log = written();
+        assertTrue(log.contains("Database down for scan 0"), "The first occurrence should be written.");
+        assertFalse(log.contains("Database down for scan 1"),
+                "Repetitions within the report interval should not be written.");
+    }
+
+    @Test
+    public void testRepetitionsAreReportedWithNextOccurrence() {
+        AsyncLogger logger = new AsyncLogger(out, LogLevel.INFO, 0);
+
+        logger.logException(createException("First"));
+        logger.logException(createException("Second"));
+        logger.close();
+
+        String log = written();
+        assertTrue(log.contains("First") && log.contains("Second"),
+                "With no report interval every occurrence should be written.");
+        assertFalse(log.contains("more occurrences"), "No occurrence should have been suppressed.");
+    }
+
+    @Test
+    public void testLoggingDoesNotBlockWhenOutputIsStuck() {
+        CountDownLatch outputReleased = new CountDownLatch(1);
+        PrintStream stuck = new PrintStream(out) {
+            @Override
+            public void println(String line) {
+                try {
+                    outputReleased.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        AsyncLogger logger = new AsyncLogger(stuck, LogLevel.INFO);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 20_000; i++) {
+            logger.info(() -> "Sale registered");
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long dropped = logger.getDroppedCount();
+        outputReleased.countDown();
+        logger.close();
+
+        assertTrue(elapsedMillis < 2000, "Logging should not wait for a stuck output.");
+        assertTrue(dropped > 0, "Messages that do not fit in the buffer should be dropped.");
+    }
+
+    private static Exception createException(String message) {
+        return new IllegalStateException(message);
+    }
+
+    private String written() {
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
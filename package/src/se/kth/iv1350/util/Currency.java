@@ -0,0 +1,72 @@
+package se.kth.iv1350.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A currency, identified by its code (e.g., "SEK"). There is only one instance for each code, so
+ * currencies are compared by identity, and every currency has a small index that can be used to
+ * keep a sum per currency in an array.
+ * <p>
+ * Currencies are looked up by code where amounts enter the system, such as when a catalog file
+ * is read. Calculations with amounts only compare the instances.
+ */
+public final class Currency {
+    private static final ConcurrentMap<String, Currency> CURRENCIES = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_INDEX = new AtomicInteger();
+
+    /** Swedish krona, the currency of prices in the store. */
+    public static final Currency SEK = of("SEK");
+    /** Euro. */
+    public static final Currency EUR = of("EUR");
+    /** Norwegian krone. */
+    public static final Currency NOK = of("NOK");
+
+    private final String code;
+    private final int index;
+
+    private Currency(String code, int index) {
+        this.code = code;
+        this.index = index;
+    }
+
+    /**
+     * Gets the currency with the specified code.
+     * @param code The code of the currency (e.g., "SEK").
+     * @return The only instance of the currency.
+     * @throws IllegalArgumentException If the code is empty or blank.
+     */
+    public static Currency of(String code) {
+        Currency currency = CURRENCIES.get(code);
+        if (currency != null) {
+            return currency;
+        }
+        if (code.isBlank()) {
+            throw new IllegalArgumentException("A currency code can not be blank.");
+        }
+        return CURRENCIES.computeIfAbsent(code, newCode -> new Currency(newCode, NEXT_INDEX.getAndIncrement()));
+    }
+
+    /**
+     * Gets the code of the currency.
+     * @return The code (e.g., "SEK").
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the index of the currency. The indexes are given in the order the currencies are first
+     * used, starting at zero, so they can be used as indexes of an array of sums.
+     * @return The index.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return code;
+    }
+}
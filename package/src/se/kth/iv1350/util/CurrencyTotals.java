@@ -0,0 +1,114 @@
+package se.kth.iv1350.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A mutable sum of money for each currency that has been added, such as the cash in a register
+ * that accepts several currencies. The sums are kept in an array indexed by
+ * {@link Currency#getIndex()}, so adding an amount does not compare currency codes or create
+ * any objects. A sum is not thread-safe.
+ */
+public class CurrencyTotals {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private long[] minorUnits = new long[INITIAL_CAPACITY];
+    private Currency[] currencies = new Currency[INITIAL_CAPACITY];
+
+    /**
+     * Adds an amount to the sum of its currency.
+     * @param amount The amount to add.
+     */
+    public void add(Amount amount) {
+        addMinorUnits(amount.getCurrency(), amount.getMinorUnits());
+    }
+
+    /**
+     * Subtracts an amount from the sum of its currency.
+     * @param amount The amount to subtract.
+     */
+    public void subtract(Amount amount) {
+        addMinorUnits(amount.getCurrency(), -amount.getMinorUnits());
+    }
+
+    /**
+     * Adds all sums of another instance to this instance.
+     * @param other The sums to add.
+     */
+    public void add(CurrencyTotals other) {
+        for (int i = 0; i < other.currencies.length; i++) {
+            if (other.currencies[i] != null) {
+                addMinorUnits(other.currencies[i], other.minorUnits[i]);
+            }
+        }
+    }
+
+    private void addMinorUnits(Currency currency, long minorUnitsToAdd) {
+        int index = currency.getIndex();
+        if (index >= minorUnits.length) {
+            int capacity = Math.max(index + 1, minorUnits.length * 2);
+            minorUnits = Arrays.copyOf(minorUnits, capacity);
+            currencies = Arrays.copyOf(currencies, capacity);
+        }
+        currencies[index] = currency;
+        minorUnits[index] += minorUnitsToAdd;
+    }
+
+    /**
+     * Gets the sum of the specified currency.
+     * @param currency The currency.
+     * @return The sum, which is zero if nothing has been added in the currency.
+     */
+    public Amount getTotal(Currency currency) {
+        int index = currency.getIndex();
+        return Amount.ofMinorUnits(index < minorUnits.length ? minorUnits[index] : 0, currency);
+    }
+
+    /**
+     * Gets the sums of all currencies that have been added.
+     * @return One amount for each currency, in the order the currencies were first used.
+     */
+    public List<Amount> getTotals() {
+        List<Amount> totals = new ArrayList<>();
+        for (int i = 0; i < currencies.length; i++) {
+            if (currencies[i] != null) {
+                totals.add(Amount.ofMinorUnits(minorUnits[i], currencies[i]));
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Checks whether no amount has been added.
+     * @return {@code true} if there is no sum in any currency.
+     */
+    public boolean isEmpty() {
+        for (Currency currency : currencies) {
+            if (currency != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets all sums to zero, and forgets the currencies.
+     */
+    public void reset() {
+        Arrays.fill(minorUnits, 0);
+        Arrays.fill(currencies, null);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Amount total : getTotals()) {
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append(total);
+        }
+        return text.toString();
+    }
+}
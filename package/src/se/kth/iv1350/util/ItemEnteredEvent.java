@@ -0,0 +1,47 @@
+package se.kth.iv1350.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Flight Recorder event for an item entered into a sale. The duration of the event is the whole
+ * {@code enterItem} call, of which {@link #lookupDuration} was spent looking up the item.
+ */
+@Name(ItemEnteredEvent.NAME)
+@Label("Item Entered")
+@Description("An item was entered into a sale")
+@Category({"IV1350 POS", "Sale"})
+@Enabled(false)
+@StackTrace(false)
+public final class ItemEnteredEvent extends jdk.jfr.Event {
+    /**
+     * The name of the event in a recording.
+     */
+    public static final String NAME = "se.kth.iv1350.ItemEntered";
+
+    @Label("Sale ID")
+    public long saleID;
+
+    @Label("Item ID")
+    public String itemID;
+
+    @Label("Quantity")
+    public int quantity;
+
+    @Label("Succeeded")
+    @Description("False if the item was not found or could not be retrieved")
+    public boolean succeeded;
+
+    @Label("Cache Hit")
+    @Description("True if the item was in the item cache before it was looked up")
+    public boolean cacheHit;
+
+    @Label("Lookup Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    public long lookupDuration;
+}
@@ -0,0 +1,134 @@
+package se.kth.iv1350.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts recorded values, such as latencies in nanoseconds, in buckets whose width grows with
+ * the value, in the way of an HDR histogram. Values below {@value #SUB_BUCKET_COUNT} are counted
+ * exactly, and larger values with a relative error of at most 1/64, so the histogram has the
+ * same precision for a 100 ns lookup as for a 100 ms payment while using a fixed amount of memory.
+ * <p>
+ * Values can be recorded by several threads at the same time without locking. Percentiles read
+ * while values are being recorded may not include the latest values.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_HALF_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    /**
+     * Records a value.
+     * @param value The value to record. Negative values are recorded as zero.
+     */
+    public void record(long value) {
+        long recorded = Math.max(value, 0);
+        counts.incrementAndGet(indexOf(recorded));
+        totalCount.increment();
+        sum.add(recorded);
+        min.accumulate(recorded);
+        max.accumulate(recorded);
+    }
+
+    /**
+     * Adds all values recorded in another histogram to this histogram.
+     * @param other The histogram whose values are added.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = other.counts.get(i);
+            if (count > 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        totalCount.add(other.totalCount.sum());
+        sum.add(other.sum.sum());
+        if (other.getTotalCount() > 0) {
+            min.accumulate(other.getMin());
+            max.accumulate(other.getMax());
+        }
+    }
+
+    /**
+     * Gets the number of recorded values.
+     * @return The number of values.
+     */
+    public long getTotalCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Gets the smallest recorded value.
+     * @return The smallest value, or 0 if no value is recorded.
+     */
+    public long getMin() {
+        return getTotalCount() == 0 ? 0 : min.get();
+    }
+
+    /**
+     * Gets the largest recorded value.
+     * @return The largest value, or 0 if no value is recorded.
+     */
+    public long getMax() {
+        return getTotalCount() == 0 ? 0 : max.get();
+    }
+
+    /**
+     * Gets the mean of the recorded values.
+     * @return The mean, or 0 if no value is recorded.
+     */
+    public double getMean() {
+        long count = getTotalCount();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * Gets the value that the specified percentage of the recorded values are less than or
+     * equal to. The value is the highest value in its bucket, but not above the largest
+     * recorded value.
+     * @param percentile The percentile, from 0 to 100 (e.g., 99.9).
+     * @return The value at the percentile, or 0 if no value is recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = getTotalCount();
+        if (count == 0) {
+            return 0;
+        }
+        double boundedPercentile = Math.min(Math.max(percentile, 0), 100);
+        long countAtPercentile = Math.max(1, (long) Math.ceil(boundedPercentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= countAtPercentile) {
+                return Math.min(highestValueAt(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        return (shift + 1) * SUB_BUCKET_HALF_COUNT + (int) ((value >>> shift) - SUB_BUCKET_HALF_COUNT);
+    }
+
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        long highest = ((subBucket + 1) << shift) - 1;
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+}
@@ -0,0 +1,82 @@
+package se.kth.iv1350.util;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LatencyHistogramTest {
+    @Test
+    public void testSmallValuesAreCountedExactly() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(100, histogram.getTotalCount(), "Every recorded value should be counted.");
+        assertEquals(50, histogram.getValueAtPercentile(50), "The median of 1..100 should be 50.");
+        assertEquals(99, histogram.getValueAtPercentile(99), "The 99th percentile of 1..100 should be 99.");
+        assertEquals(50.5, histogram.getMean(), 0.0001, "The mean should be exact.");
+    }
+
+    @Test
+    public void testLargeValuesHaveSmallRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1_000; value <= 100_000_000L; value += 1_000) {
+            histogram.record(value);
+        }
+
+        long median = histogram.getValueAtPercentile(50);
+        long p999 = histogram.getValueAtPercentile(99.9);
+        assertEquals(50_000_000, median, 50_000_000 / 64.0, "The median should be within 1/64 of the exact value.");
+        assertEquals(99_900_000, p999, 99_900_000 / 64.0, "The 99.9th percentile should be within 1/64.");
+        assertEquals(100_000_000L, histogram.getValueAtPercentile(100), "The 100th percentile should be the max.");
+    }
+
+    @Test
+    public void testEveryValueFallsInBucketThatContainsIt() {
+        for (long value : new long[] {0, 127, 128, 129, 255, 256, 1_000_003, Long.MAX_VALUE / 3, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.highestValueAt(index) >= value, "The bucket of " + value + " is too low.");
+            assertTrue(index == 0 || LatencyHistogram.highestValueAt(index - 1) < value,
+                    "The bucket of " + value + " is too high.");
+        }
+    }
+
+    @Test
+    public void testConcurrentRecordingCountsAllValues() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(80_000, histogram.getTotalCount(), "No value should be lost when recording concurrently.");
+        assertEquals(0, histogram.getMin(), "The smallest value should be 0.");
+        assertEquals(9_999, histogram.getMax(), "The largest value should be 9999.");
+    }
+
+    @Test
+    public void testAddedHistogramContainsValuesOfBoth() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(10);
+        second.record(1_000_000);
+
+        first.add(second);
+
+        assertEquals(2, first.getTotalCount(), "The sum should contain the values of both histograms.");
+        assertEquals(10, first.getMin(), "The smallest value should come from the first histogram.");
+        assertEquals(1_000_000, first.getMax(), "The largest value should come from the second histogram.");
+    }
+}
@@ -0,0 +1,27 @@
+package se.kth.iv1350.util;
+
+/**
+ * The severity of a log message. A logger writes messages of its own level and all more
+ * severe levels.
+ */
+public enum LogLevel {
+    /**
+     * Detailed information about normal operation, such as every registered sale.
+     */
+    DEBUG,
+
+    /**
+     * Noteworthy events during normal operation.
+     */
+    INFO,
+
+    /**
+     * Unexpected situations that the application could handle.
+     */
+    WARN,
+
+    /**
+     * Failed operations.
+     */
+    ERROR
+}
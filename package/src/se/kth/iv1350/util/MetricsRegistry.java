@@ -0,0 +1,129 @@
+package se.kth.iv1350.util;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Holds the {@link OperationStats} of all measured operations. The statistics can be published
+ * as JMX MBeans, and written to a snapshot file, once or periodically.
+ */
+public class MetricsRegistry {
+    private static final AsyncLogger LOGGER = AsyncLogger.getDefault();
+    private static final String SNAPSHOT_HEADER =
+            "time,operation,count,failures,in_flight,mean_us,p50_us,p99_us,p999_us,max_us";
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private final Map<String, OperationStats> operations = new ConcurrentSkipListMap<>();
+
+    /**
+     * Gets the statistics of an operation, and creates them the first time. Callers should keep
+     * the returned object instead of looking it up for every call.
+     * @param name The name of the operation (e.g., "controller.enterItem").
+     * @return The statistics of the operation.
+     */
+    public OperationStats operation(String name) {
+        return operations.computeIfAbsent(name, OperationStats::new);
+    }
+
+    /**
+     * Gets the statistics of all operations.
+     * @return The statistics, ordered by operation name.
+     */
+    public Collection<OperationStats> getOperations() {
+        return Collections.unmodifiableCollection(operations.values());
+    }
+
+    /**
+     * Registers the statistics of each operation as an MBean named
+     * {@code <domain>:type=Operation,name=<operation>}. An MBean already registered with the
+     * same name is replaced.
+     * @param server The MBean server, usually {@code ManagementFactory.getPlatformMBeanServer()}.
+     * @param domain The domain of the MBean names.
+     * @throws JMException If an MBean could not be registered.
+     */
+    public void registerMBeans(MBeanServer server, String domain) throws JMException {
+        for (OperationStats stats : operations.values()) {
+            ObjectName objectName = new ObjectName(domain + ":type=Operation,name=" + stats.getName());
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(stats, objectName);
+        }
+    }
+
+    /**
+     * Writes the current statistics of all operations to a CSV file, with one row per operation.
+     * The file is replaced at once, so a reader never sees a partly written snapshot.
+     * @param file The snapshot file.
+     * @throws IOException If the file could not be written.
+     */
+    public void writeSnapshot(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        String time = LocalDateTime.now().format(TIME_FORMAT);
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            writer.write(SNAPSHOT_HEADER);
+            writer.newLine();
+            for (OperationStats stats : operations.values()) {
+                LatencyHistogram latencies = stats.getLatencies();
+                writer.write(String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f", time,
+                        stats.getName(), latencies.getTotalCount(), stats.getFailureCount(), stats.getInFlight(),
+                        latencies.getMean() / 1000, latencies.getValueAtPercentile(50) / 1000.0,
+                        latencies.getValueAtPercentile(99) / 1000.0, latencies.getValueAtPercentile(99.9) / 1000.0,
+                        latencies.getMax() / 1000.0));
+                writer.newLine();
+            }
+        }
+        Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Starts writing a snapshot to the specified file periodically, on a background thread.
+     * @param file The snapshot file.
+     * @param period The time between two snapshots.
+     * @return Stops the periodic snapshots when closed, after writing a last snapshot.
+     */
+    public Closeable startPeriodicSnapshots(Path file, Duration period) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Runnable snapshot = () -> {
+            try {
+                writeSnapshot(file);
+            } catch (IOException e) {
+                LOGGER.error(() -> "Could not write the metrics snapshot to " + file, e);
+            }
+        };
+        scheduler.scheduleAtFixedRate(snapshot, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+        return () -> {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(period.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            snapshot.run();
+        };
+    }
+}
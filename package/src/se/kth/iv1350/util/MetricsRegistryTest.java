@@ -0,0 +1,82 @@
+package se.kth.iv1350.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+public class MetricsRegistryTest {
+    @Test
+    public void testCallsFailuresAndCallsInFlightAreCounted() {
+        OperationStats stats = new MetricsRegistry().operation("controller.enterItem");
+
+        long first = stats.start();
+        long second = stats.start();
+        assertEquals(2, stats.getInFlight(), "Two started calls should be in flight.");
+        stats.finish(first, true);
+        stats.finish(second, false);
+
+        assertEquals(0, stats.getInFlight(), "No call should be in flight after both finished.");
+        assertEquals(2, stats.getCount(), "Both calls should be counted.");
+        assertEquals(1, stats.getFailureCount(), "The failed call should be counted.");
+        assertEquals(2, stats.getLatencies().getTotalCount(), "The latency of both calls should be recorded.");
+    }
+
+    @Test
+    public void testTimedCallThatThrowsIsCountedAsFailed() {
+        OperationStats stats = new MetricsRegistry().operation("accounting.registerSale");
+
+        assertEquals("done", stats.time(() -> "done"), "The result of the call should be returned.");
+        assertThrows(IllegalStateException.class, () -> stats.time(() -> {
+            throw new IllegalStateException("Journal closed");
+        }));
+
+        assertEquals(2, stats.getCount(), "Both calls should be counted.");
+        assertEquals(1, stats.getFailureCount(), "The call that threw should be counted as failed.");
+        assertEquals(0, stats.getInFlight(), "No call should be in flight after both finished.");
+    }
+
+    @Test
+    public void testSameOperationNameGivesSameStats() {
+        MetricsRegistry registry = new MetricsRegistry();
+
+        assertSame(registry.operation("printer.printReceipt"), registry.operation("printer.printReceipt"),
+                "An operation should only have one set of statistics.");
+    }
+
+    @Test
+    public void testStatsArePublishedAsMBeans() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        OperationStats stats = registry.operation("controller.endSale");
+        stats.finish(stats.start(), true);
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+
+        registry.registerMBeans(server, "test");
+        registry.registerMBeans(server, "test");
+
+        ObjectName name = new ObjectName("test:type=Operation,name=controller.endSale");
+        assertEquals(1L, server.getAttribute(name, "Count"), "The count should be readable through JMX.");
+        assertEquals("controller.endSale", server.getAttribute(name, "Name"), "The name should be readable.");
+    }
+
+    @Test
+    public void testSnapshotHasOneRowPerOperation(@TempDir Path directory) throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        OperationStats enterItem = registry.operation("controller.enterItem");
+        enterItem.finish(enterItem.start(), true);
+        registry.operation("controller.startSale");
+        Path snapshot = directory.resolve("metrics.csv");
+
+        registry.writeSnapshot(snapshot);
+
+        List<String> lines = Files.readAllLines(snapshot);
+        assertEquals(3, lines.size(), "The snapshot should have a header and one row per operation.");
+        assertTrue(lines.get(1).contains(",controller.enterItem,1,0,0,"), "The row should hold the counters.");
+    }
+}
@@ -0,0 +1,36 @@
+package se.kth.iv1350.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for one revenue observer being notified of a completed sale. The
+ * observers are notified on the thread of the revenue event bus, after the payment has returned.
+ */
+@Name(ObserverDispatchEvent.NAME)
+@Label("Observer Dispatch")
+@Description("A revenue observer was notified of a completed sale")
+@Category({"IV1350 POS", "Sale"})
+@Enabled(false)
+@StackTrace(false)
+public final class ObserverDispatchEvent extends jdk.jfr.Event {
+    /**
+     * The name of the event in a recording.
+     */
+    public static final String NAME = "se.kth.iv1350.ObserverDispatch";
+
+    @Label("Sale ID")
+    @Description("The ID of the sale, or 0 for the revenue of sales from before the application was started")
+    public long saleID;
+
+    @Label("Observer")
+    public String observer;
+
+    @Label("Failed")
+    @Description("True if the observer threw an exception")
+    public boolean failed;
+}
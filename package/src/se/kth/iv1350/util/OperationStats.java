@@ -0,0 +1,200 @@
+package se.kth.iv1350.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the calls of one operation, the calls that failed and the calls running now, and
+ * records the latency of each call. A call is measured with
+ * <pre>
+ * Result result = stats.time(() -&gt; ...);
+ * </pre>
+ * which counts the call as failed if it throws an exception. A call that can fail in other ways,
+ * or whose start time is also needed elsewhere, is measured with
+ * <pre>
+ * long started = stats.start();
+ * boolean succeeded = false;
+ * try {
+ *     ...
+ *     succeeded = true;
+ * } finally {
+ *     stats.finish(started, succeeded);
+ * }
+ * </pre>
+ * Both read the clock twice and update a few uncontended counters. The latencies are recorded in
+ * one of several histograms chosen by thread, like the stripes of {@code StockLedger}, so
+ * checkout lanes do not contend for the same counters.
+ * <p>
+ * The cost is measured by {@code OperationStatsBenchmark} in the benchmark module. On the machine
+ * the benchmarks were developed on, measuring a call added about 130 ns, of which about 70 ns was
+ * the two clock reads. {@link #time(Call)} costs the same as {@link #start()} and
+ * {@link #finish(long, boolean)}, but may allocate the lambda when the call captures variables.
+ */
+public class OperationStats implements OperationStatsMBean {
+    private static final int STRIPES = 4;
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    private final String name;
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final LatencyHistogram[] latencies = new LatencyHistogram[STRIPES];
+
+    /**
+     * Creates statistics for a new operation.
+     * @param name The name of the operation (e.g., "controller.enterItem").
+     */
+    public OperationStats(String name) {
+        this.name = name;
+        for (int i = 0; i < STRIPES; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Marks the start of a call.
+     * @return The start time, to pass to {@link #finish(long, boolean)}.
+     */
+    public long start() {
+        inFlight.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Marks the end of a call, and records its latency.
+     * @param startNanos The start time returned by {@link #start()}.
+     * @param succeeded {@code false} if the call failed.
+     */
+    public void finish(long startNanos, boolean succeeded) {
+        long latency = System.nanoTime() - startNanos;
+        inFlight.decrement();
+        if (!succeeded) {
+            failures.increment();
+        }
+        latencies[(int) Thread.currentThread().getId() & (STRIPES - 1)].record(latency);
+    }
+
+    /**
+     * Measures a call that returns a result. The call fails if it throws an exception.
+     * @param call The call to measure.
+     * @param <T> The type of the result.
+     * @param <E> The type of the checked exception that the call may throw.
+     * @return The result of the call.
+     * @throws E If the call throws it.
+     */
+    public <T, E extends Exception> T time(Call<T, E> call) throws E {
+        long started = start();
+        boolean succeeded = false;
+        try {
+            T result = call.call();
+            succeeded = true;
+            return result;
+        } finally {
+            finish(started, succeeded);
+        }
+    }
+
+    /**
+     * Measures a call that returns nothing. The call fails if it throws an exception.
+     * @param action The call to measure.
+     * @param <E> The type of the checked exception that the call may throw.
+     * @throws E If the call throws it.
+     */
+    public <E extends Exception> void time(Action<E> action) throws E {
+        long started = start();
+        boolean succeeded = false;
+        try {
+            action.run();
+            succeeded = true;
+        } finally {
+            finish(started, succeeded);
+        }
+    }
+
+    /**
+     * Gets the latencies of all calls so far, in nanoseconds.
+     * @return A new histogram with the latencies recorded by all threads.
+     */
+    public LatencyHistogram getLatencies() {
+        LatencyHistogram all = new LatencyHistogram();
+        for (LatencyHistogram stripe : latencies) {
+            all.add(stripe);
+        }
+        return all;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        long count = 0;
+        for (LatencyHistogram stripe : latencies) {
+            count += stripe.getTotalCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return getLatencies().getMean() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return getLatencies().getValueAtPercentile(50) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return getLatencies().getValueAtPercentile(99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return getLatencies().getValueAtPercentile(99.9) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return getLatencies().getMax() / NANOS_PER_MICRO;
+    }
+
+    /**
+     * A call measured by {@link #time(Call)}.
+     * @param <T> The type of the result.
+     * @param <E> The type of the checked exception that the call may throw.
+     */
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+        /**
+         * Makes the call.
+         * @return The result.
+         * @throws E If the call fails.
+         */
+        T call() throws E;
+    }
+
+    /**
+     * A call without a result, measured by {@link #time(Action)}.
+     * @param <E> The type of the checked exception that the call may throw.
+     */
+    @FunctionalInterface
+    public interface Action<E extends Exception> {
+        /**
+         * Makes the call.
+         * @throws E If the call fails.
+         */
+        void run() throws E;
+    }
+}
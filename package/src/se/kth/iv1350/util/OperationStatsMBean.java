@@ -0,0 +1,52 @@
+package se.kth.iv1350.util;
+
+/**
+ * The management interface of {@link OperationStats}, as shown by JMX clients such as JConsole.
+ * All latencies are in microseconds.
+ */
+public interface OperationStatsMBean {
+    /**
+     * @return The name of the operation.
+     */
+    String getName();
+
+    /**
+     * @return The number of completed calls, including failed calls.
+     */
+    long getCount();
+
+    /**
+     * @return The number of calls that failed.
+     */
+    long getFailureCount();
+
+    /**
+     * @return The number of calls that are running now.
+     */
+    long getInFlight();
+
+    /**
+     * @return The mean latency.
+     */
+    double getMeanMicros();
+
+    /**
+     * @return The median latency.
+     */
+    double getP50Micros();
+
+    /**
+     * @return The 99th percentile of the latency.
+     */
+    double getP99Micros();
+
+    /**
+     * @return The 99.9th percentile of the latency.
+     */
+    double getP999Micros();
+
+    /**
+     * @return The longest latency.
+     */
+    double getMaxMicros();
+}
@@ -0,0 +1,36 @@
+package se.kth.iv1350.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for a payment of a sale, including the updates of the external systems
+ * and the printing of the receipt.
+ */
+@Name(PaymentEvent.NAME)
+@Label("Payment")
+@Description("A sale was paid for")
+@Category({"IV1350 POS", "Sale"})
+@Enabled(false)
+@StackTrace(false)
+public final class PaymentEvent extends jdk.jfr.Event {
+    /**
+     * The name of the event in a recording.
+     */
+    public static final String NAME = "se.kth.iv1350.Payment";
+
+    @Label("Sale ID")
+    public long saleID;
+
+    @Label("Total")
+    @Description("The total price of the sale, including VAT, in minor units")
+    public long totalMinorUnits;
+
+    @Label("Succeeded")
+    @Description("False if the amount paid was not enough or the sale could not be registered")
+    public boolean succeeded;
+}
@@ -0,0 +1,27 @@
+package se.kth.iv1350.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for the receipt of a sale being printed.
+ */
+@Name(ReceiptPrintedEvent.NAME)
+@Label("Receipt Printed")
+@Description("The receipt of a sale was printed")
+@Category({"IV1350 POS", "Sale"})
+@Enabled(false)
+@StackTrace(false)
+public final class ReceiptPrintedEvent extends jdk.jfr.Event {
+    /**
+     * The name of the event in a recording.
+     */
+    public static final String NAME = "se.kth.iv1350.ReceiptPrinted";
+
+    @Label("Sale ID")
+    public long saleID;
+}
@@ -0,0 +1,46 @@
+package se.kth.iv1350.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+
+/**
+ * Starts Flight Recorder recordings of the sale lifecycle events. The events are disabled by
+ * default, so they cost next to nothing until a recording enables them. They can be enabled at
+ * runtime, without restarting the application, either with {@link #start(Path)} or from outside
+ * the process, by starting a recording with JDK Mission Control or through the
+ * {@code jdk.management.jfr.FlightRecorderMXBean} and enabling the events named in
+ * {@link #EVENT_NAMES}. A recording is read by {@link SaleRecordingAnalyzer}.
+ */
+public final class SaleRecording {
+    /**
+     * The names of the sale lifecycle events.
+     */
+    public static final List<String> EVENT_NAMES = List.of(SaleStartedEvent.NAME, ItemEnteredEvent.NAME,
+            PaymentEvent.NAME, ReceiptPrintedEvent.NAME, ObserverDispatchEvent.NAME);
+
+    private SaleRecording() {
+    }
+
+    /**
+     * Starts a recording of all sale lifecycle events, without a duration threshold. The events
+     * are written to the destination when the recording is stopped. Close the recording after it
+     * has been stopped to release its resources.
+     *
+     * @param destination The file to write the recording to.
+     * @return The started recording.
+     * @throws IOException If the destination cannot be written.
+     */
+    public static Recording start(Path destination) throws IOException {
+        Recording recording = new Recording();
+        recording.setName("Sale lifecycle");
+        for (String eventName : EVENT_NAMES) {
+            recording.enable(eventName).withoutThreshold();
+        }
+        recording.setToDisk(true);
+        recording.setDestination(destination);
+        recording.start();
+        return recording;
+    }
+}
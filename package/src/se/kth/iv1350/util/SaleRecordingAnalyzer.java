@@ -0,0 +1,185 @@
+package se.kth.iv1350.util;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Reads a Flight Recorder recording of the sale lifecycle events, see {@link SaleRecording}, and
+ * breaks the time spent on the sales down by stage: entering items, of which looking the items up
+ * with and without a cache hit, paying, printing the receipt and notifying each revenue observer.
+ * The time of each sale is the time spent entering its items and paying for it, so the slowest
+ * sales can be found by their sale ID in the recording.
+ * <p>
+ * Run with {@code java se.kth.iv1350.util.SaleRecordingAnalyzer <recording.jfr> [number of slowest sales]}.
+ */
+public class SaleRecordingAnalyzer {
+    /**
+     * The stage of entering an item.
+     */
+    public static final String ENTER_ITEM = "enterItem";
+    /**
+     * The stage of looking up an item that was cached.
+     */
+    public static final String LOOKUP_CACHE_HIT = "lookup (cache hit)";
+    /**
+     * The stage of looking up an item that was not cached.
+     */
+    public static final String LOOKUP_CACHE_MISS = "lookup (cache miss)";
+    /**
+     * The stage of paying for a sale, including printing the receipt.
+     */
+    public static final String ENTER_PAYMENT = "enterPayment";
+    /**
+     * The stage of printing a receipt.
+     */
+    public static final String PRINT_RECEIPT = "printReceipt";
+    /**
+     * The prefix of the stage of notifying a revenue observer, followed by the class name of the observer.
+     */
+    public static final String OBSERVER_PREFIX = "observer ";
+
+    private static final int DEFAULT_SLOWEST_SALES = 10;
+
+    private final Map<String, LatencyHistogram> stages = new LinkedHashMap<>();
+    private final Map<Long, Long> saleNanos = new HashMap<>();
+    private long startedSales;
+
+    private SaleRecordingAnalyzer() {
+        stages.put(ENTER_ITEM, new LatencyHistogram());
+        stages.put(LOOKUP_CACHE_HIT, new LatencyHistogram());
+        stages.put(LOOKUP_CACHE_MISS, new LatencyHistogram());
+        stages.put(ENTER_PAYMENT, new LatencyHistogram());
+        stages.put(PRINT_RECEIPT, new LatencyHistogram());
+    }
+
+    /**
+     * Reads a recording. Events other than the sale lifecycle events are ignored.
+     * @param recording The recording file.
+     * @return The analysis of the recording.
+     * @throws IOException If the recording could not be read.
+     */
+    public static SaleRecordingAnalyzer read(Path recording) throws IOException {
+        SaleRecordingAnalyzer analyzer = new SaleRecordingAnalyzer();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                analyzer.add(file.readEvent());
+            }
+        }
+        return analyzer;
+    }
+
+    private void add(RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        switch (event.getEventType().getName()) {
+            case SaleStartedEvent.NAME:
+                startedSales++;
+                break;
+            case ItemEnteredEvent.NAME:
+                stages.get(ENTER_ITEM).record(nanos);
+                stages.get(event.getBoolean("cacheHit") ? LOOKUP_CACHE_HIT : LOOKUP_CACHE_MISS)
+                        .record(event.getDuration("lookupDuration").toNanos());
+                saleNanos.merge(event.getLong("saleID"), nanos, Long::sum);
+                break;
+            case PaymentEvent.NAME:
+                stages.get(ENTER_PAYMENT).record(nanos);
+                saleNanos.merge(event.getLong("saleID"), nanos, Long::sum);
+                break;
+            case ReceiptPrintedEvent.NAME:
+                stages.get(PRINT_RECEIPT).record(nanos);
+                break;
+            case ObserverDispatchEvent.NAME:
+                stages.computeIfAbsent(OBSERVER_PREFIX + event.getString("observer"), stage -> new LatencyHistogram())
+                        .record(nanos);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Gets the latencies of each stage, in nanoseconds.
+     * @return The latency histogram of each stage, by stage name.
+     */
+    public Map<String, LatencyHistogram> getStages() {
+        return Collections.unmodifiableMap(stages);
+    }
+
+    /**
+     * Gets the number of sales that were started during the recording.
+     * @return The number of started sales.
+     */
+    public long getStartedSales() {
+        return startedSales;
+    }
+
+    /**
+     * Gets the time spent entering items and paying for a sale.
+     * @param saleID The ID of the sale.
+     * @return The time of the sale in nanoseconds, or 0 if the sale is not in the recording.
+     */
+    public long getSaleNanos(long saleID) {
+        return saleNanos.getOrDefault(saleID, 0L);
+    }
+
+    /**
+     * Gets the IDs of the sales with the longest time spent entering items and paying.
+     * @param count The maximum number of sales.
+     * @return The IDs of the slowest sales, the slowest first.
+     */
+    public List<Long> getSlowestSales(int count) {
+        List<Map.Entry<Long, Long>> sales = new ArrayList<>(saleNanos.entrySet());
+        sales.sort(Map.Entry.<Long, Long>comparingByValue().reversed());
+        List<Long> slowest = new ArrayList<>();
+        for (Map.Entry<Long, Long> sale : sales.subList(0, Math.min(count, sales.size()))) {
+            slowest.add(sale.getKey());
+        }
+        return slowest;
+    }
+
+    /**
+     * Prints the latency of each stage as a table, followed by the slowest sales.
+     * @param out The stream to print to.
+     * @param slowestSales The number of slowest sales to print.
+     */
+    public void print(PrintStream out, int slowestSales) {
+        out.printf("%d sales started, %d sales with entered items or payments%n", startedSales, saleNanos.size());
+        out.printf("%-40s %10s %10s %10s %10s %10s%n", "stage (us)", "count", "mean", "p50", "p99", "max");
+        for (Map.Entry<String, LatencyHistogram> stage : stages.entrySet()) {
+            LatencyHistogram histogram = stage.getValue();
+            out.printf("%-40s %10d %10.1f %10.1f %10.1f %10.1f%n", stage.getKey(), histogram.getTotalCount(),
+                    histogram.getMean() / 1000, micros(histogram.getValueAtPercentile(50)),
+                    micros(histogram.getValueAtPercentile(99)), micros(histogram.getMax()));
+        }
+        out.println("Slowest sales (us):");
+        for (long saleID : getSlowestSales(slowestSales)) {
+            out.printf("  Sale #%d %10.1f%n", saleID, micros(getSaleNanos(saleID)));
+        }
+    }
+
+    /**
+     * Reads a recording and prints the analysis.
+     * @param args The recording file, and optionally the number of slowest sales to print.
+     * @throws IOException If the recording could not be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: SaleRecordingAnalyzer <recording.jfr> [number of slowest sales]");
+            System.exit(2);
+        }
+        int slowestSales = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SLOWEST_SALES;
+        read(Path.of(args[0])).print(System.out, slowestSales);
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+}
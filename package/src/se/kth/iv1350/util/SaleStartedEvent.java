@@ -0,0 +1,28 @@
+package se.kth.iv1350.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for a sale that was started. Like all sale lifecycle events, it is
+ * disabled by default and only recorded when enabled in a recording, see {@link SaleRecording}.
+ */
+@Name(SaleStartedEvent.NAME)
+@Label("Sale Started")
+@Description("A new sale was started")
+@Category({"IV1350 POS", "Sale"})
+@Enabled(false)
+@StackTrace(false)
+public final class SaleStartedEvent extends jdk.jfr.Event {
+    /**
+     * The name of the event in a recording.
+     */
+    public static final String NAME = "se.kth.iv1350.SaleStarted";
+
+    @Label("Sale ID")
+    public long saleID;
+}
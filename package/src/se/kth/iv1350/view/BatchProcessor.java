@@ -0,0 +1,290 @@
+package se.kth.iv1350.view;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import se.kth.iv1350.controller.Controller;
+import se.kth.iv1350.controller.OperationFailedException;
+import se.kth.iv1350.controller.SaleHandle;
+import se.kth.iv1350.dto.BatchEntryResultDTO;
+import se.kth.iv1350.dto.ItemEntryDTO;
+import se.kth.iv1350.integration.AccountingSystem;
+import se.kth.iv1350.integration.DiscountDatabase;
+import se.kth.iv1350.integration.InventorySystem;
+import se.kth.iv1350.integration.Printer;
+import se.kth.iv1350.model.Register;
+import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.view.BatchReport.Status;
+
+/**
+ * Processes a file of transactions through a {@link Controller} without a user interface, for
+ * example the sales of an offline lane imported at the end of the day, or online orders. The
+ * file is read one record at a time and the sales are processed by several threads, with a
+ * bounded number of sales waiting to be processed, so files of any size are processed with the
+ * same amount of memory.
+ * <p>
+ * A transaction file has one sale per line:
+ * <pre>
+ * reference;itemID[:quantity],itemID[:quantity],...;[amount paid];[customerID]
+ * </pre>
+ * The quantity is one if it is not given, and the sale is paid with exactly the total if no
+ * amount is given. If a customer ID is given, the discounts of the customer are applied. Empty
+ * lines and lines starting with {@code #} are ignored.
+ * <p>
+ * One result line is written for each sale:
+ * <pre>
+ * reference;status;total;change;details
+ * </pre>
+ * where the status is one of {@link Status}, and the details are the items that were not found
+ * or the reason the sale failed. The results are written as the sales complete, which is not
+ * necessarily the order of the transaction file.
+ * <p>
+ * Run with {@code java se.kth.iv1350.view.BatchProcessor --input FILE --output FILE [--threads N]},
+ * where the number of threads is the number of processors by default. Receipts are not shown
+ * while the batch is processed.
+ */
+public class BatchProcessor {
+    private static final String CURRENCY = "SEK";
+    private static final String FIELD_SEPARATOR = ";";
+    private static final String RESULT_HEADER = "reference;status;total;change;details";
+    private static final int QUEUED_SALES_PER_THREAD = 64;
+
+    private final Controller controller;
+    private final int threads;
+
+    /**
+     * Creates a new batch processor.
+     * @param controller The controller to process the sales with.
+     * @param threads The number of sales processed at the same time.
+     */
+    public BatchProcessor(Controller controller, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed, got " + threads);
+        }
+        this.controller = controller;
+        this.threads = threads;
+    }
+
+    /**
+     * Processes all sales of a transaction file and writes the result of each sale. The method
+     * returns when all sales are processed and all results are written.
+     * @param transactions The transactions, in the format described in the class description.
+     * @param results Where the results are written, in the format described in the class description.
+     * @return The number of sales with each status, and the processing rate.
+     * @throws IOException If the transactions could not be read or the results could not be written.
+     * @throws InterruptedException If interrupted while waiting for the sales to be processed.
+     */
+    public BatchReport process(Reader transactions, Writer results) throws IOException, InterruptedException {
+        BatchReport report = new BatchReport();
+        BufferedReader records = new BufferedReader(transactions);
+        BufferedWriter output = new BufferedWriter(results);
+        ResultWriter resultWriter = new ResultWriter(output);
+        resultWriter.write(RESULT_HEADER);
+
+        Semaphore queuedSales = new Semaphore(threads * QUEUED_SALES_PER_THREAD);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            int lineNumber = 0;
+            for (String record = records.readLine(); record != null; record = records.readLine()) {
+                lineNumber++;
+                if (record.isBlank() || record.startsWith("#")) {
+                    continue;
+                }
+                resultWriter.throwIfFailed();
+                queuedSales.acquire();
+                int recordLineNumber = lineNumber;
+                String queuedRecord = record;
+                executor.execute(() -> {
+                    try {
+                        resultWriter.write(processRecord(queuedRecord, recordLineNumber, report));
+                    } finally {
+                        queuedSales.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        report.setElapsedNanos(System.nanoTime() - start);
+        resultWriter.throwIfFailed();
+        output.flush();
+        return report;
+    }
+
+    private String processRecord(String record, int lineNumber, BatchReport report) {
+        String[] fields = record.split(FIELD_SEPARATOR, -1);
+        String reference = fields[0].trim();
+        List<ItemEntryDTO> entries;
+        Amount payment;
+        try {
+            if (fields.length < 2 || reference.isEmpty()) {
+                throw new IllegalArgumentException("expected at least a reference and items");
+            }
+            entries = parseItems(fields[1]);
+            payment = fields.length > 2 && !fields[2].isBlank()
+                    ? new Amount(Double.parseDouble(fields[2].trim()), CURRENCY) : null;
+        } catch (IllegalArgumentException e) {
+            report.recordSale(Status.INVALID, 0);
+            String identifier = reference.isEmpty() ? "line " + lineNumber : reference;
+            return result(identifier, Status.INVALID, null, null, "Invalid record on line " + lineNumber
+                    + ": " + e.getMessage());
+        }
+        String customerID = fields.length > 3 && !fields[3].isBlank() ? fields[3].trim() : null;
+
+        SaleHandle sale = null;
+        try {
+            sale = controller.startSale();
+            BatchEntryResultDTO entered = controller.enterItems(sale, entries);
+            if (customerID != null) {
+                controller.signalDiscountCustomer(sale, customerID);
+            }
+            Amount total = controller.endSale(sale);
+            Amount change = controller.enterPayment(sale, payment != null ? payment : total);
+            int itemsNotFound = entered.getItemsNotFound().size();
+            if (change == null) {
+                report.recordSale(Status.NOT_PAID, itemsNotFound);
+                return result(reference, Status.NOT_PAID, total, null, "Insufficient payment: " + payment);
+            }
+            report.recordSale(Status.COMPLETED, itemsNotFound);
+            return result(reference, Status.COMPLETED, total, change, describeItemsNotFound(entered));
+        } catch (OperationFailedException e) {
+            report.recordSale(Status.FAILED, 0);
+            return result(reference, Status.FAILED, null, null, e.getMessage());
+        } catch (RuntimeException e) {
+            report.recordSale(Status.FAILED, 0);
+            return result(reference, Status.FAILED, null, null, String.valueOf(e.getMessage()));
+        } finally {
+            controller.cancelSale(sale);
+        }
+    }
+
+    private static List<ItemEntryDTO> parseItems(String items) {
+        List<ItemEntryDTO> entries = new ArrayList<>();
+        for (String item : items.split(",")) {
+            String trimmed = item.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int quantitySeparator = trimmed.lastIndexOf(':');
+            if (quantitySeparator < 0) {
+                entries.add(new ItemEntryDTO(trimmed, 1));
+            } else {
+                int quantity = Integer.parseInt(trimmed.substring(quantitySeparator + 1));
+                if (quantity < 1) {
+                    throw new IllegalArgumentException("invalid quantity " + quantity + " of " + trimmed);
+                }
+                entries.add(new ItemEntryDTO(trimmed.substring(0, quantitySeparator), quantity));
+            }
+        }
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException("the sale has no items");
+        }
+        return entries;
+    }
+
+    private static String describeItemsNotFound(BatchEntryResultDTO entered) {
+        if (entered.getItemsNotFound().isEmpty()) {
+            return "";
+        }
+        StringBuilder details = new StringBuilder("Items not found:");
+        for (ItemEntryDTO entry : entered.getItemsNotFound()) {
+            details.append(' ').append(entry.getItemID());
+        }
+        return details.toString();
+    }
+
+    private static String result(String reference, Status status, Amount total, Amount change, String details) {
+        return String.join(FIELD_SEPARATOR, reference, status.name(), format(total), format(change),
+                details.replace(FIELD_SEPARATOR, ",").replace('\n', ' '));
+    }
+
+    private static String format(Amount amount) {
+        return amount == null ? "" : String.format(Locale.ROOT, "%.2f", amount.getValue());
+    }
+
+    /**
+     * Runs the batch processor with the options described in the class description, and prints
+     * the number of sales with each status.
+     * @param args The options.
+     * @throws IOException If the transactions could not be read or the results could not be written.
+     * @throws InterruptedException If interrupted while processing the sales.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = parseOptions(args);
+        if (!options.containsKey("input") || !options.containsKey("output")) {
+            throw new IllegalArgumentException("Both --input and --output must be given.");
+        }
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        Controller controller = new Controller(new InventorySystem(), new AccountingSystem(), new DiscountDatabase(),
+                Printer.discardingReceipts(), new Register());
+        BatchReport report;
+        try (Reader transactions = Files.newBufferedReader(Path.of(options.get("input")), StandardCharsets.UTF_8);
+             Writer results = Files.newBufferedWriter(Path.of(options.get("output")), StandardCharsets.UTF_8)) {
+            report = new BatchProcessor(controller, threads).process(transactions, results);
+        } finally {
+            controller.shutdown();
+        }
+        report.print(System.out);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected an option and its value, found " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    /**
+     * Writes result lines from several threads, and keeps the first failure to write so that it
+     * can be reported by the thread reading the transactions.
+     */
+    private static final class ResultWriter {
+        private final BufferedWriter output;
+        private final AtomicReference<IOException> failure = new AtomicReference<>();
+
+        ResultWriter(BufferedWriter output) {
+            this.output = output;
+        }
+
+        void write(String line) {
+            synchronized (output) {
+                try {
+                    output.write(line);
+                    output.newLine();
+                } catch (IOException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        }
+
+        void throwIfFailed() throws IOException {
+            IOException e = failure.get();
+            if (e != null) {
+                throw new IOException("Could not write the results.", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package se.kth.iv1350.view;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import se.kth.iv1350.controller.Controller;
+import se.kth.iv1350.integration.AccountingSystem;
+import se.kth.iv1350.integration.DiscountDatabase;
+import se.kth.iv1350.integration.InventorySystem;
+import se.kth.iv1350.integration.Printer;
+import se.kth.iv1350.model.Register;
+import se.kth.iv1350.view.BatchReport.Status;
+
+public class BatchProcessorTest {
+    private static final String TRANSACTIONS = String.join("\n",
+            "# reference;items;paid;customer",
+            "order-1;abc123:2,def456;100;",
+            "order-2;ghi789,unknown;;",
+            "order-3;abc123;1;",
+            "order-4;abc123:two;;",
+            "",
+            "order-5;abc123;;vip1");
+
+    private PrintStream originalOut;
+    private Register register;
+    private Controller controller;
+
+    @BeforeEach
+    public void setUp() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        register = new Register();
+        controller = new Controller(new InventorySystem(), new AccountingSystem(), new DiscountDatabase(),
+                new Printer(), register);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        controller.shutdown();
+        System.setOut(originalOut);
+    }
+
+    @Test
+    public void testEverySaleHasAResult() throws Exception {
+        StringWriter results = new StringWriter();
+
+        BatchReport report = new BatchProcessor(controller, 2).process(new StringReader(TRANSACTIONS), results);
+
+        Map<String, String[]> resultsByReference = readResults(results);
+        assertEquals(5, resultsByReference.size(), "There should be one result for each sale.");
+        assertEquals(Status.COMPLETED.name(), resultsByReference.get("order-1")[1], "order-1 should be paid.");
+        assertEquals("Items not found: unknown", resultsByReference.get("order-2")[4],
+                "The unknown item should be reported.");
+        assertEquals(Status.NOT_PAID.name(), resultsByReference.get("order-3")[1], "1 SEK should not be enough.");
+        assertEquals(Status.INVALID.name(), resultsByReference.get("order-4")[1],
+                "A quantity that is not a number should be rejected.");
+        assertEquals(3, report.getSales(Status.COMPLETED), "Three sales should be completed.");
+        assertEquals(1, report.getItemsNotFound(), "One item should not be found.");
+    }
+
+    @Test
+    public void testCustomerDiscountIsApplied() throws Exception {
+        StringWriter results = new StringWriter();
+
+        new BatchProcessor(controller, 1).process(new StringReader("a;abc123;;\nb;abc123;;vip1"), results);
+
+        Map<String, String[]> resultsByReference = readResults(results);
+        double withoutDiscount = Double.parseDouble(resultsByReference.get("a")[2]);
+        double withDiscount = Double.parseDouble(resultsByReference.get("b")[2]);
+        assertTrue(withDiscount < withoutDiscount, "The discount of the customer should lower the total.");
+    }
+
+    @Test
+    public void testManySalesAreProcessedInParallel() throws Exception {
+        StringBuilder transactions = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            transactions.append("sale-").append(i).append(";abc123:2,ghi789;;\n");
+        }
+        StringWriter results = new StringWriter();
+
+        BatchReport report = new BatchProcessor(controller, 4).process(new StringReader(transactions.toString()),
+                results);
+
+        assertEquals(5_000, report.getSales(Status.COMPLETED), "Every sale should be completed.");
+        assertEquals(5_000, readResults(results).size(), "Every sale should have a result.");
+        double total = Double.parseDouble(readResults(results).get("sale-0")[2]);
+        assertEquals(5_000 * total, register.getBalance().getValue(), 0.001,
+                "Every sale should be paid into the register.");
+    }
+
+    private static Map<String, String[]> readResults(StringWriter results) {
+        List<String> lines = results.toString().lines().collect(Collectors.toList());
+        assertEquals("reference;status;total;change;details", lines.get(0), "The first line should be the header.");
+        return lines.subList(1, lines.size()).stream()
+                .map(line -> Arrays.copyOf(line.split(";", -1), 5))
+                .collect(Collectors.toMap(fields -> fields[0], Function.identity()));
+    }
+}
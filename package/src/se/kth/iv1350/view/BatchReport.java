@@ -0,0 +1,96 @@
+package se.kth.iv1350.view;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The results of a run of the {@link BatchProcessor}: the number of sales with each status, the
+ * number of items that were not found, and the number of sales processed per second.
+ */
+public class BatchReport {
+    /**
+     * The outcome of processing one sale of a transaction file.
+     */
+    public enum Status {
+        /** The sale was paid for. Items that were not found are left out of the sale. */
+        COMPLETED,
+        /** The amount paid was less than the total, so the sale was not completed. */
+        NOT_PAID,
+        /** The sale could not be processed because of a system error. */
+        FAILED,
+        /** The record could not be read, so no sale was started. */
+        INVALID
+    }
+
+    private final Map<Status, LongAdder> sales = new EnumMap<>(Status.class);
+    private final LongAdder itemsNotFound = new LongAdder();
+    private volatile long elapsedNanos;
+
+    BatchReport() {
+        for (Status status : Status.values()) {
+            sales.put(status, new LongAdder());
+        }
+    }
+
+    void recordSale(Status status, int itemsNotFoundInSale) {
+        sales.get(status).increment();
+        itemsNotFound.add(itemsNotFoundInSale);
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the number of sales with the specified status.
+     * @param status The status.
+     * @return The number of sales.
+     */
+    public long getSales(Status status) {
+        return sales.get(status).sum();
+    }
+
+    /**
+     * Gets the number of records that were processed, whatever their status.
+     * @return The number of records.
+     */
+    public long getTotalSales() {
+        long total = 0;
+        for (LongAdder count : sales.values()) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Gets the number of item entries that were left out of their sales because the items were
+     * not found in the inventory.
+     * @return The number of items not found.
+     */
+    public long getItemsNotFound() {
+        return itemsNotFound.sum();
+    }
+
+    /**
+     * Gets the number of records processed per second.
+     * @return The processing rate.
+     */
+    public double getSalesPerSecond() {
+        return elapsedNanos == 0 ? 0 : getTotalSales() / (elapsedNanos / 1_000_000_000.0);
+    }
+
+    /**
+     * Prints the report.
+     * @param out The stream to print to.
+     */
+    public void print(PrintStream out) {
+        out.printf("%d sales in %.1f s: %.0f sales/s%n", getTotalSales(), elapsedNanos / 1_000_000_000.0,
+                getSalesPerSecond());
+        for (Status status : Status.values()) {
+            out.printf("%-10s %10d%n", status, getSales(status));
+        }
+        out.printf("%d items not found%n", getItemsNotFound());
+    }
+}
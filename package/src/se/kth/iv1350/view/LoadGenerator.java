@@ -0,0 +1,215 @@
+package se.kth.iv1350.view;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import se.kth.iv1350.controller.Controller;
+import se.kth.iv1350.controller.OperationFailedException;
+import se.kth.iv1350.controller.SaleHandle;
+import se.kth.iv1350.dto.ItemDTO;
+import se.kth.iv1350.dto.ItemEntryDTO;
+import se.kth.iv1350.integration.AccountingSystem;
+import se.kth.iv1350.integration.DiscountDatabase;
+import se.kth.iv1350.integration.InMemoryItemCatalog;
+import se.kth.iv1350.integration.InventorySystem;
+import se.kth.iv1350.integration.Printer;
+import se.kth.iv1350.model.Register;
+import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.view.LoadReport.Operation;
+
+/**
+ * Replays the sales of a {@link SaleTrace} against a {@link Controller} from several checkout
+ * lanes at the same time, without any user interface, and measures the latency of each
+ * controller call. The lanes take the sales of the trace in turn, starting over from the first
+ * sale when the trace is used up, until the requested number of sales are completed.
+ * <p>
+ * Run with {@code java se.kth.iv1350.view.LoadGenerator [options]}, where the options are:
+ * <pre>
+ * --lanes N       number of concurrent lanes (default 4)
+ * --sales N       number of measured sales (default 100000)
+ * --warmup N      number of sales run before measuring (default 10000)
+ * --trace FILE    replay a recorded trace against the sample items
+ * --items N       number of items in a generated trace (default 1000)
+ * --zipf S        popularity skew of a generated trace (default 1.0)
+ * --lines N       mean number of scans per sale in a generated trace (default 8)
+ * --seed N        seed of a generated trace (default 1)
+ * --csv FILE      append the results to a CSV file
+ * </pre>
+ * Without {@code --trace}, a trace is generated for a catalog of {@code --items} items. Receipts
+ * are not shown while the load generator runs.
+ */
+public class LoadGenerator {
+    private static final String CURRENCY = "SEK";
+
+    private final Controller controller;
+    private final SaleTrace trace;
+    private final int lanes;
+
+    /**
+     * Creates a new load generator.
+     * @param controller The controller to run the sales against.
+     * @param trace The sales to run.
+     * @param lanes The number of lanes running sales at the same time.
+     */
+    public LoadGenerator(Controller controller, SaleTrace trace, int lanes) {
+        if (trace.size() == 0) {
+            throw new IllegalArgumentException("The trace has no sales.");
+        }
+        this.controller = controller;
+        this.trace = trace;
+        this.lanes = lanes;
+    }
+
+    /**
+     * Runs sales until the specified number of sales are completed or failed.
+     * @param numberOfSales The number of sales to run.
+     * @return The measured latencies and throughput.
+     * @throws InterruptedException If interrupted while waiting for the lanes.
+     */
+    public LoadReport run(long numberOfSales) throws InterruptedException {
+        LoadReport report = new LoadReport(lanes);
+        AtomicLong nextSale = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(lanes);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> laneResults = new ArrayList<>();
+            for (int lane = 0; lane < lanes; lane++) {
+                laneResults.add(executor.submit(() -> {
+                    for (long sale = nextSale.getAndIncrement(); sale < numberOfSales;
+                         sale = nextSale.getAndIncrement()) {
+                        runSale(trace.getSales().get((int) (sale % trace.size())), report);
+                    }
+                }));
+            }
+            for (Future<?> laneResult : laneResults) {
+                laneResult.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A lane failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        report.setElapsedNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    private void runSale(SaleTrace.ScriptedSale scriptedSale, LoadReport report) {
+        long saleStart = System.nanoTime();
+        SaleHandle sale = controller.startSale();
+        long afterStart = System.nanoTime();
+        report.record(Operation.START_SALE, afterStart - saleStart);
+
+        for (ItemEntryDTO scan : scriptedSale.getScans()) {
+            long scanStart = System.nanoTime();
+            try {
+                if (controller.tryEnterItem(sale, scan.getItemID(), scan.getQuantity()) == null) {
+                    report.scanFailed();
+                }
+            } catch (OperationFailedException e) {
+                report.scanFailed();
+            }
+            report.record(Operation.ENTER_ITEM, System.nanoTime() - scanStart);
+        }
+
+        long endStart = System.nanoTime();
+        Amount total = controller.endSale(sale);
+        long paymentStart = System.nanoTime();
+        report.record(Operation.END_SALE, paymentStart - endStart);
+
+        Amount payment = scriptedSale.getPayment() != null ? scriptedSale.getPayment() : total;
+        Amount change = controller.enterPayment(sale, payment);
+        long saleEnd = System.nanoTime();
+        report.record(Operation.ENTER_PAYMENT, saleEnd - paymentStart);
+        if (change == null) {
+            controller.cancelSale(sale);
+            report.paymentFailed();
+            return;
+        }
+        report.record(Operation.SALE, saleEnd - saleStart);
+        report.saleCompleted();
+    }
+
+    /**
+     * Runs the load generator with the options described in the class description, and prints the results.
+     * @param args The options.
+     * @throws IOException If the trace could not be read or the CSV file could not be written.
+     * @throws InterruptedException If interrupted while running the sales.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = parseOptions(args);
+        int lanes = Integer.parseInt(options.getOrDefault("lanes", "4"));
+        long sales = Long.parseLong(options.getOrDefault("sales", "100000"));
+        long warmupSales = Long.parseLong(options.getOrDefault("warmup", "10000"));
+
+        InventorySystem inventorySystem;
+        SaleTrace trace;
+        if (options.containsKey("trace")) {
+            inventorySystem = new InventorySystem();
+            try (Reader reader = Files.newBufferedReader(Path.of(options.get("trace")), StandardCharsets.UTF_8)) {
+                trace = SaleTrace.read(reader);
+            }
+        } else {
+            int items = Integer.parseInt(options.getOrDefault("items", "1000"));
+            List<ItemDTO> catalog = createItems(items);
+            List<String> itemIDs = new ArrayList<>();
+            for (ItemDTO item : catalog) {
+                itemIDs.add(item.getItemID());
+            }
+            inventorySystem = new InventorySystem(new InMemoryItemCatalog(catalog));
+            trace = SaleTrace.synthetic((int) Math.min(sales, 100_000), itemIDs,
+                    Double.parseDouble(options.getOrDefault("zipf", "1.0")),
+                    Double.parseDouble(options.getOrDefault("lines", "8")),
+                    Long.parseLong(options.getOrDefault("seed", "1")));
+        }
+
+        Controller controller = new Controller(inventorySystem, new AccountingSystem(), new DiscountDatabase(),
+                Printer.discardingReceipts(), new Register());
+        LoadGenerator generator = new LoadGenerator(controller, trace, lanes);
+
+        LoadReport report;
+        try {
+            if (warmupSales > 0) {
+                generator.run(warmupSales);
+            }
+            report = generator.run(sales);
+        } finally {
+            controller.shutdown();
+        }
+
+        report.print(System.out);
+        if (options.containsKey("csv")) {
+            report.appendToCsv(Path.of(options.get("csv")));
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected an option and its value, found " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static List<ItemDTO> createItems(int count) {
+        List<ItemDTO> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new ItemDTO("item" + i, "Item " + i, "Generated item " + i,
+                    Amount.ofMinorUnits(100 + (i * 37L) % 9900, CURRENCY), i % 3 == 0 ? 0.12 : 0.25));
+        }
+        return items;
+    }
+}
@@ -0,0 +1,110 @@
+package se.kth.iv1350.view;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import se.kth.iv1350.controller.Controller;
+import se.kth.iv1350.integration.AccountingSystem;
+import se.kth.iv1350.integration.DiscountDatabase;
+import se.kth.iv1350.integration.InventorySystem;
+import se.kth.iv1350.integration.Printer;
+import se.kth.iv1350.model.Register;
+import se.kth.iv1350.view.LoadReport.Operation;
+
+public class LoadGeneratorTest {
+    private static final String TRACE = String.join("\n",
+            "# two recorded sales",
+            "sale",
+            "scan abc123 2",
+            "scan def456",
+            "pay 100",
+            "",
+            "sale",
+            "scan ghi789",
+            "scan unknown",
+            "pay");
+
+    private PrintStream originalOut;
+    private Register register;
+    private Controller controller;
+
+    @BeforeEach
+    public void setUp() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        register = new Register();
+        controller = new Controller(new InventorySystem(), new AccountingSystem(), new DiscountDatabase(),
+                new Printer(), register);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        controller.shutdown();
+        System.setOut(originalOut);
+    }
+
+    @Test
+    public void testRecordedTraceIsRead() throws IOException {
+        SaleTrace trace = SaleTrace.read(new StringReader(TRACE));
+
+        assertEquals(2, trace.size(), "Both sales of the trace should be read.");
+        assertEquals(2, trace.getSales().get(0).getScans().get(0).getQuantity(), "The quantity should be read.");
+        assertNull(trace.getSales().get(1).getPayment(), "A payment without amount should pay the total.");
+    }
+
+    @Test
+    public void testInvalidTraceIsRejected() {
+        assertThrows(IOException.class, () -> SaleTrace.read(new StringReader("scan abc123")),
+                "A scan outside a sale should be rejected.");
+    }
+
+    @Test
+    public void testReplayMeasuresEveryOperation() throws Exception {
+        SaleTrace trace = SaleTrace.read(new StringReader(TRACE));
+
+        LoadReport report = new LoadGenerator(controller, trace, 4).run(100);
+
+        assertEquals(100, report.getCompletedSales(), "All sales should be completed.");
+        assertEquals(50, report.getFailedScans(), "Every second sale scans an unknown item.");
+        assertEquals(100, report.getHistogram(Operation.SALE).getTotalCount(), "Every sale should be measured.");
+        assertEquals(200, report.getHistogram(Operation.ENTER_ITEM).getTotalCount(), "Every scan should be measured.");
+        assertTrue(report.getSalesPerSecond() > 0, "The throughput should be measured.");
+        assertTrue(register.getBalance().getValue() > 0, "The sales should be paid into the register.");
+    }
+
+    @Test
+    public void testSyntheticTraceFavoursPopularItems() {
+        SaleTrace trace = SaleTrace.synthetic(2_000, List.of("popular", "b", "c", "d", "e", "f", "g", "h"),
+                1.0, 4, 42);
+
+        long popularScans = trace.getSales().stream().flatMap(sale -> sale.getScans().stream())
+                .filter(scan -> scan.getItemID().equals("popular")).count();
+        long allScans = trace.getSales().stream().mapToLong(sale -> sale.getScans().size()).sum();
+        assertTrue(popularScans > allScans / 4, "The most popular item should be scanned in many sales.");
+        assertEquals(4.0, (double) allScans / trace.size(), 0.5, "The mean number of scans should be as requested.");
+    }
+
+    @Test
+    public void testReportIsAppendedToCsv(@TempDir Path directory) throws Exception {
+        Path csv = directory.resolve("results.csv");
+        SaleTrace trace = SaleTrace.read(new StringReader(TRACE));
+        LoadGenerator generator = new LoadGenerator(controller, trace, 2);
+
+        generator.run(10).appendToCsv(csv);
+        generator.run(10).appendToCsv(csv);
+
+        List<String> lines = Files.readAllLines(csv);
+        assertEquals(1 + 2 * Operation.values().length, lines.size(), "The header should be written only once.");
+        assertTrue(lines.get(0).startsWith("run,lanes,operation"), "The first line should be the header.");
+    }
+}
@@ -0,0 +1,167 @@
+package se.kth.iv1350.view;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import se.kth.iv1350.util.LatencyHistogram;
+
+/**
+ * The results of a run of the {@link LoadGenerator}: the latency of each controller operation,
+ * the number of completed and failed sales, and the sustained number of sales per second.
+ */
+public class LoadReport {
+    private static final String CSV_HEADER =
+            "run,lanes,operation,count,mean_us,p50_us,p99_us,p999_us,max_us,sales_per_second";
+    private static final DateTimeFormatter RUN_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    /**
+     * The operations whose latency is measured. {@code SALE} is a whole sale, from start to payment.
+     */
+    public enum Operation {
+        START_SALE, ENTER_ITEM, END_SALE, ENTER_PAYMENT, SALE
+    }
+
+    private final int lanes;
+    private final Map<Operation, LatencyHistogram> histograms = new EnumMap<>(Operation.class);
+    private final LongAdder completedSales = new LongAdder();
+    private final LongAdder failedScans = new LongAdder();
+    private final LongAdder failedPayments = new LongAdder();
+    private final LocalDateTime startTime = LocalDateTime.now();
+    private volatile long elapsedNanos;
+
+    LoadReport(int lanes) {
+        this.lanes = lanes;
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new LatencyHistogram());
+        }
+    }
+
+    void record(Operation operation, long latencyNanos) {
+        histograms.get(operation).record(latencyNanos);
+    }
+
+    void saleCompleted() {
+        completedSales.increment();
+    }
+
+    void scanFailed() {
+        failedScans.increment();
+    }
+
+    void paymentFailed() {
+        failedPayments.increment();
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the latency histogram of an operation, in nanoseconds.
+     * @param operation The operation.
+     * @return The latencies of the operation.
+     */
+    public LatencyHistogram getHistogram(Operation operation) {
+        return histograms.get(operation);
+    }
+
+    /**
+     * Gets the latency histograms of all operations, in nanoseconds.
+     * @return The latencies of each operation.
+     */
+    public Map<Operation, LatencyHistogram> getHistograms() {
+        return Collections.unmodifiableMap(histograms);
+    }
+
+    /**
+     * Gets the number of sales that were paid for.
+     * @return The number of completed sales.
+     */
+    public long getCompletedSales() {
+        return completedSales.sum();
+    }
+
+    /**
+     * Gets the number of scans of items that could not be found or retrieved.
+     * @return The number of failed scans.
+     */
+    public long getFailedScans() {
+        return failedScans.sum();
+    }
+
+    /**
+     * Gets the number of payments that were not accepted.
+     * @return The number of failed payments.
+     */
+    public long getFailedPayments() {
+        return failedPayments.sum();
+    }
+
+    /**
+     * Gets the number of completed sales per second of the run.
+     * @return The sustained sales per second.
+     */
+    public double getSalesPerSecond() {
+        return elapsedNanos == 0 ? 0 : getCompletedSales() / (elapsedNanos / 1_000_000_000.0);
+    }
+
+    /**
+     * Prints the report as a table.
+     * @param out The stream to print to.
+     */
+    public void print(PrintStream out) {
+        out.printf("%d lanes, %d sales in %.1f s: %.0f sales/s, %d failed scans, %d failed payments%n",
+                lanes, getCompletedSales(), elapsedNanos / 1_000_000_000.0, getSalesPerSecond(),
+                getFailedScans(), getFailedPayments());
+        out.printf("%-14s %10s %10s %10s %10s %10s %10s%n", "operation (us)", "count", "mean", "p50", "p99", "p99.9", "max");
+        for (Map.Entry<Operation, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            out.printf("%-14s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", entry.getKey(), histogram.getTotalCount(),
+                    histogram.getMean() / 1000, micros(histogram.getValueAtPercentile(50)),
+                    micros(histogram.getValueAtPercentile(99)), micros(histogram.getValueAtPercentile(99.9)),
+                    micros(histogram.getMax()));
+        }
+    }
+
+    /**
+     * Appends the report to a CSV file, with one row per operation. The header is written if the
+     * file is new, so the results of several runs can be collected in one file and compared.
+     * @param file The CSV file.
+     * @throws IOException If the file could not be written.
+     */
+    public void appendToCsv(Path file) throws IOException {
+        boolean newFile = !Files.exists(file) || Files.size(file) == 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (newFile) {
+                writer.write(CSV_HEADER);
+                writer.newLine();
+            }
+            String run = startTime.format(RUN_FORMAT);
+            for (Map.Entry<Operation, LatencyHistogram> entry : histograms.entrySet()) {
+                LatencyHistogram histogram = entry.getValue();
+                writer.write(String.format(Locale.ROOT, "%s,%d,%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.1f", run, lanes,
+                        entry.getKey(), histogram.getTotalCount(), histogram.getMean() / 1000,
+                        micros(histogram.getValueAtPercentile(50)), micros(histogram.getValueAtPercentile(99)),
+                        micros(histogram.getValueAtPercentile(99.9)), micros(histogram.getMax()),
+                        getSalesPerSecond()));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+}
@@ -0,0 +1,168 @@
+package se.kth.iv1350.view;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import se.kth.iv1350.dto.ItemEntryDTO;
+import se.kth.iv1350.util.Amount;
+
+/**
+ * A sequence of sales to replay against the controller, each with the items that are scanned
+ * and the amount that is paid. A trace is either read from a recorded trace file or generated
+ * from a model of how popular the items are.
+ * <p>
+ * A trace file has one command per line:
+ * <pre>
+ * sale                     starts a new sale
+ * scan &lt;itemID&gt; [quantity] scans an item, one if no quantity is given
+ * pay [amount]             pays for the sale, with exactly the total if no amount is given
+ * </pre>
+ * Empty lines and lines starting with {@code #} are ignored.
+ */
+public class SaleTrace {
+    private static final String CURRENCY = "SEK";
+
+    private final List<ScriptedSale> sales;
+
+    private SaleTrace(List<ScriptedSale> sales) {
+        this.sales = Collections.unmodifiableList(sales);
+    }
+
+    /**
+     * Reads a recorded trace.
+     * @param trace The trace, in the format described in the class description.
+     * @return The trace.
+     * @throws IOException If the trace could not be read, or has an invalid line.
+     */
+    public static SaleTrace read(Reader trace) throws IOException {
+        BufferedReader lines = new BufferedReader(trace);
+        List<ScriptedSale> sales = new ArrayList<>();
+        List<ItemEntryDTO> scans = null;
+        int lineNumber = 0;
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            lineNumber++;
+            String[] words = line.trim().split("\\s+");
+            if (words[0].isEmpty() || words[0].startsWith("#")) {
+                continue;
+            }
+            String command = words[0].toLowerCase(Locale.ROOT);
+            try {
+                if (command.equals("sale")) {
+                    scans = new ArrayList<>();
+                } else if (command.equals("scan") && scans != null && words.length >= 2) {
+                    int quantity = words.length > 2 ? Integer.parseInt(words[2]) : 1;
+                    scans.add(new ItemEntryDTO(words[1], quantity));
+                } else if (command.equals("pay") && scans != null) {
+                    Amount payment = words.length > 1 ? new Amount(Double.parseDouble(words[1]), CURRENCY) : null;
+                    sales.add(new ScriptedSale(scans, payment));
+                    scans = null;
+                } else {
+                    throw new IOException("Invalid trace command on line " + lineNumber + ": " + line);
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid number on line " + lineNumber + ": " + line, e);
+            }
+        }
+        return new SaleTrace(sales);
+    }
+
+    /**
+     * Generates a trace where the popularity of the items follows a Zipf distribution, so that
+     * a few items are scanned in most sales, like milk and bread in a grocery store. The number
+     * of lines in a sale is geometrically distributed. All sales are paid with exactly the total.
+     *
+     * @param numberOfSales The number of sales in the trace.
+     * @param itemIDs The items that can be scanned, the most popular first.
+     * @param zipfExponent How skewed the popularity is. 0 makes all items equally popular, and
+     *                     around 1 is typical for shops.
+     * @param meanLinesPerSale The mean number of scans in a sale.
+     * @param seed The seed of the random numbers, the same seed gives the same trace.
+     * @return The trace.
+     */
+    public static SaleTrace synthetic(int numberOfSales, List<String> itemIDs, double zipfExponent,
+                                      double meanLinesPerSale, long seed) {
+        double[] cumulativePopularity = new double[itemIDs.size()];
+        double total = 0;
+        for (int rank = 0; rank < cumulativePopularity.length; rank++) {
+            total += 1 / Math.pow(rank + 1, zipfExponent);
+            cumulativePopularity[rank] = total;
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        double newLineProbability = 1 - 1 / Math.max(meanLinesPerSale, 1);
+        List<ScriptedSale> sales = new ArrayList<>(numberOfSales);
+        for (int i = 0; i < numberOfSales; i++) {
+            List<ItemEntryDTO> scans = new ArrayList<>();
+            do {
+                String itemID = itemIDs.get(pickRank(cumulativePopularity, random.nextDouble() * total));
+                scans.add(new ItemEntryDTO(itemID, 1));
+            } while (random.nextDouble() < newLineProbability);
+            sales.add(new ScriptedSale(scans, null));
+        }
+        return new SaleTrace(sales);
+    }
+
+    private static int pickRank(double[] cumulativePopularity, double point) {
+        int low = 0;
+        int high = cumulativePopularity.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulativePopularity[middle] < point) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the sales of the trace.
+     * @return The sales, in the order they were recorded or generated.
+     */
+    public List<ScriptedSale> getSales() {
+        return sales;
+    }
+
+    /**
+     * Gets the number of sales in the trace.
+     * @return The number of sales.
+     */
+    public int size() {
+        return sales.size();
+    }
+
+    /**
+     * One sale of a trace.
+     */
+    public static final class ScriptedSale {
+        private final List<ItemEntryDTO> scans;
+        private final Amount payment;
+
+        ScriptedSale(List<ItemEntryDTO> scans, Amount payment) {
+            this.scans = List.copyOf(scans);
+            this.payment = payment;
+        }
+
+        /**
+         * Gets the scans of the sale.
+         * @return The scanned items and quantities, in scanning order.
+         */
+        public List<ItemEntryDTO> getScans() {
+            return scans;
+        }
+
+        /**
+         * Gets the amount paid for the sale.
+         * @return The amount paid, or null if the sale is paid with exactly the total.
+         */
+        public Amount getPayment() {
+            return payment;
+        }
+    }
+}
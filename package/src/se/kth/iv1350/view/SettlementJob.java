@@ -0,0 +1,76 @@
+package se.kth.iv1350.view;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import se.kth.iv1350.dto.RevenueDTO;
+import se.kth.iv1350.dto.SettlementDTO;
+import se.kth.iv1350.integration.SalesSettlement;
+
+/**
+ * The end-of-day settlement: settles the sales of one day from a sales journal and prints the
+ * revenue per article, per VAT rate, per hour and per register.
+ * <p>
+ * Run with {@code java se.kth.iv1350.view.SettlementJob --journal FILE [--date yyyy-MM-dd]},
+ * where the date is today by default.
+ */
+public class SettlementJob {
+    private SettlementJob() {
+    }
+
+    /**
+     * Prints a settlement as tables.
+     * @param settlement The settlement to print.
+     * @param out The stream to print to.
+     */
+    public static void print(SettlementDTO settlement, PrintStream out) {
+        out.printf("Settlement %s - %s: %d sales, %s including %s VAT, discounts %s%n",
+                settlement.getPeriodStart(), settlement.getPeriodEnd(), settlement.getSaleCount(),
+                settlement.getTotalIncludingVAT(), settlement.getTotalVAT(), settlement.getDiscounts());
+        printTable("Article", "units", settlement.getRevenuePerArticle(), out);
+        printTable("VAT rate", "units", settlement.getRevenuePerVATRate(), out);
+        printTable("Hour", "sales", settlement.getRevenuePerHour(), out);
+        printTable("Register", "sales", settlement.getRevenuePerRegister(), out);
+    }
+
+    private static void printTable(String group, String countName, Map<?, RevenueDTO> revenues, PrintStream out) {
+        out.println();
+        out.printf("%-20s %10s %18s %18s%n", group, countName, "revenue", "VAT");
+        for (Map.Entry<?, RevenueDTO> entry : revenues.entrySet()) {
+            RevenueDTO revenue = entry.getValue();
+            out.printf("%-20s %10d %18s %18s%n", entry.getKey(), revenue.getCount(),
+                    revenue.getRevenueIncludingVAT(), revenue.getVAT());
+        }
+    }
+
+    /**
+     * Settles one day of a sales journal and prints the settlement.
+     * @param args The options described in the class description.
+     * @throws IOException If the journal could not be read.
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected an option and its value, found " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        if (!options.containsKey("journal")) {
+            throw new IllegalArgumentException("The journal must be given with --journal.");
+        }
+        LocalDate date = options.containsKey("date") ? LocalDate.parse(options.get("date")) : LocalDate.now();
+        LocalDateTime start = date.atStartOfDay();
+
+        long started = System.nanoTime();
+        SettlementDTO settlement = new SalesSettlement().settle(Path.of(options.get("journal")), start,
+                start.plusDays(1));
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        print(settlement, System.out);
+        System.out.printf("%nSettled in %d ms.%n", elapsedMillis);
+    }
+}
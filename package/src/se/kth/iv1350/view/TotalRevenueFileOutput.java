@@ -2,6 +2,7 @@ package se.kth.iv1350.view;
 
 import se.kth.iv1350.model.RevenueObserver;
 import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.util.CurrencyTotals;
 
 import java.io.FileWriter;
 import java.io.IOException;
@@ -15,7 +16,7 @@ import java.time.format.DateTimeFormatter;
  * when a sale is completed.
  */
 public class TotalRevenueFileOutput implements RevenueObserver {
-    private Amount totalRevenue;
+    private final CurrencyTotals totalRevenue;
     private PrintWriter revenueFile;
 
     /**
@@ -23,7 +24,7 @@ public class TotalRevenueFileOutput implements RevenueObserver {
      * file {@code total-revenue.txt} for writing.
      */
     public TotalRevenueFileOutput() {
-        this.totalRevenue = new Amount(0, "SEK");
+        this.totalRevenue = new CurrencyTotals();
         try {
             revenueFile = new PrintWriter(new FileWriter("total-revenue.txt", true), true);
         } catch (IOException e) {
@@ -39,8 +40,8 @@ public class TotalRevenueFileOutput implements RevenueObserver {
      * @param totalPriceOfSale The total price of the completed sale.
      */
     @Override
-    public void newSaleCompleted(Amount totalPriceOfSale) {
-        totalRevenue = totalRevenue.add(totalPriceOfSale);
+    public synchronized void newSaleCompleted(Amount totalPriceOfSale) {
+        totalRevenue.add(totalPriceOfSale);
         writeCurrentTotalRevenue();
     }
 
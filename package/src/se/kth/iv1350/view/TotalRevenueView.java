@@ -2,6 +2,7 @@ package se.kth.iv1350.view;
 
 import se.kth.iv1350.model.RevenueObserver;
 import se.kth.iv1350.util.Amount;
+import se.kth.iv1350.util.CurrencyTotals;
 
 /**
  * Shows the total revenue from all completed sales on the user interface.
@@ -9,13 +10,13 @@ import se.kth.iv1350.util.Amount;
  * when a sale is completed.
  */
 public class TotalRevenueView implements RevenueObserver {
-    private Amount totalRevenue;
+    private final CurrencyTotals totalRevenue;
 
     /**
      * Creates a new instance with a total revenue of zero.
      */
     public TotalRevenueView() {
-        this.totalRevenue = new Amount(0, "SEK");
+        this.totalRevenue = new CurrencyTotals();
     }
 
     /**
@@ -25,8 +26,8 @@ public class TotalRevenueView implements RevenueObserver {
      * @param totalPriceOfSale The total price of the completed sale.
      */
     @Override
-    public void newSaleCompleted(Amount totalPriceOfSale) {
-        totalRevenue = totalRevenue.add(totalPriceOfSale);
+    public synchronized void newSaleCompleted(Amount totalPriceOfSale) {
+        totalRevenue.add(totalPriceOfSale);
         printCurrentTotalRevenue();
     }
 
@@ -2,20 +2,23 @@ package se.kth.iv1350.view;
 
 import se.kth.iv1350.controller.Controller;
 import se.kth.iv1350.controller.OperationFailedException;
+import se.kth.iv1350.controller.SaleHandle;
 import se.kth.iv1350.dto.*;
-import se.kth.iv1350.integration.ItemNotFoundException;
 import se.kth.iv1350.util.Amount;
-import se.kth.iv1350.util.FileLogger;
+import se.kth.iv1350.util.AsyncLogger;
+import se.kth.iv1350.util.LogLevel;
 
+import java.io.Closeable;
 import java.util.Scanner;
 
 /**
- * Represents the user interface of the application.
+ * Represents the user interface of the application. The view writes errors to a log file, and
+ * must be closed when the application stops.
  */
-public class View {
+public class View implements Closeable {
     private final Controller contr;
     private final Scanner inputScanner;
-    private final FileLogger logger;
+    private final AsyncLogger logger;
 
     /**
      * Creates a new View instance.
@@ -25,7 +28,7 @@ public class View {
     public View(Controller contr) {
         this.contr = contr;
         this.inputScanner = new Scanner(System.in);
-        this.logger = new FileLogger();
+        this.logger = AsyncLogger.forFile("error-log.txt", LogLevel.ERROR);
 
         contr.addRevenueObserver(new TotalRevenueView());
         contr.addRevenueObserver(new TotalRevenueFileOutput());
@@ -35,7 +38,19 @@ public class View {
      * Starts the sale, allowing the user to input item IDs and quantities.
      */
     public void startSale() {
-        contr.startSale();
+        SaleHandle sale = contr.startSale();
+        try {
+            runSale(sale);
+        } finally {
+            contr.cancelSale(sale);
+        }
+    }
+
+    /**
+     * Enters the items of the sale and its payment. A sale that is not paid for when this
+     * returns is cancelled by {@link #startSale()}, so that its catalog version is released.
+     */
+    private void runSale(SaleHandle sale) {
         System.out.println("New sale started.");
         System.out.println("------------------------------------");
 
@@ -65,14 +80,15 @@ public class View {
             }
 
             try {
-                SaleStateDTO saleState = contr.enterItem(itemID, quantity);
+                SaleStateDTO saleState = contr.tryEnterItem(sale, itemID, quantity);
                 if (saleState != null) {
                     System.out.println("--- Item Added/Updated ---");
                     printSaleState(saleState);
+                } else {
+                    System.out.println("Item not found: No item with ID \"" + itemID
+                            + "\" exists in the inventory.");
+                    System.out.println();
                 }
-            } catch (ItemNotFoundException e) {
-                System.out.println("Item not found: " + e.getMessage());
-                System.out.println();
             } catch (OperationFailedException e) {
                 System.out.println("An error occurred, please try again. "
                         + "If the problem persists, contact support.");
@@ -83,7 +99,7 @@ public class View {
 
         System.out.println("------------------------------------");
         System.out.println("Ending sale...");
-        Amount totalPrice = contr.endSale();
+        Amount totalPrice = contr.endSale(sale);
         if (totalPrice != null) {
             System.out.println("Total cost (incl VAT): " + totalPrice);
         } else {
@@ -113,7 +129,7 @@ public class View {
         Amount amountPaid = new Amount(amountPaidValue, "SEK");
         System.out.println("Customer pays: " + amountPaid);
 
-        Amount change = contr.enterPayment(amountPaid);
+        Amount change = contr.enterPayment(sale, amountPaid);
 
         if (change != null) {
             System.out.println("Change to give the customer: " + change);
@@ -121,7 +137,7 @@ public class View {
             System.out.println("Payment failed: Insufficient amount or other error.");
         }
         System.out.println("------------------------------------");
-        System.out.println("Sale complete.");
+        System.out.println(change != null ? "Sale complete." : "Sale cancelled.");
         inputScanner.close();
     }
 
@@ -131,8 +147,19 @@ public class View {
         System.out.println("  Cost: " + item.getPrice());
         System.out.println("  VAT: " + (int) (item.getVatRate() * 100) + "%");
         System.out.println("  Description: " + item.getDescription());
+        for (AppliedPromotionDTO promotion : saleState.getAppliedPromotions()) {
+            System.out.println("Promotion: " + promotion);
+        }
         System.out.println("Running Total (incl VAT): " + saleState.getRunningTotalIncludingVAT());
         System.out.println("Current Total VAT: " + saleState.getCurrentTotalVAT());
         System.out.println();
     }
+
+    /**
+     * Closes the error log of the view.
+     */
+    @Override
+    public void close() {
+        logger.close();
+    }
 }